@@ -0,0 +1,95 @@
+package de.cimt.talendcomp.checksum.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.cimt.talendcomp.checksum.HashCalculation.HASH_OUTPUT_ENCODINGS;
+import de.cimt.talendcomp.checksum.Hasher;
+import de.cimt.talendcomp.checksum.Normalization;
+import de.cimt.talendcomp.checksum.NormalizeConfig;
+import de.cimt.talendcomp.checksum.NormalizeObjectConfig;
+
+/**
+ * Costs of hashing a normalized row of about 300 characters for one algorithm and output encoding,
+ * by name with {@link Normalization#calculateHash(String, HASH_OUTPUT_ENCODINGS)}, with a bound {@link Hasher} and streaming.
+ * The subclasses declare the combinations, because not every algorithm supports every encoding.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public abstract class AbstractCalculateHashBenchmark {
+
+	private String algorithmName;
+	private HASH_OUTPUT_ENCODINGS outputEncoding;
+	private Hasher hasher;
+	private Normalization normalization;
+	private Normalization bound;
+	private Normalization streaming;
+
+	protected abstract String getAlgorithm();
+
+	protected abstract String getEncoding();
+
+	@Setup
+	public void setup() {
+
+		NormalizeConfig config = new NormalizeConfig(";", "", true, "\"", "yyyy-MM-dd'T'HH:mm:ss.SSS", "ENGLISH", 7, 15, false, null, false, false);
+		NormalizeObjectConfig itemConfig = new NormalizeObjectConfig("CASE_SENSITIVE", false);
+
+		algorithmName = getAlgorithm();
+		outputEncoding = HASH_OUTPUT_ENCODINGS.valueOf(getEncoding());
+		hasher = new Hasher(algorithmName, outputEncoding);
+		normalization = new Normalization(config);
+		bound = new Normalization(config, hasher, false);
+		streaming = new Normalization(config, hasher, true);
+
+		for (Normalization n : new Normalization[] {normalization, bound}) {
+			for (int i = 0; i < 30; i++) {
+				n.add("column value " + i, itemConfig);
+			}
+		}
+	}
+
+	/**
+	 * RAW, LONG64 and HASH128 are no Strings, they are encoded by the hasher from the digest of the normalized string
+	 */
+	@Benchmark
+	public Object calculateHashByName() {
+
+		if (outputEncoding.isString())
+			return normalization.calculateHash(algorithmName, outputEncoding);
+
+		return hasher.encodeValue(hasher.digest(normalization.getNormalizedString()));
+	}
+
+	@Benchmark
+	public Object calculateHashBound() {
+		return bound.calculateHashValue();
+	}
+
+	/**
+	 * includes adding the values, because the streamed hash can only be calculated once
+	 */
+	@Benchmark
+	public Object addAndCalculateHashStreaming() {
+
+		streaming.reset();
+
+		for (int i = 0; i < 30; i++) {
+			streaming.addNormalized("\"column value \"");
+		}
+
+		return streaming.calculateHashValue();
+	}
+
+}
@@ -0,0 +1,26 @@
+package de.cimt.talendcomp.checksum.benchmark;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The output encoding HASH128 with every algorithm of at least 128 bit, i.e. all except XXH64
+ */
+@State(Scope.Thread)
+public class CalculateHash128Benchmark extends AbstractCalculateHashBenchmark {
+
+	@Param({"MD5", "SHA1", "SHA-256", "SHA-512/256", "SHA3-256", "BLAKE2B-256", "BLAKE2B-512", "XXH3-128", "MURMUR3-128"})
+	public String algorithm;
+
+	@Override
+	protected String getAlgorithm() {
+		return algorithm;
+	}
+
+	@Override
+	protected String getEncoding() {
+		return "HASH128";
+	}
+
+}
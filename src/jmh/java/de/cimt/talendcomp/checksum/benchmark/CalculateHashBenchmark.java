@@ -0,0 +1,29 @@
+package de.cimt.talendcomp.checksum.benchmark;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Every algorithm with every output encoding except HASH128, see {@link CalculateHash128Benchmark}
+ */
+@State(Scope.Thread)
+public class CalculateHashBenchmark extends AbstractCalculateHashBenchmark {
+
+	@Param({"MD5", "SHA1", "SHA-256", "SHA-512/256", "SHA3-256", "BLAKE2B-256", "BLAKE2B-512", "XXH64", "XXH3-128", "MURMUR3-128"})
+	public String algorithm;
+
+	@Param({"HEX", "BASE64", "RAW", "LONG64"})
+	public String encoding;
+
+	@Override
+	protected String getAlgorithm() {
+		return algorithm;
+	}
+
+	@Override
+	protected String getEncoding() {
+		return encoding;
+	}
+
+}
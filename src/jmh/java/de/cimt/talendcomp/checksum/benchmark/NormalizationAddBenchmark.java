@@ -0,0 +1,95 @@
+package de.cimt.talendcomp.checksum.benchmark;
+
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.cimt.talendcomp.checksum.Normalization;
+import de.cimt.talendcomp.checksum.NormalizeConfig;
+import de.cimt.talendcomp.checksum.NormalizeObjectConfig;
+
+/**
+ * Costs of adding one value per data type with {@link Normalization#add(Object, NormalizeObjectConfig)}
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NormalizationAddBenchmark {
+
+	private static final int VALUES = 1024;
+
+	@Param({"String", "Character", "Integer", "Long", "Short", "Float", "Double", "BigDecimal", "Boolean", "Date"})
+	public String type;
+
+	private Normalization normalization;
+	private NormalizeObjectConfig itemConfig;
+	private Object[] values;
+	private int index;
+
+	@Setup
+	public void setup() {
+
+		normalization = new Normalization(new NormalizeConfig(";", "", true, "\"", "yyyy-MM-dd'T'HH:mm:ss.SSS", "ENGLISH", 7, 15, false, null, false, false));
+		itemConfig = new NormalizeObjectConfig("UPPER_CASE", true);
+
+		Random random = new Random(15);
+		values = new Object[VALUES];
+
+		for (int i = 0; i < VALUES; i++) {
+
+			int integer = random.nextInt(1000000);
+			long longValue = random.nextLong();
+			double doubleValue = Math.round(random.nextGaussian() * 1e6) / 100d;
+
+			if ("String".equals(type))
+				values[i] = " customer name " + integer + " ";
+			else if ("Character".equals(type))
+				values[i] = (char) ('a' + random.nextInt(26));
+			else if ("Integer".equals(type))
+				values[i] = integer;
+			else if ("Long".equals(type))
+				values[i] = longValue;
+			else if ("Short".equals(type))
+				values[i] = (short) integer;
+			else if ("Float".equals(type))
+				values[i] = (float) doubleValue;
+			else if ("Double".equals(type))
+				values[i] = doubleValue;
+			else if ("BigDecimal".equals(type))
+				values[i] = BigDecimal.valueOf(doubleValue);
+			else if ("Boolean".equals(type))
+				values[i] = random.nextBoolean();
+			else
+				values[i] = new Date(1500000000000L + longValue % 100000000000L);
+		}
+	}
+
+	private int next() {
+		index = (index + 1) & (VALUES - 1);
+		return index;
+	}
+
+	@Benchmark
+	public Normalization addObject() {
+		normalization.reset();
+		normalization.add(values[next()], itemConfig);
+		return normalization;
+	}
+
+}
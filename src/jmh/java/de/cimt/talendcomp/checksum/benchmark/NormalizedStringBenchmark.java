@@ -0,0 +1,82 @@
+package de.cimt.talendcomp.checksum.benchmark;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.cimt.talendcomp.checksum.Normalization;
+import de.cimt.talendcomp.checksum.NormalizeConfig;
+import de.cimt.talendcomp.checksum.NormalizeObjectConfig;
+
+/**
+ * Costs of adding a row with empty trailing values and reading its normalized string or bytes,
+ * the empty trailing values are cut off while they are added
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NormalizedStringBenchmark {
+
+	@Param({"false", "true"})
+	public boolean cutOffEmptyTrailingObjects;
+
+	@Param({"false", "true"})
+	public boolean quoting;
+
+	private Normalization normalization;
+	private NormalizeObjectConfig itemConfig;
+	private String[] values;
+
+	@Setup
+	public void setup() {
+
+		NormalizeConfig config = new NormalizeConfig(";", "", quoting, "\"", "yyyy-MM-dd'T'HH:mm:ss.SSS", "ENGLISH", 7, 15, false, null, false, cutOffEmptyTrailingObjects);
+		itemConfig = new NormalizeObjectConfig("CASE_SENSITIVE", false);
+		normalization = new Normalization(config);
+		values = new String[30];
+
+		for (int i = 0; i < 20; i++) {
+			values[i] = "value " + i;
+		}
+
+		for (int i = 20; i < 30; i++) {
+			values[i] = i % 2 == 0 ? "" : null;
+		}
+	}
+
+	private void addRow() {
+
+		normalization.reset();
+
+		for (int i = 0; i < values.length; i++) {
+			normalization.add(values[i], itemConfig);
+		}
+	}
+
+	@Benchmark
+	public String getNormalizedString() {
+		addRow();
+		return normalization.getNormalizedString();
+	}
+
+	@Benchmark
+	public ByteBuffer getNormalizedBytes() {
+		addRow();
+		return normalization.getNormalizedBytes();
+	}
+
+}
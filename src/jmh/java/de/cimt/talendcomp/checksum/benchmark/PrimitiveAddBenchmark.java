@@ -0,0 +1,92 @@
+package de.cimt.talendcomp.checksum.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.cimt.talendcomp.checksum.Normalization;
+import de.cimt.talendcomp.checksum.NormalizeConfig;
+
+/**
+ * Costs of the add overloads for primitive values, which skip boxing and the number formats
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PrimitiveAddBenchmark {
+
+	private static final int VALUES = 1024;
+
+	private Normalization normalization;
+	private int[] ints;
+	private long[] longs;
+	private double[] doubles;
+	private float[] floats;
+	private int index;
+
+	@Setup
+	public void setup() {
+
+		normalization = new Normalization(new NormalizeConfig(";", "", true, "\"", "yyyy-MM-dd'T'HH:mm:ss.SSS", "ENGLISH", 7, 15, false, null, false, false));
+
+		Random random = new Random(15);
+		ints = new int[VALUES];
+		longs = new long[VALUES];
+		doubles = new double[VALUES];
+		floats = new float[VALUES];
+
+		for (int i = 0; i < VALUES; i++) {
+			ints[i] = random.nextInt(1000000);
+			longs[i] = random.nextLong();
+			doubles[i] = Math.round(random.nextGaussian() * 1e6) / 100d;
+			floats[i] = (float) doubles[i];
+		}
+	}
+
+	private int next() {
+		index = (index + 1) & (VALUES - 1);
+		return index;
+	}
+
+	@Benchmark
+	public Normalization addInt() {
+		normalization.reset();
+		normalization.add(ints[next()]);
+		return normalization;
+	}
+
+	@Benchmark
+	public Normalization addLong() {
+		normalization.reset();
+		normalization.add(longs[next()]);
+		return normalization;
+	}
+
+	@Benchmark
+	public Normalization addDouble() {
+		normalization.reset();
+		normalization.add(doubles[next()]);
+		return normalization;
+	}
+
+	@Benchmark
+	public Normalization addFloat() {
+		normalization.reset();
+		normalization.add(floats[next()]);
+		return normalization;
+	}
+
+}
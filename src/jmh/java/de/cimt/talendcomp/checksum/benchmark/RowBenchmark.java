@@ -0,0 +1,224 @@
+package de.cimt.talendcomp.checksum.benchmark;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.cimt.talendcomp.checksum.HashCalculation.HASH_OUTPUT_ENCODINGS;
+import de.cimt.talendcomp.checksum.Hasher;
+import de.cimt.talendcomp.checksum.Normalization;
+import de.cimt.talendcomp.checksum.NormalizeConfig;
+import de.cimt.talendcomp.checksum.NormalizeObjectConfig;
+import de.cimt.talendcomp.checksum.RowHashPlan;
+import de.cimt.talendcomp.checksum.SpecializedHasher;
+
+/**
+ * End to end costs of hashing a customer like row with 30 columns of mixed types (10 % nulls),
+ * the way the component did it per row before, with the {@link RowHashPlan} of the component
+ * and with the {@link SpecializedHasher}
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RowBenchmark {
+
+	private static final int COLUMNS = 30;
+	private static final int ROWS = 256;
+	private static final Class<?>[] TYPES = {String.class, String.class, Integer.class, String.class, Long.class, Double.class,
+			Date.class, BigDecimal.class, Boolean.class, String.class};
+
+	@Param({"MD5", "SHA-256", "XXH3-128"})
+	public String algorithm;
+
+	@Param({"false", "true"})
+	public boolean streaming;
+
+	private NormalizeConfig config;
+	private List<Class<?>> types;
+	private List<NormalizeObjectConfig> itemConfigs;
+	private Object[][] rows;
+	private Normalization normalization;
+	private RowHashPlan<Object[]> plan;
+	private SpecializedHasher specializedHasher;
+	private SpecializedHasher interpretedHasher;
+	private int index;
+
+	@Setup
+	public void setup() {
+
+		config = new NormalizeConfig(";", "", true, "\"", "yyyy-MM-dd'T'HH:mm:ss.SSS", "ENGLISH", 7, 15, false, null, false, false);
+		types = new ArrayList<Class<?>>();
+		itemConfigs = new ArrayList<NormalizeObjectConfig>();
+
+		for (int c = 0; c < COLUMNS; c++) {
+			types.add(TYPES[c % TYPES.length]);
+			itemConfigs.add(new NormalizeObjectConfig(c % 3 == 0 ? "UPPER_CASE" : "CASE_SENSITIVE", c % 2 == 0));
+		}
+
+		Random random = new Random(30);
+		rows = new Object[ROWS][COLUMNS];
+
+		for (int r = 0; r < ROWS; r++) {
+			for (int c = 0; c < COLUMNS; c++) {
+				rows[r][c] = random.nextInt(10) == 0 ? null : value(types.get(c), random);
+			}
+		}
+
+		Hasher hasher = new Hasher(algorithm, HASH_OUTPUT_ENCODINGS.HEX);
+		normalization = new Normalization(config, hasher, streaming);
+		plan = new RowHashPlan<Object[]>(normalization, columns());
+		specializedHasher = SpecializedHasher.create(new Normalization(config, hasher, streaming), itemConfigs, types);
+		interpretedHasher = SpecializedHasher.createInterpreted(new Normalization(config, hasher, streaming), itemConfigs, types);
+	}
+
+	private static Object value(Class<?> type, Random random) {
+
+		if (type == String.class)
+			return "Value " + random.nextInt(100000) + " street";
+		if (type == Integer.class)
+			return random.nextInt(1000000);
+		if (type == Long.class)
+			return random.nextLong();
+		if (type == Double.class)
+			return Math.round(random.nextGaussian() * 1e6) / 100d;
+		if (type == Date.class)
+			return new Date(1500000000000L + random.nextInt() * 1000L);
+		if (type == BigDecimal.class)
+			return BigDecimal.valueOf(random.nextInt(10000000), 2);
+
+		return random.nextBoolean();
+	}
+
+	private List<RowHashPlan.Column<Object[]>> columns() {
+
+		List<RowHashPlan.Column<Object[]>> columns = new ArrayList<RowHashPlan.Column<Object[]>>();
+
+		for (int c = 0; c < COLUMNS; c++) {
+
+			final int column = c;
+			final String caseSensitive = itemConfigs.get(c).getCaseSensitive().name();
+			final boolean trimming = itemConfigs.get(c).isTrimming();
+			final Class<?> type = types.get(c);
+
+			if (type == String.class) {
+				columns.add(new RowHashPlan.StringColumn<Object[]>("c" + c, caseSensitive, trimming) {
+					@Override
+					public String get(Object[] row) {
+						return (String) row[column];
+					}
+				});
+			} else if (type == Integer.class) {
+				columns.add(new RowHashPlan.IntColumn<Object[]>("c" + c, caseSensitive, trimming) {
+					@Override
+					public boolean isNull(Object[] row) {
+						return row[column] == null;
+					}
+					@Override
+					public int get(Object[] row) {
+						return (Integer) row[column];
+					}
+				});
+			} else if (type == Long.class) {
+				columns.add(new RowHashPlan.LongColumn<Object[]>("c" + c, caseSensitive, trimming) {
+					@Override
+					public boolean isNull(Object[] row) {
+						return row[column] == null;
+					}
+					@Override
+					public long get(Object[] row) {
+						return (Long) row[column];
+					}
+				});
+			} else if (type == Double.class) {
+				columns.add(new RowHashPlan.DoubleColumn<Object[]>("c" + c, caseSensitive, trimming) {
+					@Override
+					public boolean isNull(Object[] row) {
+						return row[column] == null;
+					}
+					@Override
+					public double get(Object[] row) {
+						return (Double) row[column];
+					}
+				});
+			} else if (type == Date.class) {
+				columns.add(new RowHashPlan.DateColumn<Object[]>("c" + c, caseSensitive, trimming) {
+					@Override
+					public Date get(Object[] row) {
+						return (Date) row[column];
+					}
+				});
+			} else if (type == BigDecimal.class) {
+				columns.add(new RowHashPlan.BigDecimalColumn<Object[]>("c" + c, caseSensitive, trimming) {
+					@Override
+					public BigDecimal get(Object[] row) {
+						return (BigDecimal) row[column];
+					}
+				});
+			} else {
+				columns.add(new RowHashPlan.ObjectColumn<Object[]>("c" + c, caseSensitive, trimming) {
+					@Override
+					public Object get(Object[] row) {
+						return row[column];
+					}
+				});
+			}
+		}
+
+		return columns;
+	}
+
+	private Object[] nextRow() {
+		index = (index + 1) & (ROWS - 1);
+		return rows[index];
+	}
+
+	/**
+	 * like the component before the row hash plan: a config object per column and row and type dispatch
+	 */
+	@Benchmark
+	public String addObjects() {
+
+		final Object[] row = nextRow();
+		normalization.reset();
+
+		for (int c = 0; c < COLUMNS; c++) {
+			normalization.add(row[c], new NormalizeObjectConfig(itemConfigs.get(c).getCaseSensitive().name(), itemConfigs.get(c).isTrimming()));
+		}
+
+		return normalization.calculateHash();
+	}
+
+	@Benchmark
+	public Object rowHashPlan() {
+		return plan.hash(nextRow());
+	}
+
+	@Benchmark
+	public Object specializedHasher() {
+		return specializedHasher.hash(nextRow());
+	}
+
+	@Benchmark
+	public Object interpretedHasher() {
+		return interpretedHasher.hash(nextRow());
+	}
+
+}
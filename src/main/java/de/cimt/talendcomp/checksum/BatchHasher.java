@@ -0,0 +1,450 @@
+package de.cimt.talendcomp.checksum;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Hashes a batch of rows which are given column by column, e.g. by a loader which reads columnar files.
+ * The values are normalized column by column into one normalization buffer per row, so every column is processed
+ * in a tight loop over an array of one type, and the hash base of every row equals the base of a {@link Normalization}
+ * to which the values of the row are added in the order of the columns.
+ * Large batches can be split into ranges of rows which are hashed in a {@link ForkJoinPool}.
+ * MD5 and SHA-256 hashes can be calculated by a {@link MultiBufferDigest}, see {@link #setMultiBufferLanes(int)}.
+ * The hasher can be shared by several threads, every thread uses its own normalization buffers.
+ */
+public class BatchHasher {
+
+	private final NormalizeConfig config;
+	private final Hasher hasher;
+	private final int hashLength;
+	private final ForkJoinPool pool;
+	private final int splitSize;
+	private final ThreadLocal<Normalization[]> threadNormalizations = new ThreadLocal<Normalization[]>();
+	private final ThreadLocal<MultiBufferDigest> threadDigest = new ThreadLocal<MultiBufferDigest>();
+	private int multiBufferLanes = 0;
+
+	/**
+	 * Creates a hasher which hashes the batches in the calling thread
+	 * @param config -> frozen by this constructor
+	 * @param hasher -> algorithm and output encoding
+	 */
+	public BatchHasher(NormalizeConfig config, Hasher hasher) {
+		this(config, hasher, null, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * @param config -> frozen by this constructor
+	 * @param hasher -> algorithm and output encoding
+	 * @param pool -> pool for batches of more than splitSize rows, null to hash in the calling thread
+	 * @param splitSize -> maximum number of rows hashed in one task
+	 */
+	public BatchHasher(NormalizeConfig config, Hasher hasher, ForkJoinPool pool, int splitSize) {
+
+		if (config == null)
+			throw new IllegalArgumentException("config variable cannot be null");
+
+		if (hasher == null)
+			throw new IllegalArgumentException("hasher cannot be null");
+
+		if (splitSize < 1)
+			throw new IllegalArgumentException("splitSize must be at least 1, got " + splitSize);
+
+		this.config = config.freeze();
+		this.hasher = hasher;
+		this.hashLength = hasher.getHashAlgorithm().getLength();
+		this.pool = pool;
+		this.splitSize = splitSize;
+	}
+
+	/**
+	 * @return number of bytes per row of {@link #hashBytes(Batch)}
+	 */
+	public int getHashLength() {
+		return hashLength;
+	}
+
+	/**
+	 * Hashes the rows of a range with a {@link MultiBufferDigest} in lock-step instead of one after another.
+	 * Whether it is faster depends on the JVM and the CPU: the {@link java.security.MessageDigest} of newer JVMs
+	 * uses intrinsics, e.g. the SHA extensions of the CPU, which are faster than SHA-256 in Java.
+	 * Has to be set before the first batch is hashed.
+	 * @param lanes -> number of rows which are hashed in lock-step, a multiple of 4, 0 to hash every row by itself
+	 * @throws IllegalArgumentException if the algorithm is not MD5 or SHA-256 or lanes is invalid
+	 */
+	public void setMultiBufferLanes(int lanes) throws IllegalArgumentException {
+
+		if (lanes != 0)
+			new MultiBufferDigest(hasher.getHashAlgorithm(), lanes);
+
+		this.multiBufferLanes = lanes;
+	}
+
+	public int getMultiBufferLanes() {
+		return multiBufferLanes;
+	}
+
+	/**
+	 * Calculates the raw hashes of all rows like {@link Normalization#calculateHashBytes()}
+	 * @param batch
+	 * @return the hashes of all rows one after another, {@link #getHashLength()} bytes per row.
+	 * If the hash of a row is null, its bytes are 0. A modified hash output for an empty base is cut or padded with 0.
+	 */
+	public byte[] hashBytes(Batch batch) {
+
+		final byte[] result = new byte[batch.getRows() * hashLength];
+
+		run(batch, new Output() {
+			@Override
+			public void write(Normalization normalization, int row) {
+
+				final byte[] hash = normalization.calculateHashBytes();
+
+				if (hash != null)
+					System.arraycopy(hash, 0, result, row * hashLength, Math.min(hash.length, hashLength));
+			}
+
+			@Override
+			public void write(byte[] digests, int offset, int row) {
+				System.arraycopy(digests, offset, result, row * hashLength, hashLength);
+			}
+		});
+
+		return result;
+	}
+
+	/**
+	 * Calculates the encoded hashes of all rows like {@link Normalization#calculateHash()}
+	 * @param batch
+	 * @return the hash of every row
+	 * @throws IllegalStateException if the output encoding of the hasher is not a String
+	 */
+	public String[] hash(Batch batch) throws IllegalStateException {
+
+		if (!hasher.getEncoding().isString())
+			throw new IllegalStateException("the output encoding " + hasher.getEncoding() + " is not a String, use hashBytes");
+
+		final String[] result = new String[batch.getRows()];
+
+		run(batch, new Output() {
+			@Override
+			public void write(Normalization normalization, int row) {
+				result[row] = normalization.calculateHash();
+			}
+
+			@Override
+			public void write(byte[] digests, int offset, int row) {
+				result[row] = hasher.encode(Arrays.copyOfRange(digests, offset, offset + hashLength));
+			}
+		});
+
+		return result;
+	}
+
+	private interface Output {
+
+		/**
+		 * Writes the hash of the row calculated by its normalization
+		 */
+		void write(Normalization normalization, int row);
+
+		/**
+		 * Writes the hash of the row calculated by the multi buffer digest
+		 */
+		void write(byte[] digests, int offset, int row);
+	}
+
+	private void run(Batch batch, Output output) {
+
+		if (pool == null || batch.getRows() <= splitSize) {
+			hashRange(batch, 0, batch.getRows(), output);
+		} else {
+			pool.invoke(new RangeTask(batch, 0, batch.getRows(), output));
+		}
+	}
+
+	private final class RangeTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Batch batch;
+		private final int from;
+		private final int to;
+		private final Output output;
+
+		private RangeTask(Batch batch, int from, int to, Output output) {
+			this.batch = batch;
+			this.from = from;
+			this.to = to;
+			this.output = output;
+		}
+
+		@Override
+		protected void compute() {
+
+			if (to - from <= splitSize) {
+				hashRange(batch, from, to, output);
+				return;
+			}
+
+			final int middle = (from + to) >>> 1;
+
+			invokeAll(new RangeTask(batch, from, middle, output), new RangeTask(batch, middle, to, output));
+		}
+	}
+
+	private Normalization[] normalizations(int rows) {
+
+		Normalization[] normalizations = threadNormalizations.get();
+
+		if (normalizations == null || normalizations.length < rows) {
+
+			final int existing = normalizations == null ? 0 : normalizations.length;
+			normalizations = normalizations == null ? new Normalization[rows] : Arrays.copyOf(normalizations, rows);
+
+			for (int i = existing; i < rows; i++) {
+				normalizations[i] = new Normalization(config, hasher, false);
+			}
+
+			threadNormalizations.set(normalizations);
+		}
+
+		return normalizations;
+	}
+
+	private void hashRange(Batch batch, int from, int to, Output output) {
+
+		final Normalization[] normalizations = normalizations(to - from);
+
+		for (int i = 0; i < to - from; i++) {
+			normalizations[i].reset();
+		}
+
+		for (Column column : batch.columns) {
+			column.add(normalizations, from, to);
+		}
+
+		if (multiBufferLanes > 0) {
+			hashMultiBuffer(normalizations, from, to, output);
+			return;
+		}
+
+		for (int row = from; row < to; row++) {
+			output.write(normalizations[row - from], row);
+		}
+	}
+
+	private void hashMultiBuffer(Normalization[] normalizations, int from, int to, Output output) {
+
+		MultiBufferDigest digest = threadDigest.get();
+
+		if (digest == null || digest.getLanes() != multiBufferLanes) {
+			digest = new MultiBufferDigest(hasher.getHashAlgorithm(), multiBufferLanes);
+			threadDigest.set(digest);
+		}
+
+		final byte[][] messages = new byte[to - from][];
+		final int[] lengths = new int[to - from];
+		final int[] rows = new int[to - from];
+		int count = 0;
+
+		for (int row = from; row < to; row++) {
+
+			final Normalization normalization = normalizations[row - from];
+			// replaced hash outputs and rows without values are not digested
+			final byte[] bytes = normalization.isHashOutputReplaced() ? null : normalization.getNormalizedByteArray();
+
+			if (bytes == null) {
+				output.write(normalization, row);
+			} else {
+				messages[count] = bytes;
+				lengths[count] = normalization.getNormalizedByteLength();
+				rows[count++] = row;
+			}
+		}
+
+		final byte[] digests = new byte[count * hashLength];
+		digest.digest(messages, lengths, count, digests, 0);
+
+		for (int i = 0; i < count; i++) {
+			output.write(digests, i * hashLength, rows[i]);
+		}
+	}
+
+	/**
+	 * Values of a batch of rows, one array per column. Nulls are marked in a bitmap of longs,
+	 * the bit (row & 63) of the long (row >>> 6) is set for a null, see {@link #setNull(long[], int)}.
+	 * The arrays are not copied and must not be changed while the batch is hashed.
+	 */
+	public static final class Batch {
+
+		private final int rows;
+		private final List<Column> columns = new ArrayList<Column>();
+
+		/**
+		 * @param rows -> number of rows, the arrays can be longer
+		 */
+		public Batch(int rows) {
+
+			if (rows < 0)
+				throw new IllegalArgumentException("rows cannot be negative, got " + rows);
+
+			this.rows = rows;
+		}
+
+		public int getRows() {
+			return rows;
+		}
+
+		/**
+		 * @return number of columns
+		 */
+		public int getColumnCount() {
+			return columns.size();
+		}
+
+		/**
+		 * @param rows
+		 * @return an empty null bitmap for the number of rows
+		 */
+		public static long[] newNullBitmap(int rows) {
+			return new long[(rows + 63) >>> 6];
+		}
+
+		public static void setNull(long[] nulls, int row) {
+			nulls[row >>> 6] |= 1L << row;
+		}
+
+		public static boolean isNull(long[] nulls, int row) {
+			return nulls != null && (nulls[row >>> 6] & (1L << row)) != 0;
+		}
+
+		private void check(int length, long[] nulls) {
+
+			if (length < rows)
+				throw new IllegalArgumentException("the column has " + length + " values, but the batch has " + rows + " rows");
+
+			if (nulls != null && nulls.length < (rows + 63) >>> 6)
+				throw new IllegalArgumentException("the null bitmap has " + nulls.length + " longs, but the batch needs " + ((rows + 63) >>> 6));
+		}
+
+		/**
+		 * Adds a column of integers, formatted like {@link Normalization#add(long)}
+		 * @param values
+		 * @param nulls -> null bitmap, null if no value is null
+		 * @return this batch
+		 */
+		public Batch addLongs(final long[] values, final long[] nulls) {
+
+			check(values.length, nulls);
+
+			columns.add(new Column() {
+				@Override
+				void add(Normalization[] normalizations, int from, int to) {
+					for (int row = from; row < to; row++) {
+						if (isNull(nulls, row))
+							normalizations[row - from].addNormalized(null);
+						else
+							normalizations[row - from].add(values[row]);
+					}
+				}
+			});
+
+			return this;
+		}
+
+		/**
+		 * Adds a column of doubles, formatted like {@link Normalization#add(double)}
+		 * @param values
+		 * @param nulls -> null bitmap, null if no value is null
+		 * @return this batch
+		 */
+		public Batch addDoubles(final double[] values, final long[] nulls) {
+
+			check(values.length, nulls);
+
+			columns.add(new Column() {
+				@Override
+				void add(Normalization[] normalizations, int from, int to) {
+					for (int row = from; row < to; row++) {
+						if (isNull(nulls, row))
+							normalizations[row - from].addNormalized(null);
+						else
+							normalizations[row - from].add(values[row]);
+					}
+				}
+			});
+
+			return this;
+		}
+
+		/**
+		 * Adds a column of Strings, normalized like {@link Normalization#normalize(String, NormalizeObjectConfig)}
+		 * @param values -> null values are nulls as well
+		 * @param nulls -> null bitmap, null if only the null values are nulls
+		 * @param itemConfig
+		 * @return this batch
+		 */
+		public Batch addStrings(final String[] values, final long[] nulls, final NormalizeObjectConfig itemConfig) {
+
+			check(values.length, nulls);
+
+			if (itemConfig == null)
+				throw new IllegalArgumentException("itemConfig cannot be null");
+
+			columns.add(new Column() {
+				@Override
+				void add(Normalization[] normalizations, int from, int to) {
+					for (int row = from; row < to; row++) {
+
+						final Normalization normalization = normalizations[row - from];
+						final String value = values[row];
+
+						if (value == null || isNull(nulls, row))
+							normalization.addNormalized(null);
+						else
+							normalization.addNormalized(normalization.normalize(value, itemConfig));
+					}
+				}
+			});
+
+			return this;
+		}
+
+		/**
+		 * Adds a column of any supported type, normalized like {@link Normalization#add(Object, NormalizeObjectConfig)}
+		 * @param values -> null values are nulls as well
+		 * @param nulls -> null bitmap, null if only the null values are nulls
+		 * @param itemConfig
+		 * @return this batch
+		 */
+		public Batch addObjects(final Object[] values, final long[] nulls, final NormalizeObjectConfig itemConfig) {
+
+			check(values.length, nulls);
+
+			if (itemConfig == null)
+				throw new IllegalArgumentException("itemConfig cannot be null");
+
+			columns.add(new Column() {
+				@Override
+				void add(Normalization[] normalizations, int from, int to) {
+					for (int row = from; row < to; row++) {
+						normalizations[row - from].add(isNull(nulls, row) ? null : values[row], itemConfig);
+					}
+				}
+			});
+
+			return this;
+		}
+	}
+
+	/**
+	 * Adds the values of a range of rows to their normalizations
+	 */
+	abstract static class Column {
+		abstract void add(Normalization[] normalizations, int from, int to);
+	}
+
+}
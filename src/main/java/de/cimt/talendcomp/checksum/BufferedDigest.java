@@ -0,0 +1,96 @@
+package de.cimt.talendcomp.checksum;
+
+import java.security.MessageDigest;
+import java.util.Arrays;
+
+/**
+ * Base class for the hash functions which are not provided by the JVM. The input is collected in a 
+ * reusable buffer and hashed at once when the digest is requested, hash bases are short enough for that.
+ */
+abstract class BufferedDigest extends MessageDigest implements Cloneable {
+	
+	private byte[] buffer = new byte[256];
+	private int length = 0;
+	
+	protected BufferedDigest(String algorithm) {
+		super(algorithm);
+	}
+	
+	/**
+	 * Calculates the hash of the given bytes
+	 * @param input
+	 * @param length
+	 * @return
+	 */
+	protected abstract byte[] hash(byte[] input, int length);
+
+	@Override
+	protected void engineUpdate(byte input) {
+		ensureCapacity(1);
+		buffer[length++] = input;
+	}
+
+	@Override
+	protected void engineUpdate(byte[] input, int offset, int len) {
+		ensureCapacity(len);
+		System.arraycopy(input, offset, buffer, length, len);
+		length += len;
+	}
+
+	@Override
+	protected byte[] engineDigest() {
+		byte[] result = hash(buffer, length);
+		length = 0;
+		return result;
+	}
+
+	@Override
+	protected void engineReset() {
+		length = 0;
+	}
+	
+	@Override
+	public Object clone() throws CloneNotSupportedException {
+		BufferedDigest clone = (BufferedDigest) super.clone();
+		clone.buffer = Arrays.copyOf(buffer, buffer.length);
+		return clone;
+	}
+	
+	private void ensureCapacity(int additional) {
+		if (length + additional > buffer.length)
+			buffer = Arrays.copyOf(buffer, Math.max(length + additional, buffer.length * 2));
+	}
+	
+	static long readLongLE(byte[] input, int offset) {
+		return (input[offset] & 0xffL)
+				| (input[offset + 1] & 0xffL) << 8
+				| (input[offset + 2] & 0xffL) << 16
+				| (input[offset + 3] & 0xffL) << 24
+				| (input[offset + 4] & 0xffL) << 32
+				| (input[offset + 5] & 0xffL) << 40
+				| (input[offset + 6] & 0xffL) << 48
+				| (input[offset + 7] & 0xffL) << 56;
+	}
+	
+	static long readIntLE(byte[] input, int offset) {
+		return (input[offset] & 0xffL)
+				| (input[offset + 1] & 0xffL) << 8
+				| (input[offset + 2] & 0xffL) << 16
+				| (input[offset + 3] & 0xffL) << 24;
+	}
+	
+	static void writeLongBE(long value, byte[] output, int offset) {
+		for (int i = 7; i >= 0; i--) {
+			output[offset + i] = (byte) value;
+			value >>>= 8;
+		}
+	}
+	
+	static void writeLongLE(long value, byte[] output, int offset) {
+		for (int i = 0; i < 8; i++) {
+			output[offset + i] = (byte) value;
+			value >>>= 8;
+		}
+	}
+	
+}
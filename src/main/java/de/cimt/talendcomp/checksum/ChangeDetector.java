@@ -0,0 +1,193 @@
+package de.cimt.talendcomp.checksum;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Classifies rows as INSERT, UPDATE or UNCHANGED by their business key hash and diff hash
+ * against the {@link HashSnapshot} of the previous run instead of a lookup in the target database.
+ * The keys and diffs of the current run are written to the snapshot for the next run,
+ * the keys of the previous snapshot which did not occur in this run are reported as deleted by {@link #finish(File)}.
+ * The hashes can be hash outputs of {@link Normalization#calculateHashValue()} in any encoding, see {@link Hash128#of(Object)}.
+ * The detector is not thread safe.
+ */
+public class ChangeDetector implements Closeable {
+
+	public static enum Change {
+		INSERT,
+		UPDATE,
+		UNCHANGED
+	}
+
+	private static final Hash128 NULL_DIFF = new Hash128(0, 0);
+
+	private HashSnapshot previous;
+	private HashSnapshot.Writer next;
+	// slots of the previous snapshot which were found in this run
+	private long[] seen;
+	private long inserts = 0;
+	private long updates = 0;
+	private long unchanged = 0;
+	private long deleted = -1;
+
+	/**
+	 * @param previousSnapshot -> snapshot of the previous run, if null or not existing all rows are inserts
+	 * @param newSnapshot -> file for the snapshot of this run, if null no snapshot is written. It should differ from the previous snapshot,
+	 * which can not be replaced on Windows while it is mapped
+	 * @throws IOException if the previous snapshot can not be read or the new snapshot can not be created
+	 */
+	public ChangeDetector(File previousSnapshot, File newSnapshot) throws IOException {
+
+		if (previousSnapshot != null && previousSnapshot.exists()) {
+			previous = new HashSnapshot(previousSnapshot);
+			seen = new long[(int) ((previous.getCapacity() >>> 6) + 1)];
+		}
+
+		if (newSnapshot != null) {
+			try {
+				next = new HashSnapshot.Writer(newSnapshot);
+			} catch (IOException e) {
+				close();
+				throw e;
+			}
+		}
+	}
+
+	/**
+	 * @param keyHash -> hash of the business key
+	 * @param diffHash -> hash of the attributes, null is treated like any other value
+	 * @return the change of the row compared to the previous snapshot
+	 * @throws IOException if the new snapshot can not be written
+	 */
+	public Change classify(Object keyHash, Object diffHash) throws IOException {
+
+		if (keyHash == null)
+			throw new IllegalArgumentException("keyHash cannot be null");
+
+		if (deleted >= 0)
+			throw new IllegalStateException("the change detection is already finished");
+
+		final Hash128 key = Hash128.of(keyHash);
+		final Hash128 diff = diffHash == null ? NULL_DIFF : Hash128.of(diffHash);
+
+		if (next != null)
+			next.add(key, diff);
+
+		final long slot = previous == null ? -1 : previous.find(key.getHigh(), key.getLow());
+
+		if (slot < 0) {
+			inserts++;
+			return Change.INSERT;
+		}
+
+		seen[(int) (slot >>> 6)] |= 1L << slot;
+
+		if (previous.getDiff(slot).equals(diff)) {
+			unchanged++;
+			return Change.UNCHANGED;
+		}
+
+		updates++;
+		return Change.UPDATE;
+	}
+
+	/**
+	 * Counts the deleted keys and writes the new snapshot. The previous snapshot is closed before it is replaced.
+	 * @param deletedKeysFile -> if not null, the deleted key hashes are written to this file as 32 hex characters per line
+	 * @return number of keys of the previous snapshot which were not classified in this run
+	 * @throws IOException
+	 */
+	public long finish(File deletedKeysFile) throws IOException {
+
+		if (deleted >= 0)
+			throw new IllegalStateException("the change detection is already finished");
+
+		deleted = 0;
+
+		if (previous != null) {
+
+			final Writer out = deletedKeysFile == null ? null
+					: new BufferedWriter(new OutputStreamWriter(new FileOutputStream(deletedKeysFile), StandardCharsets.UTF_8), 1 << 16);
+
+			try {
+				// the additional slot is the all zero key
+				for (long slot = 0; slot <= previous.getCapacity(); slot++) {
+
+					if ((seen[(int) (slot >>> 6)] & (1L << slot)) != 0)
+						continue;
+
+					final Hash128 key = previous.getKey(slot);
+
+					if (key != null) {
+
+						deleted++;
+
+						if (out != null) {
+							out.write(key.toString());
+							out.write('\n');
+						}
+					}
+				}
+			} finally {
+				if (out != null)
+					out.close();
+			}
+
+			previous.close();
+			previous = null;
+			seen = null;
+		} else if (deletedKeysFile != null) {
+			new FileOutputStream(deletedKeysFile).close();
+		}
+
+		if (next != null)
+			next.finish();
+
+		return deleted;
+	}
+
+	public long getInserts() {
+		return inserts;
+	}
+
+	public long getUpdates() {
+		return updates;
+	}
+
+	public long getUnchanged() {
+		return unchanged;
+	}
+
+	/**
+	 * @return number of deleted keys, -1 before {@link #finish(File)}
+	 */
+	public long getDeleted() {
+		return deleted;
+	}
+
+	/**
+	 * Closes the previous snapshot and discards the new snapshot if the detection is not finished
+	 */
+	@Override
+	public void close() throws IOException {
+
+		try {
+			if (previous != null) {
+				previous.close();
+				previous = null;
+			}
+		} finally {
+			if (next != null) {
+				next.close();
+				next = null;
+			}
+		}
+	}
+
+}
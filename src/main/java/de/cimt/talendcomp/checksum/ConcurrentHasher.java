@@ -0,0 +1,106 @@
+package de.cimt.talendcomp.checksum;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reentrant hasher for rows with a fixed schema which can be shared by several threads,
+ * e.g. by the parallel branches of a job. The config is frozen, every thread gets its own
+ * {@link SpecializedHasher} with its own normalization buffer and digest, so the threads share no mutable state.
+ */
+public final class ConcurrentHasher {
+
+	private final NormalizeConfig config;
+	private final Hasher hasher;
+	private final boolean streaming;
+	private final List<NormalizeObjectConfig> itemConfigs;
+	private final List<Class<?>> types;
+	private final ThreadLocal<SpecializedHasher> threadHasher;
+
+	/**
+	 * @param config -> frozen by this constructor
+	 * @param hasher -> algorithm and output encoding
+	 * @param streaming -> see {@link Normalization#Normalization(NormalizeConfig, String)}
+	 * @param itemConfigs -> config of every column, copied by this constructor
+	 * @param types -> declared type of every column, see {@link SpecializedHasher#create(Normalization, List, List)}
+	 * @throws IllegalArgumentException if the configs and types do not match
+	 */
+	public ConcurrentHasher(NormalizeConfig config, Hasher hasher, boolean streaming, List<NormalizeObjectConfig> itemConfigs, List<Class<?>> types) throws IllegalArgumentException {
+
+		if (config == null)
+			throw new IllegalArgumentException("config variable cannot be null");
+
+		if (hasher == null)
+			throw new IllegalArgumentException("hasher cannot be null");
+
+		if (itemConfigs == null || types == null)
+			throw new IllegalArgumentException("itemConfigs and types cannot be null");
+
+		final List<NormalizeObjectConfig> copies = new ArrayList<NormalizeObjectConfig>(itemConfigs.size());
+
+		for (NormalizeObjectConfig itemConfig : itemConfigs) {
+
+			if (itemConfig == null)
+				throw new IllegalArgumentException("column config cannot be null");
+
+			// the item config has setters
+			final NormalizeObjectConfig copy = new NormalizeObjectConfig("CASE_SENSITIVE", itemConfig.isTrimming());
+			copy.setCaseSensitive(itemConfig.getCaseSensitive());
+			copies.add(copy);
+		}
+
+		this.config = config.freeze();
+		this.hasher = hasher;
+		this.streaming = streaming;
+		this.itemConfigs = Collections.unmodifiableList(copies);
+		this.types = Collections.unmodifiableList(new ArrayList<Class<?>>(types));
+
+		// validates the schema once in the calling thread
+		final SpecializedHasher first = newHasher();
+
+		this.threadHasher = new ThreadLocal<SpecializedHasher>() {
+			@Override
+			protected SpecializedHasher initialValue() {
+				return newHasher();
+			}
+		};
+		this.threadHasher.set(first);
+	}
+
+	private SpecializedHasher newHasher() {
+		return SpecializedHasher.create(new Normalization(config, hasher, streaming), itemConfigs, types);
+	}
+
+	/**
+	 * Calculates the hash of the row in the normalization of the current thread
+	 * @param values -> one value per column, with the declared type or null
+	 * @return String, byte[], Long or {@link Hash128} depending on the output encoding of the hasher
+	 * @throws IllegalArgumentException if the number of values is wrong or a value has not the declared type
+	 */
+	public Object hash(Object[] values) throws IllegalArgumentException {
+		return threadHasher.get().hash(values);
+	}
+
+	/**
+	 * @param values -> one value per column, with the declared type or null
+	 * @return the normalized string of the row, which is the base of the hash
+	 * @throws IllegalStateException in streaming mode
+	 */
+	public String normalize(Object[] values) throws IllegalArgumentException, IllegalStateException {
+
+		final SpecializedHasher specializedHasher = threadHasher.get();
+		specializedHasher.add(values);
+
+		return specializedHasher.getNormalization().getNormalizedString();
+	}
+
+	public NormalizeConfig getConfig() {
+		return config;
+	}
+
+	public Hasher getHasher() {
+		return hasher;
+	}
+
+}
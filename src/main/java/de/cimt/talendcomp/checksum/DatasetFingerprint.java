@@ -0,0 +1,282 @@
+package de.cimt.talendcomp.checksum;
+
+import java.io.Serializable;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Order independent fingerprint of the row hashes of a dataset, e.g. to reconcile a source and a target table
+ * without comparing them row by row. The fingerprint consists of the number of rows and the sum (modulo 2^128)
+ * and the XOR of the 128 bit row hashes, so it does not depend on the order of the rows.
+ * The sum also detects rows which occur twice, the XOR does not.
+ * <p>
+ * Optionally the rows are also aggregated in 2^bucketBits buckets by the prefix of their hash,
+ * and a Merkle tree is built over the buckets: the leaves are MD5 hashes of the aggregates of the buckets
+ * and every inner node is the MD5 hash of its two children.
+ * Two fingerprints are compared by their roots, {@link #diff(DatasetFingerprint, DatasetFingerprint)} descends
+ * only into differing nodes to find the buckets which have to be compared row by row.
+ * </p>
+ * The fingerprint is not thread safe, partial fingerprints of a partitioned dataset can be combined by {@link #merge(DatasetFingerprint)}.
+ */
+public class DatasetFingerprint implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	public static final int MAX_BUCKET_BITS = 20;
+
+	private final int bucketBits;
+	private long count = 0;
+	private long nullCount = 0;
+	private long sumHigh = 0;
+	private long sumLow = 0;
+	private long xorHigh = 0;
+	private long xorLow = 0;
+	// per bucket: count, sum high, sum low, xor high, xor low
+	private final long[] buckets;
+	// heap order: the root is node 1, the children of node i are 2i and 2i + 1, the leaves start at the number of buckets
+	private transient Hash128[] tree;
+
+	/**
+	 * Creates a fingerprint without buckets
+	 */
+	public DatasetFingerprint() {
+		this(0);
+	}
+
+	/**
+	 * @param bucketBits -> log2 of the number of buckets of the Merkle tree, 0 for none
+	 */
+	public DatasetFingerprint(int bucketBits) {
+
+		if (bucketBits < 0 || bucketBits > MAX_BUCKET_BITS)
+			throw new IllegalArgumentException("bucketBits must be between 0 and " + MAX_BUCKET_BITS + ", got " + bucketBits);
+
+		this.bucketBits = bucketBits;
+		this.buckets = bucketBits == 0 ? null : new long[5 << bucketBits];
+	}
+
+	/**
+	 * @param high
+	 * @return the bucket of a hash by the prefix of its high part
+	 */
+	public int getBucket(long high) {
+		return bucketBits == 0 ? 0 : (int) (high >>> (64 - bucketBits));
+	}
+
+	/**
+	 * @param hashValue -> hash output of {@link Normalization#calculateHashValue()} in any encoding, see {@link Hash128#of(Object)}
+	 * @return the bucket of the hash, null is in bucket 0
+	 */
+	public int getBucketOfValue(Object hashValue) {
+		final Hash128 hash = Hash128.of(hashValue);
+		return hash == null ? 0 : getBucket(hash.getHigh());
+	}
+
+	public void add(long high, long low) {
+
+		count++;
+		final long newLow = sumLow + low;
+		sumHigh += high + (Long.compareUnsigned(newLow, sumLow) < 0 ? 1 : 0);
+		sumLow = newLow;
+		xorHigh ^= high;
+		xorLow ^= low;
+
+		if (buckets != null) {
+			final int offset = getBucket(high) * 5;
+			buckets[offset]++;
+			final long bucketLow = buckets[offset + 2] + low;
+			buckets[offset + 1] += high + (Long.compareUnsigned(bucketLow, buckets[offset + 2]) < 0 ? 1 : 0);
+			buckets[offset + 2] = bucketLow;
+			buckets[offset + 3] ^= high;
+			buckets[offset + 4] ^= low;
+		}
+
+		tree = null;
+	}
+
+	public void add(Hash128 hash) {
+		add(hash.getHigh(), hash.getLow());
+	}
+
+	/**
+	 * @param hashValue -> hash output of {@link Normalization#calculateHashValue()} in any encoding, see {@link Hash128#of(Object)}.
+	 * Null is counted as the all zero hash.
+	 */
+	public void addValue(Object hashValue) {
+
+		final Hash128 hash = Hash128.of(hashValue);
+
+		if (hash == null) {
+			nullCount++;
+			add(0, 0);
+		} else {
+			add(hash);
+		}
+	}
+
+	/**
+	 * Adds all rows of another fingerprint, e.g. of another partition of the dataset
+	 * @param other -> must have the same number of buckets
+	 */
+	public void merge(DatasetFingerprint other) {
+
+		checkCompatible(this, other);
+
+		count += other.count;
+		nullCount += other.nullCount;
+		final long newLow = sumLow + other.sumLow;
+		sumHigh += other.sumHigh + (Long.compareUnsigned(newLow, sumLow) < 0 ? 1 : 0);
+		sumLow = newLow;
+		xorHigh ^= other.xorHigh;
+		xorLow ^= other.xorLow;
+
+		if (buckets != null) {
+			for (int offset = 0; offset < buckets.length; offset += 5) {
+				buckets[offset] += other.buckets[offset];
+				final long bucketLow = buckets[offset + 2] + other.buckets[offset + 2];
+				buckets[offset + 1] += other.buckets[offset + 1] + (Long.compareUnsigned(bucketLow, buckets[offset + 2]) < 0 ? 1 : 0);
+				buckets[offset + 2] = bucketLow;
+				buckets[offset + 3] ^= other.buckets[offset + 3];
+				buckets[offset + 4] ^= other.buckets[offset + 4];
+			}
+		}
+
+		tree = null;
+	}
+
+	private static void checkCompatible(DatasetFingerprint a, DatasetFingerprint b) {
+		if (a.bucketBits != b.bucketBits)
+			throw new IllegalArgumentException("the fingerprints have different bucket bits: " + a.bucketBits + " and " + b.bucketBits);
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * @return number of null hashes, they are contained in the count
+	 */
+	public long getNullCount() {
+		return nullCount;
+	}
+
+	public Hash128 getSum() {
+		return new Hash128(sumHigh, sumLow);
+	}
+
+	public Hash128 getXor() {
+		return new Hash128(xorHigh, xorLow);
+	}
+
+	/**
+	 * @return 64 hex characters of the sum and the XOR, equal for datasets with equal counts and the same row hashes in any order
+	 */
+	public String getFingerprint() {
+		return getSum().toString() + getXor().toString();
+	}
+
+	public int getBucketBits() {
+		return bucketBits;
+	}
+
+	public int getBucketCount() {
+		return 1 << bucketBits;
+	}
+
+	/**
+	 * @param bucket
+	 * @return number of rows in the bucket
+	 */
+	public long getBucketRowCount(int bucket) {
+		checkBucket(bucket);
+		return buckets == null ? count : buckets[bucket * 5];
+	}
+
+	private void checkBucket(int bucket) {
+		if (bucket < 0 || bucket >= getBucketCount())
+			throw new IndexOutOfBoundsException("bucket " + bucket + " is not between 0 and " + getBucketCount());
+	}
+
+	/**
+	 * @return the root of the Merkle tree, the MD5 hash of the aggregates if there are no buckets
+	 */
+	public Hash128 getRoot() {
+		return getTree()[1];
+	}
+
+	/**
+	 * @return the nodes of the Merkle tree in heap order, index 0 is not used
+	 */
+	Hash128[] getTree() {
+
+		if (tree != null)
+			return tree;
+
+		final int leaves = getBucketCount();
+		final Hash128[] nodes = new Hash128[leaves * 2];
+		final MessageDigest md5 = HashCalculation.getMessageDigest("MD5");
+		final byte[] leaf = new byte[40];
+
+		for (int bucket = 0; bucket < leaves; bucket++) {
+
+			if (buckets == null) {
+				HashCalculation.writeLong(count, leaf, 0);
+				HashCalculation.writeLong(sumHigh, leaf, 8);
+				HashCalculation.writeLong(sumLow, leaf, 16);
+				HashCalculation.writeLong(xorHigh, leaf, 24);
+				HashCalculation.writeLong(xorLow, leaf, 32);
+			} else {
+				for (int i = 0; i < 5; i++) {
+					HashCalculation.writeLong(buckets[bucket * 5 + i], leaf, i * 8);
+				}
+			}
+
+			nodes[leaves + bucket] = Hash128.fromBytes(md5.digest(leaf));
+		}
+
+		final byte[] children = new byte[32];
+
+		for (int node = leaves - 1; node > 0; node--) {
+			System.arraycopy(nodes[node * 2].toBytes(), 0, children, 0, 16);
+			System.arraycopy(nodes[node * 2 + 1].toBytes(), 0, children, 16, 16);
+			nodes[node] = Hash128.fromBytes(md5.digest(children));
+		}
+
+		tree = nodes;
+		return nodes;
+	}
+
+	/**
+	 * Compares two fingerprints by their Merkle trees, only the nodes which differ are visited
+	 * @param a
+	 * @param b -> must have the same number of buckets
+	 * @return the buckets whose rows differ in ascending order
+	 */
+	public static List<Integer> diff(DatasetFingerprint a, DatasetFingerprint b) {
+
+		checkCompatible(a, b);
+
+		final Hash128[] treeA = a.getTree();
+		final Hash128[] treeB = b.getTree();
+		final List<Integer> result = new ArrayList<Integer>();
+
+		diff(treeA, treeB, 1, a.getBucketCount(), result);
+		return result;
+	}
+
+	private static void diff(Hash128[] a, Hash128[] b, int node, int leaves, List<Integer> result) {
+
+		if (a[node].equals(b[node]))
+			return;
+
+		if (node >= leaves) {
+			result.add(node - leaves);
+			return;
+		}
+
+		diff(a, b, node * 2, leaves, result);
+		diff(a, b, node * 2 + 1, leaves, result);
+	}
+
+}
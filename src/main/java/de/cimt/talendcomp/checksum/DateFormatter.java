@@ -0,0 +1,241 @@
+package de.cimt.talendcomp.checksum;
+
+import java.text.DecimalFormat;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.TimeZone;
+
+/**
+ * Formats dates like {@link SimpleDateFormat} with a pattern which is compiled once.
+ * Patterns which only consist of the numeric fields y, M, d, H, m, s, S and literals
+ * (e.g. yyyy-MM-dd'T'HH:mm:ss.SSS) are formatted directly into the target buffer from the epoch millis.
+ * Other patterns, dates around the Gregorian cutover or after the year 9999 and locales without a Gregorian calendar
+ * or ASCII digits use a {@link SimpleDateFormat} per thread.
+ * The time zone and locale are the defaults at construction time. The formatter is thread safe.
+ */
+public final class DateFormatter {
+
+	/**
+	 * 1582-10-15T00:00:00Z, GregorianCalendar uses the Julian calendar before
+	 */
+	private static final long GREGORIAN_CUTOVER = -12219292800000L;
+	private static final long MILLIS_PER_DAY = 86400000L;
+	/**
+	 * the fast path is used from two days after the cutover until the year 9999
+	 */
+	private static final long MIN_FAST_MILLIS = GREGORIAN_CUTOVER + 2 * MILLIS_PER_DAY;
+	private static final long MAX_FAST_MILLIS = 253402214400000L;
+
+	private final String pattern;
+	private final TimeZone timeZone;
+	private final ThreadLocal<SimpleDateFormat> simpleDateFormat;
+	private final boolean fast;
+	/**
+	 * pattern letter of each field, 0 for a literal
+	 */
+	private final char[] fields;
+	private final int[] counts;
+	private final String[] literals;
+
+	/**
+	 * @param pattern -> pattern of {@link SimpleDateFormat}
+	 * @throws IllegalArgumentException if the pattern is invalid
+	 */
+	public DateFormatter(final String pattern) throws IllegalArgumentException {
+
+		if (pattern == null)
+			throw new IllegalArgumentException("pattern cannot be null");
+
+		// validates the pattern with the same exception as before
+		final SimpleDateFormat template = new SimpleDateFormat(pattern);
+
+		this.pattern = pattern;
+		this.timeZone = template.getTimeZone();
+		this.simpleDateFormat = new ThreadLocal<SimpleDateFormat>() {
+			@Override
+			protected SimpleDateFormat initialValue() {
+				return new SimpleDateFormat(pattern);
+			}
+		};
+
+		final List<Character> fieldList = new ArrayList<Character>();
+		final List<Integer> countList = new ArrayList<Integer>();
+		final List<String> literalList = new ArrayList<String>();
+		boolean supported = compile(pattern, fieldList, countList, literalList);
+
+		this.fields = new char[fieldList.size()];
+		this.counts = new int[fieldList.size()];
+		this.literals = literalList.toArray(new String[literalList.size()]);
+
+		for (int i = 0; i < fields.length; i++) {
+			fields[i] = fieldList.get(i);
+			counts[i] = countList.get(i);
+		}
+
+		supported = supported
+				&& template.getCalendar().getClass() == GregorianCalendar.class
+				&& template.getNumberFormat() instanceof DecimalFormat
+				&& ((DecimalFormat) template.getNumberFormat()).getDecimalFormatSymbols().getZeroDigit() == '0';
+
+		this.fast = supported;
+	}
+
+	/**
+	 * Splits the pattern into fields and literals like {@link SimpleDateFormat}
+	 * @return true if all fields are supported by the fast path
+	 */
+	private static boolean compile(String pattern, List<Character> fields, List<Integer> counts, List<String> literals) {
+
+		boolean supported = true;
+		boolean inQuote = false;
+		final StringBuilder literal = new StringBuilder();
+
+		for (int i = 0; i < pattern.length(); i++) {
+
+			final char c = pattern.charAt(i);
+
+			if (c == '\'') {
+				if (i + 1 < pattern.length() && pattern.charAt(i + 1) == '\'') {
+					literal.append('\'');
+					i++;
+				} else {
+					inQuote = !inQuote;
+				}
+				continue;
+			}
+
+			if (inQuote || !((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z'))) {
+				literal.append(c);
+				continue;
+			}
+
+			int count = 1;
+			while (i + 1 < pattern.length() && pattern.charAt(i + 1) == c) {
+				count++;
+				i++;
+			}
+
+			if (literal.length() > 0) {
+				fields.add((char) 0);
+				counts.add(0);
+				literals.add(literal.toString());
+				literal.setLength(0);
+			}
+
+			fields.add(c);
+			counts.add(count);
+			literals.add(null);
+
+			if ("yMdHmsS".indexOf(c) < 0 || (c == 'M' && count > 2))
+				supported = false;
+		}
+
+		if (literal.length() > 0) {
+			fields.add((char) 0);
+			counts.add(0);
+			literals.add(literal.toString());
+		}
+
+		return supported;
+	}
+
+	public String getPattern() {
+		return pattern;
+	}
+
+	/**
+	 * @return true if the pattern is formatted without {@link SimpleDateFormat} in the common case
+	 */
+	public boolean isFast() {
+		return fast;
+	}
+
+	public String format(Date date) {
+
+		final StringBuilder sb = new StringBuilder(32);
+		format(date, sb);
+
+		return sb.toString();
+	}
+
+	/**
+	 * Appends the formatted date to the builder
+	 * @param date
+	 * @param sb
+	 */
+	public void format(Date date, StringBuilder sb) {
+
+		final long millis = date.getTime();
+
+		if (fast == false || millis < MIN_FAST_MILLIS || millis >= MAX_FAST_MILLIS) {
+			sb.append(simpleDateFormat.get().format(date));
+			return;
+		}
+
+		final long local = millis + timeZone.getOffset(millis);
+		final long days = Math.floorDiv(local, MILLIS_PER_DAY);
+		final int millisOfDay = (int) (local - days * MILLIS_PER_DAY);
+
+		// civil date of the days since 1970-01-01 in the proleptic Gregorian calendar
+		final long shiftedDays = days + 719468;
+		final long era = Math.floorDiv(shiftedDays, 146097);
+		final int dayOfEra = (int) (shiftedDays - era * 146097);
+		final int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+		final int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+		final int shiftedMonth = (5 * dayOfYear + 2) / 153;
+		final int day = dayOfYear - (153 * shiftedMonth + 2) / 5 + 1;
+		final int month = shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9;
+		final long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+
+		for (int i = 0; i < fields.length; i++) {
+
+			switch (fields[i]) {
+			case 0:
+				sb.append(literals[i]);
+				break;
+			case 'y':
+				if (counts[i] == 2)
+					appendPadded(year % 100, 2, sb);
+				else
+					appendPadded(year, counts[i], sb);
+				break;
+			case 'M':
+				appendPadded(month, counts[i], sb);
+				break;
+			case 'd':
+				appendPadded(day, counts[i], sb);
+				break;
+			case 'H':
+				appendPadded(millisOfDay / 3600000, counts[i], sb);
+				break;
+			case 'm':
+				appendPadded(millisOfDay / 60000 % 60, counts[i], sb);
+				break;
+			case 's':
+				appendPadded(millisOfDay / 1000 % 60, counts[i], sb);
+				break;
+			default: // 'S'
+				appendPadded(millisOfDay % 1000, counts[i], sb);
+			}
+		}
+	}
+
+	private static void appendPadded(long value, int minimumDigits, StringBuilder sb) {
+
+		int digits = 1;
+
+		for (long rest = value; rest >= 10; rest /= 10) {
+			digits++;
+		}
+
+		for (; digits < minimumDigits; digits++) {
+			sb.append('0');
+		}
+
+		sb.append(value);
+	}
+
+}
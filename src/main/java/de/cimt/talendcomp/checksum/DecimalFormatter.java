@@ -0,0 +1,273 @@
+package de.cimt.talendcomp.checksum;
+
+import java.math.RoundingMode;
+import java.text.DecimalFormat;
+import java.text.NumberFormat;
+
+/**
+ * Formats doubles like the given {@link NumberFormat} without calling it in the common case.
+ * {@link DecimalFormat} rounds the shortest decimal representation of the value HALF_EVEN to the maximum fraction digits. 
+ * <ul>
+ * <li>If the fraction digits are below the precision of the value, it is scaled by 10^maximumFractionDigits with exact 128 bit 
+ * arithmetic and rounded. Values within one ulp of a rounding midpoint are skipped, the shortest representation may be on the other side.</li>
+ * <li>Otherwise the value is printed with the fewest fraction digits (at most 15 significant digits) which convert back to the same double.
+ * Such a decimal is unique, so it is the shortest representation.</li>
+ * </ul>
+ * All other values are passed to the number format, as well as NaN, infinity, values above 2^52
+ * and formats which are not a plain {@link DecimalFormat} without grouping.
+ * The settings of the number format are read once at construction time.
+ * The formatter is thread safe, every thread uses its own copy of the number format.
+ */
+public final class DecimalFormatter {
+
+	private static final long[] POWERS_OF_TEN = new long[19];
+	private static final double[] DOUBLE_POWERS_OF_TEN = new double[19];
+	/**
+	 * decimals with up to 15 significant digits are converted to distinct doubles
+	 */
+	private static final double MAX_UNIQUE_DECIMAL = 1e15;
+
+	static {
+		POWERS_OF_TEN[0] = 1;
+		DOUBLE_POWERS_OF_TEN[0] = 1;
+		for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+			POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+			DOUBLE_POWERS_OF_TEN[i] = POWERS_OF_TEN[i];
+		}
+	}
+
+	private final ThreadLocal<NumberFormat> format;
+	private final boolean fast;
+	private final int fractionDigits;
+	private final char decimalSeparator;
+	private final String negativePrefix;
+
+	public DecimalFormatter(NumberFormat format) {
+
+		if (format == null)
+			throw new IllegalArgumentException("format cannot be null");
+
+		final NumberFormat template = (NumberFormat) format.clone();
+
+		this.format = new ThreadLocal<NumberFormat>() {
+			@Override
+			protected NumberFormat initialValue() {
+				return (NumberFormat) template.clone();
+			}
+		};
+		this.fractionDigits = format.getMaximumFractionDigits();
+
+		if (format instanceof DecimalFormat) {
+
+			final DecimalFormat decimalFormat = (DecimalFormat) format;
+
+			this.decimalSeparator = decimalFormat.getDecimalFormatSymbols().getDecimalSeparator();
+			this.negativePrefix = decimalFormat.getNegativePrefix();
+			this.fast = fractionDigits < POWERS_OF_TEN.length
+					&& decimalFormat.isGroupingUsed() == false
+					&& decimalFormat.isDecimalSeparatorAlwaysShown() == false
+					&& decimalFormat.getMinimumFractionDigits() == 0
+					&& decimalFormat.getMinimumIntegerDigits() == 1
+					&& decimalFormat.getMaximumIntegerDigits() >= 19
+					&& decimalFormat.getMultiplier() == 1
+					&& decimalFormat.getRoundingMode() == RoundingMode.HALF_EVEN
+					&& decimalFormat.toPattern().indexOf('E') < 0
+					&& decimalFormat.getPositivePrefix().isEmpty()
+					&& decimalFormat.getPositiveSuffix().isEmpty()
+					&& decimalFormat.getNegativeSuffix().isEmpty()
+					&& decimalFormat.getDecimalFormatSymbols().getZeroDigit() == '0';
+		} else {
+			this.decimalSeparator = '.';
+			this.negativePrefix = "-";
+			this.fast = false;
+		}
+	}
+
+	/**
+	 * @return true if values are formatted without the number format in the common case
+	 */
+	public boolean isFast() {
+		return fast;
+	}
+
+	public String format(double value) {
+
+		if (fast) {
+			final StringBuilder sb = new StringBuilder(24);
+
+			if (tryFormat(value, sb))
+				return sb.toString();
+		}
+
+		return format.get().format(value);
+	}
+
+	/**
+	 * Appends the formatted value to the builder
+	 * @param value
+	 * @param sb
+	 */
+	public void format(double value, StringBuilder sb) {
+
+		if (fast == false || tryFormat(value, sb) == false)
+			sb.append(format.get().format(value));
+	}
+
+	private boolean tryFormat(double value, StringBuilder sb) {
+
+		final long bits = Double.doubleToRawLongBits(value);
+		final boolean negative = bits < 0;
+		int exponent = (int) ((bits >>> 52) & 0x7ff);
+		long mantissa = bits & 0xfffffffffffffL;
+
+		if (exponent == 0x7ff) // NaN, infinity
+			return false;
+
+		if (exponent == 0) {
+
+			if (mantissa == 0) {
+				append(negative, 0, sb);
+				return true;
+			}
+
+			// subnormal
+			exponent = 1;
+		} else {
+			mantissa |= 1L << 52;
+		}
+
+		// value = mantissa / 2^shift
+		final int shift = 1075 - exponent;
+
+		if (shift <= 0) // the decimal digits of such values are not exact
+			return false;
+
+		final long scale = POWERS_OF_TEN[fractionDigits];
+
+		// scaled = mantissa * scale < 2^113
+		final long scaledHigh = HashCalculation.unsignedMultiplyHigh(mantissa, scale);
+		final long scaledLow = mantissa * scale;
+
+		long integer;
+		long remainderHigh;
+		long remainderLow;
+		long halfHigh;
+		long halfLow;
+
+		if (shift < 64) {
+
+			if ((scaledHigh >>> shift) != 0)
+				return tryFormatShortest(negative, Math.abs(value), sb);
+
+			integer = (scaledHigh << (64 - shift)) | (scaledLow >>> shift);
+			remainderHigh = 0;
+			remainderLow = scaledLow & ((1L << shift) - 1);
+			halfHigh = 0;
+			halfLow = 1L << (shift - 1);
+
+		} else if (shift == 64) {
+
+			integer = scaledHigh;
+			remainderHigh = 0;
+			remainderLow = scaledLow;
+			halfHigh = 0;
+			halfLow = Long.MIN_VALUE;
+
+		} else if (shift < 127) {
+
+			integer = scaledHigh >>> (shift - 64);
+			remainderHigh = scaledHigh & ((1L << (shift - 64)) - 1);
+			remainderLow = scaledLow;
+			halfHigh = 1L << (shift - 65);
+			halfLow = 0;
+
+		} else {
+			// the remainder is far below the midpoint
+			append(negative, 0, sb);
+			return true;
+		}
+
+		if (integer < 0 || integer == Long.MAX_VALUE)
+			return tryFormatShortest(negative, Math.abs(value), sb);
+
+		// distance = remainder - half, one ulp of the value is scale in units of the remainder
+		final long distanceLow = remainderLow - halfLow;
+		final long distanceHigh = remainderHigh - halfHigh - (Long.compareUnsigned(remainderLow, halfLow) < 0 ? 1 : 0);
+
+		long absoluteHigh = distanceHigh;
+		long absoluteLow = distanceLow;
+
+		if (distanceHigh < 0) {
+			absoluteLow = -distanceLow;
+			absoluteHigh = ~distanceHigh + (distanceLow == 0 ? 1 : 0);
+		}
+
+		if (absoluteHigh == 0 && Long.compareUnsigned(absoluteLow, scale) <= 0)
+			return tryFormatShortest(negative, Math.abs(value), sb);
+
+		if (distanceHigh >= 0)
+			integer++;
+
+		append(negative, integer, sb);
+		return true;
+	}
+
+	/**
+	 * Formats the value with the fewest fraction digits which convert back to it
+	 * @return false if there are more than the maximum fraction digits or 15 significant digits required
+	 */
+	private boolean tryFormatShortest(boolean negative, double absolute, StringBuilder sb) {
+
+		for (int digits = 0; digits <= fractionDigits; digits++) {
+
+			final double scaled = absolute * DOUBLE_POWERS_OF_TEN[digits];
+
+			if (scaled >= MAX_UNIQUE_DECIMAL)
+				return false;
+
+			final long candidate = Math.round(scaled);
+
+			// both operands are exact doubles, so the division is correctly rounded
+			if (candidate / DOUBLE_POWERS_OF_TEN[digits] == absolute) {
+				append(negative, candidate, digits, sb);
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	private void append(boolean negative, long scaled, StringBuilder sb) {
+		append(negative, scaled, fractionDigits, sb);
+	}
+
+	private void append(boolean negative, long scaled, int scaleDigits, StringBuilder sb) {
+
+		if (negative)
+			sb.append(negativePrefix);
+
+		final long scale = POWERS_OF_TEN[scaleDigits];
+		long fraction = scaled % scale;
+
+		sb.append(scaled / scale);
+
+		if (fraction != 0) {
+
+			int digits = scaleDigits;
+
+			while (fraction % 10 == 0) {
+				fraction /= 10;
+				digits--;
+			}
+
+			sb.append(decimalSeparator);
+
+			for (int i = digits - 1; i > 0 && fraction < POWERS_OF_TEN[i]; i--) {
+				sb.append('0');
+			}
+
+			sb.append(fraction);
+		}
+	}
+
+}
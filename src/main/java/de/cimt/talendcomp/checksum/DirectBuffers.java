@@ -0,0 +1,49 @@
+package de.cimt.talendcomp.checksum;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+
+/**
+ * Releases direct and mapped byte buffers immediately instead of when they are garbage collected
+ */
+final class DirectBuffers {
+
+	private DirectBuffers() {
+	}
+
+	/**
+	 * Frees the memory of a direct buffer or the mapping of a mapped buffer, e.g. so a mapped file can be moved on Windows.
+	 * The buffer must not be used afterwards. If the JVM does not allow it, the buffer is released by the garbage collector.
+	 * @param buffer -> a buffer created by allocateDirect or map, not a slice or duplicate of it
+	 */
+	static void release(ByteBuffer buffer) {
+
+		if (buffer == null || !buffer.isDirect())
+			return;
+
+		try {
+			// Java 9 and later
+			final Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+			final Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+			final Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+			theUnsafe.setAccessible(true);
+			invokeCleaner.invoke(theUnsafe.get(null), buffer);
+		} catch (NoSuchMethodException e) {
+			try {
+				// Java 8
+				final Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+				cleanerMethod.setAccessible(true);
+				final Object cleaner = cleanerMethod.invoke(buffer);
+
+				if (cleaner != null)
+					cleaner.getClass().getMethod("clean").invoke(cleaner);
+			} catch (Exception ignored) {
+				// released by the garbage collector
+			}
+		} catch (Exception ignored) {
+			// released by the garbage collector
+		}
+	}
+
+}
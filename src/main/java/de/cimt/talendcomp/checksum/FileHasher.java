@@ -0,0 +1,485 @@
+package de.cimt.talendcomp.checksum;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+import de.cimt.talendcomp.checksum.HashCalculation.HASH_OUTPUT_ENCODINGS;
+
+/**
+ * Command line tool which hashes every line of a delimited file with the rules of {@link Normalization}
+ * and writes the key columns and the hash, e.g. for reconciliations outside of Talend.
+ * The file is memory mapped and split at line boundaries into chunks, which are hashed in parallel
+ * by a fork-join pool and written in the original order.
+ * <pre>
+ * java -jar cimt-talendcomp-hashrow.jar hash.properties [input file] [output file]
+ * </pre>
+ * Properties (column numbers start with 1):
+ * <ul>
+ * <li>input.file, output.file -> the output is written to stdout if no output file is given</li>
+ * <li>input.delimiter (;), input.quote (none), input.header (false), input.charset (UTF-8), input.emptyIsNull (true)</li>
+ * <li>key.columns -> comma separated column numbers written in front of the hash</li>
+ * <li>hash.columns -> comma separated column numbers of the hash base, in this order</li>
+ * <li>column.&lt;number&gt;.trim (false), column.&lt;number&gt;.case (CASE_SENSITIVE)</li>
+ * <li>hash.type (MD5), hash.encoding (HEX, BASE64, LONG64 or HASH128)</li>
+ * <li>normalize.delimiter (;), normalize.nullReplacement (empty), normalize.quoting (false), normalize.quoteCharacter ("),
+ * normalize.cutOffEmptyTrailingObjects (false), normalize.modifyHashOutput (false), normalize.hashOutputIfBaseIsNull</li>
+ * <li>output.delimiter (;), chunk.size (16777216), parallelism (number of processors)</li>
+ * </ul>
+ * Fields are read as strings, quoted fields must not contain line breaks.
+ * Every input line results in one output line, an empty input line in an empty output line.
+ * The hash is written like the HASH variable of the component, LONG64 and HASH128 as hex, see {@link HashCalculation#toHashString(Object)}.
+ */
+public final class FileHasher {
+
+	private static final byte[] LINE_BREAK = new byte[] {'\n'};
+
+	private final byte delimiter;
+	private final int quote;
+	private final boolean header;
+	private final Charset charset;
+	private final boolean emptyIsNull;
+	private final int[] keyColumns;
+	private final int[] hashColumns;
+	private final NormalizeObjectConfig[] itemConfigs;
+	/**
+	 * number of fields which have to be split per line
+	 */
+	private final int usedColumns;
+	private final NormalizeConfig config;
+	private final Hasher hasher;
+	private final byte[] outputDelimiter;
+	private final int chunkSize;
+	private final int parallelism;
+
+	/**
+	 * @param properties -> see class description
+	 * @throws IllegalArgumentException if a property is invalid
+	 */
+	public FileHasher(Properties properties) throws IllegalArgumentException {
+
+		this.charset = Charset.forName(properties.getProperty("input.charset", "UTF-8"));
+		this.delimiter = singleByte(properties.getProperty("input.delimiter", ";"), "input.delimiter");
+
+		final String quoteProperty = properties.getProperty("input.quote", "");
+		this.quote = quoteProperty.isEmpty() ? -1 : singleByte(quoteProperty, "input.quote");
+
+		if (new String(new byte[] {'\n', delimiter}, charset).equals("\n" + (char) delimiter) == false)
+			throw new IllegalArgumentException("input.charset " + charset + " is not ASCII compatible");
+
+		this.header = Boolean.parseBoolean(properties.getProperty("input.header", "false"));
+		this.emptyIsNull = Boolean.parseBoolean(properties.getProperty("input.emptyIsNull", "true"));
+		this.keyColumns = columns(properties.getProperty("key.columns", ""), "key.columns");
+		this.hashColumns = columns(properties.getProperty("hash.columns", ""), "hash.columns");
+
+		if (hashColumns.length == 0)
+			throw new IllegalArgumentException("hash.columns must contain at least one column");
+
+		int maxColumn = 0;
+
+		for (int column : keyColumns) {
+			maxColumn = Math.max(maxColumn, column + 1);
+		}
+
+		this.itemConfigs = new NormalizeObjectConfig[hashColumns.length];
+
+		for (int i = 0; i < hashColumns.length; i++) {
+			final String prefix = "column." + (hashColumns[i] + 1) + ".";
+			itemConfigs[i] = new NormalizeObjectConfig(properties.getProperty(prefix + "case", "CASE_SENSITIVE"),
+					Boolean.parseBoolean(properties.getProperty(prefix + "trim", "false")));
+			maxColumn = Math.max(maxColumn, hashColumns[i] + 1);
+		}
+
+		this.usedColumns = maxColumn;
+
+		this.config = new NormalizeConfig(properties.getProperty("normalize.delimiter", ";"),
+				properties.getProperty("normalize.nullReplacement", ""),
+				Boolean.parseBoolean(properties.getProperty("normalize.quoting", "false")),
+				properties.getProperty("normalize.quoteCharacter", "\""),
+				"yyyy-MM-dd'T'HH:mm:ss.SSS", "ENGLISH", 7, 15,
+				Boolean.parseBoolean(properties.getProperty("normalize.modifyHashOutput", "false")),
+				properties.getProperty("normalize.hashOutputIfBaseIsNull"),
+				false,
+				Boolean.parseBoolean(properties.getProperty("normalize.cutOffEmptyTrailingObjects", "false"))).freeze();
+
+		final HASH_OUTPUT_ENCODINGS encoding = HASH_OUTPUT_ENCODINGS.valueOf(properties.getProperty("hash.encoding", "HEX").trim().toUpperCase());
+
+		if (encoding == HASH_OUTPUT_ENCODINGS.RAW)
+			throw new IllegalArgumentException("hash.encoding RAW can not be written into a text file");
+
+		this.hasher = new Hasher(properties.getProperty("hash.type", "MD5").trim(), encoding);
+		this.outputDelimiter = properties.getProperty("output.delimiter", ";").getBytes(StandardCharsets.UTF_8);
+		this.chunkSize = Integer.parseInt(properties.getProperty("chunk.size", String.valueOf(16 << 20)).trim());
+		this.parallelism = Integer.parseInt(properties.getProperty("parallelism", String.valueOf(Runtime.getRuntime().availableProcessors())).trim());
+
+		if (chunkSize < 1 || parallelism < 1)
+			throw new IllegalArgumentException("chunk.size and parallelism must be positive");
+	}
+
+	private static byte singleByte(String value, String property) {
+
+		if (value.length() != 1 || value.charAt(0) >= 0x80 || value.charAt(0) == '\n' || value.charAt(0) == '\r')
+			throw new IllegalArgumentException(property + " must be a single ASCII character other than a line break");
+
+		return (byte) value.charAt(0);
+	}
+
+	/**
+	 * @return zero based column indexes
+	 */
+	private static int[] columns(String value, String property) {
+
+		if (value.trim().isEmpty())
+			return new int[0];
+
+		final String[] numbers = value.split(",");
+		final int[] columns = new int[numbers.length];
+
+		for (int i = 0; i < numbers.length; i++) {
+			try {
+				columns[i] = Integer.parseInt(numbers[i].trim()) - 1;
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException(property + " contains an invalid column number: " + numbers[i]);
+			}
+
+			if (columns[i] < 0)
+				throw new IllegalArgumentException(property + " contains an invalid column number: " + numbers[i]);
+		}
+
+		return columns;
+	}
+
+	/**
+	 * Hashes all lines of the file
+	 * @param input
+	 * @param output -> receives one line "key;hash" per input line, is not closed
+	 * @return number of written lines, including the empty lines
+	 * @throws IOException
+	 */
+	public long hash(File input, OutputStream output) throws IOException {
+
+		final RandomAccessFile file = new RandomAccessFile(input, "r");
+		final ForkJoinPool pool = new ForkJoinPool(parallelism);
+
+		try {
+			final FileChannel channel = file.getChannel();
+			final long size = channel.size();
+			long position = header ? nextLineStart(channel, 0, size) : 0;
+			long lines = 0;
+
+			// chunks are hashed ahead while the results are written in order
+			final Deque<ForkJoinTask<Chunk>> running = new ArrayDeque<ForkJoinTask<Chunk>>();
+
+			while (position < size || running.isEmpty() == false) {
+
+				while (position < size && running.size() < 2 * parallelism) {
+
+					final long end = position + chunkSize >= size ? size : nextLineStart(channel, position + chunkSize - 1, size);
+					running.add(pool.submit(new ChunkTask(channel.map(FileChannel.MapMode.READ_ONLY, position, end - position))));
+					position = end;
+				}
+
+				final Chunk chunk = join(running.poll());
+				output.write(chunk.output, 0, chunk.length);
+				lines += chunk.lines;
+			}
+
+			output.flush();
+
+			return lines;
+		} finally {
+			pool.shutdownNow();
+			file.close();
+		}
+	}
+
+	private static Chunk join(ForkJoinTask<Chunk> task) throws IOException {
+
+		try {
+			return task.get();
+		} catch (InterruptedException e) {
+			throw new IOException("hashing interrupted", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+			throw new IOException(e.getCause().getMessage(), e.getCause());
+		}
+	}
+
+	/**
+	 * @return position after the first line break at or after the position, or the size of the file
+	 */
+	private static long nextLineStart(FileChannel channel, long position, long size) throws IOException {
+
+		final ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+
+		while (position < size) {
+
+			buffer.clear();
+			final int read = channel.read(buffer, position);
+
+			if (read <= 0)
+				break;
+
+			for (int i = 0; i < read; i++) {
+				if (buffer.get(i) == '\n')
+					return position + i + 1;
+			}
+
+			position += read;
+		}
+
+		return size;
+	}
+
+	private static final class Chunk {
+		byte[] output;
+		int length;
+		long lines;
+	}
+
+	/**
+	 * Hashes all lines of one mapped chunk
+	 */
+	private final class ChunkTask extends RecursiveTask<Chunk> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final transient MappedByteBuffer mapped;
+
+		ChunkTask(MappedByteBuffer mapped) {
+			this.mapped = mapped;
+		}
+
+		@Override
+		protected Chunk compute() {
+
+			final byte[] data = new byte[mapped.remaining()];
+			mapped.get(data);
+
+			final Normalization normalization = new Normalization(config, hasher, false);
+			final int[] starts = new int[usedColumns];
+			final int[] ends = new int[usedColumns];
+			final boolean[] quoted = new boolean[usedColumns];
+			final Chunk chunk = new Chunk();
+			chunk.output = new byte[Math.max(256, data.length / 2)];
+
+			int lineStart = 0;
+
+			while (lineStart < data.length) {
+
+				int lineEnd = lineStart;
+
+				while (lineEnd < data.length && data[lineEnd] != '\n') {
+					lineEnd++;
+				}
+
+				final int next = lineEnd + 1;
+
+				if (lineEnd > lineStart && data[lineEnd - 1] == '\r')
+					lineEnd--;
+
+				if (lineEnd > lineStart) {
+					final int fields = split(data, lineStart, lineEnd, starts, ends, quoted);
+					hashLine(data, fields, starts, ends, quoted, normalization, chunk);
+				} else {
+					// keeps the output aligned with the input lines
+					append(chunk, LINE_BREAK, 0, 1);
+				}
+
+				chunk.lines++;
+
+				lineStart = next;
+			}
+
+			return chunk;
+		}
+	}
+
+	/**
+	 * Finds the used fields of the line
+	 * @return number of found fields
+	 */
+	private int split(byte[] data, int start, int end, int[] starts, int[] ends, boolean[] quoted) {
+
+		int field = 0;
+		int position = start;
+
+		while (field < usedColumns) {
+
+			if (quote >= 0 && position < end && data[position] == quote) {
+
+				// quoted field, doubled quotes are escaped quotes
+				int i = position + 1;
+
+				while (i < end && (data[i] != quote || (i + 1 < end && data[i + 1] == quote))) {
+					i += data[i] == quote ? 2 : 1;
+				}
+
+				starts[field] = position + 1;
+				ends[field] = Math.min(i, end);
+				quoted[field] = true;
+				position = i + 1;
+
+				while (position < end && data[position] != delimiter) {
+					position++;
+				}
+			} else {
+
+				int i = position;
+
+				while (i < end && data[i] != delimiter) {
+					i++;
+				}
+
+				starts[field] = position;
+				ends[field] = i;
+				quoted[field] = false;
+				position = i;
+			}
+
+			field++;
+
+			if (position >= end)
+				break;
+
+			// skip the delimiter
+			position++;
+		}
+
+		return field;
+	}
+
+	private String value(byte[] data, int column, int fields, int[] starts, int[] ends, boolean[] quoted) {
+
+		if (column >= fields)
+			return null;
+
+		final int length = ends[column] - starts[column];
+
+		if (length == 0 && emptyIsNull && quoted[column] == false)
+			return null;
+
+		final String value = new String(data, starts[column], length, charset);
+
+		if (quoted[column]) {
+			final String quoteString = String.valueOf((char) quote);
+			return value.replace(quoteString + quoteString, quoteString);
+		}
+
+		return value;
+	}
+
+	private void hashLine(byte[] data, int fields, int[] starts, int[] ends, boolean[] quoted, Normalization normalization, Chunk chunk) {
+
+		normalization.reset();
+
+		for (int i = 0; i < hashColumns.length; i++) {
+			final String value = value(data, hashColumns[i], fields, starts, ends, quoted);
+			normalization.addNormalized(value == null ? null : normalization.normalize(value, itemConfigs[i]));
+		}
+
+		final Object hash = normalization.calculateHashValue();
+
+		for (int column : keyColumns) {
+
+			if (column < fields) {
+				if (quoted[column]) {
+					final byte[] value = value(data, column, fields, starts, ends, quoted).getBytes(charset);
+					append(chunk, value, 0, value.length);
+				} else {
+					append(chunk, data, starts[column], ends[column] - starts[column]);
+				}
+			}
+
+			append(chunk, outputDelimiter, 0, outputDelimiter.length);
+		}
+
+		if (hash != null) {
+			final byte[] hashBytes = HashCalculation.toHashString(hash).getBytes(StandardCharsets.US_ASCII);
+			append(chunk, hashBytes, 0, hashBytes.length);
+		}
+
+		append(chunk, LINE_BREAK, 0, 1);
+	}
+
+	private static void append(Chunk chunk, byte[] bytes, int offset, int length) {
+
+		if (chunk.length + length > chunk.output.length) {
+			final byte[] grown = new byte[Math.max(chunk.output.length * 2, chunk.length + length)];
+			System.arraycopy(chunk.output, 0, grown, 0, chunk.length);
+			chunk.output = grown;
+		}
+
+		System.arraycopy(bytes, offset, chunk.output, chunk.length, length);
+		chunk.length += length;
+	}
+
+	public static void main(String[] args) {
+
+		if (args.length < 1 || args.length > 3) {
+			System.err.println("Usage: java -jar cimt-talendcomp-hashrow.jar <properties file> [input file] [output file]");
+			System.exit(2);
+		}
+
+		try {
+			final Properties properties = new Properties();
+			final InputStream in = new FileInputStream(args[0]);
+
+			try {
+				properties.load(new InputStreamReader(in, StandardCharsets.UTF_8));
+			} finally {
+				in.close();
+			}
+
+			if (args.length > 1)
+				properties.setProperty("input.file", args[1]);
+
+			if (args.length > 2)
+				properties.setProperty("output.file", args[2]);
+
+			final String inputFile = properties.getProperty("input.file");
+
+			if (inputFile == null)
+				throw new IllegalArgumentException("input.file is not set");
+
+			final String outputFile = properties.getProperty("output.file");
+			final OutputStream out = outputFile == null ? System.out : new BufferedOutputStream(new FileOutputStream(outputFile), 1 << 20);
+			final long start = System.nanoTime();
+			final long lines;
+
+			try {
+				lines = new FileHasher(properties).hash(new File(inputFile), out);
+			} finally {
+				if (out != System.out)
+					out.close();
+			}
+
+			final double seconds = (System.nanoTime() - start) / 1e9;
+			final double megabytes = new File(inputFile).length() / 1e6;
+			System.err.println(String.format("%d lines, %.1f MB hashed in %.2f s (%.1f MB/s)", lines, megabytes, seconds, megabytes / seconds));
+		} catch (Exception e) {
+			System.err.println("Hash file failed: " + e.getMessage());
+			System.exit(1);
+		}
+	}
+
+}
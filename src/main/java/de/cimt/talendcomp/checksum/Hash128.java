@@ -0,0 +1,164 @@
+package de.cimt.talendcomp.checksum;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Immutable 128 bit hash value held in two longs. The high long contains the first 8 bytes of the digest
+ * in big endian order, the low long the following 8 bytes.
+ * Values are ordered like their unsigned byte representation.
+ */
+public final class Hash128 implements Comparable<Hash128>, Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private final long high;
+	private final long low;
+
+	public Hash128(long high, long low) {
+		this.high = high;
+		this.low = low;
+	}
+
+	/**
+	 * Creates a value from the first 16 bytes of a digest
+	 * @param hash
+	 * @return
+	 * @throws IllegalArgumentException if the hash is shorter than 16 bytes
+	 */
+	public static Hash128 fromBytes(byte[] hash) throws IllegalArgumentException {
+
+		if (hash == null)
+			throw new IllegalArgumentException("hash cannot be null");
+
+		if (hash.length < 16)
+			throw new IllegalArgumentException("hash has to be at least 16 bytes long, but has " + hash.length);
+
+		return new Hash128(HashCalculation.readLong(hash, 0), HashCalculation.readLong(hash, 8));
+	}
+
+	/**
+	 * Reduces a hash output of {@link Normalization#calculateHashValue()} in any encoding to 128 bit.
+	 * {@link Hash128} is returned as it is, byte[] are read like {@link #fromBytes(byte[])} but padded with zeros,
+	 * a Long is the high part, hex strings are parsed and other strings like BASE64 are reduced by xxHash64 with two seeds.
+	 * @param hashValue
+	 * @return null if the value is null
+	 */
+	public static Hash128 of(Object hashValue) {
+
+		if (hashValue == null)
+			return null;
+
+		if (hashValue instanceof Hash128)
+			return (Hash128) hashValue;
+
+		if (hashValue instanceof byte[]) {
+			final byte[] hash = (byte[]) hashValue;
+			return new Hash128(readPadded(hash, 0), readPadded(hash, 8));
+		}
+
+		if (hashValue instanceof Long)
+			return new Hash128((Long) hashValue, 0);
+
+		final String string = hashValue.toString();
+
+		if (string.length() >= 32 && isHex(string))
+			return new Hash128(parseHex(string, 0), parseHex(string, 16));
+
+		final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+
+		return new Hash128(XXHash64Digest.hash64(bytes, 0, bytes.length, 0), XXHash64Digest.hash64(bytes, 0, bytes.length, 0x9E3779B97F4A7C15L));
+	}
+
+	private static long readPadded(byte[] hash, int offset) {
+
+		long value = 0;
+
+		for (int i = offset; i < offset + 8; i++) {
+			value = (value << 8) | (i < hash.length ? hash[i] & 0xff : 0);
+		}
+
+		return value;
+	}
+
+	private static boolean isHex(String value) {
+
+		for (int i = 0; i < 32; i++) {
+			if (Character.digit(value.charAt(i), 16) < 0)
+				return false;
+		}
+
+		return true;
+	}
+
+	private static long parseHex(String value, int offset) {
+
+		long result = 0;
+
+		for (int i = offset; i < offset + 16; i++) {
+			result = (result << 4) | Character.digit(value.charAt(i), 16);
+		}
+
+		return result;
+	}
+
+	public long getHigh() {
+		return high;
+	}
+
+	public long getLow() {
+		return low;
+	}
+
+	/**
+	 * @return the 16 bytes in big endian order
+	 */
+	public byte[] toBytes() {
+		final byte[] bytes = new byte[16];
+		HashCalculation.writeLong(high, bytes, 0);
+		HashCalculation.writeLong(low, bytes, 8);
+		return bytes;
+	}
+
+	@Override
+	public int compareTo(Hash128 other) {
+
+		int result = Long.compare(high + Long.MIN_VALUE, other.high + Long.MIN_VALUE);
+
+		if (result == 0)
+			result = Long.compare(low + Long.MIN_VALUE, other.low + Long.MIN_VALUE);
+
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+
+		if (this == obj)
+			return true;
+
+		if (!(obj instanceof Hash128))
+			return false;
+
+		final Hash128 other = (Hash128) obj;
+		return high == other.high && low == other.low;
+	}
+
+	@Override
+	public int hashCode() {
+		// the bits of a hash are already well distributed
+		return (int) (high ^ (high >>> 32) ^ low ^ (low >>> 32));
+	}
+
+	/**
+	 * @return the 32 lower case hex characters
+	 */
+	@Override
+	public String toString() {
+		final char[] chars = new char[32];
+		HashCalculation.toHex(high, chars, 0);
+		HashCalculation.toHex(low, chars, 16);
+		return new String(chars);
+	}
+
+}
@@ -0,0 +1,170 @@
+package de.cimt.talendcomp.checksum;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Registry of the supported hash algorithms. Every algorithm is known by its name (the value of the 
+ * HASH_TYPE setting) and optional aliases, and creates its message digests.
+ */
+public enum HashAlgorithm {
+	
+	MD5("MD5", 16, true),
+	SHA1("SHA1", 20, true, "SHA-1"),
+	SHA256("SHA-256", 32, true, "SHA256"),
+	SHA512_256("SHA-512/256", 32, true, "SHA512/256") {
+		@Override
+		public MessageDigest newDigest() {
+			try {
+				return MessageDigest.getInstance(getName());
+			} catch (NoSuchAlgorithmException e) {
+				// available since Java 9 only
+				return new Sha512_256Digest(getName());
+			}
+		}
+	},
+	SHA3_256("SHA3-256", 32, true) {
+		@Override
+		public MessageDigest newDigest() {
+			try {
+				return MessageDigest.getInstance(getName());
+			} catch (NoSuchAlgorithmException e) {
+				// available since Java 9 only
+				return new Sha3Digest(getName(), getLength());
+			}
+		}
+	},
+	BLAKE2B_256("BLAKE2B-256", 32, true) {
+		@Override
+		public MessageDigest newDigest() {
+			return new Blake2bDigest(getName(), getLength());
+		}
+	},
+	BLAKE2B_512("BLAKE2B-512", 64, true, "BLAKE2B") {
+		@Override
+		public MessageDigest newDigest() {
+			return new Blake2bDigest(getName(), getLength());
+		}
+	},
+	XXH64(XXHash64Digest.ALGORITHM, 8, false) {
+		@Override
+		public MessageDigest newDigest() {
+			return new XXHash64Digest();
+		}
+	},
+	XXH3_128(XXH3Digest.ALGORITHM, 16, false) {
+		@Override
+		public MessageDigest newDigest() {
+			return new XXH3Digest();
+		}
+	},
+	MURMUR3_128(Murmur3Digest.ALGORITHM, 16, false) {
+		@Override
+		public MessageDigest newDigest() {
+			return new Murmur3Digest();
+		}
+	};
+	
+	private static final Map<String, HashAlgorithm> BY_NAME = new HashMap<String, HashAlgorithm>();
+	
+	static {
+		for (HashAlgorithm algorithm : values()) {
+			BY_NAME.put(algorithm.name.toUpperCase(Locale.ROOT), algorithm);
+			for (String alias : algorithm.aliases) {
+				BY_NAME.put(alias.toUpperCase(Locale.ROOT), algorithm);
+			}
+		}
+	}
+	
+	private final String name;
+	private final String[] aliases;
+	private final int length;
+	private final boolean cryptographic;
+	private final ThreadLocal<MessageDigest> threadLocalDigest;
+	
+	private HashAlgorithm(String name, int length, boolean cryptographic, String... aliases) {
+		this.name = name;
+		this.aliases = aliases;
+		this.length = length;
+		this.cryptographic = cryptographic;
+		this.threadLocalDigest = new ThreadLocal<MessageDigest>() {
+			@Override
+			protected MessageDigest initialValue() {
+				return newDigest();
+			}
+		};
+	}
+	
+	/**
+	 * Returns the algorithm for the given name or alias (case insensitive)
+	 * @param name -> e.g. MD5 / SHA1 / SHA-256 / SHA-512/256 / SHA3-256 / BLAKE2B-256 / XXH3-128
+	 * @return
+	 * @throws IllegalArgumentException if the algorithm is not supported
+	 */
+	public static HashAlgorithm forName(String name) throws IllegalArgumentException {
+		
+		HashAlgorithm algorithm = name != null ? BY_NAME.get(name.toUpperCase(Locale.ROOT)) : null;
+		
+		if (algorithm == null) {
+			
+			StringBuilder names = new StringBuilder();
+			
+			for (HashAlgorithm supported : values()) {
+				if (names.length() > 0)
+					names.append(", ");
+				names.append(supported.name);
+			}
+			
+			throw new IllegalArgumentException("algorithm has to be one of " + names);
+		}
+		
+		return algorithm;
+	}
+	
+	/**
+	 * @return the name of the algorithm, as used in the HASH_TYPE setting
+	 */
+	public String getName() {
+		return name;
+	}
+	
+	/**
+	 * @return length of the hash in bytes
+	 */
+	public int getLength() {
+		return length;
+	}
+	
+	/**
+	 * @return false for the fast hash functions which are only suitable for change detection or join keys
+	 */
+	public boolean isCryptographic() {
+		return cryptographic;
+	}
+	
+	/**
+	 * Returns a new message digest of this algorithm
+	 * @return
+	 */
+	public MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance(name);
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException("Digest Algorithm " + name + " could not be found in this environment.", e);
+		}
+	}
+	
+	/**
+	 * Returns the reset message digest of this algorithm for the current thread
+	 * @return
+	 */
+	public MessageDigest getThreadLocalDigest() {
+		MessageDigest digest = threadLocalDigest.get();
+		digest.reset();
+		return digest;
+	}
+	
+}
@@ -0,0 +1,368 @@
+package de.cimt.talendcomp.checksum;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Bloom filter of 128 bit hash values, e.g. to skip the lookup of rows which are definitely new.
+ * The bit positions are derived from the two halves of the hash by double hashing (Kirsch and Mitzenmacher),
+ * the hash is not hashed again because its bits are already distributed uniformly.
+ * The filter is saved to a file by {@link #save(File)}:
+ * <pre>
+ * header (32 bytes): magic, version, number of hash functions, reserved, number of bits, number of added values
+ * bits: longs
+ * </pre>
+ * All numbers are big endian. The filter is not thread safe.
+ */
+public class HashBloomFilter implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	static final int MAGIC = 0x54485242; // THRB
+	static final int VERSION = 1;
+	static final int HEADER_SIZE = 32;
+
+	private final long[] bits;
+	private final long bitCount;
+	private final int hashFunctions;
+	private long size = 0;
+
+	/**
+	 * @param expectedValues -> number of distinct values the filter is sized for
+	 * @param fpp -> false positive probability at the expected number of values, e.g. 0.01
+	 * @throws IllegalArgumentException if the filter would need more than 2^37 bits
+	 */
+	public HashBloomFilter(long expectedValues, double fpp) throws IllegalArgumentException {
+
+		if (expectedValues < 0)
+			throw new IllegalArgumentException("expectedValues cannot be negative, got " + expectedValues);
+
+		if (!(fpp > 0 && fpp < 1))
+			throw new IllegalArgumentException("fpp must be between 0 and 1 (exclusive), got " + fpp);
+
+		final long values = Math.max(1, expectedValues);
+		final double optimalBits = -values * Math.log(fpp) / (Math.log(2) * Math.log(2));
+		final long words = (long) Math.ceil(optimalBits / 64);
+
+		if (words > Integer.MAX_VALUE - 8)
+			throw new IllegalArgumentException("a filter of " + expectedValues + " values with the fpp " + fpp + " would take more than 16 GiB");
+
+		this.bits = new long[(int) Math.max(1, words)];
+		this.bitCount = bits.length * 64L;
+		this.hashFunctions = Math.max(1, (int) Math.round((double) bitCount / values * Math.log(2)));
+	}
+
+	private HashBloomFilter(long[] bits, int hashFunctions, long size) {
+		this.bits = bits;
+		this.bitCount = bits.length * 64L;
+		this.hashFunctions = hashFunctions;
+		this.size = size;
+	}
+
+	private static long step(long high, long low) {
+		// 64 bit hashes have no low part, the halves of the high part are swapped instead
+		return low != 0 ? low : Long.rotateLeft(high, 32);
+	}
+
+	/**
+	 * @param high
+	 * @param low
+	 * @return true if a bit changed, so the value was definitely not added before
+	 */
+	public boolean add(long high, long low) {
+
+		boolean changed = false;
+		final long step = step(high, low);
+		long combined = high;
+
+		for (int i = 0; i < hashFunctions; i++) {
+
+			combined += step;
+
+			final long bit = (combined & Long.MAX_VALUE) % bitCount;
+			final int word = (int) (bit >>> 6);
+			final long mask = 1L << bit;
+
+			if ((bits[word] & mask) == 0) {
+				bits[word] |= mask;
+				changed = true;
+			}
+		}
+
+		if (changed)
+			size++;
+
+		return changed;
+	}
+
+	public boolean add(Hash128 hash) {
+		return add(hash.getHigh(), hash.getLow());
+	}
+
+	/**
+	 * @param value -> hash output of {@link Normalization#calculateHashValue()} in any encoding, see {@link Hash128#of(Object)}, null is ignored
+	 * @return true if a bit changed
+	 */
+	public boolean addValue(Object value) {
+
+		final Hash128 hash = Hash128.of(value);
+
+		return hash != null && add(hash);
+	}
+
+	/**
+	 * @param high
+	 * @param low
+	 * @return false if the value was definitely not added, true if it was probably added
+	 */
+	public boolean mightContain(long high, long low) {
+
+		final long step = step(high, low);
+		long combined = high;
+
+		for (int i = 0; i < hashFunctions; i++) {
+
+			combined += step;
+
+			final long bit = (combined & Long.MAX_VALUE) % bitCount;
+
+			if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0)
+				return false;
+		}
+
+		return true;
+	}
+
+	public boolean mightContain(Hash128 hash) {
+		return mightContain(hash.getHigh(), hash.getLow());
+	}
+
+	/**
+	 * @param value -> hash output of {@link Normalization#calculateHashValue()} in any encoding, see {@link Hash128#of(Object)}
+	 * @return false if the value was definitely not added or is null
+	 */
+	public boolean mightContainValue(Object value) {
+
+		final Hash128 hash = Hash128.of(value);
+
+		return hash != null && mightContain(hash);
+	}
+
+	/**
+	 * @return number of added values which changed a bit, an estimate of the distinct values.
+	 * The number of keys for a filter of an index or snapshot.
+	 */
+	public long size() {
+		return size;
+	}
+
+	public long getBitCount() {
+		return bitCount;
+	}
+
+	public int getHashFunctions() {
+		return hashFunctions;
+	}
+
+	/**
+	 * @return the false positive probability for the values added so far
+	 */
+	public double getExpectedFpp() {
+		return Math.pow(1 - Math.exp(-(double) hashFunctions * size / bitCount), hashFunctions);
+	}
+
+	/**
+	 * Creates a filter of all keys of an index
+	 * @param index
+	 * @param fpp
+	 * @return
+	 */
+	public static HashBloomFilter of(HashIndex index, double fpp) {
+
+		final HashBloomFilter filter = new HashBloomFilter(index.size(), fpp);
+
+		for (long i = 0; i < index.size(); i++) {
+			filter.add(index.get(i));
+		}
+
+		filter.size = index.size();
+		return filter;
+	}
+
+	/**
+	 * Creates a filter of all keys of a snapshot
+	 * @param snapshot
+	 * @param fpp
+	 * @return
+	 */
+	public static HashBloomFilter of(HashSnapshot snapshot, double fpp) {
+
+		final HashBloomFilter filter = new HashBloomFilter(snapshot.size(), fpp);
+
+		// the additional slot is the all zero key
+		for (long slot = 0; slot <= snapshot.getCapacity(); slot++) {
+
+			final Hash128 key = snapshot.getKey(slot);
+
+			if (key != null)
+				filter.add(key);
+		}
+
+		filter.size = snapshot.size();
+		return filter;
+	}
+
+	/**
+	 * Reads a filter saved by {@link #save(File)} or creates it from a {@link HashIndex} or the keys of a {@link HashSnapshot}
+	 * @param file
+	 * @param fpp -> false positive probability of a created filter
+	 * @return
+	 * @throws IOException if the file can not be read or is neither a filter, an index nor a snapshot
+	 */
+	public static HashBloomFilter load(File file, double fpp) throws IOException {
+
+		if (file == null)
+			throw new IllegalArgumentException("file cannot be null");
+
+		final int magic;
+		final DataInputStream in = new DataInputStream(new FileInputStream(file));
+
+		try {
+			magic = in.readInt();
+		} catch (IOException e) {
+			throw new IOException("file " + file + " is neither a bloom filter, a hash index nor a snapshot", e);
+		} finally {
+			in.close();
+		}
+
+		if (magic == HashIndex.MAGIC) {
+
+			final HashIndex index = new HashIndex(file);
+
+			try {
+				return of(index, fpp);
+			} finally {
+				index.close();
+			}
+		}
+
+		if (magic == HashSnapshot.MAGIC) {
+
+			final HashSnapshot snapshot = new HashSnapshot(file);
+
+			try {
+				return of(snapshot, fpp);
+			} finally {
+				snapshot.close();
+			}
+		}
+
+		if (magic != MAGIC)
+			throw new IOException("file " + file + " is neither a bloom filter, a hash index nor a snapshot");
+
+		final FileInputStream stream = new FileInputStream(file);
+
+		try {
+			final FileChannel channel = stream.getChannel();
+			final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+
+			while (header.hasRemaining() && channel.read(header) >= 0) {
+				// read the complete header
+			}
+
+			if (header.hasRemaining() || header.getInt(4) != VERSION)
+				throw new IOException("bloom filter " + file + " has the unsupported version " + header.getInt(4));
+
+			final int hashFunctions = header.getInt(8);
+			final long bitCount = header.getLong(16);
+			final long size = header.getLong(24);
+
+			if (bitCount <= 0 || bitCount % 64 != 0 || hashFunctions < 1 || channel.size() != HEADER_SIZE + bitCount / 8)
+				throw new IOException("bloom filter " + file + " is truncated");
+
+			final long[] bits = new long[(int) (bitCount / 64)];
+			final ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+			int word = 0;
+
+			while (word < bits.length) {
+
+				buffer.clear();
+				buffer.limit((int) Math.min(buffer.capacity(), (bits.length - word) * 8L));
+
+				while (buffer.hasRemaining()) {
+					if (channel.read(buffer) < 0)
+						throw new IOException("bloom filter " + file + " is truncated");
+				}
+
+				buffer.flip();
+
+				final int words = buffer.remaining() / 8;
+				buffer.asLongBuffer().get(bits, word, words);
+				word += words;
+			}
+
+			return new HashBloomFilter(bits, hashFunctions, size);
+		} finally {
+			stream.close();
+		}
+	}
+
+	/**
+	 * Writes the filter to a temporary file next to the target and replaces the target with it
+	 * @param file
+	 * @throws IOException
+	 */
+	public void save(File file) throws IOException {
+
+		final File target = file.getAbsoluteFile();
+		final File dir = target.getParentFile();
+
+		if (dir != null && !dir.exists() && !dir.mkdirs())
+			throw new IOException("directory " + dir + " can not be created");
+
+		final File temp = File.createTempFile(target.getName(), ".tmp", dir);
+
+		try {
+			final FileOutputStream stream = new FileOutputStream(temp);
+			final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream, 1 << 16));
+
+			try {
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				out.writeInt(hashFunctions);
+				out.writeInt(0);
+				out.writeLong(bitCount);
+				out.writeLong(size);
+
+				for (long word : bits) {
+					out.writeLong(word);
+				}
+
+				out.flush();
+				stream.getFD().sync();
+			} finally {
+				out.close();
+			}
+
+			try {
+				Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			temp.delete();
+		}
+	}
+
+}
@@ -0,0 +1,125 @@
+package de.cimt.talendcomp.checksum;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Size bounded cache of hash outputs by their normalized hash base, the least recently used entry is evicted first.
+ * Entries are found by a 64 bit xxHash of the UTF-8 bytes of the hash base and verified by comparing the bytes,
+ * so a hit never returns the hash of another base. Every entry retains a copy of its hash base.
+ * The cache is not thread safe and must only be used with one {@link Hasher}, see {@link Normalization#setCache(HashCache)}.
+ */
+public class HashCache {
+
+	private final int maxSize;
+	private final LinkedHashMap<Long, Entry> entries;
+	private long hits = 0;
+	private long misses = 0;
+
+	/**
+	 * @param maxSize -> maximum number of entries
+	 * @throws IllegalArgumentException if the size is less than 1
+	 */
+	public HashCache(final int maxSize) throws IllegalArgumentException {
+
+		if (maxSize < 1)
+			throw new IllegalArgumentException("maxSize must be at least 1, got " + maxSize);
+
+		this.maxSize = maxSize;
+		this.entries = new LinkedHashMap<Long, Entry>(Math.min(maxSize, 1 << 16), 0.75f, true) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+				return size() > maxSize;
+			}
+		};
+	}
+
+	/**
+	 * @param base -> UTF-8 bytes of the hash base
+	 * @param length -> number of bytes used
+	 * @return the key of the hash base for {@link #get(long, byte[], int)} and {@link #put(long, byte[], int, Object)}
+	 */
+	public static long key(byte[] base, int length) {
+		return XXHash64Digest.hash64(base, 0, length, 0);
+	}
+
+	/**
+	 * @param key -> see {@link #key(byte[], int)}
+	 * @param base
+	 * @param length
+	 * @return the cached hash output, null if the hash base is not cached
+	 */
+	public Object get(long key, byte[] base, int length) {
+
+		final Entry entry = entries.get(key);
+
+		if (entry != null && entry.base.length == length && equals(entry.base, base, length)) {
+			hits++;
+			return entry.value;
+		}
+
+		misses++;
+		return null;
+	}
+
+	private static boolean equals(byte[] cached, byte[] base, int length) {
+
+		for (int i = 0; i < length; i++) {
+			if (cached[i] != base[i])
+				return false;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Caches the hash output, an entry with the same key is replaced
+	 * @param key -> see {@link #key(byte[], int)}
+	 * @param base -> copied by this method
+	 * @param length
+	 * @param value -> hash output, must not be changed afterwards
+	 */
+	public void put(long key, byte[] base, int length, Object value) {
+
+		if (value == null)
+			throw new IllegalArgumentException("value cannot be null");
+
+		entries.put(key, new Entry(Arrays.copyOf(base, length), value));
+	}
+
+	public void clear() {
+		entries.clear();
+	}
+
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	public int getSize() {
+		return entries.size();
+	}
+
+	public long getHits() {
+		return hits;
+	}
+
+	public long getMisses() {
+		return misses;
+	}
+
+	private static final class Entry {
+
+		private final byte[] base;
+		private final Object value;
+
+		private Entry(byte[] base, Object value) {
+			this.base = base;
+			this.value = value;
+		}
+	}
+
+}
@@ -1,7 +1,7 @@
-
 package de.cimt.talendcomp.checksum;
 
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.Base64;
@@ -13,62 +13,283 @@ public class HashCalculation {
 	 * supported encoding methods in which the hash value will be represented
 	 */
 	public static enum HASH_OUTPUT_ENCODINGS {
-		BASE64, HEX
+		BASE64, HEX, 
+		/** the digest bytes as byte[] */
+		RAW, 
+		/** the first 8 bytes of the digest as big endian long */
+		LONG64, 
+		/** the first 16 bytes of the digest as {@link Hash128} */
+		HASH128;
+		
+		/**
+		 * @return true if the hash is represented as String
+		 */
+		public boolean isString() {
+			return this == BASE64 || this == HEX;
+		}
 	}
 	
+	private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+	
+	private static final Charset UTF_8 = StandardCharsets.UTF_8;
+	
     public static String getMD5Hash(String content, HASH_OUTPUT_ENCODINGS hashOutputEncoding) {
-        return digest("MD5", content, hashOutputEncoding);
+        return getHash(HashAlgorithm.MD5, content, hashOutputEncoding);
     }
     
     public static String getSHA1Hash(String content, HASH_OUTPUT_ENCODINGS hashOutputEncoding) {
-        return digest("SHA1", content, hashOutputEncoding);
+        return getHash(HashAlgorithm.SHA1, content, hashOutputEncoding);
     }
     
     public static String getSHA256Hash(String content, HASH_OUTPUT_ENCODINGS hashOutputEncoding) {
-        return digest("SHA-256", content, hashOutputEncoding);
+        return getHash(HashAlgorithm.SHA256, content, hashOutputEncoding);
     }
-
-
-    private static String digest(String digestAlgorithm, String content, HASH_OUTPUT_ENCODINGS hashOutputEncoding) {
+    
+    public static String getSHA512_256Hash(String content, HASH_OUTPUT_ENCODINGS hashOutputEncoding) {
+        return getHash(HashAlgorithm.SHA512_256, content, hashOutputEncoding);
+    }
+    
+    public static String getSHA3_256Hash(String content, HASH_OUTPUT_ENCODINGS hashOutputEncoding) {
+        return getHash(HashAlgorithm.SHA3_256, content, hashOutputEncoding);
+    }
+    
+    public static String getBLAKE2bHash(String content, HASH_OUTPUT_ENCODINGS hashOutputEncoding) {
+        return getHash(HashAlgorithm.BLAKE2B_512, content, hashOutputEncoding);
+    }
+    
+    /**
+     * Calculates the hash of the content with the given algorithm
+     * @param algorithm
+     * @param content
+     * @param hashOutputEncoding -> BASE64, HEX
+     * @return encoded hash or null if content is null
+     */
+    public static String getHash(HashAlgorithm algorithm, String content, HASH_OUTPUT_ENCODINGS hashOutputEncoding) {
     	
     	if(content == null)
     		return null;
     	
     	// argument checks
-    	Objects.requireNonNull(digestAlgorithm, "digestAlgorithm must not be null");
+    	Objects.requireNonNull(algorithm, "algorithm must not be null");
     	Objects.requireNonNull(hashOutputEncoding, "encoding must not be null");
     	
     	// calculate hash
-    	MessageDigest messageDigest;
+		final byte[] result = algorithm.getThreadLocalDigest().digest(content.getBytes(UTF_8));
+		
+		return encode(result, hashOutputEncoding);
+    }
+    
+    /**
+     * Returns the name of the message digest for the given algorithm
+     * @param algorithm -> name or alias of a {@link HashAlgorithm}
+     * @return
+     * @throws IllegalArgumentException if the algorithm is not supported
+     */
+    public static String resolveAlgorithm(String algorithm) throws IllegalArgumentException {
+    	return HashAlgorithm.forName(algorithm).getName();
+    }
+
+    /**
+     * Returns a new message digest for the given algorithm
+     * @param digestAlgorithm -> name or alias of a {@link HashAlgorithm} or any other algorithm provided by the JVM
+     * @return
+     */
+    public static MessageDigest getMessageDigest(String digestAlgorithm) {
+    	
+    	Objects.requireNonNull(digestAlgorithm, "digestAlgorithm must not be null");
+    	
+    	try {
+    		return HashAlgorithm.forName(digestAlgorithm).newDigest();
+    	} catch (IllegalArgumentException e) {
+    		// not registered, ask the JVM
+    	}
+    	
 		try {
-			messageDigest = MessageDigest.getInstance(digestAlgorithm);
+			return MessageDigest.getInstance(digestAlgorithm);
 		} catch (NoSuchAlgorithmException e) {
 			throw new RuntimeException("Digest Algorithm " + digestAlgorithm + " could not be found in this environment.", e);
 		}
+    }
+    
+    /**
+     * Converts the hash bytes into the requested encoding
+     * @param hash
+     * @param hashOutputEncoding -> BASE64, HEX
+     * @return
+     * @throws IllegalArgumentException if the encoding is not represented as String
+     */
+    public static String encode(byte[] hash, HASH_OUTPUT_ENCODINGS hashOutputEncoding) throws IllegalArgumentException {
+    	
+    	Objects.requireNonNull(hashOutputEncoding, "encoding must not be null");
     	
-		final byte[] result = messageDigest.digest(content.getBytes(Charset.forName("UTF-8")));
-		
-		// convert hash to requested encoding
 		if(hashOutputEncoding.equals(HASH_OUTPUT_ENCODINGS.BASE64)) {
-			return Base64.getEncoder().encodeToString(result);
+			return Base64.getEncoder().encodeToString(hash);
 		}else if (hashOutputEncoding.equals(HASH_OUTPUT_ENCODINGS.HEX)) {
-			return hashAsHex(result);
+			return hashAsHex(hash);
 		}
 		
-		return null;
+		throw new IllegalArgumentException("encoding " + hashOutputEncoding + " is not represented as String");
+    }
+    
+    /**
+     * Converts the hash bytes into the requested encoding, which can be a String, byte[], Long or {@link Hash128}
+     * @param hash
+     * @param hashOutputEncoding
+     * @return
+     */
+    public static Object encodeValue(byte[] hash, HASH_OUTPUT_ENCODINGS hashOutputEncoding) {
+    	
+    	Objects.requireNonNull(hashOutputEncoding, "encoding must not be null");
+    	
+    	switch (hashOutputEncoding) {
+		case RAW:
+			return hash;
+		case LONG64:
+			return toLong(hash);
+		case HASH128:
+			return Hash128.fromBytes(hash);
+		default:
+			return encode(hash, hashOutputEncoding);
+		}
+    }
+    
+    /**
+     * @param hash
+     * @return the first 8 bytes of the hash as big endian long
+     * @throws IllegalArgumentException if the hash is shorter than 8 bytes
+     */
+    public static long toLong(byte[] hash) throws IllegalArgumentException {
+    	
+    	if(hash.length < 8)
+    		throw new IllegalArgumentException("hash has to be at least 8 bytes long, but has " + hash.length);
+    	
+    	return readLong(hash, 0);
+    }
+    
+    static long readLong(byte[] bytes, int offset) {
+    	long value = 0;
+    	for (int i = offset; i < offset + 8; i++) {
+    		value = (value << 8) | (bytes[i] & 0xff);
+    	}
+    	return value;
+    }
+    
+    static void writeLong(long value, byte[] bytes, int offset) {
+    	for (int i = offset + 7; i >= offset; i--) {
+    		bytes[i] = (byte) value;
+    		value >>>= 8;
+    	}
+    }
+    
+    /**
+     * @return the upper 64 bits of the unsigned 128 bit product
+     */
+    static long unsignedMultiplyHigh(long x, long y) {
+    	long x0 = x & 0xffffffffL;
+    	long x1 = x >>> 32;
+    	long y0 = y & 0xffffffffL;
+    	long y1 = y >>> 32;
+    	long p01 = x0 * y1;
+    	long middle = x1 * y0 + ((x0 * y0) >>> 32) + (p01 & 0xffffffffL);
+    	return x1 * y1 + (middle >>> 32) + (p01 >>> 32);
+    }
+    
+    /**
+     * Writes two lower case hex characters per byte into the destination without any intermediate objects
+     * @param hash
+     * @param dest -> needs space for 2 * hash.length characters starting at offset
+     * @param offset
+     */
+    public static void toHex(byte[] hash, char[] dest, int offset) {
+    	for (int i = 0; i < hash.length; i++) {
+    		final int b = hash[i] & 0xff;
+    		dest[offset++] = HEX_DIGITS[b >>> 4];
+    		dest[offset++] = HEX_DIGITS[b & 0x0f];
+    	}
+    }
+    
+    /**
+     * Writes the 16 lower case hex characters of the big endian value into the destination
+     * @param value
+     * @param dest
+     * @param offset
+     */
+    public static void toHex(long value, char[] dest, int offset) {
+    	for (int i = offset + 15; i >= offset; i--) {
+    		dest[i] = HEX_DIGITS[(int) value & 0x0f];
+    		value >>>= 4;
+    	}
+    }
+    
+    /**
+     * Converts a hash output of any encoding into a String, e.g. for the HASH variable of the component
+     * @param hashValue -> String, byte[], Long or {@link Hash128}
+     * @return a String as it is, the lower case hex characters of the other types, null for null
+     * @throws IllegalArgumentException if the type is not a hash output
+     */
+    public static String toHashString(Object hashValue) throws IllegalArgumentException {
+    	
+    	if(hashValue == null || hashValue instanceof String)
+    		return (String) hashValue;
+    	
+    	if(hashValue instanceof byte[])
+    		return hashAsHex((byte[]) hashValue);
+    	
+    	if(hashValue instanceof Long) {
+    		final char[] chars = new char[16];
+    		toHex(((Long) hashValue).longValue(), chars, 0);
+    		return new String(chars);
+    	}
+    	
+    	if(hashValue instanceof Hash128)
+    		return hashValue.toString();
+    	
+    	throw new IllegalArgumentException("hash output of type " + hashValue.getClass().getName() + " is not supported");
+    }
+    
+    /**
+     * Appends two lower case hex characters per byte to the builder
+     * @param hash
+     * @param sb
+     */
+    public static void appendHex(byte[] hash, StringBuilder sb) {
+    	for (int i = 0; i < hash.length; i++) {
+    		final int b = hash[i] & 0xff;
+    		sb.append(HEX_DIGITS[b >>> 4]).append(HEX_DIGITS[b & 0x0f]);
+    	}
+    }
+    
+    /**
+     * @param hex -> even number of hex characters, upper or lower case
+     * @return the decoded bytes
+     * @throws IllegalArgumentException if the value is not a valid hex string
+     */
+    public static byte[] decodeHex(String hex) throws IllegalArgumentException {
+    	
+    	if((hex.length() & 1) != 0)
+    		throw new IllegalArgumentException("hex value " + hex + " has an odd length");
+    	
+    	final byte[] bytes = new byte[hex.length() / 2];
+    	
+    	for (int i = 0; i < bytes.length; i++) {
+    		final int high = Character.digit(hex.charAt(2 * i), 16);
+    		final int low = Character.digit(hex.charAt(2 * i + 1), 16);
+    		
+    		if(high < 0 || low < 0)
+    			throw new IllegalArgumentException("hex value " + hex + " contains invalid characters");
+    		
+    		bytes[i] = (byte) ((high << 4) | low);
+    	}
+    	
+    	return bytes;
     }
 
 	private static String hashAsHex(byte[] hashAsByte) {
 		
-        final StringBuilder sb = new StringBuilder();
-
-        for (int i = 0; i < hashAsByte.length; i++) {
-
-            sb.append(Integer.toString((hashAsByte[i] & 0xff) + 0x100, 16).substring(1));
-
-        }
-
-        return sb.toString();
+		final char[] chars = new char[hashAsByte.length * 2];
+		toHex(hashAsByte, chars, 0);
+		
+		return new String(chars);
 	}
 	
 }
@@ -0,0 +1,599 @@
+package de.cimt.talendcomp.checksum;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Memory mapped file of distinct 128 bit hash values, e.g. to check if a hub key was loaded by any previous run.
+ * The values are stored sorted like {@link Hash128#compareTo(Hash128)} in fixed width records, so a value is found by
+ * interpolation search, which needs few reads of the mapped file because hash values are distributed uniformly:
+ * <pre>
+ * header (32 bytes): magic, version, record size, reserved, number of values
+ * records (16 bytes each): high, low
+ * </pre>
+ * All numbers are big endian. The file is written by {@link Builder}.
+ */
+public class HashIndex implements Closeable {
+
+	static final int MAGIC = 0x54485249; // THRI
+	static final int VERSION = 1;
+	static final int HEADER_SIZE = 32;
+	static final int RECORD_SIZE = 16;
+	// 1 GiB per mapping
+	private static final int SEGMENT_BITS = 26;
+	// interpolation steps before the search continues binary, limits the cost of skewed ranges
+	private static final int MAX_INTERPOLATIONS = 8;
+
+	private final File file;
+	private RandomAccessFile raf;
+	private MappedByteBuffer[] segments;
+	private final long size;
+
+	/**
+	 * Opens and maps an index read only
+	 * @param file
+	 * @throws IOException if the file can not be read or is no index
+	 */
+	public HashIndex(File file) throws IOException {
+
+		if (file == null)
+			throw new IllegalArgumentException("file cannot be null");
+
+		this.file = file;
+		this.raf = new RandomAccessFile(file, "r");
+
+		try {
+			final FileChannel channel = raf.getChannel();
+
+			if (channel.size() < HEADER_SIZE)
+				throw new IOException("file " + file + " is no hash index");
+
+			final ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+
+			if (header.getInt(0) != MAGIC)
+				throw new IOException("file " + file + " is no hash index");
+
+			if (header.getInt(4) != VERSION || header.getInt(8) != RECORD_SIZE)
+				throw new IOException("hash index " + file + " has the unsupported version " + header.getInt(4));
+
+			size = header.getLong(16);
+
+			if (channel.size() != HEADER_SIZE + size * RECORD_SIZE)
+				throw new IOException("hash index " + file + " is truncated");
+
+			final long segmentRecords = 1L << SEGMENT_BITS;
+			segments = new MappedByteBuffer[(int) ((size + segmentRecords - 1) / segmentRecords)];
+
+			for (int i = 0; i < segments.length; i++) {
+				final long first = i * segmentRecords;
+				segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + first * RECORD_SIZE, Math.min(segmentRecords, size - first) * RECORD_SIZE);
+			}
+		} catch (IOException e) {
+			raf.close();
+			throw e;
+		} catch (RuntimeException e) {
+			raf.close();
+			throw e;
+		}
+	}
+
+	private long getHigh(long index) {
+		return segments[(int) (index >>> SEGMENT_BITS)].getLong((int) (index & ((1L << SEGMENT_BITS) - 1)) * RECORD_SIZE);
+	}
+
+	private long getLow(long index) {
+		return segments[(int) (index >>> SEGMENT_BITS)].getLong((int) (index & ((1L << SEGMENT_BITS) - 1)) * RECORD_SIZE + 8);
+	}
+
+	static int compare(long high1, long low1, long high2, long low2) {
+
+		final int result = Long.compare(high1 + Long.MIN_VALUE, high2 + Long.MIN_VALUE);
+
+		return result != 0 ? result : Long.compare(low1 + Long.MIN_VALUE, low2 + Long.MIN_VALUE);
+	}
+
+	/**
+	 * @param high
+	 * @return a double which is ordered like the unsigned value
+	 */
+	private static double position(long high) {
+		return (double) (high >>> 1);
+	}
+
+	/**
+	 * @param high
+	 * @param low
+	 * @return the position of the value in the index, -1 if it is not contained
+	 */
+	public long indexOf(long high, long low) {
+
+		if (segments == null)
+			throw new IllegalStateException("hash index " + file + " is closed");
+
+		long from = 0;
+		long to = size - 1;
+		// the bounds of the range are approximated by the probed values, so every step reads one record
+		double first = 0;
+		double last = position(-1L);
+		final double value = position(high);
+		int interpolations = 0;
+
+		while (from <= to) {
+
+			long middle;
+
+			if (interpolations < MAX_INTERPOLATIONS && to - from > 16) {
+
+				interpolations++;
+
+				if (value <= first) {
+					middle = from;
+				} else if (value >= last) {
+					middle = to;
+				} else {
+					middle = from + (long) ((value - first) / (last - first) * (to - from));
+				}
+			} else {
+				middle = (from + to) >>> 1;
+			}
+
+			final long middleHigh = getHigh(middle);
+			final int result = compare(middleHigh, getLow(middle), high, low);
+
+			if (result == 0)
+				return middle;
+
+			if (result < 0) {
+				from = middle + 1;
+				first = position(middleHigh);
+			} else {
+				to = middle - 1;
+				last = position(middleHigh);
+			}
+		}
+
+		return -1;
+	}
+
+	public boolean contains(long high, long low) {
+		return indexOf(high, low) >= 0;
+	}
+
+	public boolean contains(Hash128 hash) {
+		return indexOf(hash.getHigh(), hash.getLow()) >= 0;
+	}
+
+	/**
+	 * @param value -> hash output of {@link Normalization#calculateHashValue()} in any encoding, see {@link Hash128#of(Object)}
+	 * @return true if the index contains the value, false for null
+	 */
+	public boolean containsValue(Object value) {
+		final Hash128 hash = Hash128.of(value);
+		return hash != null && contains(hash);
+	}
+
+	/**
+	 * @param index
+	 * @return the value at the position
+	 */
+	public Hash128 get(long index) {
+
+		if (index < 0 || index >= size)
+			throw new IndexOutOfBoundsException("index " + index + " is not between 0 and " + size);
+
+		return new Hash128(getHigh(index), getLow(index));
+	}
+
+	/**
+	 * @return number of values
+	 */
+	public long size() {
+		return size;
+	}
+
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * Releases the mappings, the mapped memory is unmapped when they are garbage collected
+	 */
+	@Override
+	public void close() throws IOException {
+
+		segments = null;
+
+		if (raf != null) {
+			raf.close();
+			raf = null;
+		}
+	}
+
+	/**
+	 * Writes an index of any number of values. The values are sorted in memory in chunks and every chunk is written
+	 * to a temporary file next to the target, {@link #finish()} merges the chunks and replaces the target,
+	 * so the target is not changed if the job fails. Duplicates are removed.
+	 */
+	public static class Builder implements Closeable {
+
+		private final File target;
+		private final long[] buffer;
+		private int buffered = 0;
+		private final List<File> runs = new ArrayList<File>();
+		private final List<File> indexes = new ArrayList<File>();
+		private boolean finished = false;
+
+		/**
+		 * @param target -> file of the index, it may be an index which is added by {@link #addIndex(File)}.
+		 * It must not be mapped by an open {@link HashIndex}, a mapped file can not be replaced on Windows.
+		 * @param maxValuesInMemory -> number of values which are sorted in memory, takes 16 bytes of heap per value
+		 */
+		public Builder(File target, int maxValuesInMemory) {
+
+			if (target == null)
+				throw new IllegalArgumentException("target cannot be null");
+
+			if (maxValuesInMemory < 1 || maxValuesInMemory > Integer.MAX_VALUE / 2)
+				throw new IllegalArgumentException("maxValuesInMemory must be between 1 and " + Integer.MAX_VALUE / 2 + ", got " + maxValuesInMemory);
+
+			this.target = target.getAbsoluteFile();
+			this.buffer = new long[maxValuesInMemory * 2];
+		}
+
+		private void checkOpen() {
+			if (finished)
+				throw new IllegalStateException("the index is already finished");
+		}
+
+		public void add(long high, long low) throws IOException {
+
+			checkOpen();
+
+			if (buffered == buffer.length)
+				spill();
+
+			buffer[buffered++] = high;
+			buffer[buffered++] = low;
+		}
+
+		public void add(Hash128 hash) throws IOException {
+			add(hash.getHigh(), hash.getLow());
+		}
+
+		/**
+		 * @param value -> hash output of {@link Normalization#calculateHashValue()} in any encoding, see {@link Hash128#of(Object)}, null is ignored
+		 * @throws IOException
+		 */
+		public void addValue(Object value) throws IOException {
+
+			final Hash128 hash = Hash128.of(value);
+
+			if (hash != null)
+				add(hash);
+		}
+
+		/**
+		 * Adds all values of an existing index without sorting them again, e.g. the previous version of the target
+		 * @param index -> file of the index, ignored if it does not exist. It is read by {@link #finish()}.
+		 */
+		public void addIndex(File index) {
+
+			checkOpen();
+
+			if (index != null && index.exists())
+				indexes.add(index);
+		}
+
+		private File createTempFile(String suffix) throws IOException {
+
+			final File dir = target.getParentFile();
+
+			if (dir != null && !dir.exists() && !dir.mkdirs())
+				throw new IOException("directory " + dir + " can not be created");
+
+			return File.createTempFile(target.getName(), suffix, dir);
+		}
+
+		private void spill() throws IOException {
+
+			final File run = createTempFile(".run");
+			runs.add(run);
+
+			final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(run), 1 << 16));
+
+			try {
+				writeSorted(out);
+			} finally {
+				out.close();
+			}
+		}
+
+		private long writeSorted(DataOutputStream out) throws IOException {
+
+			sort(buffer, 0, buffered / 2);
+
+			long written = 0;
+
+			for (int i = 0; i < buffered; i += 2) {
+
+				if (i > 0 && buffer[i] == buffer[i - 2] && buffer[i + 1] == buffer[i - 1])
+					continue;
+
+				out.writeLong(buffer[i]);
+				out.writeLong(buffer[i + 1]);
+				written++;
+			}
+
+			buffered = 0;
+			return written;
+		}
+
+		/**
+		 * Sorts the pairs of longs from index from to index to (exclusive) like unsigned 128 bit values
+		 */
+		static void sort(long[] pairs, int from, int to) {
+
+			while (to - from > 16) {
+
+				final int middle = (from + to) >>> 1;
+				// median of three as pivot
+				int pivot = middle;
+
+				if (less(pairs, to - 1, from) != less(pairs, to - 1, middle)) {
+					pivot = to - 1;
+				} else if (less(pairs, from, middle) != less(pairs, from, to - 1)) {
+					pivot = from;
+				}
+
+				final long pivotHigh = pairs[pivot * 2];
+				final long pivotLow = pairs[pivot * 2 + 1];
+				// three way partition, recurring values are not sorted again
+				int lower = from;
+				int greater = to - 1;
+
+				for (int i = from; i <= greater; ) {
+
+					final int result = compare(pairs[i * 2], pairs[i * 2 + 1], pivotHigh, pivotLow);
+
+					if (result < 0) {
+						swap(pairs, lower++, i++);
+					} else if (result > 0) {
+						swap(pairs, i, greater--);
+					} else {
+						i++;
+					}
+				}
+
+				// recursion into the smaller part limits the depth of the stack
+				if (lower - from < to - greater - 1) {
+					sort(pairs, from, lower);
+					from = greater + 1;
+				} else {
+					sort(pairs, greater + 1, to);
+					to = lower;
+				}
+			}
+
+			for (int i = from + 1; i < to; i++) {
+				for (int j = i; j > from && less(pairs, j, j - 1); j--) {
+					swap(pairs, j, j - 1);
+				}
+			}
+		}
+
+		private static boolean less(long[] pairs, int a, int b) {
+			return compare(pairs[a * 2], pairs[a * 2 + 1], pairs[b * 2], pairs[b * 2 + 1]) < 0;
+		}
+
+		private static void swap(long[] pairs, int a, int b) {
+
+			final long high = pairs[a * 2];
+			final long low = pairs[a * 2 + 1];
+
+			pairs[a * 2] = pairs[b * 2];
+			pairs[a * 2 + 1] = pairs[b * 2 + 1];
+			pairs[b * 2] = high;
+			pairs[b * 2 + 1] = low;
+		}
+
+		/**
+		 * Writes the index and replaces the target file
+		 * @return number of distinct values
+		 * @throws IOException
+		 */
+		public long finish() throws IOException {
+
+			checkOpen();
+			finished = true;
+
+			final File result = createTempFile(".tmp");
+			long size = 0;
+
+			try {
+				final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(result), 1 << 16));
+
+				try {
+					// the number of values is written when it is known
+					out.write(new byte[HEADER_SIZE]);
+
+					if (runs.isEmpty() && indexes.isEmpty()) {
+						size = writeSorted(out);
+					} else {
+						if (buffered > 0)
+							spill();
+
+						size = merge(out);
+					}
+				} finally {
+					out.close();
+				}
+
+				final RandomAccessFile raf = new RandomAccessFile(result, "rw");
+
+				try {
+					raf.writeInt(MAGIC);
+					raf.writeInt(VERSION);
+					raf.writeInt(RECORD_SIZE);
+					raf.writeInt(0);
+					raf.writeLong(size);
+					raf.getFD().sync();
+				} finally {
+					raf.close();
+				}
+
+				try {
+					Files.move(result.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+				} catch (AtomicMoveNotSupportedException e) {
+					Files.move(result.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+				}
+			} finally {
+				result.delete();
+				deleteRuns();
+			}
+
+			return size;
+		}
+
+		private long merge(DataOutputStream out) throws IOException {
+
+			final PriorityQueue<Run> queue = new PriorityQueue<Run>();
+			long size = 0;
+
+			try {
+				for (File run : runs) {
+					final Run reader = new Run(run, 0);
+					if (reader.next())
+						queue.add(reader);
+				}
+
+				for (File index : indexes) {
+					final Run reader = new Run(index, HEADER_SIZE);
+					if (reader.next())
+						queue.add(reader);
+				}
+
+				boolean first = true;
+				long lastHigh = 0;
+				long lastLow = 0;
+
+				while (!queue.isEmpty()) {
+
+					final Run run = queue.poll();
+
+					if (first || run.high != lastHigh || run.low != lastLow) {
+						out.writeLong(run.high);
+						out.writeLong(run.low);
+						lastHigh = run.high;
+						lastLow = run.low;
+						first = false;
+						size++;
+					}
+
+					if (run.next()) {
+						queue.add(run);
+					} else {
+						run.close();
+					}
+				}
+			} finally {
+				for (Run run : queue) {
+					run.close();
+				}
+			}
+
+			return size;
+		}
+
+		private void deleteRuns() {
+
+			for (File run : runs) {
+				run.delete();
+			}
+
+			runs.clear();
+		}
+
+		/**
+		 * Discards the index if it is not finished
+		 */
+		@Override
+		public void close() {
+
+			if (!finished) {
+				finished = true;
+				deleteRuns();
+			}
+		}
+	}
+
+	/**
+	 * Sorted values of a temporary file or an index
+	 */
+	private static final class Run implements Comparable<Run>, Closeable {
+
+		private final File file;
+		private final DataInputStream in;
+		private long high;
+		private long low;
+
+		private Run(File file, int skip) throws IOException {
+
+			this.file = file;
+			this.in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16));
+
+			if (skip > 0) {
+				final int magic = in.readInt();
+				in.skipBytes(skip - 4);
+
+				if (magic != MAGIC)
+					throw new IOException("file " + file + " is no hash index");
+			}
+		}
+
+		private boolean next() throws IOException {
+
+			try {
+				high = in.readLong();
+			} catch (EOFException e) {
+				return false;
+			}
+
+			try {
+				low = in.readLong();
+			} catch (EOFException e) {
+				throw new IOException("file " + file + " is truncated", e);
+			}
+
+			return true;
+		}
+
+		@Override
+		public int compareTo(Run other) {
+			return compare(high, low, other.high, other.low);
+		}
+
+		@Override
+		public void close() throws IOException {
+			in.close();
+		}
+	}
+
+}
@@ -0,0 +1,324 @@
+package de.cimt.talendcomp.checksum;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Metrics of one component instance, filled by {@link RowHashPlan#hash(Object, HashMetrics)} and
+ * readable via JMX as {@link HashMetricsMBean}.
+ * Every row is counted with the length of its hash base and its digested UTF-8 bytes. Only every n-th row is sampled: the time
+ * of the normalization and of the digest goes into a histogram and the null columns are counted,
+ * so the clock is read on few rows only. In streaming mode the digest updates while adding the values count as digest time.
+ * The rows are recorded by one thread, JMX clients see the state of the last sampled row or of {@link #publish()}.
+ */
+public class HashMetrics implements HashMetricsMBean {
+
+	public static final String DOMAIN = "de.cimt.talendcomp.checksum";
+
+	// histogram buckets with 16 sub buckets per power of two, i.e. a resolution of at least 1/16
+	private static final int SUB_BUCKET_BITS = 4;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+	private static final Map<ObjectName, HashMetrics> REGISTERED = new HashMap<ObjectName, HashMetrics>();
+
+	private final String componentName;
+	private final String[] columnNames;
+	private final int sampleRate;
+
+	// written by the recording thread only
+	private int countdown = 1;
+	private long rows;
+	private long hashedBytes;
+	private long maxHashBaseLength;
+	private final long[] nullCounts;
+
+	// guarded by this
+	private long publishedRows;
+	private long publishedHashedBytes;
+	private long publishedMaxHashBaseLength;
+	private final long[] publishedNullCounts;
+	private long sampledRows;
+	private long sampledNormalizeNanos;
+	private long sampledDigestNanos;
+	private final long[] normalizeHistogram = new long[BUCKETS];
+	private final long[] digestHistogram = new long[BUCKETS];
+
+	private ObjectName objectName;
+
+	/**
+	 * @param componentName -> e.g. the unique name of the component
+	 * @param columnNames -> see {@link RowHashPlan#getColumnNames()}
+	 * @param sampleRate -> every how many rows the times and null columns are sampled, 1 samples every row
+	 * @throws IllegalArgumentException
+	 */
+	public HashMetrics(String componentName, String[] columnNames, int sampleRate) throws IllegalArgumentException {
+
+		if (componentName == null || componentName.trim().isEmpty())
+			throw new IllegalArgumentException("componentName cannot be null or empty");
+
+		if (columnNames == null)
+			throw new IllegalArgumentException("columnNames cannot be null");
+
+		if (sampleRate < 1)
+			throw new IllegalArgumentException("sampleRate must be at least 1, got " + sampleRate);
+
+		this.componentName = componentName;
+		this.columnNames = columnNames.clone();
+		this.sampleRate = sampleRate;
+		this.nullCounts = new long[columnNames.length];
+		this.publishedNullCounts = new long[columnNames.length];
+	}
+
+	/**
+	 * @return true if the next row has to be sampled
+	 */
+	public boolean nextRow() {
+
+		if (--countdown > 0)
+			return false;
+
+		countdown = sampleRate;
+		return true;
+	}
+
+	/**
+	 * Counts a row
+	 * @param hashBaseLength -> see {@link Normalization#getHashBaseLength()}
+	 * @param hashedBytes -> number of UTF-8 bytes which are digested
+	 */
+	public void countRow(long hashBaseLength, long hashedBytes) {
+
+		rows++;
+		this.hashedBytes += hashedBytes;
+
+		if (hashBaseLength > maxHashBaseLength)
+			maxHashBaseLength = hashBaseLength;
+	}
+
+	/**
+	 * Counts a null value of a sampled row
+	 * @param column -> index of the column
+	 */
+	public void countNull(int column) {
+		nullCounts[column]++;
+	}
+
+	/**
+	 * Records the times of a sampled row and publishes the counters
+	 * @param normalizeNanos
+	 * @param digestNanos
+	 */
+	public synchronized void recordSample(long normalizeNanos, long digestNanos) {
+
+		sampledRows++;
+		sampledNormalizeNanos += normalizeNanos;
+		sampledDigestNanos += digestNanos;
+		normalizeHistogram[bucket(normalizeNanos)]++;
+		digestHistogram[bucket(digestNanos)]++;
+
+		publish();
+	}
+
+	/**
+	 * Makes the counters of all recorded rows visible to the getters
+	 */
+	public synchronized void publish() {
+
+		publishedRows = rows;
+		publishedHashedBytes = hashedBytes;
+		publishedMaxHashBaseLength = maxHashBaseLength;
+		System.arraycopy(nullCounts, 0, publishedNullCounts, 0, nullCounts.length);
+	}
+
+	static int bucket(long value) {
+
+		if (value < SUB_BUCKETS)
+			return value < 0 ? 0 : (int) value;
+
+		final int exponent = 63 - Long.numberOfLeadingZeros(value);
+		final int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+
+		return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+	}
+
+	/**
+	 * @param bucket
+	 * @return the highest value of the bucket
+	 */
+	static long bucketLimit(int bucket) {
+
+		if (bucket < SUB_BUCKETS)
+			return bucket;
+
+		final int shift = bucket / SUB_BUCKETS - 1;
+		final long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+
+		return lowest + (1L << shift) - 1;
+	}
+
+	private long percentile(long[] histogram, double percentile) {
+
+		if (sampledRows == 0)
+			return 0;
+
+		final long rank = Math.max(1, (long) Math.ceil(percentile * sampledRows));
+		long count = 0;
+
+		for (int i = 0; i < histogram.length; i++) {
+
+			count += histogram[i];
+
+			if (count >= rank)
+				return bucketLimit(i);
+		}
+
+		return bucketLimit(histogram.length - 1);
+	}
+
+	private long extrapolate(long sampledNanos) {
+
+		if (sampledRows == 0)
+			return 0;
+
+		return Math.round((double) sampledNanos * publishedRows / sampledRows);
+	}
+
+	/**
+	 * Registers this as MBean in the platform MBean server, a registration with the same name,
+	 * e.g. of a previous run of the job, is replaced
+	 * @param jobName
+	 * @return the name of the MBean
+	 * @throws IllegalStateException if the MBean can not be registered
+	 */
+	public ObjectName register(String jobName) throws IllegalStateException {
+
+		final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+		synchronized (REGISTERED) {
+
+			try {
+				final ObjectName name = new ObjectName(DOMAIN + ":type=tHashRow,job=" + ObjectName.quote(jobName == null ? "" : jobName)
+						+ ",name=" + ObjectName.quote(componentName));
+
+				if (REGISTERED.remove(name) != null || server.isRegistered(name))
+					server.unregisterMBean(name);
+
+				server.registerMBean(this, name);
+				REGISTERED.put(name, this);
+				objectName = name;
+
+				return name;
+			} catch (JMException e) {
+				throw new IllegalStateException("Register MBean for " + componentName + " failed: " + e.getMessage(), e);
+			}
+		}
+	}
+
+	/**
+	 * Publishes the counters and unregisters the MBean if it is still registered by this instance
+	 */
+	public void close() {
+
+		publish();
+
+		synchronized (REGISTERED) {
+
+			if (objectName == null || REGISTERED.get(objectName) != this)
+				return;
+
+			REGISTERED.remove(objectName);
+
+			try {
+				ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+			} catch (JMException e) {
+				// already unregistered by someone else
+			}
+
+			objectName = null;
+		}
+	}
+
+	@Override
+	public String getComponentName() {
+		return componentName;
+	}
+
+	@Override
+	public int getSampleRate() {
+		return sampleRate;
+	}
+
+	@Override
+	public synchronized long getRows() {
+		return publishedRows;
+	}
+
+	@Override
+	public synchronized long getSampledRows() {
+		return sampledRows;
+	}
+
+	@Override
+	public synchronized long getHashedBytes() {
+		return publishedHashedBytes;
+	}
+
+	@Override
+	public synchronized long getMaxHashBaseLength() {
+		return publishedMaxHashBaseLength;
+	}
+
+	@Override
+	public synchronized long getNormalizeNanos() {
+		return extrapolate(sampledNormalizeNanos);
+	}
+
+	@Override
+	public synchronized long getDigestNanos() {
+		return extrapolate(sampledDigestNanos);
+	}
+
+	@Override
+	public synchronized long getNormalizeNanosP50() {
+		return percentile(normalizeHistogram, 0.5);
+	}
+
+	@Override
+	public synchronized long getNormalizeNanosP99() {
+		return percentile(normalizeHistogram, 0.99);
+	}
+
+	@Override
+	public synchronized long getDigestNanosP50() {
+		return percentile(digestHistogram, 0.5);
+	}
+
+	@Override
+	public synchronized long getDigestNanosP99() {
+		return percentile(digestHistogram, 0.99);
+	}
+
+	@Override
+	public String[] getColumnNames() {
+		return columnNames.clone();
+	}
+
+	@Override
+	public synchronized double[] getColumnNullRates() {
+
+		final double[] rates = new double[publishedNullCounts.length];
+
+		for (int i = 0; i < rates.length; i++) {
+			rates[i] = sampledRows == 0 ? 0d : Math.min(1d, (double) publishedNullCounts[i] / sampledRows);
+		}
+
+		return rates;
+	}
+
+}
@@ -0,0 +1,53 @@
+package de.cimt.talendcomp.checksum;
+
+/**
+ * JMX view of the {@link HashMetrics} of one component instance.
+ * The values are published with every sampled row, the times are measured only for the sampled rows.
+ */
+public interface HashMetricsMBean {
+
+	String getComponentName();
+
+	/**
+	 * @return every how many rows the times and null columns are sampled
+	 */
+	int getSampleRate();
+
+	long getRows();
+
+	long getSampledRows();
+
+	/**
+	 * @return number of UTF-8 bytes which are digested, rows with a replaced hash output count 0
+	 */
+	long getHashedBytes();
+
+	long getMaxHashBaseLength();
+
+	/**
+	 * @return nanoseconds spent in the normalization, extrapolated from the sampled rows to all rows
+	 */
+	long getNormalizeNanos();
+
+	/**
+	 * @return nanoseconds spent in the digest including the UTF-8 encoding, extrapolated from the sampled rows to all rows.
+	 * In streaming mode this includes the digest updates while the values are added
+	 */
+	long getDigestNanos();
+
+	long getNormalizeNanosP50();
+
+	long getNormalizeNanosP99();
+
+	long getDigestNanosP50();
+
+	long getDigestNanosP99();
+
+	String[] getColumnNames();
+
+	/**
+	 * @return share of the sampled rows in which the column is null, in the order of {@link #getColumnNames()}
+	 */
+	double[] getColumnNullRates();
+
+}
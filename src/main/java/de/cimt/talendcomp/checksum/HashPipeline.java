@@ -0,0 +1,305 @@
+package de.cimt.talendcomp.checksum;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hashes rows in worker threads while the calling thread keeps reading and writing, e.g. from and to a database.
+ * The submitted rows are kept in a bounded ring buffer and the results are passed to the {@link ResultHandler}
+ * in the original order, always in the thread which calls {@link #submit(Object)}, {@link #flush()} or {@link #close()}.
+ * The pipeline itself is used by one thread, the {@link RowHasher} is called by all workers at the same time
+ * and has to be thread safe, e.g. a {@link ConcurrentHasher}.
+ * Rows must not be changed after they are submitted, reused row objects have to be copied.
+ * After the hasher or the handler failed, the pipeline does not accept rows anymore and {@link #close()} discards the pending rows.
+ * @param <T> type of the row
+ */
+public final class HashPipeline<T> implements Closeable {
+
+	public enum BackPressure {
+		/**
+		 * the caller waits until the oldest row is hashed if the ring buffer is full
+		 */
+		BLOCK,
+		/**
+		 * the caller hashes waiting rows itself if the ring buffer is full
+		 */
+		CALLER_RUNS
+	}
+
+	/**
+	 * Calculates the hash of a row, called by several threads at the same time
+	 */
+	public interface RowHasher<T> {
+		Object hash(T row) throws Exception;
+	}
+
+	/**
+	 * Receives the rows and their hashes in the submitted order
+	 */
+	public interface ResultHandler<T> {
+		void handle(T row, Object hash) throws Exception;
+	}
+
+	private static final class Slot<T> {
+		T row;
+		Object hash;
+		Throwable error;
+		volatile boolean done;
+	}
+
+	private final RowHasher<T> hasher;
+	private final ResultHandler<T> handler;
+	private final BackPressure backPressure;
+	private final Slot<T>[] ring;
+	private final BlockingQueue<Slot<T>> work;
+	private final Thread[] workers;
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition completed = lock.newCondition();
+	/**
+	 * sequence of the next submitted and the next emitted row, only used by the calling thread
+	 */
+	private long submitted = 0;
+	private long emitted = 0;
+	private volatile boolean closed = false;
+	private boolean failed = false;
+	/**
+	 * slot which stops a worker
+	 */
+	private final Slot<T> stop = new Slot<T>();
+
+	/**
+	 * Creates the pipeline and starts the worker threads
+	 * @param workers -> number of worker threads
+	 * @param queueDepth -> maximum number of rows which are submitted but not yet passed to the handler
+	 * @param backPressure -> behavior of {@link #submit(Object)} if the ring buffer is full
+	 * @param hasher -> thread safe hash function
+	 * @param handler -> receives the results in the calling thread
+	 */
+	public HashPipeline(int workers, int queueDepth, BackPressure backPressure, RowHasher<T> hasher, ResultHandler<T> handler) {
+
+		if (workers < 1)
+			throw new IllegalArgumentException("at least one worker is required");
+
+		if (queueDepth < workers)
+			throw new IllegalArgumentException("queue depth " + queueDepth + " must not be lower than the number of workers " + workers);
+
+		if (backPressure == null || hasher == null || handler == null)
+			throw new IllegalArgumentException("backPressure, hasher and handler cannot be null");
+
+		this.hasher = hasher;
+		this.handler = handler;
+		this.backPressure = backPressure;
+		// generic arrays cannot be created, every slot is a Slot<T>
+		@SuppressWarnings("unchecked")
+		final Slot<T>[] slots = (Slot<T>[]) new Slot<?>[queueDepth];
+		this.ring = slots;
+		this.work = new LinkedBlockingQueue<Slot<T>>();
+		this.workers = new Thread[workers];
+
+		for (int i = 0; i < ring.length; i++) {
+			ring[i] = new Slot<T>();
+		}
+
+		for (int i = 0; i < workers; i++) {
+			this.workers[i] = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					work();
+				}
+			}, "HashPipeline-worker-" + i);
+			this.workers[i].setDaemon(true);
+			this.workers[i].start();
+		}
+	}
+
+	private void work() {
+
+		try {
+			while (true) {
+
+				final Slot<T> slot = work.take();
+
+				if (slot == stop)
+					return;
+
+				process(slot);
+			}
+		} catch (InterruptedException e) {
+			// pipeline is closed
+		}
+	}
+
+	private void process(Slot<T> slot) {
+
+		try {
+			slot.hash = hasher.hash(slot.row);
+		} catch (Throwable e) {
+			slot.error = e;
+		}
+
+		slot.done = true;
+
+		lock.lock();
+		try {
+			completed.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Adds the row to the ring buffer. Rows which are already hashed are passed to the handler before.
+	 * @param row
+	 * @throws Exception of the handler or the hasher of an earlier row
+	 * @throws InterruptedException if the caller is interrupted while waiting
+	 */
+	public void submit(T row) throws Exception {
+
+		checkOpen();
+		emitDone();
+
+		while (submitted - emitted == ring.length) {
+
+			if (backPressure == BackPressure.CALLER_RUNS) {
+
+				final Slot<T> pending = work.poll();
+
+				if (pending != null) {
+					process(pending);
+					emitDone();
+					continue;
+				}
+			}
+
+			awaitHead();
+			emitDone();
+		}
+
+		final Slot<T> slot = ring[(int) (submitted % ring.length)];
+		slot.row = row;
+		slot.hash = null;
+		slot.error = null;
+		slot.done = false;
+		submitted++;
+
+		work.add(slot);
+	}
+
+	/**
+	 * Waits until all submitted rows are hashed and passes them to the handler
+	 * @throws Exception of the handler or the hasher
+	 */
+	public void flush() throws Exception {
+
+		checkOpen();
+
+		while (emitted < submitted) {
+			awaitHead();
+			emitDone();
+		}
+	}
+
+	/**
+	 * @return number of rows which are submitted but not yet passed to the handler
+	 */
+	public int getPendingRows() {
+		return (int) (submitted - emitted);
+	}
+
+	/**
+	 * Flushes the pending rows and stops the workers, which are stopped even if the flush fails
+	 * @throws IOException with the exception of the handler or the hasher as cause
+	 */
+	@Override
+	public void close() throws IOException {
+
+		if (closed)
+			return;
+
+		try {
+			if (failed == false)
+				flush();
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (IOException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new IOException(e.getMessage(), e);
+		} finally {
+			closed = true;
+
+			for (int i = 0; i < workers.length; i++) {
+				work.add(stop);
+			}
+		}
+	}
+
+	private void checkOpen() {
+
+		if (closed)
+			throw new IllegalStateException("pipeline is closed");
+
+		if (failed)
+			throw new IllegalStateException("pipeline failed before");
+	}
+
+	private void awaitHead() throws InterruptedException {
+
+		final Slot<T> head = ring[(int) (emitted % ring.length)];
+
+		if (head.done)
+			return;
+
+		lock.lock();
+		try {
+			while (head.done == false) {
+				completed.await();
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Passes the completed rows at the head of the ring buffer to the handler
+	 */
+	private void emitDone() throws Exception {
+
+		while (emitted < submitted) {
+
+			final Slot<T> slot = ring[(int) (emitted % ring.length)];
+
+			if (slot.done == false)
+				return;
+
+			final T row = slot.row;
+			final Object hash = slot.hash;
+			final Throwable error = slot.error;
+
+			slot.row = null;
+			slot.hash = null;
+			emitted++;
+
+			if (error != null)
+				failed = true;
+
+			if (error instanceof Exception)
+				throw (Exception) error;
+
+			if (error instanceof Error)
+				throw (Error) error;
+
+			try {
+				handler.handle(row, hash);
+			} catch (Exception e) {
+				failed = true;
+				throw e;
+			}
+		}
+	}
+
+}
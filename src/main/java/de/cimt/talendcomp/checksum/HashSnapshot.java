@@ -0,0 +1,465 @@
+package de.cimt.talendcomp.checksum;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Memory mapped file which maps 128 bit key hashes to 128 bit diff hashes, e.g. the business key hash
+ * and the hash diff of the previous run of a job, see {@link ChangeDetector}.
+ * The file is an open addressing table with linear probing, so a key is found with one or few reads of the mapped file:
+ * <pre>
+ * header (64 bytes): magic, version, log2 of the slot count, flags, number of keys, diff of the all zero key
+ * slots (32 bytes each): key high, key low, diff high, diff low - an all zero key marks an empty slot
+ * </pre>
+ * All numbers are big endian. The file is written by {@link Writer}.
+ */
+public class HashSnapshot implements Closeable {
+
+	static final int MAGIC = 0x54485253; // THRS
+	static final int VERSION = 1;
+	static final int HEADER_SIZE = 64;
+	static final int SLOT_SIZE = 32;
+	// 1 GiB per mapping
+	private static final int SEGMENT_BITS = 25;
+	private static final int FLAG_ZERO_KEY = 1;
+	private static final double MAX_LOAD = 0.7;
+
+	private final File file;
+	private RandomAccessFile raf;
+	private MappedByteBuffer[] segments;
+	private final int capacityBits;
+	private final long capacity;
+	private final long size;
+	private final boolean containsZero;
+	private final long zeroDiffHigh;
+	private final long zeroDiffLow;
+
+	/**
+	 * Opens and maps a snapshot read only
+	 * @param file
+	 * @throws IOException if the file can not be read or is no snapshot
+	 */
+	public HashSnapshot(File file) throws IOException {
+
+		if (file == null)
+			throw new IllegalArgumentException("file cannot be null");
+
+		this.file = file;
+		this.raf = new RandomAccessFile(file, "r");
+
+		try {
+			final FileChannel channel = raf.getChannel();
+			final ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+
+			if (channel.size() < HEADER_SIZE || header.getInt(0) != MAGIC)
+				throw new IOException("file " + file + " is no hash snapshot");
+
+			if (header.getInt(4) != VERSION)
+				throw new IOException("hash snapshot " + file + " has the unsupported version " + header.getInt(4));
+
+			capacityBits = header.getInt(8);
+			capacity = 1L << capacityBits;
+			containsZero = (header.getInt(12) & FLAG_ZERO_KEY) != 0;
+			size = header.getLong(16);
+			zeroDiffHigh = header.getLong(24);
+			zeroDiffLow = header.getLong(32);
+
+			if (channel.size() != HEADER_SIZE + capacity * SLOT_SIZE)
+				throw new IOException("hash snapshot " + file + " is truncated");
+
+			segments = map(channel, FileChannel.MapMode.READ_ONLY, capacity);
+		} catch (IOException e) {
+			raf.close();
+			throw e;
+		} catch (RuntimeException e) {
+			raf.close();
+			throw e;
+		}
+	}
+
+	private static MappedByteBuffer[] map(FileChannel channel, FileChannel.MapMode mode, long capacity) throws IOException {
+
+		final long segmentSlots = Math.min(capacity, 1L << SEGMENT_BITS);
+		final MappedByteBuffer[] segments = new MappedByteBuffer[(int) (capacity / segmentSlots)];
+
+		for (int i = 0; i < segments.length; i++) {
+			segments[i] = channel.map(mode, HEADER_SIZE + i * segmentSlots * SLOT_SIZE, segmentSlots * SLOT_SIZE);
+		}
+
+		return segments;
+	}
+
+	private static int bitsFor(long keys) {
+
+		int bits = 4;
+
+		while ((1L << bits) * MAX_LOAD < keys) {
+			bits++;
+		}
+
+		return bits;
+	}
+
+	static long slot(long high, long low, int capacityBits) {
+		return ((high ^ Long.rotateLeft(low, 32)) * 0x9E3779B97F4A7C15L) >>> (64 - capacityBits);
+	}
+
+	private static ByteBuffer segment(MappedByteBuffer[] segments, long slot) {
+		return segments[(int) (slot >>> SEGMENT_BITS)];
+	}
+
+	private static int offset(long slot) {
+		return (int) (slot & ((1L << SEGMENT_BITS) - 1)) * SLOT_SIZE;
+	}
+
+	private void checkOpen() {
+		if (segments == null)
+			throw new IllegalStateException("hash snapshot " + file + " is closed");
+	}
+
+	/**
+	 * @param keyHigh
+	 * @param keyLow
+	 * @return the slot of the key, {@link #getCapacity()} for the all zero key, -1 if the key is not contained
+	 */
+	long find(long keyHigh, long keyLow) {
+
+		checkOpen();
+
+		if (keyHigh == 0 && keyLow == 0)
+			return containsZero ? capacity : -1;
+
+		final long mask = capacity - 1;
+
+		for (long slot = slot(keyHigh, keyLow, capacityBits); ; slot = (slot + 1) & mask) {
+
+			final ByteBuffer segment = segment(segments, slot);
+			final int offset = offset(slot);
+			final long high = segment.getLong(offset);
+			final long low = segment.getLong(offset + 8);
+
+			if (high == keyHigh && low == keyLow)
+				return slot;
+
+			if (high == 0 && low == 0)
+				return -1;
+		}
+	}
+
+	/**
+	 * @param slot -> slot of a key, see {@link #find(long, long)}
+	 * @return the diff hash of the key in the slot
+	 */
+	Hash128 getDiff(long slot) {
+
+		checkOpen();
+
+		if (slot == capacity)
+			return new Hash128(zeroDiffHigh, zeroDiffLow);
+
+		final ByteBuffer segment = segment(segments, slot);
+		final int offset = offset(slot);
+
+		return new Hash128(segment.getLong(offset + 16), segment.getLong(offset + 24));
+	}
+
+	/**
+	 * @param slot
+	 * @return the key in the slot, null if the slot is empty
+	 */
+	Hash128 getKey(long slot) {
+
+		checkOpen();
+
+		if (slot == capacity)
+			return containsZero ? new Hash128(0, 0) : null;
+
+		final ByteBuffer segment = segment(segments, slot);
+		final int offset = offset(slot);
+		final long high = segment.getLong(offset);
+		final long low = segment.getLong(offset + 8);
+
+		return high == 0 && low == 0 ? null : new Hash128(high, low);
+	}
+
+	/**
+	 * @param key
+	 * @return the diff hash of the key, null if the key is not contained
+	 */
+	public Hash128 getDiff(Hash128 key) {
+
+		final long slot = find(key.getHigh(), key.getLow());
+
+		return slot < 0 ? null : getDiff(slot);
+	}
+
+	public boolean contains(Hash128 key) {
+		return find(key.getHigh(), key.getLow()) >= 0;
+	}
+
+	/**
+	 * @return number of keys
+	 */
+	public long size() {
+		return size;
+	}
+
+	/**
+	 * @return number of slots, the all zero key has the additional slot with this index
+	 */
+	public long getCapacity() {
+		return capacity;
+	}
+
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * Releases the mappings, the mapped memory is unmapped when they are garbage collected
+	 */
+	@Override
+	public void close() throws IOException {
+
+		segments = null;
+
+		if (raf != null) {
+			raf.close();
+			raf = null;
+		}
+	}
+
+	/**
+	 * Writes a snapshot. The entries are appended to a temporary file next to the target first,
+	 * {@link #finish()} builds the table in another temporary file and replaces the target with it,
+	 * so the target is not changed if the job fails. If a key is added more than once, the last diff is kept.
+	 * Temporary files of a previous writer of the same target which was not closed, e.g. because the job failed, are deleted when the writer is created.
+	 */
+	public static class Writer implements Closeable {
+
+		private final File target;
+		private final File log;
+		private DataOutputStream out;
+		private long entries = 0;
+
+		/**
+		 * @param target -> file of the new snapshot. It should differ from a snapshot which is read in the same run,
+		 * because a mapped file can not be replaced on Windows until the mapping is garbage collected
+		 * @throws IOException if the temporary file can not be created
+		 */
+		public Writer(File target) throws IOException {
+
+			if (target == null)
+				throw new IllegalArgumentException("target cannot be null");
+
+			this.target = target.getAbsoluteFile();
+
+			final File dir = this.target.getParentFile();
+
+			if (dir != null && !dir.exists() && !dir.mkdirs())
+				throw new IOException("directory " + dir + " can not be created");
+
+			deleteTempFiles(this.target);
+
+			this.log = File.createTempFile(this.target.getName(), ".log", dir);
+			this.log.deleteOnExit();
+			this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(log), 1 << 16));
+		}
+
+		/**
+		 * Deletes the files which File.createTempFile created for the target, i.e. its name, digits and .log or .tmp
+		 */
+		private static void deleteTempFiles(final File target) {
+
+			final File dir = target.getParentFile();
+			final String prefix = target.getName();
+			final File[] files = dir == null ? null : dir.listFiles();
+
+			if (files == null)
+				return;
+
+			for (File file : files) {
+
+				final String name = file.getName();
+
+				if (!name.startsWith(prefix) || !(name.endsWith(".log") || name.endsWith(".tmp")))
+					continue;
+
+				final String middle = name.substring(prefix.length(), name.length() - 4);
+
+				if (!middle.isEmpty() && middle.matches("[0-9]+"))
+					file.delete();
+			}
+		}
+
+		public void add(Hash128 key, Hash128 diff) throws IOException {
+			add(key.getHigh(), key.getLow(), diff.getHigh(), diff.getLow());
+		}
+
+		public void add(long keyHigh, long keyLow, long diffHigh, long diffLow) throws IOException {
+
+			if (out == null)
+				throw new IllegalStateException("the snapshot is already finished");
+
+			out.writeLong(keyHigh);
+			out.writeLong(keyLow);
+			out.writeLong(diffHigh);
+			out.writeLong(diffLow);
+			entries++;
+		}
+
+		/**
+		 * Builds the snapshot and replaces the target file
+		 * @return number of keys
+		 * @throws IOException
+		 */
+		public long finish() throws IOException {
+
+			if (out == null)
+				throw new IllegalStateException("the snapshot is already finished");
+
+			out.close();
+			out = null;
+
+			final int capacityBits = bitsFor(entries);
+			final long capacity = 1L << capacityBits;
+			final long mask = capacity - 1;
+			final File table = File.createTempFile(target.getName(), ".tmp", target.getParentFile());
+			long keys = 0;
+
+			try {
+				final RandomAccessFile raf = new RandomAccessFile(table, "rw");
+
+				try {
+					raf.setLength(HEADER_SIZE + capacity * SLOT_SIZE);
+
+					final FileChannel channel = raf.getChannel();
+					final MappedByteBuffer[] segments = map(channel, FileChannel.MapMode.READ_WRITE, capacity);
+					boolean containsZero = false;
+					long zeroDiffHigh = 0;
+					long zeroDiffLow = 0;
+
+					final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(log), 1 << 16));
+
+					try {
+						for (long i = 0; i < entries; i++) {
+
+							final long keyHigh = in.readLong();
+							final long keyLow = in.readLong();
+							final long diffHigh = in.readLong();
+							final long diffLow = in.readLong();
+
+							if (keyHigh == 0 && keyLow == 0) {
+
+								if (!containsZero)
+									keys++;
+
+								containsZero = true;
+								zeroDiffHigh = diffHigh;
+								zeroDiffLow = diffLow;
+								continue;
+							}
+
+							long slot = slot(keyHigh, keyLow, capacityBits);
+
+							while (true) {
+
+								final ByteBuffer segment = segment(segments, slot);
+								final int offset = offset(slot);
+								final long high = segment.getLong(offset);
+								final long low = segment.getLong(offset + 8);
+
+								if (high == 0 && low == 0) {
+									segment.putLong(offset, keyHigh);
+									segment.putLong(offset + 8, keyLow);
+									keys++;
+								} else if (high != keyHigh || low != keyLow) {
+									slot = (slot + 1) & mask;
+									continue;
+								}
+
+								segment.putLong(offset + 16, diffHigh);
+								segment.putLong(offset + 24, diffLow);
+								break;
+							}
+						}
+					} catch (EOFException e) {
+						throw new IOException("temporary file " + log + " is truncated", e);
+					} finally {
+						in.close();
+					}
+
+					final ByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+					header.putInt(0, MAGIC);
+					header.putInt(4, VERSION);
+					header.putInt(8, capacityBits);
+					header.putInt(12, containsZero ? FLAG_ZERO_KEY : 0);
+					header.putLong(16, keys);
+					header.putLong(24, zeroDiffHigh);
+					header.putLong(32, zeroDiffLow);
+
+					for (int i = 0; i < segments.length; i++) {
+						segments[i].force();
+						// the file can not be moved on Windows while it is mapped
+						DirectBuffers.release(segments[i]);
+						segments[i] = null;
+					}
+
+					((MappedByteBuffer) header).force();
+					DirectBuffers.release(header);
+				} finally {
+					raf.close();
+				}
+
+				move(table, target);
+			} finally {
+				table.delete();
+				log.delete();
+			}
+
+			return keys;
+		}
+
+		private static void move(File source, File target) throws IOException {
+
+			try {
+				Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+
+		public long getEntries() {
+			return entries;
+		}
+
+		/**
+		 * Discards the snapshot if it is not finished
+		 */
+		@Override
+		public void close() throws IOException {
+
+			if (out != null) {
+				out.close();
+				out = null;
+				log.delete();
+			}
+		}
+	}
+
+}
@@ -0,0 +1,158 @@
+package de.cimt.talendcomp.checksum;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Objects;
+
+import de.cimt.talendcomp.checksum.HashCalculation.HASH_OUTPUT_ENCODINGS;
+
+/**
+ * Binds hash algorithm and output encoding once, so they are not resolved again for every row.
+ * The hasher holds a reusable digest for single threaded use and a thread local digest for callers 
+ * which share one hasher across threads.
+ */
+public class Hasher {
+	
+	private static final Charset UTF_8 = StandardCharsets.UTF_8;
+	
+	private final HashAlgorithm algorithm;
+	private final HASH_OUTPUT_ENCODINGS encoding;
+	private final MessageDigest digest;
+	private final ThreadLocal<MessageDigest> threadLocalDigest;
+	
+	/**
+	 * @param algorithm -> name of a {@link HashAlgorithm}, e.g. MD5 / SHA1 / SHA-256
+	 * @param encoding -> BASE64, HEX
+	 */
+	public Hasher(String algorithm, HASH_OUTPUT_ENCODINGS encoding) {
+		this(HashAlgorithm.forName(algorithm), encoding);
+	}
+	
+	/**
+	 * @param algorithm
+	 * @param encoding -> BASE64, HEX
+	 */
+	public Hasher(HashAlgorithm algorithm, HASH_OUTPUT_ENCODINGS encoding) {
+		
+		Objects.requireNonNull(algorithm, "algorithm must not be null");
+		Objects.requireNonNull(encoding, "encoding must not be null");
+		
+		if (encoding == HASH_OUTPUT_ENCODINGS.HASH128 && algorithm.getLength() < 16)
+			throw new IllegalArgumentException("algorithm " + algorithm.getName() + " creates only " + (algorithm.getLength() * 8) + " bit hashes, encoding HASH128 needs 128 bit");
+		
+		this.algorithm = algorithm;
+		this.encoding = encoding;
+		this.digest = algorithm.newDigest();
+		this.threadLocalDigest = new ThreadLocal<MessageDigest>() {
+			@Override
+			protected MessageDigest initialValue() {
+				return newDigest();
+			}
+		};
+	}
+	
+	public String getAlgorithm() {
+		return algorithm.getName();
+	}
+	
+	public HashAlgorithm getHashAlgorithm() {
+		return algorithm;
+	}
+	
+	public HASH_OUTPUT_ENCODINGS getEncoding() {
+		return encoding;
+	}
+	
+	/**
+	 * @return true if the given name denotes the algorithm of this hasher
+	 */
+	public boolean isAlgorithm(String algorithm) {
+		return this.algorithm == HashAlgorithm.forName(algorithm);
+	}
+	
+	/**
+	 * Returns a new digest instance of the bound algorithm, e.g. for a streaming {@link Normalization}
+	 * @return
+	 */
+	public MessageDigest newDigest() {
+		return algorithm.newDigest();
+	}
+	
+	/**
+	 * Returns the reset digest of this hasher. It is reused for every call and must not be shared between threads.
+	 * @return
+	 */
+	public MessageDigest getDigest() {
+		digest.reset();
+		return digest;
+	}
+	
+	/**
+	 * Returns the reset digest of the current thread
+	 * @return
+	 */
+	public MessageDigest getThreadLocalDigest() {
+		MessageDigest messageDigest = threadLocalDigest.get();
+		messageDigest.reset();
+		return messageDigest;
+	}
+	
+	/**
+	 * Calculates the hash of the content with the reusable digest (not thread safe)
+	 * @param content
+	 * @return encoded hash or null if content is null
+	 */
+	public String hash(String content) {
+		
+		if (content == null)
+			return null;
+		
+		return encode(getDigest().digest(content.getBytes(UTF_8)));
+	}
+	
+	/**
+	 * Calculates the hash of the content with the reusable digest (not thread safe)
+	 * @param content
+	 * @return the digest bytes or null if content is null
+	 */
+	public byte[] digest(String content) {
+		
+		if (content == null)
+			return null;
+		
+		return getDigest().digest(content.getBytes(UTF_8));
+	}
+	
+	/**
+	 * Calculates the hash of the content with the digest of the current thread
+	 * @param content
+	 * @return encoded hash or null if content is null
+	 */
+	public String hashConcurrently(String content) {
+		
+		if (content == null)
+			return null;
+		
+		return encode(getThreadLocalDigest().digest(content.getBytes(UTF_8)));
+	}
+	
+	/**
+	 * Converts the hash bytes into the bound encoding
+	 * @param hash
+	 * @return
+	 */
+	public String encode(byte[] hash) {
+		return HashCalculation.encode(hash, encoding);
+	}
+	
+	/**
+	 * Converts the hash bytes into the bound encoding, which can be a String, byte[], Long or {@link Hash128}
+	 * @param hash
+	 * @return
+	 */
+	public Object encodeValue(byte[] hash) {
+		return HashCalculation.encodeValue(hash, encoding);
+	}
+	
+}
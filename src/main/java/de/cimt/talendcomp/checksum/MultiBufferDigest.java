@@ -0,0 +1,647 @@
+package de.cimt.talendcomp.checksum;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Calculates MD5 or SHA-256 hashes of many independent messages, e.g. the hash bases of a batch of rows,
+ * by processing several messages in lock-step. The state and the message words are packed in int arrays with one
+ * element per lane, the compression function runs the steps of four lanes interleaved, so the independent
+ * dependency chains of the lanes keep the execution units of one core busy.
+ * A lane which finished its message is refilled with the next one, so messages of different length can be mixed.
+ * The hashes are identical to the hashes of {@link java.security.MessageDigest}.
+ * The digest is not thread safe, every thread needs its own instance.
+ */
+public final class MultiBufferDigest {
+
+	public static final int DEFAULT_LANES = 8;
+
+	private static final int[] MD5_SHIFTS = {
+		7, 12, 17, 22, 7, 12, 17, 22, 7, 12, 17, 22, 7, 12, 17, 22,
+		5, 9, 14, 20, 5, 9, 14, 20, 5, 9, 14, 20, 5, 9, 14, 20,
+		4, 11, 16, 23, 4, 11, 16, 23, 4, 11, 16, 23, 4, 11, 16, 23,
+		6, 10, 15, 21, 6, 10, 15, 21, 6, 10, 15, 21, 6, 10, 15, 21
+	};
+
+	private static final int[] MD5_K = {
+		0xd76aa478, 0xe8c7b756, 0x242070db, 0xc1bdceee, 0xf57c0faf, 0x4787c62a, 0xa8304613, 0xfd469501,
+		0x698098d8, 0x8b44f7af, 0xffff5bb1, 0x895cd7be, 0x6b901122, 0xfd987193, 0xa679438e, 0x49b40821,
+		0xf61e2562, 0xc040b340, 0x265e5a51, 0xe9b6c7aa, 0xd62f105d, 0x02441453, 0xd8a1e681, 0xe7d3fbc8,
+		0x21e1cde6, 0xc33707d6, 0xf4d50d87, 0x455a14ed, 0xa9e3e905, 0xfcefa3f8, 0x676f02d9, 0x8d2a4c8a,
+		0xfffa3942, 0x8771f681, 0x6d9d6122, 0xfde5380c, 0xa4beea44, 0x4bdecfa9, 0xf6bb4b60, 0xbebfbc70,
+		0x289b7ec6, 0xeaa127fa, 0xd4ef3085, 0x04881d05, 0xd9d4d039, 0xe6db99e5, 0x1fa27cf8, 0xc4ac5665,
+		0xf4292244, 0x432aff97, 0xab9423a7, 0xfc93a039, 0x655b59c3, 0x8f0ccc92, 0xffeff47d, 0x85845dd1,
+		0x6fa87e4f, 0xfe2ce6e0, 0xa3014314, 0x4e0811a1, 0xf7537e82, 0xbd3af235, 0x2ad7d2bb, 0xeb86d391
+	};
+
+	/**
+	 * index of the message word of every step
+	 */
+	private static final int[] MD5_WORDS = new int[64];
+
+	static {
+		for (int i = 0; i < 64; i++) {
+			switch (i >>> 4) {
+			case 0: MD5_WORDS[i] = i; break;
+			case 1: MD5_WORDS[i] = (5 * i + 1) & 15; break;
+			case 2: MD5_WORDS[i] = (3 * i + 5) & 15; break;
+			default: MD5_WORDS[i] = (7 * i) & 15;
+			}
+		}
+	}
+
+	private static final int[] MD5_INIT = {0x67452301, 0xefcdab89, 0x98badcfe, 0x10325476};
+
+	private static final int[] SHA256_K = {
+		0x428a2f98, 0x71374491, 0xb5c0fbcf, 0xe9b5dba5, 0x3956c25b, 0x59f111f1, 0x923f82a4, 0xab1c5ed5,
+		0xd807aa98, 0x12835b01, 0x243185be, 0x550c7dc3, 0x72be5d74, 0x80deb1fe, 0x9bdc06a7, 0xc19bf174,
+		0xe49b69c1, 0xefbe4786, 0x0fc19dc6, 0x240ca1cc, 0x2de92c6f, 0x4a7484aa, 0x5cb0a9dc, 0x76f988da,
+		0x983e5152, 0xa831c66d, 0xb00327c8, 0xbf597fc7, 0xc6e00bf3, 0xd5a79147, 0x06ca6351, 0x14292967,
+		0x27b70a85, 0x2e1b2138, 0x4d2c6dfc, 0x53380d13, 0x650a7354, 0x766a0abb, 0x81c2c92e, 0x92722c85,
+		0xa2bfe8a1, 0xa81a664b, 0xc24b8b70, 0xc76c51a3, 0xd192e819, 0xd6990624, 0xf40e3585, 0x106aa070,
+		0x19a4c116, 0x1e376c08, 0x2748774c, 0x34b0bcb5, 0x391c0cb3, 0x4ed8aa4a, 0x5b9cca4f, 0x682e6ff3,
+		0x748f82ee, 0x78a5636f, 0x84c87814, 0x8cc70208, 0x90befffa, 0xa4506ceb, 0xbef9a3f7, 0xc67178f2
+	};
+
+	private static final int[] SHA256_INIT = {
+		0x6a09e667, 0xbb67ae85, 0x3c6ef372, 0xa54ff53a, 0x510e527f, 0x9b05688c, 0x1f83d9ab, 0x5be0cd19
+	};
+
+	private final HashAlgorithm algorithm;
+	private final boolean md5;
+	private final int lanes;
+	/**
+	 * per state word one array with one element per lane
+	 */
+	private final int[][] state;
+	/**
+	 * message words, word w of lane l is at w * lanes + l. SHA-256 keeps the whole message schedule.
+	 */
+	private final int[] words;
+	/**
+	 * per lane: index of the message, -1 if the lane is idle, the next block and the number of blocks
+	 */
+	private final int[] laneMessage;
+	private final int[] laneBlock;
+	private final int[] laneBlocks;
+
+	/**
+	 * Creates a digest with {@link #DEFAULT_LANES} lanes
+	 * @param algorithm -> MD5 or SHA-256
+	 * @throws IllegalArgumentException if the algorithm is not supported
+	 */
+	public MultiBufferDigest(HashAlgorithm algorithm) throws IllegalArgumentException {
+		this(algorithm, DEFAULT_LANES);
+	}
+
+	/**
+	 * @param algorithm -> MD5 or SHA-256
+	 * @param lanes -> number of messages which are processed in lock-step, a multiple of 4, e.g. 4 or 8
+	 * @throws IllegalArgumentException if the algorithm is not supported
+	 */
+	public MultiBufferDigest(HashAlgorithm algorithm, int lanes) throws IllegalArgumentException {
+
+		if (!isSupported(algorithm))
+			throw new IllegalArgumentException("algorithm " + (algorithm == null ? null : algorithm.getName()) + " is not supported, only MD5 and SHA-256 are");
+
+		if (lanes < 4 || lanes > 64 || lanes % 4 != 0)
+			throw new IllegalArgumentException("lanes must be a multiple of 4 up to 64, got " + lanes);
+
+		this.algorithm = algorithm;
+		this.md5 = algorithm == HashAlgorithm.MD5;
+		this.lanes = lanes;
+
+		final int stateWords = md5 ? 4 : 8;
+
+		this.state = new int[stateWords][lanes];
+		this.words = new int[(md5 ? 16 : 64) * lanes];
+		this.laneMessage = new int[lanes];
+		this.laneBlock = new int[lanes];
+		this.laneBlocks = new int[lanes];
+	}
+
+	/**
+	 * @param algorithm
+	 * @return true for MD5 and SHA-256
+	 */
+	public static boolean isSupported(HashAlgorithm algorithm) {
+		return algorithm == HashAlgorithm.MD5 || algorithm == HashAlgorithm.SHA256;
+	}
+
+	public HashAlgorithm getAlgorithm() {
+		return algorithm;
+	}
+
+	public int getLanes() {
+		return lanes;
+	}
+
+	/**
+	 * @return length of a hash in bytes
+	 */
+	public int getDigestLength() {
+		return algorithm.getLength();
+	}
+
+	/**
+	 * @param messages
+	 * @return the hashes of all messages one after another, {@link #getDigestLength()} bytes per message
+	 */
+	public byte[] digest(byte[][] messages) {
+
+		final int[] lengths = new int[messages.length];
+
+		for (int i = 0; i < messages.length; i++) {
+			lengths[i] = messages[i].length;
+		}
+
+		final byte[] out = new byte[messages.length * getDigestLength()];
+		digest(messages, lengths, messages.length, out, 0);
+		return out;
+	}
+
+	/**
+	 * Calculates the hashes of the first count messages
+	 * @param messages -> the arrays can be longer than the messages
+	 * @param lengths -> length of every message
+	 * @param count -> number of messages
+	 * @param out -> receives the hash of message i at outOffset + i * {@link #getDigestLength()}
+	 * @param outOffset
+	 */
+	public void digest(byte[][] messages, int[] lengths, int count, byte[] out, int outOffset) {
+
+		if (count > messages.length || count > lengths.length)
+			throw new IllegalArgumentException("count " + count + " exceeds the number of messages");
+
+		if (outOffset < 0 || out.length - outOffset < (long) count * getDigestLength())
+			throw new IllegalArgumentException("the output array is too small for " + count + " hashes");
+
+		final int[] init = md5 ? MD5_INIT : SHA256_INIT;
+		int next = 0;
+		int active = 0;
+
+		for (int lane = 0; lane < lanes; lane++) {
+			laneMessage[lane] = -1;
+		}
+
+		while (next < count || active > 0) {
+
+			for (int lane = 0; lane < lanes; lane++) {
+
+				if (laneMessage[lane] < 0) {
+
+					if (next == count)
+						continue;
+
+					if (lengths[next] < 0 || lengths[next] > messages[next].length)
+						throw new IllegalArgumentException("invalid length " + lengths[next] + " of message " + next);
+
+					laneMessage[lane] = next;
+					laneBlock[lane] = 0;
+					// the padding needs 1 byte and the bit length 8 bytes
+					laneBlocks[lane] = (int) (((long) lengths[next] + 9 + 63) >>> 6);
+					next++;
+					active++;
+
+					for (int word = 0; word < init.length; word++) {
+						state[word][lane] = init[word];
+					}
+				}
+
+				final int message = laneMessage[lane];
+				load(messages[message], lengths[message], laneBlock[lane], laneBlocks[lane], lane);
+			}
+
+			if (md5)
+				compressMd5();
+			else
+				compressSha256();
+
+			for (int lane = 0; lane < lanes; lane++) {
+
+				final int message = laneMessage[lane];
+
+				if (message >= 0 && ++laneBlock[lane] == laneBlocks[lane]) {
+					store(lane, out, outOffset + message * getDigestLength());
+					laneMessage[lane] = -1;
+					active--;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reads a block of the padded message into the words of the lane
+	 */
+	private void load(byte[] message, int length, int block, int blocks, int lane) {
+
+		final int start = block << 6;
+		final int fullWords = Math.max(Math.min(length - start, 64), 0) >>> 2;
+		int offset = start;
+		int word = 0;
+
+		if (fullWords > 0) {
+
+			final ByteBuffer buffer = ByteBuffer.wrap(message).order(md5 ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+
+			for (; word < fullWords; word++, offset += 4) {
+				words[word * lanes + lane] = buffer.getInt(offset);
+			}
+		}
+
+		if (word == 16)
+			return;
+
+		// the last bytes of the message are followed by 0x80, the block can also consist of padding only
+		if (length >= start) {
+
+			final int remaining = length - offset;
+			int value = 0;
+
+			for (int i = 0; i <= remaining; i++) {
+				final int b = i < remaining ? message[offset + i] & 0xff : 0x80;
+				value |= md5 ? b << (i * 8) : b << (24 - i * 8);
+			}
+
+			words[word++ * lanes + lane] = value;
+		}
+
+		for (; word < 16; word++) {
+			words[word * lanes + lane] = 0;
+		}
+
+		if (block == blocks - 1) {
+
+			final long bits = (long) length << 3;
+
+			words[14 * lanes + lane] = md5 ? (int) bits : (int) (bits >>> 32);
+			words[15 * lanes + lane] = md5 ? (int) (bits >>> 32) : (int) bits;
+		}
+	}
+
+	/**
+	 * Writes the hash of the lane
+	 */
+	private void store(int lane, byte[] out, int offset) {
+
+		for (int word = 0; word < state.length; word++, offset += 4) {
+
+			final int value = state[word][lane];
+
+			if (md5) {
+				out[offset] = (byte) value;
+				out[offset + 1] = (byte) (value >>> 8);
+				out[offset + 2] = (byte) (value >>> 16);
+				out[offset + 3] = (byte) (value >>> 24);
+			} else {
+				out[offset] = (byte) (value >>> 24);
+				out[offset + 1] = (byte) (value >>> 16);
+				out[offset + 2] = (byte) (value >>> 8);
+				out[offset + 3] = (byte) value;
+			}
+		}
+	}
+
+	private void compressMd5() {
+
+		final int n = lanes;
+		final int[] x = words;
+
+		// four lanes at a time are kept in local variables, so their steps are interleaved without memory accesses
+		for (int lane = 0; lane < n; lane += 4) {
+
+			int a0 = state[0][lane], a1 = state[0][lane + 1], a2 = state[0][lane + 2], a3 = state[0][lane + 3];
+			int b0 = state[1][lane], b1 = state[1][lane + 1], b2 = state[1][lane + 2], b3 = state[1][lane + 3];
+			int c0 = state[2][lane], c1 = state[2][lane + 1], c2 = state[2][lane + 2], c3 = state[2][lane + 3];
+			int d0 = state[3][lane], d1 = state[3][lane + 1], d2 = state[3][lane + 2], d3 = state[3][lane + 3];
+
+			for (int step = 0; step < 16; step += 4) {
+
+				int k = MD5_K[step];
+				int w = MD5_WORDS[step] * n + lane;
+				a0 = ff(a0, b0, c0, d0, x[w] + k, 7);
+				a1 = ff(a1, b1, c1, d1, x[w + 1] + k, 7);
+				a2 = ff(a2, b2, c2, d2, x[w + 2] + k, 7);
+				a3 = ff(a3, b3, c3, d3, x[w + 3] + k, 7);
+
+				k = MD5_K[step + 1];
+				w = MD5_WORDS[step + 1] * n + lane;
+				d0 = ff(d0, a0, b0, c0, x[w] + k, 12);
+				d1 = ff(d1, a1, b1, c1, x[w + 1] + k, 12);
+				d2 = ff(d2, a2, b2, c2, x[w + 2] + k, 12);
+				d3 = ff(d3, a3, b3, c3, x[w + 3] + k, 12);
+
+				k = MD5_K[step + 2];
+				w = MD5_WORDS[step + 2] * n + lane;
+				c0 = ff(c0, d0, a0, b0, x[w] + k, 17);
+				c1 = ff(c1, d1, a1, b1, x[w + 1] + k, 17);
+				c2 = ff(c2, d2, a2, b2, x[w + 2] + k, 17);
+				c3 = ff(c3, d3, a3, b3, x[w + 3] + k, 17);
+
+				k = MD5_K[step + 3];
+				w = MD5_WORDS[step + 3] * n + lane;
+				b0 = ff(b0, c0, d0, a0, x[w] + k, 22);
+				b1 = ff(b1, c1, d1, a1, x[w + 1] + k, 22);
+				b2 = ff(b2, c2, d2, a2, x[w + 2] + k, 22);
+				b3 = ff(b3, c3, d3, a3, x[w + 3] + k, 22);
+			}
+
+			for (int step = 16; step < 32; step += 4) {
+
+				int k = MD5_K[step];
+				int w = MD5_WORDS[step] * n + lane;
+				a0 = gg(a0, b0, c0, d0, x[w] + k, 5);
+				a1 = gg(a1, b1, c1, d1, x[w + 1] + k, 5);
+				a2 = gg(a2, b2, c2, d2, x[w + 2] + k, 5);
+				a3 = gg(a3, b3, c3, d3, x[w + 3] + k, 5);
+
+				k = MD5_K[step + 1];
+				w = MD5_WORDS[step + 1] * n + lane;
+				d0 = gg(d0, a0, b0, c0, x[w] + k, 9);
+				d1 = gg(d1, a1, b1, c1, x[w + 1] + k, 9);
+				d2 = gg(d2, a2, b2, c2, x[w + 2] + k, 9);
+				d3 = gg(d3, a3, b3, c3, x[w + 3] + k, 9);
+
+				k = MD5_K[step + 2];
+				w = MD5_WORDS[step + 2] * n + lane;
+				c0 = gg(c0, d0, a0, b0, x[w] + k, 14);
+				c1 = gg(c1, d1, a1, b1, x[w + 1] + k, 14);
+				c2 = gg(c2, d2, a2, b2, x[w + 2] + k, 14);
+				c3 = gg(c3, d3, a3, b3, x[w + 3] + k, 14);
+
+				k = MD5_K[step + 3];
+				w = MD5_WORDS[step + 3] * n + lane;
+				b0 = gg(b0, c0, d0, a0, x[w] + k, 20);
+				b1 = gg(b1, c1, d1, a1, x[w + 1] + k, 20);
+				b2 = gg(b2, c2, d2, a2, x[w + 2] + k, 20);
+				b3 = gg(b3, c3, d3, a3, x[w + 3] + k, 20);
+			}
+
+			for (int step = 32; step < 48; step += 4) {
+
+				int k = MD5_K[step];
+				int w = MD5_WORDS[step] * n + lane;
+				a0 = hh(a0, b0, c0, d0, x[w] + k, 4);
+				a1 = hh(a1, b1, c1, d1, x[w + 1] + k, 4);
+				a2 = hh(a2, b2, c2, d2, x[w + 2] + k, 4);
+				a3 = hh(a3, b3, c3, d3, x[w + 3] + k, 4);
+
+				k = MD5_K[step + 1];
+				w = MD5_WORDS[step + 1] * n + lane;
+				d0 = hh(d0, a0, b0, c0, x[w] + k, 11);
+				d1 = hh(d1, a1, b1, c1, x[w + 1] + k, 11);
+				d2 = hh(d2, a2, b2, c2, x[w + 2] + k, 11);
+				d3 = hh(d3, a3, b3, c3, x[w + 3] + k, 11);
+
+				k = MD5_K[step + 2];
+				w = MD5_WORDS[step + 2] * n + lane;
+				c0 = hh(c0, d0, a0, b0, x[w] + k, 16);
+				c1 = hh(c1, d1, a1, b1, x[w + 1] + k, 16);
+				c2 = hh(c2, d2, a2, b2, x[w + 2] + k, 16);
+				c3 = hh(c3, d3, a3, b3, x[w + 3] + k, 16);
+
+				k = MD5_K[step + 3];
+				w = MD5_WORDS[step + 3] * n + lane;
+				b0 = hh(b0, c0, d0, a0, x[w] + k, 23);
+				b1 = hh(b1, c1, d1, a1, x[w + 1] + k, 23);
+				b2 = hh(b2, c2, d2, a2, x[w + 2] + k, 23);
+				b3 = hh(b3, c3, d3, a3, x[w + 3] + k, 23);
+			}
+
+			for (int step = 48; step < 64; step += 4) {
+
+				int k = MD5_K[step];
+				int w = MD5_WORDS[step] * n + lane;
+				a0 = ii(a0, b0, c0, d0, x[w] + k, 6);
+				a1 = ii(a1, b1, c1, d1, x[w + 1] + k, 6);
+				a2 = ii(a2, b2, c2, d2, x[w + 2] + k, 6);
+				a3 = ii(a3, b3, c3, d3, x[w + 3] + k, 6);
+
+				k = MD5_K[step + 1];
+				w = MD5_WORDS[step + 1] * n + lane;
+				d0 = ii(d0, a0, b0, c0, x[w] + k, 10);
+				d1 = ii(d1, a1, b1, c1, x[w + 1] + k, 10);
+				d2 = ii(d2, a2, b2, c2, x[w + 2] + k, 10);
+				d3 = ii(d3, a3, b3, c3, x[w + 3] + k, 10);
+
+				k = MD5_K[step + 2];
+				w = MD5_WORDS[step + 2] * n + lane;
+				c0 = ii(c0, d0, a0, b0, x[w] + k, 15);
+				c1 = ii(c1, d1, a1, b1, x[w + 1] + k, 15);
+				c2 = ii(c2, d2, a2, b2, x[w + 2] + k, 15);
+				c3 = ii(c3, d3, a3, b3, x[w + 3] + k, 15);
+
+				k = MD5_K[step + 3];
+				w = MD5_WORDS[step + 3] * n + lane;
+				b0 = ii(b0, c0, d0, a0, x[w] + k, 21);
+				b1 = ii(b1, c1, d1, a1, x[w + 1] + k, 21);
+				b2 = ii(b2, c2, d2, a2, x[w + 2] + k, 21);
+				b3 = ii(b3, c3, d3, a3, x[w + 3] + k, 21);
+			}
+
+			state[0][lane] += a0; state[0][lane + 1] += a1; state[0][lane + 2] += a2; state[0][lane + 3] += a3;
+			state[1][lane] += b0; state[1][lane + 1] += b1; state[1][lane + 2] += b2; state[1][lane + 3] += b3;
+			state[2][lane] += c0; state[2][lane + 1] += c1; state[2][lane + 2] += c2; state[2][lane + 3] += c3;
+			state[3][lane] += d0; state[3][lane + 1] += d1; state[3][lane + 2] += d2; state[3][lane + 3] += d3;
+		}
+	}
+
+	private static int ff(int a, int b, int c, int d, int xk, int shift) {
+		return b + Integer.rotateLeft(a + (d ^ (b & (c ^ d))) + xk, shift);
+	}
+
+	private static int gg(int a, int b, int c, int d, int xk, int shift) {
+		return b + Integer.rotateLeft(a + (c ^ (d & (b ^ c))) + xk, shift);
+	}
+
+	private static int hh(int a, int b, int c, int d, int xk, int shift) {
+		return b + Integer.rotateLeft(a + (b ^ c ^ d) + xk, shift);
+	}
+
+	private static int ii(int a, int b, int c, int d, int xk, int shift) {
+		return b + Integer.rotateLeft(a + (c ^ (b | ~d)) + xk, shift);
+	}
+
+	private void compressSha256() {
+
+		final int n = lanes;
+		final int[] w = words;
+
+		for (int t = 16; t < 64; t++) {
+
+			final int offset = t * n;
+
+			for (int l = 0; l < n; l++) {
+
+				final int w2 = w[offset - 2 * n + l];
+				final int w15 = w[offset - 15 * n + l];
+
+				w[offset + l] = (Integer.rotateRight(w2, 17) ^ Integer.rotateRight(w2, 19) ^ (w2 >>> 10)) + w[offset - 7 * n + l]
+						+ (Integer.rotateRight(w15, 7) ^ Integer.rotateRight(w15, 18) ^ (w15 >>> 3)) + w[offset - 16 * n + l];
+			}
+		}
+
+		// four lanes at a time are kept in local variables, so their rounds are interleaved without memory accesses
+		for (int lane = 0; lane < n; lane += 4) {
+
+			int a0 = state[0][lane], a1 = state[0][lane + 1], a2 = state[0][lane + 2], a3 = state[0][lane + 3];
+			int b0 = state[1][lane], b1 = state[1][lane + 1], b2 = state[1][lane + 2], b3 = state[1][lane + 3];
+			int c0 = state[2][lane], c1 = state[2][lane + 1], c2 = state[2][lane + 2], c3 = state[2][lane + 3];
+			int d0 = state[3][lane], d1 = state[3][lane + 1], d2 = state[3][lane + 2], d3 = state[3][lane + 3];
+			int e0 = state[4][lane], e1 = state[4][lane + 1], e2 = state[4][lane + 2], e3 = state[4][lane + 3];
+			int f0 = state[5][lane], f1 = state[5][lane + 1], f2 = state[5][lane + 2], f3 = state[5][lane + 3];
+			int g0 = state[6][lane], g1 = state[6][lane + 1], g2 = state[6][lane + 2], g3 = state[6][lane + 3];
+			int h0 = state[7][lane], h1 = state[7][lane + 1], h2 = state[7][lane + 2], h3 = state[7][lane + 3];
+			int t0, t1, t2, t3;
+
+			for (int t = 0; t < 64; t += 8) {
+
+				int k = SHA256_K[t];
+				int offset = t * n + lane;
+
+				t0 = h0 + sigma1(e0) + (g0 ^ (e0 & (f0 ^ g0))) + k + w[offset];
+				d0 += t0;
+				h0 = t0 + sigma0(a0) + ((a0 & b0) | (c0 & (a0 | b0)));
+				t1 = h1 + sigma1(e1) + (g1 ^ (e1 & (f1 ^ g1))) + k + w[offset + 1];
+				d1 += t1;
+				h1 = t1 + sigma0(a1) + ((a1 & b1) | (c1 & (a1 | b1)));
+				t2 = h2 + sigma1(e2) + (g2 ^ (e2 & (f2 ^ g2))) + k + w[offset + 2];
+				d2 += t2;
+				h2 = t2 + sigma0(a2) + ((a2 & b2) | (c2 & (a2 | b2)));
+				t3 = h3 + sigma1(e3) + (g3 ^ (e3 & (f3 ^ g3))) + k + w[offset + 3];
+				d3 += t3;
+				h3 = t3 + sigma0(a3) + ((a3 & b3) | (c3 & (a3 | b3)));
+
+				k = SHA256_K[t + 1];
+				offset += n;
+
+				t0 = g0 + sigma1(d0) + (f0 ^ (d0 & (e0 ^ f0))) + k + w[offset];
+				c0 += t0;
+				g0 = t0 + sigma0(h0) + ((h0 & a0) | (b0 & (h0 | a0)));
+				t1 = g1 + sigma1(d1) + (f1 ^ (d1 & (e1 ^ f1))) + k + w[offset + 1];
+				c1 += t1;
+				g1 = t1 + sigma0(h1) + ((h1 & a1) | (b1 & (h1 | a1)));
+				t2 = g2 + sigma1(d2) + (f2 ^ (d2 & (e2 ^ f2))) + k + w[offset + 2];
+				c2 += t2;
+				g2 = t2 + sigma0(h2) + ((h2 & a2) | (b2 & (h2 | a2)));
+				t3 = g3 + sigma1(d3) + (f3 ^ (d3 & (e3 ^ f3))) + k + w[offset + 3];
+				c3 += t3;
+				g3 = t3 + sigma0(h3) + ((h3 & a3) | (b3 & (h3 | a3)));
+
+				k = SHA256_K[t + 2];
+				offset += n;
+
+				t0 = f0 + sigma1(c0) + (e0 ^ (c0 & (d0 ^ e0))) + k + w[offset];
+				b0 += t0;
+				f0 = t0 + sigma0(g0) + ((g0 & h0) | (a0 & (g0 | h0)));
+				t1 = f1 + sigma1(c1) + (e1 ^ (c1 & (d1 ^ e1))) + k + w[offset + 1];
+				b1 += t1;
+				f1 = t1 + sigma0(g1) + ((g1 & h1) | (a1 & (g1 | h1)));
+				t2 = f2 + sigma1(c2) + (e2 ^ (c2 & (d2 ^ e2))) + k + w[offset + 2];
+				b2 += t2;
+				f2 = t2 + sigma0(g2) + ((g2 & h2) | (a2 & (g2 | h2)));
+				t3 = f3 + sigma1(c3) + (e3 ^ (c3 & (d3 ^ e3))) + k + w[offset + 3];
+				b3 += t3;
+				f3 = t3 + sigma0(g3) + ((g3 & h3) | (a3 & (g3 | h3)));
+
+				k = SHA256_K[t + 3];
+				offset += n;
+
+				t0 = e0 + sigma1(b0) + (d0 ^ (b0 & (c0 ^ d0))) + k + w[offset];
+				a0 += t0;
+				e0 = t0 + sigma0(f0) + ((f0 & g0) | (h0 & (f0 | g0)));
+				t1 = e1 + sigma1(b1) + (d1 ^ (b1 & (c1 ^ d1))) + k + w[offset + 1];
+				a1 += t1;
+				e1 = t1 + sigma0(f1) + ((f1 & g1) | (h1 & (f1 | g1)));
+				t2 = e2 + sigma1(b2) + (d2 ^ (b2 & (c2 ^ d2))) + k + w[offset + 2];
+				a2 += t2;
+				e2 = t2 + sigma0(f2) + ((f2 & g2) | (h2 & (f2 | g2)));
+				t3 = e3 + sigma1(b3) + (d3 ^ (b3 & (c3 ^ d3))) + k + w[offset + 3];
+				a3 += t3;
+				e3 = t3 + sigma0(f3) + ((f3 & g3) | (h3 & (f3 | g3)));
+
+				k = SHA256_K[t + 4];
+				offset += n;
+
+				t0 = d0 + sigma1(a0) + (c0 ^ (a0 & (b0 ^ c0))) + k + w[offset];
+				h0 += t0;
+				d0 = t0 + sigma0(e0) + ((e0 & f0) | (g0 & (e0 | f0)));
+				t1 = d1 + sigma1(a1) + (c1 ^ (a1 & (b1 ^ c1))) + k + w[offset + 1];
+				h1 += t1;
+				d1 = t1 + sigma0(e1) + ((e1 & f1) | (g1 & (e1 | f1)));
+				t2 = d2 + sigma1(a2) + (c2 ^ (a2 & (b2 ^ c2))) + k + w[offset + 2];
+				h2 += t2;
+				d2 = t2 + sigma0(e2) + ((e2 & f2) | (g2 & (e2 | f2)));
+				t3 = d3 + sigma1(a3) + (c3 ^ (a3 & (b3 ^ c3))) + k + w[offset + 3];
+				h3 += t3;
+				d3 = t3 + sigma0(e3) + ((e3 & f3) | (g3 & (e3 | f3)));
+
+				k = SHA256_K[t + 5];
+				offset += n;
+
+				t0 = c0 + sigma1(h0) + (b0 ^ (h0 & (a0 ^ b0))) + k + w[offset];
+				g0 += t0;
+				c0 = t0 + sigma0(d0) + ((d0 & e0) | (f0 & (d0 | e0)));
+				t1 = c1 + sigma1(h1) + (b1 ^ (h1 & (a1 ^ b1))) + k + w[offset + 1];
+				g1 += t1;
+				c1 = t1 + sigma0(d1) + ((d1 & e1) | (f1 & (d1 | e1)));
+				t2 = c2 + sigma1(h2) + (b2 ^ (h2 & (a2 ^ b2))) + k + w[offset + 2];
+				g2 += t2;
+				c2 = t2 + sigma0(d2) + ((d2 & e2) | (f2 & (d2 | e2)));
+				t3 = c3 + sigma1(h3) + (b3 ^ (h3 & (a3 ^ b3))) + k + w[offset + 3];
+				g3 += t3;
+				c3 = t3 + sigma0(d3) + ((d3 & e3) | (f3 & (d3 | e3)));
+
+				k = SHA256_K[t + 6];
+				offset += n;
+
+				t0 = b0 + sigma1(g0) + (a0 ^ (g0 & (h0 ^ a0))) + k + w[offset];
+				f0 += t0;
+				b0 = t0 + sigma0(c0) + ((c0 & d0) | (e0 & (c0 | d0)));
+				t1 = b1 + sigma1(g1) + (a1 ^ (g1 & (h1 ^ a1))) + k + w[offset + 1];
+				f1 += t1;
+				b1 = t1 + sigma0(c1) + ((c1 & d1) | (e1 & (c1 | d1)));
+				t2 = b2 + sigma1(g2) + (a2 ^ (g2 & (h2 ^ a2))) + k + w[offset + 2];
+				f2 += t2;
+				b2 = t2 + sigma0(c2) + ((c2 & d2) | (e2 & (c2 | d2)));
+				t3 = b3 + sigma1(g3) + (a3 ^ (g3 & (h3 ^ a3))) + k + w[offset + 3];
+				f3 += t3;
+				b3 = t3 + sigma0(c3) + ((c3 & d3) | (e3 & (c3 | d3)));
+
+				k = SHA256_K[t + 7];
+				offset += n;
+
+				t0 = a0 + sigma1(f0) + (h0 ^ (f0 & (g0 ^ h0))) + k + w[offset];
+				e0 += t0;
+				a0 = t0 + sigma0(b0) + ((b0 & c0) | (d0 & (b0 | c0)));
+				t1 = a1 + sigma1(f1) + (h1 ^ (f1 & (g1 ^ h1))) + k + w[offset + 1];
+				e1 += t1;
+				a1 = t1 + sigma0(b1) + ((b1 & c1) | (d1 & (b1 | c1)));
+				t2 = a2 + sigma1(f2) + (h2 ^ (f2 & (g2 ^ h2))) + k + w[offset + 2];
+				e2 += t2;
+				a2 = t2 + sigma0(b2) + ((b2 & c2) | (d2 & (b2 | c2)));
+				t3 = a3 + sigma1(f3) + (h3 ^ (f3 & (g3 ^ h3))) + k + w[offset + 3];
+				e3 += t3;
+				a3 = t3 + sigma0(b3) + ((b3 & c3) | (d3 & (b3 | c3)));
+			}
+
+			state[0][lane] += a0; state[0][lane + 1] += a1; state[0][lane + 2] += a2; state[0][lane + 3] += a3;
+			state[1][lane] += b0; state[1][lane + 1] += b1; state[1][lane + 2] += b2; state[1][lane + 3] += b3;
+			state[2][lane] += c0; state[2][lane + 1] += c1; state[2][lane + 2] += c2; state[2][lane + 3] += c3;
+			state[3][lane] += d0; state[3][lane + 1] += d1; state[3][lane + 2] += d2; state[3][lane + 3] += d3;
+			state[4][lane] += e0; state[4][lane + 1] += e1; state[4][lane + 2] += e2; state[4][lane + 3] += e3;
+			state[5][lane] += f0; state[5][lane + 1] += f1; state[5][lane + 2] += f2; state[5][lane + 3] += f3;
+			state[6][lane] += g0; state[6][lane + 1] += g1; state[6][lane + 2] += g2; state[6][lane + 3] += g3;
+			state[7][lane] += h0; state[7][lane + 1] += h1; state[7][lane + 2] += h2; state[7][lane + 3] += h3;
+		}
+	}
+
+	private static int sigma0(int a) {
+		return Integer.rotateRight(a, 2) ^ Integer.rotateRight(a, 13) ^ Integer.rotateRight(a, 22);
+	}
+
+	private static int sigma1(int e) {
+		return Integer.rotateRight(e, 6) ^ Integer.rotateRight(e, 11) ^ Integer.rotateRight(e, 25);
+	}
+
+}
@@ -0,0 +1,122 @@
+package de.cimt.talendcomp.checksum;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Calculates several hashes over the same row in one pass, e.g. the hash key over the business key columns
+ * and the hash diff over the descriptive columns of a Data Vault load.
+ * Every hash group has its own {@link Normalization} with its own {@link Hasher}, all groups share one {@link NormalizeConfig}.
+ * A column which belongs to several groups is normalized only once.
+ */
+public class MultiNormalization {
+
+	private final NormalizeConfig config;
+	private final List<String> groupNames = new ArrayList<String>();
+	private final List<Normalization> groups = new ArrayList<Normalization>();
+	/**
+	 * Normalization which is used to normalize the values for all groups
+	 */
+	private final Normalization normalizer;
+
+	public MultiNormalization(NormalizeConfig config) {
+		if (config == null)
+			throw new IllegalArgumentException("config variable cannot be null");
+
+		this.config = config;
+		this.normalizer = new Normalization(config);
+	}
+
+	/**
+	 * Adds a new hash group
+	 * @param name -> unique name of the group
+	 * @param hasher -> algorithm and output encoding of the group
+	 * @param streaming -> see {@link Normalization#Normalization(NormalizeConfig, String)}
+	 * @return index of the group
+	 * @throws IllegalArgumentException if the name is already used
+	 */
+	public int addGroup(String name, Hasher hasher, boolean streaming) throws IllegalArgumentException {
+
+		if (name == null)
+			throw new IllegalArgumentException("group name cannot be null");
+
+		if (groupNames.contains(name))
+			throw new IllegalArgumentException("hash group " + name + " is already defined");
+
+		groupNames.add(name);
+		groups.add(new Normalization(config, hasher, streaming));
+
+		return groups.size() - 1;
+	}
+
+	/**
+	 * @param name
+	 * @return index of the group
+	 * @throws IllegalArgumentException if there is no group with this name
+	 */
+	public int getGroupIndex(String name) throws IllegalArgumentException {
+
+		int index = groupNames.indexOf(name);
+
+		if (index < 0)
+			throw new IllegalArgumentException("hash group " + name + " is not defined, defined groups: " + groupNames);
+
+		return index;
+	}
+
+	public Normalization getGroup(int index) {
+		return groups.get(index);
+	}
+
+	public Normalization getGroup(String name) {
+		return groups.get(getGroupIndex(name));
+	}
+
+	public int getGroupCount() {
+		return groups.size();
+	}
+
+	/**
+	 * Reset all groups to add the objects of the next row
+	 */
+	public void reset() {
+		for (int i = 0; i < groups.size(); i++) {
+			groups.get(i).reset();
+		}
+	}
+
+	/**
+	 * Returns the normalized string of this object, which can be added to several groups with {@link #addNormalized(String, int)}
+	 * @param object
+	 * @param itemConfig
+	 * @return null if the object is null
+	 */
+	public String normalize(Object object, NormalizeObjectConfig itemConfig) {
+		return normalizer.normalizeObject(object, itemConfig);
+	}
+
+	/**
+	 * Add a value returned by {@link #normalize(Object, NormalizeObjectConfig)} to a group
+	 * @param normalized
+	 * @param group -> index of the group
+	 */
+	public void addNormalized(String normalized, int group) {
+		groups.get(group).addNormalized(normalized);
+	}
+
+	/**
+	 * Normalizes the object once and adds it to every given group
+	 * @param object
+	 * @param itemConfig
+	 * @param groupIndexes
+	 */
+	public void add(Object object, NormalizeObjectConfig itemConfig, int... groupIndexes) {
+
+		final String normalized = normalize(object, itemConfig);
+
+		for (int group : groupIndexes) {
+			groups.get(group).addNormalized(normalized);
+		}
+	}
+
+}
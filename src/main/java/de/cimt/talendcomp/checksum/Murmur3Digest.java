@@ -0,0 +1,105 @@
+package de.cimt.talendcomp.checksum;
+
+/**
+ * MurmurHash3 x64 128 bit (seed 0). The 16 hash bytes are h1 followed by h2, both little endian, 
+ * which is the byte order of the reference implementation (and e.g. Guava).
+ */
+class Murmur3Digest extends BufferedDigest {
+	
+	static final String ALGORITHM = "MURMUR3-128";
+	
+	private static final long C1 = 0x87c37b91114253d5L;
+	private static final long C2 = 0x4cf5ad432745937fL;
+	
+	Murmur3Digest() {
+		super(ALGORITHM);
+	}
+	
+	@Override
+	protected int engineGetDigestLength() {
+		return 16;
+	}
+
+	@Override
+	protected byte[] hash(byte[] input, int length) {
+		
+		long h1 = 0;
+		long h2 = 0;
+		
+		final int blocks = length / 16;
+		
+		for (int i = 0; i < blocks; i++) {
+			
+			long k1 = readLongLE(input, i * 16);
+			long k2 = readLongLE(input, i * 16 + 8);
+			
+			h1 ^= mixK1(k1);
+			h1 = Long.rotateLeft(h1, 27);
+			h1 += h2;
+			h1 = h1 * 5 + 0x52dce729;
+			
+			h2 ^= mixK2(k2);
+			h2 = Long.rotateLeft(h2, 31);
+			h2 += h1;
+			h2 = h2 * 5 + 0x38495ab5;
+		}
+		
+		final int tail = blocks * 16;
+		final int remaining = length - tail;
+		long k1 = 0;
+		long k2 = 0;
+		
+		for (int i = remaining - 1; i >= 8; i--) {
+			k2 ^= (input[tail + i] & 0xffL) << ((i - 8) * 8);
+		}
+		
+		for (int i = Math.min(remaining, 8) - 1; i >= 0; i--) {
+			k1 ^= (input[tail + i] & 0xffL) << (i * 8);
+		}
+		
+		if (remaining > 8)
+			h2 ^= mixK2(k2);
+		
+		if (remaining > 0)
+			h1 ^= mixK1(k1);
+		
+		h1 ^= length;
+		h2 ^= length;
+		
+		h1 += h2;
+		h2 += h1;
+		
+		h1 = fmix(h1);
+		h2 = fmix(h2);
+		
+		h1 += h2;
+		h2 += h1;
+		
+		byte[] result = new byte[16];
+		writeLongLE(h1, result, 0);
+		writeLongLE(h2, result, 8);
+		return result;
+	}
+	
+	private static long mixK1(long k1) {
+		k1 *= C1;
+		k1 = Long.rotateLeft(k1, 31);
+		return k1 * C2;
+	}
+	
+	private static long mixK2(long k2) {
+		k2 *= C2;
+		k2 = Long.rotateLeft(k2, 33);
+		return k2 * C1;
+	}
+	
+	private static long fmix(long k) {
+		k ^= k >>> 33;
+		k *= 0xff51afd7ed558ccdL;
+		k ^= k >>> 33;
+		k *= 0xc4ceb9fe1a85ec53L;
+		k ^= k >>> 33;
+		return k;
+	}
+	
+}
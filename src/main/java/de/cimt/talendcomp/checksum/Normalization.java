@@ -2,8 +2,9 @@ package de.cimt.talendcomp.checksum;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
 import java.text.NumberFormat;
-import java.text.SimpleDateFormat;
 import java.util.Date;
 
 public class Normalization {
@@ -22,6 +23,66 @@ public class Normalization {
 	 */
 	private boolean hashBaseHasValues = false;
 	
+	/**
+	 * Digest which receives the normalized values while they are added, null if not in streaming mode
+	 */
+	private MessageDigest streamingDigest;
+	private byte[] streamingBuffer;
+	private boolean[] trailingCandidates;
+	/**
+	 * Number of characters which are already pushed into the streaming digest and removed from the string builder
+	 */
+	private int streamedLength = 0;
+	/**
+	 * Number of UTF-8 bytes which are pushed into the streaming digest since the last reset
+	 */
+	private long streamedBytes = 0;
+	/**
+	 * Time spent in the streaming digest since {@link #startDigestTimer()}, -1 if the time is not measured
+	 */
+	private long streamingDigestNanos = -1;
+	private byte[] streamedHash;
+	private String cachedQuotationCharacter;
+	private String cachedEmptyQuotation;
+	
+	/**
+	 * Start of the last added value in the string builder, including its delimiter
+	 */
+	private int valueStart = 0;
+	/**
+	 * Length of the normalized string after cutting off empty trailing objects, tracked while the values are added.
+	 * Only valid if cutTracked is true and the config still uses the delimiter and empty quotation it was tracked with.
+	 */
+	private int cutLength = 0;
+	private boolean cutTracked = true;
+	private String cutDelimiter;
+	private String cutEmptyQuotation;
+	/**
+	 * Normalized string and its UTF-8 bytes, created at most once after the last added value
+	 */
+	private String normalizedString;
+	private byte[] normalizedBytes;
+	private int normalizedByteLength = -1;
+	private NormalizedChars normalizedChars;
+	
+	/**
+	 * Hasher bound at construction time, used by {@link #calculateHash()} and the streaming mode
+	 */
+	private Hasher hasher;
+	/**
+	 * Digest of this normalization for the bound hasher, so normalizations in different threads can share the hasher
+	 */
+	private MessageDigest digest;
+	/**
+	 * Hasher of the last {@link #calculateHash(String, HashCalculation.HASH_OUTPUT_ENCODINGS)} call and its algorithm argument
+	 */
+	private Hasher requestedHasher;
+	private String requestedAlgorithm;
+	/**
+	 * Optional cache of the hash outputs of the bound hasher
+	 */
+	private HashCache cache;
+	
 	public Normalization(NormalizeConfig config) {
 		if (config == null)
 			throw new IllegalArgumentException("config variable cannot be null");
@@ -29,6 +90,72 @@ public class Normalization {
 		this.config = config;
 		
 	}
+	
+	/**
+	 * Creates a normalization in streaming mode. Every added value is UTF-8 encoded and pushed into a digest
+	 * of the given algorithm as soon as cutting off empty trailing objects can not affect it anymore.
+	 * The calculated hash is identical to the hash of {@link #getNormalizedString()}, but the normalized string
+	 * itself is not retained in this mode.
+	 * @param config
+	 * @param streamingAlgorithm -> name of a {@link HashAlgorithm}, e.g. MD5 / SHA1 / SHA-256
+	 */
+	public Normalization(NormalizeConfig config, String streamingAlgorithm) {
+		this(config, new Hasher(streamingAlgorithm, HashCalculation.HASH_OUTPUT_ENCODINGS.HEX), true);
+	}
+	
+	/**
+	 * Creates a normalization with an algorithm and output encoding which are resolved once, see {@link #calculateHash()}
+	 * @param config
+	 * @param hasher
+	 * @param streaming -> see {@link #Normalization(NormalizeConfig, String)}
+	 * @throws IllegalArgumentException if the hash output for an empty hash base does not fit the output encoding
+	 */
+	public Normalization(NormalizeConfig config, Hasher hasher, boolean streaming) throws IllegalArgumentException {
+		this(config);
+		
+		if (hasher == null)
+			throw new IllegalArgumentException("hasher cannot be null");
+		
+		this.hasher = hasher;
+		checkHashOutputReplacement();
+		
+		if (streaming) {
+			this.streamingDigest = hasher.newDigest();
+			this.streamingBuffer = new byte[1024];
+			this.trailingCandidates = new boolean[64];
+		}
+	}
+	
+	/**
+	 * Sets a cache of the hash outputs by their normalized hash base, e.g. if the same rows recur many times.
+	 * The outputs of {@link #calculateHash()} and {@link #calculateHashValue()} are cached, the cache must not be
+	 * shared with normalizations of another hasher.
+	 * @param cache -> null to disable the cache
+	 * @throws IllegalStateException if this normalization is in streaming mode or has no hasher
+	 */
+	public void setCache(HashCache cache) throws IllegalStateException {
+		
+		if (cache != null) {
+			
+			checkHasher();
+			
+			if (streamingDigest != null)
+				throw new IllegalStateException("the hash base is not retained in streaming mode and can not be cached");
+		}
+		
+		this.cache = cache;
+	}
+	
+	public HashCache getCache() {
+		return cache;
+	}
+	
+	/**
+	 * @return true if the added values are pushed into a digest instead of being retained
+	 */
+	public boolean isStreaming() {
+		return streamingDigest != null;
+	}
     
 	/**
 	 * Reset underlying string builder to add new hash objects 
@@ -38,36 +165,267 @@ public class Normalization {
 		allInputsAreNull=true;
 		hashBaseHasValues=false;
 		sb.setLength(0);
+		valueStart = 0;
+		cutLength = 0;
+		cutTracked = true;
+		cutDelimiter = null;
+		cutEmptyQuotation = null;
+		normalizedString = null;
+		normalizedByteLength = -1;
+		
+		if (streamingDigest != null) {
+			streamingDigest.reset();
+			streamedLength = 0;
+			streamedBytes = 0;
+			streamedHash = null;
+		}
 	}
 	
     /**
      * Calculates hash value based on added objects
-     * @param algorithm -> MD5 / SHA1 / SHA-256
+     * @param algorithm -> name of a {@link HashAlgorithm}, e.g. MD5 / SHA1 / SHA-256
      * @param hashOutputEncoding -> BASE64, HEX
      * @return
      * @throws IllegalArgumentException
      */
     public String calculateHash(String algorithm, HashCalculation.HASH_OUTPUT_ENCODINGS hashOutputEncoding) throws IllegalArgumentException {
     	
-    	if(sb.toString().isEmpty() || allInputsAreNull){
-    		if(config.isModifyHashOutput())
-    			return config.getHashOutputIfBaseIsNull();
+    	if(isHashBaseEmpty() && config.isModifyHashOutput())
+    		return config.getHashOutputIfBaseIsNull();
+    	
+    	if(streamingDigest != null) {
+    		
+    		if(!hasher.isAlgorithm(algorithm))
+    			throw new IllegalArgumentException("algorithm " + algorithm + " differs from the streaming algorithm " + hasher.getAlgorithm());
+    		
+    		final byte[] result = finishStreaming();
+    		
+    		if(result == null)
+    			return null;
+    		
+    		return HashCalculation.encode(result, hashOutputEncoding);
+    	}
+    	
+    	// the algorithm is only resolved again if it differs from the previous call
+    	if(requestedHasher == null || requestedHasher.getEncoding() != hashOutputEncoding 
+    			|| (algorithm != requestedAlgorithm && !requestedHasher.isAlgorithm(algorithm))) {
+    		requestedHasher = new Hasher(algorithm, hashOutputEncoding);
     	}
-    				
-    	if(!"MD5".equalsIgnoreCase(algorithm) && !"SHA1".equalsIgnoreCase(algorithm) && !"SHA-256".equalsIgnoreCase(algorithm))
-    		throw new IllegalArgumentException("algorithm has to be MD5, SHA1 or SHA-256");
     	
-    	if("MD5".equalsIgnoreCase(algorithm))
-    		return HashCalculation.getMD5Hash(this.getNormalizedString(), hashOutputEncoding);
+    	requestedAlgorithm = algorithm;
     	
-    	if("SHA1".equalsIgnoreCase(algorithm))
-    		return HashCalculation.getSHA1Hash(this.getNormalizedString(), hashOutputEncoding);
+    	return requestedHasher.hash(this.getNormalizedString());
     	
-    	if("SHA-256".equalsIgnoreCase(algorithm))
-    		return HashCalculation.getSHA256Hash(this.getNormalizedString(), hashOutputEncoding);
-
-    	return null;
+    }
+    
+    /**
+     * Calculates hash value based on added objects with the algorithm and output encoding of the bound {@link Hasher}
+     * @return
+     * @throws IllegalStateException if this normalization is not created with a hasher
+     */
+    public String calculateHash() throws IllegalStateException {
+    	
+    	checkHasher();
+    	
+    	if(isHashBaseEmpty() && config.isModifyHashOutput())
+    		return config.getHashOutputIfBaseIsNull();
+    	
+    	if(cache != null)
+    		return (String) calculateCachedValue();
+    	
+    	final byte[] result = calculateDigest();
+    	
+    	if(result == null)
+    		return null;
     	
+    	return hasher.encode(result);
+    }
+    
+    /**
+     * Calculates the raw hash bytes based on added objects with the algorithm of the bound {@link Hasher}.
+     * If the hash output is modified for an empty base, the configured replacement is read as hex value.
+     * @return
+     * @throws IllegalStateException if this normalization is not created with a hasher
+     */
+    public byte[] calculateHashBytes() throws IllegalStateException {
+    	
+    	checkHasher();
+    	
+    	if(isHashBaseEmpty() && config.isModifyHashOutput()) {
+    		final String replacement = config.getHashOutputIfBaseIsNull();
+    		return replacement == null ? null : HashCalculation.decodeHex(replacement);
+    	}
+    	
+    	return calculateDigest();
+    }
+    
+    /**
+     * @return the first 8 bytes of {@link #calculateHashBytes()} as big endian long
+     * @throws IllegalStateException if this normalization is not created with a hasher
+     */
+    public Long calculateHashAsLong() throws IllegalStateException {
+    	
+    	final byte[] result = calculateHashBytes();
+    	
+    	if(result == null)
+    		return null;
+    	
+    	return HashCalculation.toLong(result);
+    }
+    
+    /**
+     * @return the first 16 bytes of {@link #calculateHashBytes()} as {@link Hash128}
+     * @throws IllegalStateException if this normalization is not created with a hasher
+     */
+    public Hash128 calculateHash128() throws IllegalStateException {
+    	
+    	final byte[] result = calculateHashBytes();
+    	
+    	if(result == null)
+    		return null;
+    	
+    	return Hash128.fromBytes(result);
+    }
+    
+    /**
+     * Calculates the hash in the encoding of the bound {@link Hasher}
+     * @return String, byte[], Long or {@link Hash128}
+     * @throws IllegalStateException if this normalization is not created with a hasher
+     */
+    public Object calculateHashValue() throws IllegalStateException {
+    	
+    	checkHasher();
+    	
+    	if(hasher.getEncoding().isString())
+    		return calculateHash();
+    	
+    	if(cache != null && !(isHashBaseEmpty() && config.isModifyHashOutput())) {
+    		
+    		final Object value = calculateCachedValue();
+    		
+    		// raw bytes are shared by all hits
+    		return value instanceof byte[] ? ((byte[]) value).clone() : value;
+    	}
+    	
+    	final byte[] result = calculateHashBytes();
+    	
+    	if(result == null)
+    		return null;
+    	
+    	return hasher.encodeValue(result);
+    }
+    
+    /**
+     * @return the hash output of the bound hasher from the cache, it is calculated and cached on a miss
+     */
+    private Object calculateCachedValue() {
+    	
+    	if(!encodeNormalizedBytes())
+    		return null;
+    	
+    	final long key = HashCache.key(normalizedBytes, normalizedByteLength);
+    	Object value = cache.get(key, normalizedBytes, normalizedByteLength);
+    	
+    	if(value == null) {
+    		value = hasher.encodeValue(calculateDigest());
+    		cache.put(key, normalizedBytes, normalizedByteLength, value);
+    	}
+    	
+    	return value;
+    }
+    
+    /**
+     * The replacement for an empty hash base is read as hex value by the encodings which are no String,
+     * LONG64 and HASH128 need at least 8 and 16 bytes of it
+     */
+    private void checkHashOutputReplacement() {
+    	
+    	final HashCalculation.HASH_OUTPUT_ENCODINGS encoding = hasher.getEncoding();
+    	final String replacement = config.getHashOutputIfBaseIsNull();
+    	
+    	if(!config.isModifyHashOutput() || replacement == null || encoding.isString())
+    		return;
+    	
+    	final int minLength = encoding == HashCalculation.HASH_OUTPUT_ENCODINGS.LONG64 ? 8 
+    			: encoding == HashCalculation.HASH_OUTPUT_ENCODINGS.HASH128 ? 16 : 0;
+    	
+    	if(HashCalculation.decodeHex(replacement).length < minLength)
+    		throw new IllegalArgumentException("the hash output for an empty hash base \"" + replacement + "\" needs at least " 
+    				+ (minLength * 2) + " hex characters for the output encoding " + encoding);
+    }
+    
+    private void checkHasher() {
+    	if(hasher == null)
+    		throw new IllegalStateException("no hasher is bound, use calculateHash(algorithm, hashOutputEncoding)");
+    }
+    
+    private boolean isHashBaseEmpty() {
+    	return (streamedLength + sb.length()) == 0 || allInputsAreNull;
+    }
+    
+    private byte[] calculateDigest() {
+    	
+    	if(streamingDigest != null)
+    		return finishStreaming();
+    	
+    	// the bytes are encoded from the buffer, the normalized string is only created if it is requested
+    	if(!encodeNormalizedBytes())
+    		return null;
+    	
+    	if(digest == null)
+    		digest = hasher.newDigest();
+    	else
+    		digest.reset();
+    	
+    	digest.update(normalizedBytes, 0, normalizedByteLength);
+    	
+    	return digest.digest();
+    }
+    
+    /**
+     * @return the number of characters added since the last reset, before empty trailing values are cut off
+     */
+    public long getHashBaseLength() {
+    	return streamedLength + sb.length();
+    }
+    
+    /**
+     * @return the number of UTF-8 bytes of the hash base which are digested, 0 if the hash is replaced or not yet calculated
+     */
+    long getHashedByteCount() {
+    	
+    	if(isHashOutputReplaced())
+    		return 0;
+    	
+    	if(streamingDigest != null)
+    		return streamedBytes;
+    	
+    	return normalizedByteLength < 0 ? 0 : normalizedByteLength;
+    }
+    
+    /**
+     * Measures the time of the streaming digest, which receives the values while they are added, until {@link #stopDigestTimer()}
+     */
+    void startDigestTimer() {
+    	streamingDigestNanos = 0;
+    }
+    
+    /**
+     * @return nanoseconds spent in the streaming digest since {@link #startDigestTimer()}, always 0 if not in streaming mode
+     */
+    long stopDigestTimer() {
+    	
+    	final long nanos = Math.max(0, streamingDigestNanos);
+    	streamingDigestNanos = -1;
+    	
+    	return nanos;
+    }
+    
+    /**
+     * @return the hasher bound at construction time, null if there is none
+     */
+    public Hasher getHasher() {
+    	return hasher;
     }
     
     /**
@@ -77,72 +435,621 @@ public class Normalization {
      */
 	public void add(Object object, NormalizeObjectConfig itemConfig){
 		
-		if (firstCall){
+		if (object instanceof Date)
+			add((Date) object);
+		else
+			addNormalized(normalizeObject(object, itemConfig));
+	}
+	
+	/**
+	 * Add a date, which is formatted directly into the buffer
+	 * @param value
+	 */
+	public void add(Date value) {
+		
+		if (startValue(value == null)) {
 			
-			if(object != null || config.getNullReplacement() != null) {
-				hashBaseHasValues=true;
-				sb.append(normalize(object, itemConfig));
-			}
-				
+			if (config.isDateInMillis())
+				sb.append(value.getTime());
+			else
+				config.getDateFormatter().format(value, sb);
+		}
+		
+		endValue();
+	}
+	
+	/**
+	 * Add a value which is already normalized by {@link #normalizeObject(Object, NormalizeObjectConfig)}, 
+	 * e.g. by a normalization with the same config. 
+	 * @param normalized -> null for a null object
+	 */
+	public void addNormalized(String normalized){
+		
+		if (startValue(normalized == null))
+			sb.append(normalized);
+		
+		endValue();
+	}
+	
+	/**
+	 * Add a primitive int without boxing, formatted with the integer format
+	 * @param value
+	 */
+	public void add(int value) {
+		
+		startValue(false);
+		
+		if (config.isPlainIntegerFormat())
+			sb.append(value);
+		else
+			sb.append(config.getThreadIntegerFormat().format(value));
+		
+		endValue();
+	}
+	
+	/**
+	 * Add a primitive long without boxing, formatted with the integer format
+	 * @param value
+	 */
+	public void add(long value) {
+		
+		startValue(false);
+		
+		if (config.isPlainIntegerFormat())
+			sb.append(value);
+		else
+			sb.append(config.getThreadIntegerFormat().format(value));
+		
+		endValue();
+	}
+	
+	/**
+	 * Add a primitive short without boxing, formatted with the integer format
+	 * @param value
+	 */
+	public void add(short value) {
+		add((int) value);
+	}
+	
+	/**
+	 * Add a primitive double without boxing, formatted like the double format
+	 * @param value
+	 */
+	public void add(double value) {
+		
+		startValue(false);
+		config.getDoubleFormatter().format(value, sb);
+		endValue();
+	}
+	
+	/**
+	 * Add a primitive float without boxing, formatted like the float format
+	 * @param value
+	 */
+	public void add(float value) {
+		
+		startValue(false);
+		config.getFloatFormatter().format(value, sb);
+		endValue();
+	}
+	
+	/**
+	 * Add a primitive boolean without boxing
+	 * @param value
+	 */
+	public void add(boolean value) {
+		
+		startValue(false);
+		sb.append(value);
+		endValue();
+	}
+	
+	/**
+	 * Appends the delimiter and the null replacement as required before a value is added
+	 * @param isNull
+	 * @return true if the value itself has to be appended
+	 */
+	private boolean startValue(boolean isNull) {
+		
+		if (streamedHash != null)
+			throw new IllegalStateException("hash is already calculated, call reset() before adding new objects");
+		
+		valueStart = sb.length();
+		normalizedString = null;
+		normalizedByteLength = -1;
+		
+		if (!isNull)
+			allInputsAreNull = false;
+		
+		if (firstCall){
 			
 			firstCall = false;
 			
+			if (isNull) {
+				if (config.getNullReplacement() != null) {
+					hashBaseHasValues=true;
+					sb.append(config.getNullReplacement());
+				}
+				return false;
+			}
+			
 		}else{
-		
+			
 			sb.append(config.getDelimter());
 			
-			if(object != null) {
-				sb.append(normalize(object, itemConfig));
-				hashBaseHasValues=true;
+			if (isNull)
+				return false;
+		}
+		
+		hashBaseHasValues=true;
+		return true;
+	}
+	
+	private void endValue() {
+		if (streamingDigest != null)
+			flushStreamingDigest();
+		else if (config.isCutOffEmptyTrailingObjects())
+			trackCutLength();
+		else
+			cutTracked = false;
+	}
+	
+	/**
+	 * Updates the length after cutting off empty trailing objects for the last added value. Only the new value is scanned,
+	 * if it is cut off completely the length before the value applies. Only tokens which overlap the previous content
+	 * require to scan further back.
+	 */
+	private void trackCutLength() {
+		
+		if (!cutTracked)
+			return;
+		
+		final String delimiter = config.getDelimter();
+		final String emptyQuotation = config.isQuotingEnabled() ? getEmptyQuotation() : null;
+		
+		if (cutDelimiter == null) {
+			
+			// if delimiter and empty quotation can end the string at the same time, the cut off does not remove whole 
+			// tokens anymore - the string is cut off when it is requested
+			if (delimiter.isEmpty() || (emptyQuotation != null && (emptyQuotation.isEmpty() || delimiter.endsWith(emptyQuotation) || emptyQuotation.endsWith(delimiter)))) {
+				cutTracked = false;
+				return;
 			}
+			
+			cutDelimiter = delimiter;
+			cutEmptyQuotation = emptyQuotation;
+		} else if (!isCutTracked()) {
+			cutTracked = false;
+			return;
+		}
+		
+		int position = sb.length();
+		boolean withinValue = true;
+		
+		while (true) {
+			
+			if (withinValue && position <= valueStart) {
+				
+				if (position == valueStart) {
+					position = cutLength;
+					break;
+				}
+				
+				withinValue = false;
+			}
+			
+			if (endsWith(position, cutDelimiter))
+				position -= cutDelimiter.length();
+			else if (cutEmptyQuotation != null && endsWith(position, cutEmptyQuotation))
+				position -= cutEmptyQuotation.length();
+			else
+				break;
 		}
 		
+		cutLength = position;
 	}
 	
 	/**
-	 * Returns the normalized string, based on added objects
+	 * @return true if the content of the string builder in front of the position ends with the token
+	 */
+	private boolean endsWith(int position, String token) {
+		
+		final int start = position - token.length();
+		
+		if (start < 0)
+			return false;
+		
+		for (int i = 0; i < token.length(); i++) {
+			if (sb.charAt(start + i) != token.charAt(i))
+				return false;
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * @return true if the cut length is tracked for all added values with the tokens of the current config
+	 */
+	private boolean isCutTracked() {
+		
+		if (!cutTracked || cutDelimiter == null || !cutDelimiter.equals(config.getDelimter()))
+			return false;
+		
+		if (config.isQuotingEnabled())
+			return getEmptyQuotation().equals(cutEmptyQuotation);
+		
+		return cutEmptyQuotation == null;
+	}
+	
+	/**
+	 * Returns the normalized string, based on added objects. The string is created once after the last added object.
 	 * @return
 	 */
 	public String getNormalizedString(){
 		
+		if (streamingDigest != null)
+			throw new IllegalStateException("the normalized string is not retained in streaming mode");
+		
+		if(!hashBaseHasValues)
+			return null;
+		
+		if(normalizedString == null){
+			
+			if(!config.isCutOffEmptyTrailingObjects())
+				normalizedString = sb.toString();
+			else if(isCutTracked())
+				normalizedString = sb.substring(0, cutLength);
+			else
+				normalizedString = cutOffEmptyTrailingObjects(sb.toString());
+		}
+		
+		return normalizedString;
+	}
+	
+	/**
+	 * Returns a view of the normalized string without creating it, e.g. to append it to another buffer.
+	 * The view reflects the added objects and is only valid until the next object is added or reset is called.
+	 * @return null if the hash base has no values
+	 */
+	public CharSequence getNormalizedChars(){
+		
+		if (streamingDigest != null)
+			throw new IllegalStateException("the normalized string is not retained in streaming mode");
+		
 		if(!hashBaseHasValues)
 			return null;
 		
-		String normalizedString = sb.toString();
+		if(normalizedChars == null)
+			normalizedChars = new NormalizedChars();
+		
+		return normalizedChars;
+	}
+	
+	/**
+	 * Returns the UTF-8 bytes of the normalized string, i.e. the bytes which are hashed, without creating the string.
+	 * The buffer is reused and only valid until the next object is added or reset is called.
+	 * @return read only buffer, null if the hash base has no values
+	 */
+	public ByteBuffer getNormalizedBytes(){
+		
+		if(!encodeNormalizedBytes())
+			return null;
 		
-		if(config.isCutOffEmptyTrailingObjects()){
+		return ByteBuffer.wrap(normalizedBytes, 0, normalizedByteLength).asReadOnlyBuffer();
+	}
+	
+	/**
+	 * Returns the buffer of {@link #getNormalizedBytes()} itself, the bytes which are hashed are the first {@link #getNormalizedByteLength()}
+	 * @return null if the hash base has no values
+	 */
+	byte[] getNormalizedByteArray(){
+		
+		if(!encodeNormalizedBytes())
+			return null;
+		
+		return normalizedBytes;
+	}
+	
+	/**
+	 * @return the number of bytes in {@link #getNormalizedByteArray()}
+	 */
+	int getNormalizedByteLength(){
+		return normalizedByteLength;
+	}
+	
+	/**
+	 * @return true if the hash output is replaced by {@link NormalizeConfig#getHashOutputIfBaseIsNull()} because the hash base is empty
+	 */
+	boolean isHashOutputReplaced(){
+		return isHashBaseEmpty() && config.isModifyHashOutput();
+	}
+	
+	/**
+	 * @return the length of the normalized string, the hash base has to have values
+	 */
+	private int getNormalizedLength() {
+		
+		if(!config.isCutOffEmptyTrailingObjects())
+			return sb.length();
+		
+		if(isCutTracked())
+			return cutLength;
+		
+		return getNormalizedString().length();
+	}
+	
+	/**
+	 * Encodes the normalized string into the byte buffer once after the last added object
+	 * @return false if the hash base has no values
+	 */
+	private boolean encodeNormalizedBytes() {
+		
+		if (streamingDigest != null)
+			throw new IllegalStateException("the normalized string is not retained in streaming mode");
+		
+		if(!hashBaseHasValues)
+			return false;
+		
+		if(normalizedByteLength < 0){
 			
-			boolean endsWithDelimter = normalizedString.endsWith(config.getDelimter());
-			boolean endsWithEmptyQuotation = false;
+			final int length = getNormalizedLength();
 			
-			String emptyTrailingQuotation = config.getQuotationCharacter() + config.getQuotationCharacter();
+			if(normalizedBytes == null || normalizedBytes.length < length * 3)
+				normalizedBytes = new byte[Math.max(length * 3, 256)];
 			
-			if(config.isQuotingEnabled()){
-				endsWithEmptyQuotation = normalizedString.endsWith(emptyTrailingQuotation);
-			}
+			normalizedByteLength = encodeUtf8(normalizedString != null ? normalizedString : sb, 0, length, normalizedBytes);
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * View of the normalized part of the string builder
+	 */
+	private final class NormalizedChars implements CharSequence {
+
+		@Override
+		public int length() {
+			return getNormalizedLength();
+		}
+
+		@Override
+		public char charAt(int index) {
 			
-			while(endsWithDelimter || endsWithEmptyQuotation){
-				
-				if(endsWithDelimter)
-					normalizedString = normalizedString.substring(0, normalizedString.length() - config.getDelimter().length());
-				
-				if(endsWithEmptyQuotation)
-					normalizedString = normalizedString.substring(0, normalizedString.length() - emptyTrailingQuotation.length());
-				
-				endsWithDelimter = normalizedString.endsWith(config.getDelimter()); 
-				
-				if(config.isQuotingEnabled()){
-					endsWithEmptyQuotation = normalizedString.endsWith(emptyTrailingQuotation);
-				}
-				
-			}
+			if (index < 0 || index >= length())
+				throw new IndexOutOfBoundsException("index " + index + ", length " + length());
 			
-			return normalizedString;
+			return sb.charAt(index);
+		}
+
+		@Override
+		public CharSequence subSequence(int start, int end) {
 			
-		}else{
-			return sb.toString();
+			if (end > length())
+				throw new IndexOutOfBoundsException("end " + end + ", length " + length());
+			
+			return sb.substring(start, end);
+		}
+
+		@Override
+		public String toString() {
+			return getNormalizedString();
+		}
+	}
+	
+	private String cutOffEmptyTrailingObjects(String normalizedString) {
+		
+		final String delimiter = config.getDelimter();
+		final String emptyTrailingQuotation = getEmptyQuotation();
+		int end = normalizedString.length();
+		
+		while (true) {
+			
+			boolean endsWithDelimter = normalizedString.startsWith(delimiter, end - delimiter.length());
+			boolean endsWithEmptyQuotation = config.isQuotingEnabled() && normalizedString.startsWith(emptyTrailingQuotation, end - emptyTrailingQuotation.length());
+			
+			if (!endsWithDelimter && !endsWithEmptyQuotation)
+				break;
+			
+			final int before = end;
+			
+			if (endsWithDelimter)
+				end -= delimiter.length();
+			
+			if (endsWithEmptyQuotation)
+				end = Math.max(0, end - emptyTrailingQuotation.length());
+			
+			// empty tokens would never end
+			if (end == before)
+				break;
+		}
+		
+		return normalizedString.substring(0, end);
+	}
+	
+	private String getEmptyQuotation() {
+		
+		String quotationCharacter = config.getQuotationCharacter();
+		
+		if (cachedEmptyQuotation == null || quotationCharacter != cachedQuotationCharacter) {
+			cachedQuotationCharacter = quotationCharacter;
+			cachedEmptyQuotation = quotationCharacter + quotationCharacter;
+		}
+		
+		return cachedEmptyQuotation;
+	}
+	
+	/**
+	 * Pushes the buffered content into the streaming digest, except the trailing part which could be removed 
+	 * when cutting off empty trailing objects.
+	 */
+	private void flushStreamingDigest() {
+		
+		int committable = sb.length();
+		
+		if (config.isCutOffEmptyTrailingObjects())
+			committable = findTrailingCandidateStart();
+		
+		// never split a surrogate pair
+		if (committable > 0 && committable < sb.length() && Character.isHighSurrogate(sb.charAt(committable - 1)))
+			committable--;
+		
+		if (committable > 0) {
+			updateStreamingDigest(sb, 0, committable);
+			streamedLength += committable;
+			sb.delete(0, committable);
+		}
+	}
+	
+	/**
+	 * Returns the first position of the buffered content from which on everything could still be cut off,
+	 * i.e. the remainder only consists of delimiters and empty quotations, followed by the beginning of one of them.
+	 * The cut off loop only removes whole delimiters and empty quotations, therefore the content in front of 
+	 * this position is final, regardless of the objects which will be added.
+	 * @return
+	 */
+	private int findTrailingCandidateStart() {
+		
+		final String delimiter = config.getDelimter();
+		final String emptyQuotation = config.isQuotingEnabled() ? getEmptyQuotation() : null;
+		
+		// if delimiter and empty quotation can end the string at the same time, the cut off does not remove whole 
+		// tokens anymore - keep everything until the hash is calculated
+		if (delimiter.isEmpty())
+			return 0;
+		
+		if (emptyQuotation != null && (emptyQuotation.isEmpty() || delimiter.endsWith(emptyQuotation) || emptyQuotation.endsWith(delimiter)))
+			return 0;
+		
+		final int length = sb.length();
+		
+		if (trailingCandidates.length <= length)
+			trailingCandidates = new boolean[Math.max(length + 1, trailingCandidates.length * 2)];
+		
+		int first = length;
+		trailingCandidates[length] = true;
+		
+		for (int i = length - 1; i >= 0; i--) {
+			
+			boolean candidate = isTokenOrPrefixAt(i, delimiter);
+			
+			if (!candidate && emptyQuotation != null)
+				candidate = isTokenOrPrefixAt(i, emptyQuotation);
+			
+			trailingCandidates[i] = candidate;
+			
+			if (candidate)
+				first = i;
+		}
+		
+		return first;
+	}
+	
+	/**
+	 * @return true if the buffered content at the given position starts with the token followed by a candidate position,
+	 * or if the remaining content is a proper prefix of the token
+	 */
+	private boolean isTokenOrPrefixAt(int position, String token) {
+		
+		final int remaining = sb.length() - position;
+		final int compare = Math.min(remaining, token.length());
+		
+		for (int i = 0; i < compare; i++) {
+			if (sb.charAt(position + i) != token.charAt(i))
+				return false;
 		}
 		
+		if (remaining < token.length())
+			return true;
+		
+		return trailingCandidates[position + token.length()];
+	}
+	
+	private byte[] finishStreaming() {
+		
+		if (streamedHash == null) {
+			
+			if(!hashBaseHasValues)
+				return null;
+			
+			String remaining = sb.toString();
+			
+			if (config.isCutOffEmptyTrailingObjects())
+				remaining = cutOffEmptyTrailingObjects(remaining);
+			
+			updateStreamingDigest(remaining, 0, remaining.length());
+			streamedHash = streamingDigest.digest();
+		}
+		
+		return streamedHash;
+	}
+	
+	/**
+	 * Encodes the characters as UTF-8 into the streaming digest, in chunks which fit into the streaming buffer
+	 */
+	private void updateStreamingDigest(CharSequence chars, int start, int end) {
+		
+		final long started = streamingDigestNanos < 0 ? 0 : System.nanoTime();
+		final int chunk = streamingBuffer.length / 3;
+		
+		while (start < end) {
+			
+			int stop = Math.min(end, start + chunk);
+			
+			// never split a surrogate pair
+			if (stop < end && Character.isHighSurrogate(chars.charAt(stop - 1)))
+				stop--;
+			
+			final int length = encodeUtf8(chars, start, stop, streamingBuffer);
+			streamingDigest.update(streamingBuffer, 0, length);
+			streamedBytes += length;
+			start = stop;
+		}
+		
+		if (streamingDigestNanos >= 0)
+			streamingDigestNanos += System.nanoTime() - started;
+	}
+	
+	/**
+	 * Encodes the characters as UTF-8 like {@link String#getBytes(java.nio.charset.Charset)}
+	 * @param chars
+	 * @param start
+	 * @param end
+	 * @param buffer -> needs 3 bytes per character
+	 * @return number of bytes written
+	 */
+	static int encodeUtf8(CharSequence chars, int start, int end, byte[] buffer) {
+		
+		int pos = 0;
+		
+		for (int i = start; i < end; i++) {
+			
+			char c = chars.charAt(i);
+			
+			if (c < 0x80) {
+				buffer[pos++] = (byte) c;
+			} else if (c < 0x800) {
+				buffer[pos++] = (byte) (0xc0 | (c >> 6));
+				buffer[pos++] = (byte) (0x80 | (c & 0x3f));
+			} else if (Character.isSurrogate(c)) {
+				if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(chars.charAt(i + 1))) {
+					int codePoint = Character.toCodePoint(c, chars.charAt(++i));
+					buffer[pos++] = (byte) (0xf0 | (codePoint >> 18));
+					buffer[pos++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+					buffer[pos++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+					buffer[pos++] = (byte) (0x80 | (codePoint & 0x3f));
+				} else {
+					// unmappable, same replacement as String.getBytes
+					buffer[pos++] = (byte) '?';
+				}
+			} else {
+				buffer[pos++] = (byte) (0xe0 | (c >> 12));
+				buffer[pos++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+				buffer[pos++] = (byte) (0x80 | (c & 0x3f));
+			}
+		}
+		
+		return pos;
 	}
 
 	
@@ -150,13 +1057,11 @@ public class Normalization {
 	 * Returns normalized string of this object
 	 * @param object
 	 * @param itemConfig
-	 * @return
+	 * @return null if the object is null, the null replacement is applied by {@link #addNormalized(String)}
 	 */
-	private String normalize(Object object, NormalizeObjectConfig itemConfig) {
+	public String normalizeObject(Object object, NormalizeObjectConfig itemConfig) {
 		if (object == null)
-			return config.getNullReplacement();
-		
-		allInputsAreNull = false;
+			return null;
 		
 		if (object instanceof String)
             return normalize((String) object, itemConfig);
@@ -199,11 +1104,14 @@ public class Normalization {
 
 	
 	public String normalize(final Integer value) {
-    	return normalizeNumber(value, config.getIntegerFormat());
+		if (value != null && config.isPlainIntegerFormat())
+			return value.toString();
+		
+    	return normalizeNumber(value, config.getThreadIntegerFormat());
     }
 
 	public String normalize(final BigInteger value) {
-    	return normalizeNumber(value, config.getIntegerFormat());
+    	return normalizeNumber(value, config.getThreadIntegerFormat());
     }
 	
 	public String normalize(final String value, final NormalizeObjectConfig itemConfig) {
@@ -245,19 +1153,31 @@ public class Normalization {
     }
 
     public String normalize(final Long value) {
-		return normalizeNumber(value, config.getIntegerFormat());
+		if (value != null && config.isPlainIntegerFormat())
+			return value.toString();
+		
+		return normalizeNumber(value, config.getThreadIntegerFormat());
 	}
 	
 	public String normalize(final Float value) {
-		return normalizeNumber(value, config.getFloatFormat());
+		if (value == null)
+			return config.getNullReplacement();
+		
+		return config.getFloatFormatter().format(value.doubleValue());
 	}
 
 	public String normalize(final Double value) {
-		return normalizeNumber(value, config.getDoubleFormat());
+		if (value == null)
+			return config.getNullReplacement();
+		
+		return config.getDoubleFormatter().format(value.doubleValue());
 	}
 	
     public String normalize(final Short value) {
-        return normalizeNumber(value, config.getIntegerFormat());
+		if (value != null && config.isPlainIntegerFormat())
+			return value.toString();
+		
+        return normalizeNumber(value, config.getThreadIntegerFormat());
     }
 
 	public String normalize(final BigDecimal value) {
@@ -284,8 +1204,7 @@ public class Normalization {
 		if(config.isDateInMillis()){
 			return String.valueOf(value.getTime());
 		}else{
-			SimpleDateFormat sdf = new SimpleDateFormat(config.getDateFormat());
-			return sdf.format(value);
+			return config.getDateFormatter().format(value);
 		}
 	}
 
@@ -3,17 +3,36 @@ package de.cimt.talendcomp.checksum;
 import java.text.NumberFormat;
 import java.util.Locale;
 
+/**
+ * Settings of the normalization. After {@link #freeze()} the config is immutable and can be shared
+ * by normalizations in several threads, the number formats are only used through per thread copies then.
+ */
 public class NormalizeConfig {
 	
 	private NumberFormat floatFormat;
     private NumberFormat doubleFormat;
     private NumberFormat integerFormat;
+    private DecimalFormatter floatFormatter;
+    private DecimalFormatter doubleFormatter;
+    /**
+     * true as long as the integer format is not replaced, integers are formatted like {@link Long#toString(long)} then
+     */
+    private boolean plainIntegerFormat = true;
+    /**
+     * copies of the integer format for the threads, created when the config is frozen
+     */
+    private ThreadLocal<NumberFormat> threadIntegerFormat;
+    private volatile boolean frozen = false;
 	
 	private String delimter;
 	private String nullReplacement;
 	private String quotationCharacter;
 	private boolean quotingEnabled;
 	private String dateFormat;
+	/**
+	 * compiled on first use, because the date format is only validated if dates are added
+	 */
+	private volatile DateFormatter dateFormatter;
 	private boolean dateInMillis;
 	private Locale numberFormat;
 	private int maxFractionFloat;
@@ -78,27 +97,94 @@ public class NormalizeConfig {
 		this.doubleFormat.setGroupingUsed(false);
 		this.doubleFormat.setMinimumFractionDigits(0);
 		this.doubleFormat.setMaximumFractionDigits(maxFractionDouble);
+		
+		this.floatFormatter = new DecimalFormatter(this.floatFormat);
+		this.doubleFormatter = new DecimalFormatter(this.doubleFormat);
 	
 		this.integerFormat = NumberFormat.getNumberInstance(this.numberFormat);
 		this.integerFormat.setGroupingUsed(false);
 		this.integerFormat.setMinimumFractionDigits(0);
 		this.integerFormat.setMaximumFractionDigits(0);
 	}
+	
+	private static ThreadLocal<NumberFormat> newThreadFormat(NumberFormat format) {
+		
+		final NumberFormat template = (NumberFormat) format.clone();
+		
+		return new ThreadLocal<NumberFormat>() {
+			@Override
+			protected NumberFormat initialValue() {
+				return (NumberFormat) template.clone();
+			}
+		};
+	}
+	
+	/**
+	 * Makes this config immutable, all setters throw an {@link IllegalStateException} afterwards.
+	 * A frozen config can be shared by normalizations in several threads.
+	 * @return this config
+	 */
+	public NormalizeConfig freeze() {
+		if (threadIntegerFormat == null)
+			threadIntegerFormat = newThreadFormat(integerFormat);
+		frozen = true;
+		return this;
+	}
+	
+	public boolean isFrozen() {
+		return frozen;
+	}
+	
+	private void checkNotFrozen() {
+		if (frozen)
+			throw new IllegalStateException("the config is frozen and cannot be changed");
+	}
 
 	
 
+	/**
+	 * @return the float format, a copy if the config is frozen
+	 */
 	public NumberFormat getFloatFormat() {
-		return floatFormat;
+		return frozen ? (NumberFormat) floatFormat.clone() : floatFormat;
 	}
 
 
+	/**
+	 * @return the double format, a copy if the config is frozen
+	 */
 	public NumberFormat getDoubleFormat() {
-		return doubleFormat;
+		return frozen ? (NumberFormat) doubleFormat.clone() : doubleFormat;
 	}
 
 
+	/**
+	 * @return the integer format, a copy if the config is frozen
+	 */
 	public NumberFormat getIntegerFormat() {
-		return integerFormat;
+		return frozen ? (NumberFormat) integerFormat.clone() : integerFormat;
+	}
+	
+	/**
+	 * @return the integer format to use in the current thread, a copy per thread if the config is frozen
+	 * because {@link NumberFormat} is not thread safe
+	 */
+	public NumberFormat getThreadIntegerFormat() {
+		return frozen ? threadIntegerFormat.get() : integerFormat;
+	}
+	
+	/**
+	 * @return formatter which produces the same result as {@link #getFloatFormat()}
+	 */
+	public DecimalFormatter getFloatFormatter() {
+		return floatFormatter;
+	}
+	
+	/**
+	 * @return formatter which produces the same result as {@link #getDoubleFormat()}
+	 */
+	public DecimalFormatter getDoubleFormatter() {
+		return doubleFormatter;
 	}
 
 
@@ -142,56 +228,95 @@ public class NormalizeConfig {
 	}
 
 	public void setFloatFormat(NumberFormat floatFormat) {
+		checkNotFrozen();
 		this.floatFormat = floatFormat;
+		this.floatFormatter = new DecimalFormatter(floatFormat);
 	}
 
 
 	public void setDoubleFormat(NumberFormat doubleFormat) {
+		checkNotFrozen();
 		this.doubleFormat = doubleFormat;
+		this.doubleFormatter = new DecimalFormatter(doubleFormat);
 	}
 
 
 	public void setIntegerFormat(NumberFormat integerFormat) {
+		checkNotFrozen();
 		this.integerFormat = integerFormat;
+		this.plainIntegerFormat = false;
+	}
+	
+	/**
+	 * @return true if integers are formatted with ASCII digits, a leading minus sign and without grouping, 
+	 * which is the case for all supported number formats
+	 */
+	public boolean isPlainIntegerFormat() {
+		return plainIntegerFormat;
 	}
 
 
 	public void setDelimter(String delimter) {
+		checkNotFrozen();
 		this.delimter = delimter;
 	}
 
 
 	public void setNullReplacement(String nullReplacement) {
+		checkNotFrozen();
 		this.nullReplacement = nullReplacement;
 	}
 
 
 	public void setQuotationCharacter(String quotationCharacter) {
+		checkNotFrozen();
 		this.quotationCharacter = quotationCharacter;
 	}
 
 
 	public void setQuotingEnabled(boolean quotingEnabled) {
+		checkNotFrozen();
 		this.quotingEnabled = quotingEnabled;
 	}
 
 
 	public void setDateFormat(String dateFormat) {
+		checkNotFrozen();
 		this.dateFormat = dateFormat;
+		this.dateFormatter = null;
+	}
+	
+	/**
+	 * @return the compiled date format
+	 * @throws IllegalArgumentException if the date format is invalid
+	 */
+	public DateFormatter getDateFormatter() throws IllegalArgumentException {
+		
+		DateFormatter formatter = dateFormatter;
+		
+		if (formatter == null) {
+			formatter = new DateFormatter(dateFormat);
+			dateFormatter = formatter;
+		}
+		
+		return formatter;
 	}
 
 
 	public void setNumberFormat(Locale numberFormat) {
+		checkNotFrozen();
 		this.numberFormat = numberFormat;
 	}
 
 
 	public void setMaxFractionFloat(int maxFractionFloat) {
+		checkNotFrozen();
 		this.maxFractionFloat = maxFractionFloat;
 	}
 
 
 	public void setMaxFractionDouble(int maxFractionDouble) {
+		checkNotFrozen();
 		this.maxFractionDouble = maxFractionDouble;
 	}
 
@@ -202,6 +327,7 @@ public class NormalizeConfig {
 
 
 	public void setModifyHashOutput(boolean modifyHashOutput) {
+		checkNotFrozen();
 		this.modifyHashOutput = modifyHashOutput;
 	}
 
@@ -214,6 +340,7 @@ public class NormalizeConfig {
 
 
 	public void setHashOutputIfBaseIsNull(String hashOutputIfBaseIsNull) {
+		checkNotFrozen();
 		this.hashOutputIfBaseIsNull = hashOutputIfBaseIsNull;
 	}
 
@@ -226,6 +353,7 @@ public class NormalizeConfig {
 
 
 	public void setDateInMillis(boolean dateInMillis) {
+		checkNotFrozen();
 		this.dateInMillis = dateInMillis;
 	}
 
@@ -238,6 +366,7 @@ public class NormalizeConfig {
 
 
 	public void setCutOffEmptyTrailingObjects(boolean cutOffEmptyTrailingObejcts) {
+		checkNotFrozen();
 		this.cutOffEmptyTrailingObjects = cutOffEmptyTrailingObejcts;
 	}
 	
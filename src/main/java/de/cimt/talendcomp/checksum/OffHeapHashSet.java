@@ -0,0 +1,346 @@
+package de.cimt.talendcomp.checksum;
+
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Set of 128 bit hash values outside of the java heap, e.g. to detect duplicate rows by their hash.
+ * The values are stored in an open addressing table with linear probing in direct byte buffers,
+ * every slot takes 16 bytes and the table is doubled if it is filled to 75 %, so a value takes 21 to 43 bytes.
+ * While the table is doubled, the written segments of the new table and the segments of the old table which are not rehashed yet
+ * are allocated: up to three times the old table if it has only one segment (up to 1 GiB), the new table and about 2 GiB for larger tables.
+ * The direct buffers count against -XX:MaxDirectMemorySize, which defaults to the maximum heap size.
+ * They are freed explicitly when they are rehashed and by {@link #close()}.
+ * The set is not thread safe.
+ */
+public class OffHeapHashSet implements Closeable {
+
+	private static final int SLOT_SIZE = 16;
+	private static final int DEFAULT_SEGMENT_BITS = 26; // 1 GiB per buffer
+	private static final int MIN_CAPACITY_BITS = 10;
+	private static final double MAX_LOAD = 0.75;
+
+	private final int segmentBits;
+	private ByteBuffer[] segments;
+	private int capacityBits;
+	private long capacity;
+	private long growThreshold;
+	private long size = 0;
+	private long duplicates = 0;
+	// all zero is the marker of an empty slot
+	private boolean containsZero = false;
+	private boolean containsNull = false;
+
+	/**
+	 * @param expectedSize -> number of distinct values the table is sized for without growing
+	 */
+	public OffHeapHashSet(long expectedSize) {
+		this(expectedSize, DEFAULT_SEGMENT_BITS);
+	}
+
+	/**
+	 * @param expectedSize
+	 * @param segmentBits -> log2 of the slots per direct buffer
+	 */
+	OffHeapHashSet(long expectedSize, int segmentBits) {
+
+		if (expectedSize < 0)
+			throw new IllegalArgumentException("expectedSize cannot be negative, got " + expectedSize);
+
+		if (segmentBits < 1 || segmentBits > 26)
+			throw new IllegalArgumentException("segmentBits must be between 1 and 26, got " + segmentBits);
+
+		this.segmentBits = segmentBits;
+
+		int bits = MIN_CAPACITY_BITS;
+
+		while (bits < 62 && (1L << bits) * MAX_LOAD < expectedSize) {
+			bits++;
+		}
+
+		allocate(bits);
+	}
+
+	/**
+	 * Creates the segment array of a table with 2^bits slots, the segments are allocated by {@link #allocateSegment(int)}
+	 */
+	private void resize(int bits) {
+
+		final long slots = 1L << bits;
+		final long count = slots / segmentSlots(slots);
+
+		if (count > Integer.MAX_VALUE)
+			throw new IllegalStateException("the set can not grow beyond " + capacity + " slots");
+
+		segments = new ByteBuffer[(int) count];
+		capacityBits = bits;
+		capacity = slots;
+		growThreshold = (long) (slots * MAX_LOAD);
+	}
+
+	private void allocate(int bits) {
+
+		resize(bits);
+
+		for (int i = 0; i < segments.length; i++) {
+			allocateSegment(i);
+		}
+	}
+
+	private int segmentSlots(long slots) {
+		return (int) Math.min(slots, 1L << segmentBits);
+	}
+
+	private ByteBuffer allocateSegment(int index) {
+
+		try {
+			segments[index] = ByteBuffer.allocateDirect(segmentSlots(capacity) * SLOT_SIZE).order(ByteOrder.nativeOrder());
+		} catch (OutOfMemoryError e) {
+
+			close();
+
+			final OutOfMemoryError error = new OutOfMemoryError("the hash set needs " + (capacity * SLOT_SIZE) + " bytes outside of the heap for "
+					+ capacity + " slots, increase -XX:MaxDirectMemorySize: " + e.getMessage());
+			error.initCause(e);
+			throw error;
+		}
+
+		return segments[index];
+	}
+
+	private void checkOpen() {
+		if (segments == null)
+			throw new IllegalStateException("the set is closed");
+	}
+
+	private long slot(long high, long low) {
+		// fibonacci hashing, the upper bits of the product depend on all bits of the value
+		return ((high ^ Long.rotateLeft(low, 32)) * 0x9E3779B97F4A7C15L) >>> (64 - capacityBits);
+	}
+
+	private ByteBuffer segment(long slot) {
+		return segments[(int) (slot >>> segmentBits)];
+	}
+
+	private int offset(long slot) {
+		return (int) (slot & ((1L << segmentBits) - 1)) * SLOT_SIZE;
+	}
+
+	/**
+	 * @param high
+	 * @param low
+	 * @return true if the value is added, false if the set already contains it
+	 */
+	public boolean add(long high, long low) {
+
+		checkOpen();
+
+		if (high == 0 && low == 0) {
+
+			if (containsZero) {
+				duplicates++;
+				return false;
+			}
+
+			containsZero = true;
+			size++;
+			return true;
+		}
+
+		final long mask = capacity - 1;
+
+		for (long slot = slot(high, low); ; slot = (slot + 1) & mask) {
+
+			final ByteBuffer segment = segment(slot);
+			final int offset = offset(slot);
+			final long slotHigh = segment.getLong(offset);
+			final long slotLow = segment.getLong(offset + 8);
+
+			if (slotHigh == high && slotLow == low) {
+				duplicates++;
+				return false;
+			}
+
+			if (slotHigh == 0 && slotLow == 0) {
+
+				segment.putLong(offset, high);
+				segment.putLong(offset + 8, low);
+
+				if (++size > growThreshold)
+					grow();
+
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * @param high
+	 * @param low
+	 * @return true if the set contains the value
+	 */
+	public boolean contains(long high, long low) {
+
+		checkOpen();
+
+		if (high == 0 && low == 0)
+			return containsZero;
+
+		final long mask = capacity - 1;
+
+		for (long slot = slot(high, low); ; slot = (slot + 1) & mask) {
+
+			final ByteBuffer segment = segment(slot);
+			final int offset = offset(slot);
+			final long slotHigh = segment.getLong(offset);
+			final long slotLow = segment.getLong(offset + 8);
+
+			if (slotHigh == high && slotLow == low)
+				return true;
+
+			if (slotHigh == 0 && slotLow == 0)
+				return false;
+		}
+	}
+
+	/**
+	 * Doubles the table. The new segments are allocated when they are written first and every old segment is freed
+	 * as soon as it is rehashed, so the whole old table and the whole new table are not allocated at the same time
+	 */
+	private void grow() {
+
+		final ByteBuffer[] old = segments;
+		final int oldSegmentSlots = segmentSlots(capacity);
+
+		resize(capacityBits + 1);
+
+		final long mask = capacity - 1;
+
+		try {
+			rehash(old, oldSegmentSlots, mask);
+		} catch (OutOfMemoryError e) {
+
+			// the set is closed by allocateSegment
+			for (ByteBuffer segment : old) {
+				DirectBuffers.release(segment);
+			}
+
+			throw e;
+		}
+
+		for (int i = 0; i < segments.length; i++) {
+			if (segments[i] == null)
+				allocateSegment(i);
+		}
+	}
+
+	private void rehash(ByteBuffer[] old, int oldSegmentSlots, long mask) {
+
+		for (int s = 0; s < old.length; s++) {
+
+			final ByteBuffer segment = old[s];
+
+			for (int i = 0; i < oldSegmentSlots; i++) {
+
+				final long high = segment.getLong(i * SLOT_SIZE);
+				final long low = segment.getLong(i * SLOT_SIZE + 8);
+
+				if (high == 0 && low == 0)
+					continue;
+
+				for (long slot = slot(high, low); ; slot = (slot + 1) & mask) {
+
+					final int index = (int) (slot >>> segmentBits);
+					final ByteBuffer target = segments[index] != null ? segments[index] : allocateSegment(index);
+					final int offset = offset(slot);
+
+					if (target.getLong(offset) == 0 && target.getLong(offset + 8) == 0) {
+						target.putLong(offset, high);
+						target.putLong(offset + 8, low);
+						break;
+					}
+				}
+			}
+
+			// freed right away, the garbage collector does not know how much memory a direct buffer holds
+			old[s] = null;
+			DirectBuffers.release(segment);
+		}
+	}
+
+	public boolean add(Hash128 hash) {
+		return add(hash.getHigh(), hash.getLow());
+	}
+
+	/**
+	 * Adds a hash output of {@link Normalization#calculateHashValue()} in any encoding, see {@link Hash128#of(Object)}.
+	 * All null values are equal.
+	 * @param value
+	 * @return true if the value is added, false if the set already contains it
+	 */
+	public boolean addValue(Object value) {
+
+		checkOpen();
+
+		if (value == null) {
+
+			if (containsNull) {
+				duplicates++;
+				return false;
+			}
+
+			containsNull = true;
+			size++;
+			return true;
+		}
+
+		return add(Hash128.of(value));
+	}
+
+	/**
+	 * @return number of distinct values
+	 */
+	public long size() {
+		return size;
+	}
+
+	/**
+	 * @return number of values which were not added because the set already contained them
+	 */
+	public long getDuplicates() {
+		return duplicates;
+	}
+
+	/**
+	 * @return number of slots
+	 */
+	public long getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * @return bytes allocated outside of the heap
+	 */
+	public long getMemorySize() {
+		return segments == null ? 0 : capacity * SLOT_SIZE;
+	}
+
+	/**
+	 * Frees the buffers
+	 */
+	@Override
+	public void close() {
+
+		if (segments == null)
+			return;
+
+		final ByteBuffer[] released = segments;
+		segments = null;
+
+		for (ByteBuffer segment : released) {
+			DirectBuffers.release(segment);
+		}
+	}
+
+}
@@ -0,0 +1,572 @@
+package de.cimt.talendcomp.checksum;
+
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Immutable plan which hashes a row. It is built once from the column configuration, every column is
+ * read by a typed accessor and added with the matching method of {@link Normalization},
+ * so there is no type dispatch and no config object creation per row.
+ * The columns are typically anonymous subclasses of the typed columns, e.g.
+ * <pre>
+ * new RowHashPlan.IntColumn&lt;row1Struct&gt;("id", "CASE_SENSITIVE", false) {
+ * 	public int get(row1Struct row) { return row.id; }
+ * }
+ * </pre>
+ * @param <R> type of the row
+ */
+public class RowHashPlan<R> {
+
+	private final Normalization[] groups;
+	private final Column<R>[] columns;
+
+	/**
+	 * Plan for a single hash
+	 * @param normalization -> normalization with a bound {@link Hasher}
+	 * @param columns -> columns in the order they are added
+	 */
+	public RowHashPlan(Normalization normalization, List<? extends Column<R>> columns) {
+		this(new Normalization[] {normalization}, columns);
+	}
+
+	/**
+	 * Plan for all groups of the multi normalization, the group indexes of the columns refer to its groups
+	 * @param normalization
+	 * @param columns -> columns in the order they are added
+	 */
+	public RowHashPlan(MultiNormalization normalization, List<? extends Column<R>> columns) {
+		this(groupsOf(normalization), columns);
+	}
+
+	private RowHashPlan(Normalization[] groups, List<? extends Column<R>> columns) {
+
+		if (columns == null)
+			throw new IllegalArgumentException("columns cannot be null");
+
+		for (Normalization group : groups) {
+			if (group == null || group.getHasher() == null)
+				throw new IllegalArgumentException("every group needs a normalization with a bound hasher");
+		}
+
+		for (Column<R> column : columns) {
+			for (int group : column.groups) {
+				if (group < 0 || group >= groups.length)
+					throw new IllegalArgumentException("column " + column.name + " refers to the undefined hash group " + group);
+			}
+		}
+
+		this.groups = groups;
+		// generic arrays cannot be created, the list only contains columns of R
+		@SuppressWarnings("unchecked")
+		final Column<R>[] columnArray = (Column<R>[]) columns.toArray(new Column<?>[columns.size()]);
+		this.columns = columnArray;
+	}
+
+	private static Normalization[] groupsOf(MultiNormalization normalization) {
+
+		if (normalization == null)
+			throw new IllegalArgumentException("normalization cannot be null");
+
+		final Normalization[] groups = new Normalization[normalization.getGroupCount()];
+
+		for (int i = 0; i < groups.length; i++) {
+			groups[i] = normalization.getGroup(i);
+		}
+
+		return groups;
+	}
+
+	/**
+	 * Normalizes all columns of the row into their groups
+	 * @param row
+	 * @throws IllegalArgumentException if a column value can not be normalized
+	 */
+	public void add(R row) throws IllegalArgumentException {
+
+		for (int i = 0; i < groups.length; i++) {
+			groups[i].reset();
+		}
+
+		for (int i = 0; i < columns.length; i++) {
+
+			final Column<R> column = columns[i];
+
+			try {
+				if (column.groups.length == 1) {
+					column.add(groups[column.groups[0]], row);
+				} else {
+					// normalized once for all groups
+					final String normalized = column.normalize(groups[0], row);
+
+					for (int group : column.groups) {
+						groups[group].addNormalized(normalized);
+					}
+				}
+			} catch (RuntimeException e) {
+				throw new IllegalArgumentException("Convert to String and add column " + column.name + " to checksum failed: " + e.getMessage(), e);
+			}
+		}
+	}
+
+	/**
+	 * Normalizes all columns of the row and calculates the hash of the first group
+	 * @param row
+	 * @return String, byte[], Long or {@link Hash128} depending on the output encoding of the hasher
+	 * @throws IllegalArgumentException if a column value can not be normalized
+	 */
+	public Object hash(R row) throws IllegalArgumentException {
+
+		add(row);
+
+		return groups[0].calculateHashValue();
+	}
+
+	/**
+	 * Like {@link #hash(Object)}, but counts the row and its hash base length in the metrics.
+	 * For the sampled rows the time of the normalization and of the digest and the null columns are recorded as well.
+	 * In streaming mode the values are digested while they are added, this time is measured separately and counted as digest.
+	 * @param row
+	 * @param metrics -> metrics created with the column names of this plan, null to skip the metrics
+	 * @return String, byte[], Long or {@link Hash128} depending on the output encoding of the hasher
+	 * @throws IllegalArgumentException if a column value can not be normalized
+	 */
+	public Object hash(R row, HashMetrics metrics) throws IllegalArgumentException {
+
+		if (metrics == null)
+			return hash(row);
+
+		final Normalization first = groups[0];
+
+		if (metrics.nextRow() == false) {
+			add(row);
+			final long length = first.getHashBaseLength();
+			final Object hash = first.calculateHashValue();
+			metrics.countRow(length, first.getHashedByteCount());
+			return hash;
+		}
+
+		for (int i = 0; i < groups.length; i++) {
+			groups[i].startDigestTimer();
+		}
+
+		final long start = System.nanoTime();
+		long streamed = 0;
+
+		try {
+			add(row);
+		} finally {
+			for (int i = 0; i < groups.length; i++) {
+				streamed += groups[i].stopDigestTimer();
+			}
+		}
+
+		final long normalized = System.nanoTime();
+		final long length = first.getHashBaseLength();
+		final Object hash = first.calculateHashValue();
+		final long end = System.nanoTime();
+
+		for (int i = 0; i < columns.length; i++) {
+			if (columns[i].isNull(row))
+				metrics.countNull(i);
+		}
+
+		metrics.countRow(length, first.getHashedByteCount());
+		metrics.recordSample(normalized - start - streamed, end - normalized + streamed);
+
+		return hash;
+	}
+
+	/**
+	 * @param group
+	 * @return the normalization of the group, e.g. to calculate its hash after {@link #add(Object)}
+	 */
+	public Normalization getNormalization(int group) {
+		return groups[group];
+	}
+
+	public int getColumnCount() {
+		return columns.length;
+	}
+
+	/**
+	 * @return the names of the columns in the order they are added, e.g. for {@link HashMetrics}
+	 */
+	public String[] getColumnNames() {
+
+		final String[] names = new String[columns.length];
+
+		for (int i = 0; i < columns.length; i++) {
+			names[i] = columns[i].name;
+		}
+
+		return names;
+	}
+
+	/**
+	 * Column of the plan, the subclasses define how the value is read from the row
+	 * @param <R> type of the row
+	 */
+	public static abstract class Column<R> {
+
+		private static final int[] FIRST_GROUP = new int[] {0};
+
+		private final String name;
+		private final int[] groups;
+		protected final NormalizeObjectConfig itemConfig;
+
+		/**
+		 * @param name -> column name, used in error messages
+		 * @param caseSensitive -> CASE_SENSITIVE, UPPER_CASE, LOWER_CASE or NOT_IN_USE
+		 * @param trimming
+		 * @param groups -> indexes of the groups the column is added to
+		 */
+		protected Column(String name, String caseSensitive, boolean trimming, int[] groups) {
+
+			if (groups == null || groups.length == 0)
+				throw new IllegalArgumentException("column " + name + " has to be added to at least one group");
+
+			this.name = name;
+			this.itemConfig = new NormalizeObjectConfig(caseSensitive, trimming);
+			this.groups = groups.clone();
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * Adds the value of the row to the normalization
+		 */
+		protected abstract void add(Normalization normalization, R row);
+
+		/**
+		 * @return the normalized value of the row, null if the value is null
+		 */
+		protected abstract String normalize(Normalization normalization, R row);
+
+		/**
+		 * @param row
+		 * @return true if the value is null
+		 */
+		public abstract boolean isNull(R row);
+	}
+
+	/**
+	 * Base class of columns with a primitive type. The value is only read if {@link #isNull(Object)} is false.
+	 */
+	public static abstract class PrimitiveColumn<R> extends Column<R> {
+
+		protected PrimitiveColumn(String name, String caseSensitive, boolean trimming, int[] groups) {
+			super(name, caseSensitive, trimming, groups);
+		}
+
+		/**
+		 * Has to be overridden for nullable columns
+		 * @param row
+		 * @return true if the value is null
+		 */
+		@Override
+		public boolean isNull(R row) {
+			return false;
+		}
+	}
+
+	public static abstract class StringColumn<R> extends Column<R> {
+
+		public StringColumn(String name, String caseSensitive, boolean trimming) {
+			this(name, caseSensitive, trimming, Column.FIRST_GROUP);
+		}
+
+		public StringColumn(String name, String caseSensitive, boolean trimming, int[] groups) {
+			super(name, caseSensitive, trimming, groups);
+		}
+
+		public abstract String get(R row);
+
+		@Override
+		public boolean isNull(R row) {
+			return get(row) == null;
+		}
+
+		@Override
+		protected void add(Normalization normalization, R row) {
+			normalization.addNormalized(normalize(normalization, row));
+		}
+
+		@Override
+		protected String normalize(Normalization normalization, R row) {
+			final String value = get(row);
+			return value == null ? null : normalization.normalize(value, itemConfig);
+		}
+	}
+
+	public static abstract class CharacterColumn<R> extends PrimitiveColumn<R> {
+
+		public CharacterColumn(String name, String caseSensitive, boolean trimming) {
+			this(name, caseSensitive, trimming, Column.FIRST_GROUP);
+		}
+
+		public CharacterColumn(String name, String caseSensitive, boolean trimming, int[] groups) {
+			super(name, caseSensitive, trimming, groups);
+		}
+
+		public abstract char get(R row);
+
+		@Override
+		protected void add(Normalization normalization, R row) {
+			normalization.addNormalized(normalize(normalization, row));
+		}
+
+		@Override
+		protected String normalize(Normalization normalization, R row) {
+			return isNull(row) ? null : normalization.normalize(String.valueOf(get(row)), itemConfig);
+		}
+	}
+
+	public static abstract class IntColumn<R> extends PrimitiveColumn<R> {
+
+		public IntColumn(String name, String caseSensitive, boolean trimming) {
+			this(name, caseSensitive, trimming, Column.FIRST_GROUP);
+		}
+
+		public IntColumn(String name, String caseSensitive, boolean trimming, int[] groups) {
+			super(name, caseSensitive, trimming, groups);
+		}
+
+		public abstract int get(R row);
+
+		@Override
+		protected void add(Normalization normalization, R row) {
+			if (isNull(row))
+				normalization.addNormalized(null);
+			else
+				normalization.add(get(row));
+		}
+
+		@Override
+		protected String normalize(Normalization normalization, R row) {
+			return isNull(row) ? null : normalization.normalize(Integer.valueOf(get(row)));
+		}
+	}
+
+	public static abstract class LongColumn<R> extends PrimitiveColumn<R> {
+
+		public LongColumn(String name, String caseSensitive, boolean trimming) {
+			this(name, caseSensitive, trimming, Column.FIRST_GROUP);
+		}
+
+		public LongColumn(String name, String caseSensitive, boolean trimming, int[] groups) {
+			super(name, caseSensitive, trimming, groups);
+		}
+
+		public abstract long get(R row);
+
+		@Override
+		protected void add(Normalization normalization, R row) {
+			if (isNull(row))
+				normalization.addNormalized(null);
+			else
+				normalization.add(get(row));
+		}
+
+		@Override
+		protected String normalize(Normalization normalization, R row) {
+			return isNull(row) ? null : normalization.normalize(Long.valueOf(get(row)));
+		}
+	}
+
+	public static abstract class ShortColumn<R> extends PrimitiveColumn<R> {
+
+		public ShortColumn(String name, String caseSensitive, boolean trimming) {
+			this(name, caseSensitive, trimming, Column.FIRST_GROUP);
+		}
+
+		public ShortColumn(String name, String caseSensitive, boolean trimming, int[] groups) {
+			super(name, caseSensitive, trimming, groups);
+		}
+
+		public abstract short get(R row);
+
+		@Override
+		protected void add(Normalization normalization, R row) {
+			if (isNull(row))
+				normalization.addNormalized(null);
+			else
+				normalization.add(get(row));
+		}
+
+		@Override
+		protected String normalize(Normalization normalization, R row) {
+			return isNull(row) ? null : normalization.normalize(Short.valueOf(get(row)));
+		}
+	}
+
+	public static abstract class DoubleColumn<R> extends PrimitiveColumn<R> {
+
+		public DoubleColumn(String name, String caseSensitive, boolean trimming) {
+			this(name, caseSensitive, trimming, Column.FIRST_GROUP);
+		}
+
+		public DoubleColumn(String name, String caseSensitive, boolean trimming, int[] groups) {
+			super(name, caseSensitive, trimming, groups);
+		}
+
+		public abstract double get(R row);
+
+		@Override
+		protected void add(Normalization normalization, R row) {
+			if (isNull(row))
+				normalization.addNormalized(null);
+			else
+				normalization.add(get(row));
+		}
+
+		@Override
+		protected String normalize(Normalization normalization, R row) {
+			return isNull(row) ? null : normalization.normalize(Double.valueOf(get(row)));
+		}
+	}
+
+	public static abstract class FloatColumn<R> extends PrimitiveColumn<R> {
+
+		public FloatColumn(String name, String caseSensitive, boolean trimming) {
+			this(name, caseSensitive, trimming, Column.FIRST_GROUP);
+		}
+
+		public FloatColumn(String name, String caseSensitive, boolean trimming, int[] groups) {
+			super(name, caseSensitive, trimming, groups);
+		}
+
+		public abstract float get(R row);
+
+		@Override
+		protected void add(Normalization normalization, R row) {
+			if (isNull(row))
+				normalization.addNormalized(null);
+			else
+				normalization.add(get(row));
+		}
+
+		@Override
+		protected String normalize(Normalization normalization, R row) {
+			return isNull(row) ? null : normalization.normalize(Float.valueOf(get(row)));
+		}
+	}
+
+	public static abstract class BooleanColumn<R> extends PrimitiveColumn<R> {
+
+		public BooleanColumn(String name, String caseSensitive, boolean trimming) {
+			this(name, caseSensitive, trimming, Column.FIRST_GROUP);
+		}
+
+		public BooleanColumn(String name, String caseSensitive, boolean trimming, int[] groups) {
+			super(name, caseSensitive, trimming, groups);
+		}
+
+		public abstract boolean get(R row);
+
+		@Override
+		protected void add(Normalization normalization, R row) {
+			if (isNull(row))
+				normalization.addNormalized(null);
+			else
+				normalization.add(get(row));
+		}
+
+		@Override
+		protected String normalize(Normalization normalization, R row) {
+			return isNull(row) ? null : String.valueOf(get(row));
+		}
+	}
+
+	public static abstract class DateColumn<R> extends Column<R> {
+
+		public DateColumn(String name, String caseSensitive, boolean trimming) {
+			this(name, caseSensitive, trimming, Column.FIRST_GROUP);
+		}
+
+		public DateColumn(String name, String caseSensitive, boolean trimming, int[] groups) {
+			super(name, caseSensitive, trimming, groups);
+		}
+
+		public abstract Date get(R row);
+
+		@Override
+		public boolean isNull(R row) {
+			return get(row) == null;
+		}
+
+		@Override
+		protected void add(Normalization normalization, R row) {
+			normalization.add(get(row));
+		}
+
+		@Override
+		protected String normalize(Normalization normalization, R row) {
+			final Date value = get(row);
+			return value == null ? null : normalization.normalize(value);
+		}
+	}
+
+	public static abstract class BigDecimalColumn<R> extends Column<R> {
+
+		public BigDecimalColumn(String name, String caseSensitive, boolean trimming) {
+			this(name, caseSensitive, trimming, Column.FIRST_GROUP);
+		}
+
+		public BigDecimalColumn(String name, String caseSensitive, boolean trimming, int[] groups) {
+			super(name, caseSensitive, trimming, groups);
+		}
+
+		public abstract BigDecimal get(R row);
+
+		@Override
+		public boolean isNull(R row) {
+			return get(row) == null;
+		}
+
+		@Override
+		protected void add(Normalization normalization, R row) {
+			normalization.addNormalized(normalize(normalization, row));
+		}
+
+		@Override
+		protected String normalize(Normalization normalization, R row) {
+			final BigDecimal value = get(row);
+			return value == null ? null : normalization.normalize(value);
+		}
+	}
+
+	/**
+	 * Column of any other type, the value is dispatched by its class like {@link Normalization#add(Object, NormalizeObjectConfig)}
+	 */
+	public static abstract class ObjectColumn<R> extends Column<R> {
+
+		public ObjectColumn(String name, String caseSensitive, boolean trimming) {
+			this(name, caseSensitive, trimming, Column.FIRST_GROUP);
+		}
+
+		public ObjectColumn(String name, String caseSensitive, boolean trimming, int[] groups) {
+			super(name, caseSensitive, trimming, groups);
+		}
+
+		public abstract Object get(R row);
+
+		@Override
+		public boolean isNull(R row) {
+			return get(row) == null;
+		}
+
+		@Override
+		protected void add(Normalization normalization, R row) {
+			normalization.add(get(row), itemConfig);
+		}
+
+		@Override
+		protected String normalize(Normalization normalization, R row) {
+			return normalization.normalizeObject(get(row), itemConfig);
+		}
+	}
+
+}
@@ -0,0 +1,135 @@
+package de.cimt.talendcomp.checksum;
+
+/**
+ * SHA3-256 (FIPS 202), used if the runtime does not provide it (Java 8).
+ */
+class Sha3Digest extends BufferedDigest {
+	
+	private static final int ROUNDS = 24;
+	
+	private static final long[] ROUND_CONSTANTS = new long[ROUNDS];
+	private static final int[] ROTATIONS = new int[25];
+	
+	static {
+		
+		// round constants of the iota step, generated by the LFSR of the specification
+		for (int round = 0; round < ROUNDS; round++) {
+			long constant = 0;
+			for (int j = 0; j < 7; j++) {
+				if (rc(j + 7 * round))
+					constant |= 1L << ((1 << j) - 1);
+			}
+			ROUND_CONSTANTS[round] = constant;
+		}
+		
+		// rotation offsets of the rho step
+		int x = 1;
+		int y = 0;
+		for (int t = 0; t < 24; t++) {
+			ROTATIONS[x + 5 * y] = ((t + 1) * (t + 2) / 2) % 64;
+			int newY = (2 * x + 3 * y) % 5;
+			x = y;
+			y = newY;
+		}
+	}
+	
+	private final int digestLength;
+	private final int rate;
+	private final long[] state = new long[25];
+	private final long[] b = new long[25];
+	private final long[] c = new long[5];
+	
+	Sha3Digest(String algorithm, int digestLength) {
+		super(algorithm);
+		this.digestLength = digestLength;
+		this.rate = 200 - 2 * digestLength;
+	}
+	
+	@Override
+	protected int engineGetDigestLength() {
+		return digestLength;
+	}
+
+	@Override
+	protected byte[] hash(byte[] input, int length) {
+		
+		for (int i = 0; i < 25; i++) {
+			state[i] = 0;
+		}
+		
+		int offset = 0;
+		
+		while (length - offset >= rate) {
+			for (int i = 0; i < rate / 8; i++) {
+				state[i] ^= readLongLE(input, offset + 8 * i);
+			}
+			permute();
+			offset += rate;
+		}
+		
+		// last block with SHA3 domain padding 0x06 ... 0x80
+		for (int i = offset; i < length; i++) {
+			xorByte(i - offset, input[i]);
+		}
+		xorByte(length - offset, (byte) 0x06);
+		xorByte(rate - 1, (byte) 0x80);
+		permute();
+		
+		byte[] result = new byte[digestLength];
+		for (int i = 0; i < digestLength; i++) {
+			result[i] = (byte) (state[i >> 3] >>> (8 * (i & 7)));
+		}
+		return result;
+	}
+	
+	private void xorByte(int position, byte value) {
+		state[position >> 3] ^= (value & 0xffL) << (8 * (position & 7));
+	}
+	
+	private void permute() {
+		
+		final long[] a = state;
+		
+		for (int round = 0; round < ROUNDS; round++) {
+			
+			// theta
+			for (int x = 0; x < 5; x++) {
+				c[x] = a[x] ^ a[x + 5] ^ a[x + 10] ^ a[x + 15] ^ a[x + 20];
+			}
+			for (int x = 0; x < 5; x++) {
+				long d = c[(x + 4) % 5] ^ Long.rotateLeft(c[(x + 1) % 5], 1);
+				for (int y = 0; y < 25; y += 5) {
+					a[x + y] ^= d;
+				}
+			}
+			
+			// rho and pi
+			for (int x = 0; x < 5; x++) {
+				for (int y = 0; y < 5; y++) {
+					b[y + 5 * ((2 * x + 3 * y) % 5)] = Long.rotateLeft(a[x + 5 * y], ROTATIONS[x + 5 * y]);
+				}
+			}
+			
+			// chi
+			for (int y = 0; y < 25; y += 5) {
+				for (int x = 0; x < 5; x++) {
+					a[x + y] = b[x + y] ^ (~b[(x + 1) % 5 + y] & b[(x + 2) % 5 + y]);
+				}
+			}
+			
+			// iota
+			a[0] ^= ROUND_CONSTANTS[round];
+		}
+	}
+	
+	private static boolean rc(int t) {
+		int r = 1;
+		for (int i = 0; i < t % 255; i++) {
+			r <<= 1;
+			if ((r & 0x100) != 0)
+				r ^= 0x171;
+		}
+		return (r & 1) != 0;
+	}
+	
+}
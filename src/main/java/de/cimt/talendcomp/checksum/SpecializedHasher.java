@@ -0,0 +1,209 @@
+package de.cimt.talendcomp.checksum;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Hashes rows of values with a fixed schema. For every schema a class is generated at runtime
+ * which adds the values in straight-line code, one static call with the declared column type per column,
+ * so the JIT can inline the normalization of each column even if the JVM hashes many different schemas.
+ * If the class can not be generated (e.g. because a security manager prevents the class loader),
+ * the values are added one by one with {@link Normalization#add(Object, NormalizeObjectConfig)}.
+ * Both ways produce exactly the same normalized string.
+ * The hasher is not thread safe because it uses its normalization.
+ */
+public final class SpecializedHasher {
+
+	private final Normalization normalization;
+	private final NormalizeObjectConfig[] itemConfigs;
+	private final ValueAdder adder;
+
+	private SpecializedHasher(Normalization normalization, List<NormalizeObjectConfig> itemConfigs, List<Class<?>> types, boolean generate) {
+
+		if (normalization == null || normalization.getHasher() == null)
+			throw new IllegalArgumentException("normalization with a bound hasher is required");
+
+		if (itemConfigs == null || types == null)
+			throw new IllegalArgumentException("itemConfigs and types cannot be null");
+
+		if (itemConfigs.size() != types.size())
+			throw new IllegalArgumentException("there are " + itemConfigs.size() + " column configs for " + types.size() + " column types");
+
+		for (int i = 0; i < itemConfigs.size(); i++) {
+			if (itemConfigs.get(i) == null || types.get(i) == null)
+				throw new IllegalArgumentException("config and type of column " + i + " cannot be null");
+		}
+
+		this.normalization = normalization;
+		this.itemConfigs = itemConfigs.toArray(new NormalizeObjectConfig[itemConfigs.size()]);
+
+		ValueAdder generated = null;
+
+		if (generate) {
+			try {
+				generated = SpecializedHasherGenerator.newValueAdder(types);
+			} catch (RuntimeException e) {
+				// fall back to the interpreted adder
+			} catch (LinkageError e) {
+				// fall back to the interpreted adder
+			}
+		}
+
+		this.adder = generated != null ? generated : new InterpretedValueAdder();
+	}
+
+	/**
+	 * Creates a hasher with a generated class for the schema
+	 * @param normalization -> normalization with a bound {@link Hasher}
+	 * @param itemConfigs -> config of every column
+	 * @param types -> declared type of every column, e.g. String.class or int.class,
+	 *  unknown types are added like {@link Normalization#add(Object, NormalizeObjectConfig)}
+	 * @return hasher, with the interpreted adder if the class can not be generated
+	 * @throws IllegalArgumentException if the configs and types do not match
+	 */
+	public static SpecializedHasher create(Normalization normalization, List<NormalizeObjectConfig> itemConfigs, List<Class<?>> types) throws IllegalArgumentException {
+		return new SpecializedHasher(normalization, itemConfigs, types, true);
+	}
+
+	/**
+	 * Creates a hasher which adds the values with {@link Normalization#add(Object, NormalizeObjectConfig)}
+	 * @see #create(Normalization, List, List)
+	 */
+	public static SpecializedHasher createInterpreted(Normalization normalization, List<NormalizeObjectConfig> itemConfigs, List<Class<?>> types) throws IllegalArgumentException {
+		return new SpecializedHasher(normalization, itemConfigs, types, false);
+	}
+
+	/**
+	 * @return true if the values are added by a generated class
+	 */
+	public boolean isGenerated() {
+		return adder instanceof InterpretedValueAdder == false;
+	}
+
+	public Normalization getNormalization() {
+		return normalization;
+	}
+
+	/**
+	 * Resets the normalization and adds the values
+	 * @param values -> one value per column, with the declared type or null
+	 * @throws IllegalArgumentException if the number of values is wrong or a value has not the declared type
+	 */
+	public void add(Object[] values) throws IllegalArgumentException {
+
+		if (values == null || values.length != itemConfigs.length)
+			throw new IllegalArgumentException("expected " + itemConfigs.length + " values");
+
+		normalization.reset();
+
+		try {
+			adder.add(normalization, values, itemConfigs);
+		} catch (ClassCastException e) {
+			throw new IllegalArgumentException("value has not the declared column type: " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Adds the values and calculates the hash
+	 * @param values -> one value per column, with the declared type or null
+	 * @return String, byte[], Long or {@link Hash128} depending on the output encoding of the hasher
+	 * @throws IllegalArgumentException if the number of values is wrong or a value has not the declared type
+	 */
+	public Object hash(Object[] values) throws IllegalArgumentException {
+
+		add(values);
+
+		return normalization.calculateHashValue();
+	}
+
+	/**
+	 * Base class of the generated classes. The static methods are called by the generated code,
+	 * each adds a value of one type exactly like {@link Normalization#add(Object, NormalizeObjectConfig)}.
+	 */
+	public static abstract class ValueAdder {
+
+		/**
+		 * Adds all values to the normalization
+		 */
+		public abstract void add(Normalization normalization, Object[] values, NormalizeObjectConfig[] itemConfigs);
+
+		protected static void addString(Normalization normalization, String value, NormalizeObjectConfig itemConfig) {
+			normalization.addNormalized(value != null ? normalization.normalize(value, itemConfig) : null);
+		}
+
+		protected static void addCharacter(Normalization normalization, Character value, NormalizeObjectConfig itemConfig) {
+			normalization.addNormalized(value != null ? normalization.normalize(value, itemConfig) : null);
+		}
+
+		protected static void addInteger(Normalization normalization, Integer value, NormalizeObjectConfig itemConfig) {
+			if (value != null)
+				normalization.add(value.intValue());
+			else
+				normalization.addNormalized(null);
+		}
+
+		protected static void addLong(Normalization normalization, Long value, NormalizeObjectConfig itemConfig) {
+			if (value != null)
+				normalization.add(value.longValue());
+			else
+				normalization.addNormalized(null);
+		}
+
+		protected static void addShort(Normalization normalization, Short value, NormalizeObjectConfig itemConfig) {
+			if (value != null)
+				normalization.add(value.shortValue());
+			else
+				normalization.addNormalized(null);
+		}
+
+		protected static void addFloat(Normalization normalization, Float value, NormalizeObjectConfig itemConfig) {
+			if (value != null)
+				normalization.add(value.floatValue());
+			else
+				normalization.addNormalized(null);
+		}
+
+		protected static void addDouble(Normalization normalization, Double value, NormalizeObjectConfig itemConfig) {
+			if (value != null)
+				normalization.add(value.doubleValue());
+			else
+				normalization.addNormalized(null);
+		}
+
+		protected static void addBoolean(Normalization normalization, Boolean value, NormalizeObjectConfig itemConfig) {
+			if (value != null)
+				normalization.add(value.booleanValue());
+			else
+				normalization.addNormalized(null);
+		}
+
+		protected static void addBigDecimal(Normalization normalization, BigDecimal value, NormalizeObjectConfig itemConfig) {
+			normalization.addNormalized(value != null ? normalization.normalize(value) : null);
+		}
+
+		protected static void addBigInteger(Normalization normalization, BigInteger value, NormalizeObjectConfig itemConfig) {
+			normalization.addNormalized(value != null ? normalization.normalize(value) : null);
+		}
+
+		protected static void addDate(Normalization normalization, Date value, NormalizeObjectConfig itemConfig) {
+			normalization.add(value);
+		}
+
+		protected static void addObject(Normalization normalization, Object value, NormalizeObjectConfig itemConfig) {
+			normalization.add(value, itemConfig);
+		}
+	}
+
+	private static final class InterpretedValueAdder extends ValueAdder {
+
+		@Override
+		public void add(Normalization normalization, Object[] values, NormalizeObjectConfig[] itemConfigs) {
+			for (int i = 0; i < values.length; i++) {
+				normalization.add(values[i], itemConfigs[i]);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,392 @@
+package de.cimt.talendcomp.checksum;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generates the class files of {@link SpecializedHasher.ValueAdder} subclasses with a small bytecode emitter.
+ * For every column the generated code is
+ * <pre>
+ * ValueAdder.addInteger(normalization, (Integer) values[i], itemConfigs[i]);
+ * </pre>
+ * The columns are split into static methods of at most {@link #COLUMNS_PER_METHOD} columns,
+ * because the JIT does not compile huge methods. The code has no branches, so the class file version 51
+ * does not need stack map frames. The classes are defined by an own class loader
+ * (MethodHandles.Lookup.defineClass requires Java 9) and cached per list of column types.
+ */
+final class SpecializedHasherGenerator {
+
+	static final int COLUMNS_PER_METHOD = 200;
+
+	private static final String GENERATED_PACKAGE = "de/cimt/talendcomp/checksum/generated/";
+	private static final String VALUE_ADDER = "de/cimt/talendcomp/checksum/SpecializedHasher$ValueAdder";
+	private static final String NORMALIZATION = "de/cimt/talendcomp/checksum/Normalization";
+	private static final String ITEM_CONFIG = "de/cimt/talendcomp/checksum/NormalizeObjectConfig";
+	private static final String ADD_DESCRIPTOR = "(L" + NORMALIZATION + ";[Ljava/lang/Object;[L" + ITEM_CONFIG + ";)V";
+
+	/**
+	 * add method of the value adder per supported column type
+	 */
+	private static final Map<Class<?>, String> ADD_METHODS = new HashMap<Class<?>, String>();
+
+	static {
+		ADD_METHODS.put(String.class, "addString");
+		ADD_METHODS.put(Character.class, "addCharacter");
+		ADD_METHODS.put(Integer.class, "addInteger");
+		ADD_METHODS.put(Long.class, "addLong");
+		ADD_METHODS.put(Short.class, "addShort");
+		ADD_METHODS.put(Float.class, "addFloat");
+		ADD_METHODS.put(Double.class, "addDouble");
+		ADD_METHODS.put(Boolean.class, "addBoolean");
+		ADD_METHODS.put(BigDecimal.class, "addBigDecimal");
+		ADD_METHODS.put(BigInteger.class, "addBigInteger");
+		ADD_METHODS.put(Date.class, "addDate");
+		ADD_METHODS.put(Object.class, "addObject");
+	}
+
+	private static final Map<Class<?>, Class<?>> BOXED_TYPES = new HashMap<Class<?>, Class<?>>();
+
+	static {
+		BOXED_TYPES.put(char.class, Character.class);
+		BOXED_TYPES.put(int.class, Integer.class);
+		BOXED_TYPES.put(long.class, Long.class);
+		BOXED_TYPES.put(short.class, Short.class);
+		BOXED_TYPES.put(float.class, Float.class);
+		BOXED_TYPES.put(double.class, Double.class);
+		BOXED_TYPES.put(boolean.class, Boolean.class);
+	}
+
+	private static final AtomicInteger CLASS_COUNTER = new AtomicInteger();
+	private static final Map<String, Class<?>> CLASS_CACHE = new ConcurrentHashMap<String, Class<?>>();
+	private static volatile GeneratedClassLoader classLoader;
+
+	private SpecializedHasherGenerator() {}
+
+	/**
+	 * @param types -> declared types of the columns
+	 * @return new instance of the generated class for these types
+	 * @throws RuntimeException or LinkageError if the class can not be defined
+	 */
+	static SpecializedHasher.ValueAdder newValueAdder(List<Class<?>> types) {
+
+		final List<Class<?>> columnTypes = new ArrayList<Class<?>>(types.size());
+		final StringBuilder key = new StringBuilder();
+
+		for (Class<?> type : types) {
+			final Class<?> columnType = columnType(type);
+			columnTypes.add(columnType);
+			key.append(columnType.getName()).append(',');
+		}
+
+		Class<?> generated = CLASS_CACHE.get(key.toString());
+
+		if (generated == null) {
+			synchronized (CLASS_CACHE) {
+				generated = CLASS_CACHE.get(key.toString());
+
+				if (generated == null) {
+					final String className = GENERATED_PACKAGE + "ValueAdder" + CLASS_COUNTER.incrementAndGet();
+					generated = getClassLoader().define(className.replace('/', '.'), generateClass(className, columnTypes));
+					CLASS_CACHE.put(key.toString(), generated);
+				}
+			}
+		}
+
+		try {
+			return (SpecializedHasher.ValueAdder) generated.getDeclaredConstructor().newInstance();
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * @return the type the value is cast to, Object for types without a special add method
+	 */
+	static Class<?> columnType(Class<?> type) {
+
+		final Class<?> boxed = BOXED_TYPES.get(type);
+
+		if (boxed != null)
+			return boxed;
+
+		return ADD_METHODS.containsKey(type) ? type : Object.class;
+	}
+
+	private static GeneratedClassLoader getClassLoader() {
+
+		if (classLoader == null) {
+			synchronized (CLASS_CACHE) {
+				if (classLoader == null)
+					classLoader = new GeneratedClassLoader(SpecializedHasher.class.getClassLoader());
+			}
+		}
+
+		return classLoader;
+	}
+
+	static byte[] generateClass(String className, List<Class<?>> columnTypes) {
+
+		final ConstantPool pool = new ConstantPool();
+		final int thisClass = pool.classRef(className);
+		final int superClass = pool.classRef(VALUE_ADDER);
+		final int code = pool.utf8("Code");
+		final int methodCount = (columnTypes.size() + COLUMNS_PER_METHOD - 1) / COLUMNS_PER_METHOD;
+
+		// public ValueAdderN() { super(); }
+		final ByteArrayOutputStream constructor = new ByteArrayOutputStream();
+		constructor.write(0x2a); // aload_0
+		constructor.write(0xb7); // invokespecial
+		writeShort(constructor, pool.methodRef(VALUE_ADDER, "<init>", "()V"));
+		constructor.write(0xb1); // return
+
+		// public void add(Normalization normalization, Object[] values, NormalizeObjectConfig[] itemConfigs) { add0(...); add1(...); }
+		final ByteArrayOutputStream add = new ByteArrayOutputStream();
+
+		for (int m = 0; m < methodCount; m++) {
+			add.write(0x2b); // aload_1
+			add.write(0x2c); // aload_2
+			add.write(0x2d); // aload_3
+			add.write(0xb8); // invokestatic
+			writeShort(add, pool.methodRef(className, "add" + m, ADD_DESCRIPTOR));
+		}
+
+		add.write(0xb1); // return
+
+		// private static void addM(Normalization normalization, Object[] values, NormalizeObjectConfig[] itemConfigs)
+		final List<ByteArrayOutputStream> columnMethods = new ArrayList<ByteArrayOutputStream>();
+
+		for (int m = 0; m < methodCount; m++) {
+
+			final ByteArrayOutputStream method = new ByteArrayOutputStream();
+			final int end = Math.min(columnTypes.size(), (m + 1) * COLUMNS_PER_METHOD);
+
+			for (int i = m * COLUMNS_PER_METHOD; i < end; i++) {
+
+				final Class<?> type = columnTypes.get(i);
+				final String typeName = type.getName().replace('.', '/');
+
+				method.write(0x2a); // aload_0
+				method.write(0x2b); // aload_1
+				pushInt(method, i);
+				method.write(0x32); // aaload
+
+				if (type != Object.class) {
+					method.write(0xc0); // checkcast
+					writeShort(method, pool.classRef(typeName));
+				}
+
+				method.write(0x2c); // aload_2
+				pushInt(method, i);
+				method.write(0x32); // aaload
+				method.write(0xb8); // invokestatic
+				writeShort(method, pool.methodRef(VALUE_ADDER, ADD_METHODS.get(type), "(L" + NORMALIZATION + ";L" + typeName + ";L" + ITEM_CONFIG + ";)V"));
+			}
+
+			method.write(0xb1); // return
+			columnMethods.add(method);
+		}
+
+		final int initName = pool.utf8("<init>");
+		final int initDescriptor = pool.utf8("()V");
+		final int addName = pool.utf8("add");
+		final int addDescriptor = pool.utf8(ADD_DESCRIPTOR);
+		final int[] columnMethodNames = new int[methodCount];
+
+		for (int m = 0; m < methodCount; m++) {
+			columnMethodNames[m] = pool.utf8("add" + m);
+		}
+
+		try {
+			final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			final DataOutputStream out = new DataOutputStream(bytes);
+
+			out.writeInt(0xCAFEBABE);
+			out.writeShort(0); // minor version
+			out.writeShort(51); // Java 7
+			pool.write(out);
+			out.writeShort(0x0001 | 0x0010 | 0x0020); // public final super
+			out.writeShort(thisClass);
+			out.writeShort(superClass);
+			out.writeShort(0); // interfaces
+			out.writeShort(0); // fields
+			out.writeShort(2 + methodCount);
+			writeMethod(out, 0x0001, initName, initDescriptor, code, 1, 1, constructor.toByteArray());
+			writeMethod(out, 0x0001, addName, addDescriptor, code, 3, 4, add.toByteArray());
+
+			for (int m = 0; m < methodCount; m++) {
+				writeMethod(out, 0x0002 | 0x0008, columnMethodNames[m], addDescriptor, code, 4, 3, columnMethods.get(m).toByteArray());
+			}
+
+			out.writeShort(0); // attributes
+			out.flush();
+
+			return bytes.toByteArray();
+		} catch (IOException e) {
+			// not thrown by a ByteArrayOutputStream
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static void writeMethod(DataOutputStream out, int access, int name, int descriptor, int code, int maxStack, int maxLocals, byte[] bytecode) throws IOException {
+
+		if (bytecode.length > 65535)
+			throw new IllegalArgumentException("generated method is too large");
+
+		out.writeShort(access);
+		out.writeShort(name);
+		out.writeShort(descriptor);
+		out.writeShort(1); // attributes
+		out.writeShort(code);
+		out.writeInt(12 + bytecode.length);
+		out.writeShort(maxStack);
+		out.writeShort(maxLocals);
+		out.writeInt(bytecode.length);
+		out.write(bytecode);
+		out.writeShort(0); // exception table
+		out.writeShort(0); // attributes
+	}
+
+	private static void pushInt(ByteArrayOutputStream out, int value) {
+
+		if (value <= 5) {
+			out.write(0x03 + value); // iconst_<value>
+		} else if (value <= Byte.MAX_VALUE) {
+			out.write(0x10); // bipush
+			out.write(value);
+		} else if (value <= Short.MAX_VALUE) {
+			out.write(0x11); // sipush
+			writeShort(out, value);
+		} else {
+			throw new IllegalArgumentException("too many columns: " + value);
+		}
+	}
+
+	private static void writeShort(ByteArrayOutputStream out, int value) {
+		out.write(value >>> 8);
+		out.write(value);
+	}
+
+	/**
+	 * Constant pool with the entry types used by the generated classes
+	 */
+	private static final class ConstantPool {
+
+		private final Map<String, Integer> entries = new LinkedHashMap<String, Integer>();
+		private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		private final DataOutputStream out = new DataOutputStream(bytes);
+		private int count = 1;
+
+		int utf8(String value) {
+
+			Integer index = entries.get("U" + value);
+
+			if (index == null) {
+				index = add("U" + value);
+				write(1);
+				try {
+					out.writeUTF(value);
+				} catch (IOException e) {
+					throw new IllegalStateException(e);
+				}
+			}
+
+			return index;
+		}
+
+		int classRef(String internalName) {
+
+			Integer index = entries.get("C" + internalName);
+
+			if (index == null) {
+				final int name = utf8(internalName);
+				index = add("C" + internalName);
+				write(7);
+				write2(name);
+			}
+
+			return index;
+		}
+
+		int methodRef(String owner, String name, String descriptor) {
+
+			final String key = "M" + owner + "." + name + descriptor;
+			Integer index = entries.get(key);
+
+			if (index == null) {
+				final int ownerClass = classRef(owner);
+				final int nameAndType = nameAndType(name, descriptor);
+				index = add(key);
+				write(10);
+				write2(ownerClass);
+				write2(nameAndType);
+			}
+
+			return index;
+		}
+
+		private int nameAndType(String name, String descriptor) {
+
+			final String key = "N" + name + " " + descriptor;
+			Integer index = entries.get(key);
+
+			if (index == null) {
+				final int nameIndex = utf8(name);
+				final int descriptorIndex = utf8(descriptor);
+				index = add(key);
+				write(12);
+				write2(nameIndex);
+				write2(descriptorIndex);
+			}
+
+			return index;
+		}
+
+		private int add(String key) {
+
+			if (count == 65535)
+				throw new IllegalArgumentException("constant pool is too large");
+
+			entries.put(key, count);
+
+			return count++;
+		}
+
+		private void write(int b) {
+			bytes.write(b);
+		}
+
+		private void write2(int value) {
+			bytes.write(value >>> 8);
+			bytes.write(value);
+		}
+
+		void write(DataOutputStream target) throws IOException {
+			target.writeShort(count);
+			out.flush();
+			bytes.writeTo(target);
+		}
+	}
+
+	private static final class GeneratedClassLoader extends ClassLoader {
+
+		GeneratedClassLoader(ClassLoader parent) {
+			super(parent);
+		}
+
+		Class<?> define(String name, byte[] classFile) {
+			return defineClass(name, classFile, 0, classFile.length);
+		}
+	}
+
+}
@@ -0,0 +1,266 @@
+package de.cimt.talendcomp.checksum;
+
+/**
+ * XXH3 128 bit (seed 0, default secret). The 16 hash bytes are in canonical order, 
+ * i.e. the high 64 bits followed by the low 64 bits, both big endian, as printed by xxhsum.
+ */
+class XXH3Digest extends BufferedDigest {
+	
+	static final String ALGORITHM = "XXH3-128";
+	
+	private static final long PRIME32_1 = 0x9E3779B1L;
+	private static final long PRIME32_2 = 0x85EBCA77L;
+	private static final long PRIME32_3 = 0xC2B2AE3DL;
+	private static final long PRIME64_1 = 0x9E3779B185EBCA87L;
+	private static final long PRIME64_2 = 0xC2B2AE3D27D4EB4FL;
+	private static final long PRIME64_3 = 0x165667B19E3779F9L;
+	private static final long PRIME64_4 = 0x85EBCA77C2B2AE63L;
+	private static final long PRIME64_5 = 0x27D4EB2F165667C5L;
+	private static final long PRIME_MX1 = 0x165667919E3779F9L;
+	private static final long PRIME_MX2 = 0x9FB21C651E98DF25L;
+	
+	private static final int STRIPE_LENGTH = 64;
+	private static final int SECRET_CONSUME_RATE = 8;
+	private static final int SECRET_SIZE_MIN = 136;
+	private static final int MIDSIZE_START_OFFSET = 3;
+	private static final int MIDSIZE_LAST_OFFSET = 17;
+	private static final int SECRET_LAST_ACC_START = 7;
+	private static final int SECRET_MERGE_ACCS_START = 11;
+	
+	private static final byte[] SECRET = toBytes(new int[] {
+			0xb8, 0xfe, 0x6c, 0x39, 0x23, 0xa4, 0x4b, 0xbe, 0x7c, 0x01, 0x81, 0x2c, 0xf7, 0x21, 0xad, 0x1c,
+			0xde, 0xd4, 0x6d, 0xe9, 0x83, 0x90, 0x97, 0xdb, 0x72, 0x40, 0xa4, 0xa4, 0xb7, 0xb3, 0x67, 0x1f,
+			0xcb, 0x79, 0xe6, 0x4e, 0xcc, 0xc0, 0xe5, 0x78, 0x82, 0x5a, 0xd0, 0x7d, 0xcc, 0xff, 0x72, 0x21,
+			0xb8, 0x08, 0x46, 0x74, 0xf7, 0x43, 0x24, 0x8e, 0xe0, 0x35, 0x90, 0xe6, 0x81, 0x3a, 0x26, 0x4c,
+			0x3c, 0x28, 0x52, 0xbb, 0x91, 0xc3, 0x00, 0xcb, 0x88, 0xd0, 0x65, 0x8b, 0x1b, 0x53, 0x2e, 0xa3,
+			0x71, 0x64, 0x48, 0x97, 0xa2, 0x0d, 0xf9, 0x4e, 0x38, 0x19, 0xef, 0x46, 0xa9, 0xde, 0xac, 0xd8,
+			0xa8, 0xfa, 0x76, 0x3f, 0xe3, 0x9c, 0x34, 0x3f, 0xf9, 0xdc, 0xbb, 0xc7, 0xc7, 0x0b, 0x4f, 0x1d,
+			0x8a, 0x51, 0xe0, 0x4b, 0xcd, 0xb4, 0x59, 0x31, 0xc8, 0x9f, 0x7e, 0xc9, 0xd9, 0x78, 0x73, 0x64,
+			0xea, 0xc5, 0xac, 0x83, 0x34, 0xd3, 0xeb, 0xc3, 0xc5, 0x81, 0xa0, 0xff, 0xfa, 0x13, 0x63, 0xeb,
+			0x17, 0x0d, 0xdd, 0x51, 0xb7, 0xf0, 0xda, 0x49, 0xd3, 0x16, 0x55, 0x26, 0x29, 0xd4, 0x68, 0x9e,
+			0x2b, 0x16, 0xbe, 0x58, 0x7d, 0x47, 0xa1, 0xfc, 0x8f, 0xf8, 0xb8, 0xd1, 0x7a, 0xd0, 0x31, 0xce,
+			0x45, 0xcb, 0x3a, 0x8f, 0x95, 0x16, 0x04, 0x28, 0xaf, 0xd7, 0xfb, 0xca, 0xbb, 0x4b, 0x40, 0x7e });
+	
+	private final long[] acc = new long[8];
+	
+	XXH3Digest() {
+		super(ALGORITHM);
+	}
+	
+	@Override
+	protected int engineGetDigestLength() {
+		return 16;
+	}
+
+	@Override
+	protected byte[] hash(byte[] input, int length) {
+		
+		long low;
+		long high;
+		
+		if (length <= 16) {
+			
+			if (length > 8) {
+				
+				long bitflipLow = readLongLE(SECRET, 32) ^ readLongLE(SECRET, 40);
+				long bitflipHigh = readLongLE(SECRET, 48) ^ readLongLE(SECRET, 56);
+				long inputLow = readLongLE(input, 0);
+				long inputHigh = readLongLE(input, length - 8);
+				
+				long value = inputLow ^ inputHigh ^ bitflipLow;
+				long mLow = value * PRIME64_1;
+				long mHigh = HashCalculation.unsignedMultiplyHigh(value, PRIME64_1);
+				
+				mLow += (long) (length - 1) << 54;
+				inputHigh ^= bitflipHigh;
+				mHigh += inputHigh + (inputHigh & 0xffffffffL) * (PRIME32_2 - 1);
+				mLow ^= Long.reverseBytes(mHigh);
+				
+				low = mLow * PRIME64_2;
+				high = HashCalculation.unsignedMultiplyHigh(mLow, PRIME64_2) + mHigh * PRIME64_2;
+				low = avalanche(low);
+				high = avalanche(high);
+				
+			} else if (length >= 4) {
+				
+				long inputLow = readIntLE(input, 0);
+				long inputHigh = readIntLE(input, length - 4);
+				long bitflip = readLongLE(SECRET, 16) ^ readLongLE(SECRET, 24);
+				long keyed = (inputLow + (inputHigh << 32)) ^ bitflip;
+				long multiplier = PRIME64_1 + ((long) length << 2);
+				
+				low = keyed * multiplier;
+				high = HashCalculation.unsignedMultiplyHigh(keyed, multiplier);
+				
+				high += low << 1;
+				low ^= high >>> 3;
+				low ^= low >>> 35;
+				low *= PRIME_MX2;
+				low ^= low >>> 28;
+				high = avalanche(high);
+				
+			} else if (length > 0) {
+				
+				int c1 = input[0] & 0xff;
+				int c2 = input[length >> 1] & 0xff;
+				int c3 = input[length - 1] & 0xff;
+				int combinedLow = (c1 << 16) | (c2 << 24) | c3 | (length << 8);
+				int combinedHigh = Integer.rotateLeft(Integer.reverseBytes(combinedLow), 13);
+				long bitflipLow = readIntLE(SECRET, 0) ^ readIntLE(SECRET, 4);
+				long bitflipHigh = readIntLE(SECRET, 8) ^ readIntLE(SECRET, 12);
+				
+				low = XXHash64Digest.avalanche((combinedLow & 0xffffffffL) ^ bitflipLow);
+				high = XXHash64Digest.avalanche((combinedHigh & 0xffffffffL) ^ bitflipHigh);
+				
+			} else {
+				low = XXHash64Digest.avalanche(readLongLE(SECRET, 64) ^ readLongLE(SECRET, 72));
+				high = XXHash64Digest.avalanche(readLongLE(SECRET, 80) ^ readLongLE(SECRET, 88));
+			}
+			
+		} else if (length <= 240) {
+			
+			long accLow = length * PRIME64_1;
+			long accHigh = 0;
+			
+			if (length <= 128) {
+				
+				final int rounds = (length - 1) / 32;
+				
+				for (int i = rounds; i >= 0; i--) {
+					int first = 16 * i;
+					int second = length - 16 * (i + 1);
+					accLow += mix16B(input, first, 32 * i);
+					accLow ^= readLongLE(input, second) + readLongLE(input, second + 8);
+					accHigh += mix16B(input, second, 32 * i + 16);
+					accHigh ^= readLongLE(input, first) + readLongLE(input, first + 8);
+				}
+				
+			} else {
+				
+				for (int i = 32; i < 160; i += 32) {
+					accLow += mix16B(input, i - 32, i - 32);
+					accLow ^= readLongLE(input, i - 16) + readLongLE(input, i - 8);
+					accHigh += mix16B(input, i - 16, i - 16);
+					accHigh ^= readLongLE(input, i - 32) + readLongLE(input, i - 24);
+				}
+				
+				accLow = avalanche(accLow);
+				accHigh = avalanche(accHigh);
+				
+				for (int i = 160; i <= length; i += 32) {
+					int secret = MIDSIZE_START_OFFSET + i - 160;
+					accLow += mix16B(input, i - 32, secret);
+					accLow ^= readLongLE(input, i - 16) + readLongLE(input, i - 8);
+					accHigh += mix16B(input, i - 16, secret + 16);
+					accHigh ^= readLongLE(input, i - 32) + readLongLE(input, i - 24);
+				}
+				
+				// last bytes, input parts are swapped
+				int secret = SECRET_SIZE_MIN - MIDSIZE_LAST_OFFSET - 16;
+				accLow += mix16B(input, length - 16, secret);
+				accLow ^= readLongLE(input, length - 32) + readLongLE(input, length - 24);
+				accHigh += mix16B(input, length - 32, secret + 16);
+				accHigh ^= readLongLE(input, length - 16) + readLongLE(input, length - 8);
+			}
+			
+			low = avalanche(accLow + accHigh);
+			high = -avalanche(accLow * PRIME64_1 + accHigh * PRIME64_4 + length * PRIME64_2);
+			
+		} else {
+			
+			hashLong(input, length);
+			
+			low = mergeAccs(SECRET_MERGE_ACCS_START, length * PRIME64_1);
+			high = mergeAccs(SECRET.length - STRIPE_LENGTH - SECRET_MERGE_ACCS_START, ~(length * PRIME64_2));
+		}
+		
+		byte[] result = new byte[16];
+		writeLongBE(high, result, 0);
+		writeLongBE(low, result, 8);
+		return result;
+	}
+	
+	private void hashLong(byte[] input, int length) {
+		
+		acc[0] = PRIME32_3;
+		acc[1] = PRIME64_1;
+		acc[2] = PRIME64_2;
+		acc[3] = PRIME64_3;
+		acc[4] = PRIME64_4;
+		acc[5] = PRIME32_2;
+		acc[6] = PRIME64_5;
+		acc[7] = PRIME32_1;
+		
+		final int stripesPerBlock = (SECRET.length - STRIPE_LENGTH) / SECRET_CONSUME_RATE;
+		final int blockLength = STRIPE_LENGTH * stripesPerBlock;
+		final int blocks = (length - 1) / blockLength;
+		
+		for (int n = 0; n < blocks; n++) {
+			accumulate(input, n * blockLength, stripesPerBlock);
+			scramble(SECRET.length - STRIPE_LENGTH);
+		}
+		
+		// last partial block
+		final int stripes = ((length - 1) - (blockLength * blocks)) / STRIPE_LENGTH;
+		accumulate(input, blocks * blockLength, stripes);
+		
+		// last stripe
+		accumulate512(input, length - STRIPE_LENGTH, SECRET.length - STRIPE_LENGTH - SECRET_LAST_ACC_START);
+	}
+	
+	private void accumulate(byte[] input, int offset, int stripes) {
+		for (int n = 0; n < stripes; n++) {
+			accumulate512(input, offset + n * STRIPE_LENGTH, n * SECRET_CONSUME_RATE);
+		}
+	}
+	
+	private void accumulate512(byte[] input, int offset, int secret) {
+		for (int i = 0; i < 8; i++) {
+			long value = readLongLE(input, offset + 8 * i);
+			long key = value ^ readLongLE(SECRET, secret + 8 * i);
+			acc[i ^ 1] += value;
+			acc[i] += (key & 0xffffffffL) * (key >>> 32);
+		}
+	}
+	
+	private void scramble(int secret) {
+		for (int i = 0; i < 8; i++) {
+			long value = acc[i];
+			value ^= value >>> 47;
+			value ^= readLongLE(SECRET, secret + 8 * i);
+			acc[i] = value * PRIME32_1;
+		}
+	}
+	
+	private long mergeAccs(int secret, long start) {
+		long result = start;
+		for (int i = 0; i < 4; i++) {
+			result += mul128Fold64(acc[2 * i] ^ readLongLE(SECRET, secret + 16 * i), acc[2 * i + 1] ^ readLongLE(SECRET, secret + 16 * i + 8));
+		}
+		return avalanche(result);
+	}
+	
+	private static long mix16B(byte[] input, int offset, int secret) {
+		return mul128Fold64(readLongLE(input, offset) ^ readLongLE(SECRET, secret), readLongLE(input, offset + 8) ^ readLongLE(SECRET, secret + 8));
+	}
+	
+	private static long mul128Fold64(long a, long b) {
+		return (a * b) ^ HashCalculation.unsignedMultiplyHigh(a, b);
+	}
+	
+	private static long avalanche(long h) {
+		h ^= h >>> 37;
+		h *= PRIME_MX1;
+		h ^= h >>> 32;
+		return h;
+	}
+	
+	private static byte[] toBytes(int[] values) {
+		byte[] bytes = new byte[values.length];
+		for (int i = 0; i < values.length; i++) {
+			bytes[i] = (byte) values[i];
+		}
+		return bytes;
+	}
+	
+}
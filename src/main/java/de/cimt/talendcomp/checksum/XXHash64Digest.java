@@ -0,0 +1,108 @@
+package de.cimt.talendcomp.checksum;
+
+/**
+ * xxHash64 (seed 0). The 8 hash bytes are in canonical (big endian) order, as printed by xxhsum.
+ */
+class XXHash64Digest extends BufferedDigest {
+	
+	static final String ALGORITHM = "XXH64";
+	
+	private static final long PRIME64_1 = 0x9E3779B185EBCA87L;
+	private static final long PRIME64_2 = 0xC2B2AE3D27D4EB4FL;
+	private static final long PRIME64_3 = 0x165667B19E3779F9L;
+	private static final long PRIME64_4 = 0x85EBCA77C2B2AE63L;
+	private static final long PRIME64_5 = 0x27D4EB2F165667C5L;
+	
+	XXHash64Digest() {
+		super(ALGORITHM);
+	}
+	
+	@Override
+	protected int engineGetDigestLength() {
+		return 8;
+	}
+
+	@Override
+	protected byte[] hash(byte[] input, int length) {
+		byte[] result = new byte[8];
+		writeLongBE(hash64(input, 0, length, 0), result, 0);
+		return result;
+	}
+	
+	static long hash64(byte[] input, int offset, int length, long seed) {
+		
+		final int end = offset + length;
+		int p = offset;
+		long h;
+		
+		if (length >= 32) {
+			
+			long v1 = seed + PRIME64_1 + PRIME64_2;
+			long v2 = seed + PRIME64_2;
+			long v3 = seed;
+			long v4 = seed - PRIME64_1;
+			
+			final int limit = end - 32;
+			
+			do {
+				v1 = round(v1, readLongLE(input, p));
+				v2 = round(v2, readLongLE(input, p + 8));
+				v3 = round(v3, readLongLE(input, p + 16));
+				v4 = round(v4, readLongLE(input, p + 24));
+				p += 32;
+			} while (p <= limit);
+			
+			h = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+			h = mergeRound(h, v1);
+			h = mergeRound(h, v2);
+			h = mergeRound(h, v3);
+			h = mergeRound(h, v4);
+			
+		} else {
+			h = seed + PRIME64_5;
+		}
+		
+		h += length;
+		
+		while (p + 8 <= end) {
+			h ^= round(0, readLongLE(input, p));
+			h = Long.rotateLeft(h, 27) * PRIME64_1 + PRIME64_4;
+			p += 8;
+		}
+		
+		if (p + 4 <= end) {
+			h ^= readIntLE(input, p) * PRIME64_1;
+			h = Long.rotateLeft(h, 23) * PRIME64_2 + PRIME64_3;
+			p += 4;
+		}
+		
+		while (p < end) {
+			h ^= (input[p] & 0xffL) * PRIME64_5;
+			h = Long.rotateLeft(h, 11) * PRIME64_1;
+			p++;
+		}
+		
+		return avalanche(h);
+	}
+	
+	static long avalanche(long h) {
+		h ^= h >>> 33;
+		h *= PRIME64_2;
+		h ^= h >>> 29;
+		h *= PRIME64_3;
+		h ^= h >>> 32;
+		return h;
+	}
+	
+	private static long round(long acc, long input) {
+		acc += input * PRIME64_2;
+		acc = Long.rotateLeft(acc, 31);
+		return acc * PRIME64_1;
+	}
+	
+	private static long mergeRound(long acc, long value) {
+		acc ^= round(0, value);
+		return acc * PRIME64_1 + PRIME64_4;
+	}
+	
+}
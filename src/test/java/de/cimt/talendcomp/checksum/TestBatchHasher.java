@@ -0,0 +1,178 @@
+package de.cimt.talendcomp.checksum;
+
+import static org.junit.Assert.*;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import de.cimt.talendcomp.checksum.BatchHasher.Batch;
+import de.cimt.talendcomp.checksum.HashCalculation.HASH_OUTPUT_ENCODINGS;
+
+public class TestBatchHasher {
+
+	private static final int ROWS = 1000;
+
+	private NormalizeConfig config = new NormalizeConfig(";", "", true, "\"", "yyyy-MM-dd'T'HH:mm:ss.SSS", "ENGLISH", 7, 15, true, "00000000000000000000000000000000", false, true);
+	private NormalizeObjectConfig itemConfig = new NormalizeObjectConfig("UPPER_CASE", true);
+
+	private long[] longs = new long[ROWS];
+	private long[] longNulls = Batch.newNullBitmap(ROWS);
+	private double[] doubles = new double[ROWS];
+	private long[] doubleNulls = Batch.newNullBitmap(ROWS);
+	private String[] strings = new String[ROWS];
+	private Object[] objects = new Object[ROWS];
+
+	public TestBatchHasher() {
+
+		Random random = new Random(24);
+
+		for (int i = 0; i < ROWS; i++) {
+
+			longs[i] = random.nextLong();
+			doubles[i] = random.nextDouble() * 1000;
+			strings[i] = i % 5 == 0 ? null : " value \"" + random.nextInt(100) + "\" ";
+
+			switch (i % 4) {
+			case 0: objects[i] = null; break;
+			case 1: objects[i] = new BigDecimal(random.nextInt(100000)).movePointLeft(2); break;
+			case 2: objects[i] = new Date(random.nextInt() * 1000L); break;
+			default: objects[i] = Integer.valueOf(random.nextInt());
+			}
+
+			if (i % 3 == 0)
+				Batch.setNull(longNulls, i);
+
+			// rows with all values null and trailing nulls
+			if (i % 7 == 0)
+				Batch.setNull(doubleNulls, i);
+		}
+	}
+
+	private Batch batch() {
+		return new Batch(ROWS)
+				.addLongs(longs, longNulls)
+				.addStrings(strings, null, itemConfig)
+				.addDoubles(doubles, doubleNulls)
+				.addObjects(objects, null, itemConfig);
+	}
+
+	private Normalization row(Normalization normalization, int i) {
+
+		normalization.reset();
+
+		if (Batch.isNull(longNulls, i))
+			normalization.add(null, itemConfig);
+		else
+			normalization.add(longs[i]);
+
+		normalization.add(strings[i], itemConfig);
+
+		if (Batch.isNull(doubleNulls, i))
+			normalization.add(null, itemConfig);
+		else
+			normalization.add(doubles[i]);
+
+		normalization.add(objects[i], itemConfig);
+		return normalization;
+	}
+
+	@Test
+	public void testStringsEqualRowByRow() {
+
+		Hasher hasher = new Hasher("MD5", HASH_OUTPUT_ENCODINGS.HEX);
+		Normalization normalization = new Normalization(config, hasher, false);
+		String[] hashes = new BatchHasher(config, hasher).hash(batch());
+
+		assertEquals(ROWS, hashes.length);
+
+		for (int i = 0; i < ROWS; i++) {
+			assertEquals("row " + i, row(normalization, i).calculateHash(), hashes[i]);
+		}
+	}
+
+	@Test
+	public void testBytesEqualRowByRow() {
+
+		Hasher hasher = new Hasher("SHA-256", HASH_OUTPUT_ENCODINGS.RAW);
+		Normalization normalization = new Normalization(config, hasher, false);
+		BatchHasher batchHasher = new BatchHasher(config, hasher);
+		byte[] hashes = batchHasher.hashBytes(batch());
+
+		assertEquals(32, batchHasher.getHashLength());
+		assertEquals(ROWS * 32, hashes.length);
+
+		for (int i = 0; i < ROWS; i++) {
+			// the replacement of an empty base has 16 bytes and is padded
+			assertArrayEquals("row " + i, Arrays.copyOf(row(normalization, i).calculateHashBytes(), 32), Arrays.copyOfRange(hashes, i * 32, i * 32 + 32));
+		}
+	}
+
+	@Test
+	public void testForkJoin() {
+
+		Hasher hasher = new Hasher("MD5", HASH_OUTPUT_ENCODINGS.BASE64);
+		ForkJoinPool pool = new ForkJoinPool(4);
+
+		try {
+			String[] sequential = new BatchHasher(config, hasher).hash(batch());
+			BatchHasher parallel = new BatchHasher(config, hasher, pool, 64);
+
+			assertArrayEquals(sequential, parallel.hash(batch()));
+			// the buffers of the threads are reused
+			assertArrayEquals(sequential, parallel.hash(batch()));
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void testMultiBufferEqualsRowByRow() {
+
+		for (String algorithm : new String[] {"MD5", "SHA-256"}) {
+
+			Hasher hasher = new Hasher(algorithm, HASH_OUTPUT_ENCODINGS.HEX);
+			BatchHasher batchHasher = new BatchHasher(config, hasher);
+			String[] expected = batchHasher.hash(batch());
+			byte[] expectedBytes = batchHasher.hashBytes(batch());
+
+			batchHasher.setMultiBufferLanes(8);
+
+			assertArrayEquals(algorithm, expected, batchHasher.hash(batch()));
+			assertArrayEquals(algorithm, expectedBytes, batchHasher.hashBytes(batch()));
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testMultiBufferOfUnsupportedAlgorithm() {
+		new BatchHasher(config, new Hasher("SHA1", HASH_OUTPUT_ENCODINGS.HEX)).setMultiBufferLanes(4);
+	}
+
+	@Test
+	public void testEmptyBaseIsModified() {
+
+		Hasher hasher = new Hasher("MD5", HASH_OUTPUT_ENCODINGS.HEX);
+		long[] nulls = Batch.newNullBitmap(2);
+		Batch.setNull(nulls, 1);
+
+		String[] hashes = new BatchHasher(config, hasher).hash(new Batch(2).addLongs(new long[] {1, 2}, nulls));
+
+		assertEquals(HashCalculation.getMD5Hash("1", HASH_OUTPUT_ENCODINGS.HEX), hashes[0]);
+		assertEquals("00000000000000000000000000000000", hashes[1]);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testShortColumn() {
+		new Batch(10).addLongs(new long[9], null);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testStringsOfRawEncoding() {
+		new BatchHasher(config, new Hasher("MD5", HASH_OUTPUT_ENCODINGS.RAW)).hash(new Batch(1));
+	}
+
+}
@@ -0,0 +1,182 @@
+package de.cimt.talendcomp.checksum;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import de.cimt.talendcomp.checksum.ChangeDetector.Change;
+
+public class TestChangeDetector {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testTwoRuns() throws IOException {
+
+		File snapshot = new File(folder.getRoot(), "customers.snapshot");
+		File deletedKeys = new File(folder.getRoot(), "deleted.txt");
+
+		ChangeDetector first = new ChangeDetector(snapshot, snapshot);
+		assertEquals(Change.INSERT, first.classify("00000000000000000000000000000001", "a"));
+		assertEquals(Change.INSERT, first.classify("00000000000000000000000000000002", "b"));
+		assertEquals(Change.INSERT, first.classify("00000000000000000000000000000003", "c"));
+		// the all zero key is stored in the header
+		assertEquals(Change.INSERT, first.classify("00000000000000000000000000000000", null));
+		assertEquals(0, first.finish(deletedKeys));
+		first.close();
+
+		assertEquals(4, first.getInserts());
+		assertEquals(0, deletedKeys.length());
+		assertTrue(snapshot.exists());
+
+		ChangeDetector second = new ChangeDetector(snapshot, snapshot);
+		assertEquals(Change.UNCHANGED, second.classify("00000000000000000000000000000001", "a"));
+		assertEquals(Change.UPDATE, second.classify("00000000000000000000000000000002", "x"));
+		assertEquals(Change.INSERT, second.classify("00000000000000000000000000000004", "d"));
+		assertEquals(Change.UNCHANGED, second.classify("00000000000000000000000000000000", null));
+		assertEquals(1, second.finish(deletedKeys));
+		second.close();
+
+		assertEquals(1, second.getInserts());
+		assertEquals(1, second.getUpdates());
+		assertEquals(2, second.getUnchanged());
+		assertEquals(1, second.getDeleted());
+		assertEquals(Arrays.asList("00000000000000000000000000000003"), Files.readAllLines(deletedKeys.toPath(), StandardCharsets.UTF_8));
+
+		HashSnapshot result = new HashSnapshot(snapshot);
+		assertEquals(4, result.size());
+		assertEquals(Hash128.of("x"), result.getDiff(Hash128.of("00000000000000000000000000000002")));
+		assertNull(result.getDiff(Hash128.of("00000000000000000000000000000003")));
+		assertEquals(new Hash128(0, 0), result.getDiff(new Hash128(0, 0)));
+		result.close();
+	}
+
+	@Test
+	public void testManyKeys() throws IOException {
+
+		File snapshot = folder.newFile("many.snapshot");
+		snapshot.delete();
+		Random random = new Random(20);
+		int keys = 100000;
+
+		HashSnapshot.Writer writer = new HashSnapshot.Writer(snapshot);
+
+		for (int i = 0; i < keys; i++) {
+			writer.add(random.nextLong(), i, 0, i);
+		}
+
+		// the last diff of a key wins
+		writer.add(new Hash128(42, 42), new Hash128(1, 1));
+		writer.add(new Hash128(42, 42), new Hash128(2, 2));
+
+		assertEquals(keys + 1, writer.finish());
+		writer.close();
+
+		HashSnapshot read = new HashSnapshot(snapshot);
+		assertEquals(keys + 1, read.size());
+		assertTrue(read.getCapacity() * 0.7 >= read.size());
+
+		random = new Random(20);
+
+		for (int i = 0; i < keys; i++) {
+			assertEquals(new Hash128(0, i), read.getDiff(new Hash128(random.nextLong(), i)));
+		}
+
+		assertEquals(new Hash128(2, 2), read.getDiff(new Hash128(42, 42)));
+		assertFalse(read.contains(new Hash128(42, 43)));
+		read.close();
+	}
+
+	@Test
+	public void testHashOutputs() throws IOException {
+
+		NormalizeConfig config = new NormalizeConfig(";", "", true, "\"", "yyyy-MM-dd'T'HH:mm:ss.SSS", "ENGLISH", 7, 15, false, null, false, false);
+		NormalizeObjectConfig itemConfig = new NormalizeObjectConfig("CASE_SENSITIVE", false);
+		Normalization key = new Normalization(config, new Hasher("MD5", HashCalculation.HASH_OUTPUT_ENCODINGS.BASE64), false);
+		Normalization diff = new Normalization(config, new Hasher("SHA-256", HashCalculation.HASH_OUTPUT_ENCODINGS.RAW), false);
+		File snapshot = new File(folder.getRoot(), "outputs.snapshot");
+
+		for (int run = 0; run < 2; run++) {
+
+			ChangeDetector detector = new ChangeDetector(snapshot, snapshot);
+
+			for (int i = 0; i < 10; i++) {
+				key.reset();
+				key.add(i, itemConfig);
+				diff.reset();
+				diff.add("value " + (i < 5 ? run : 0), itemConfig);
+
+				Change change = detector.classify(key.calculateHashValue(), diff.calculateHashValue());
+
+				assertEquals(run == 0 ? Change.INSERT : i < 5 ? Change.UPDATE : Change.UNCHANGED, change);
+			}
+
+			assertEquals(0, detector.finish(null));
+			detector.close();
+		}
+	}
+
+	@Test
+	public void testWithoutSnapshots() throws IOException {
+
+		ChangeDetector detector = new ChangeDetector(null, null);
+		assertEquals(Change.INSERT, detector.classify("a", "b"));
+		assertEquals(Change.INSERT, detector.classify("a", "b"));
+		assertEquals(0, detector.finish(null));
+		detector.close();
+	}
+
+	@Test
+	public void testUnfinishedSnapshotIsDiscarded() throws IOException {
+
+		File snapshot = new File(folder.getRoot(), "failed.snapshot");
+		ChangeDetector detector = new ChangeDetector(null, snapshot);
+		detector.classify("a", "b");
+		detector.close();
+
+		assertFalse(snapshot.exists());
+		assertEquals(0, folder.getRoot().list().length);
+	}
+
+	@Test
+	public void testStaleTempFilesAreDeleted() throws IOException {
+
+		File snapshot = new File(folder.getRoot(), "failed.snapshot");
+		File other = folder.newFile("failed.snapshot.new123.log");
+
+		// a run which failed without closing the detector
+		ChangeDetector failed = new ChangeDetector(null, snapshot);
+		failed.classify("a", "b");
+		assertEquals(2, folder.getRoot().list().length);
+
+		ChangeDetector detector = new ChangeDetector(null, snapshot);
+		detector.classify("a", "c");
+		assertEquals(0, detector.finish(null));
+		detector.close();
+
+		assertTrue(other.exists());
+		assertEquals(2, folder.getRoot().list().length);
+		HashSnapshot written = new HashSnapshot(snapshot);
+		assertEquals(Hash128.of("c"), written.getDiff(Hash128.of("a")));
+		written.close();
+	}
+
+	@Test(expected = IOException.class)
+	public void testNoSnapshot() throws IOException {
+
+		File file = folder.newFile("no.snapshot");
+		Files.write(file.toPath(), new byte[100]);
+		new HashSnapshot(file);
+	}
+
+}
@@ -0,0 +1,175 @@
+package de.cimt.talendcomp.checksum;
+
+import static org.junit.Assert.*;
+
+import java.math.BigDecimal;
+import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import de.cimt.talendcomp.checksum.HashCalculation.HASH_OUTPUT_ENCODINGS;
+
+public class TestConcurrentHasher {
+
+	private static final int THREADS = 16;
+	private static final int ROWS = 5000;
+
+	private static final List<Class<?>> TYPES = Arrays.<Class<?>>asList(String.class, Integer.class, Long.class, Double.class, Float.class,
+			Date.class, BigDecimal.class, Boolean.class, Object.class);
+
+	private static List<NormalizeObjectConfig> itemConfigs() {
+
+		List<NormalizeObjectConfig> itemConfigs = new ArrayList<NormalizeObjectConfig>();
+
+		for (int i = 0; i < TYPES.size(); i++) {
+			itemConfigs.add(new NormalizeObjectConfig(i % 2 == 0 ? "UPPER_CASE" : "CASE_SENSITIVE", i % 3 == 0));
+		}
+
+		return itemConfigs;
+	}
+
+	/**
+	 * Config whose number and date formats are not thread safe on their own:
+	 * a replaced integer format, a double format beyond the fast path and a date pattern for SimpleDateFormat
+	 */
+	private static NormalizeConfig newConfig() {
+
+		NormalizeConfig config = new NormalizeConfig(";", "#NULL#", true, "\"", "EEE, d MMM yyyy HH:mm:ss.SSS", "GERMAN", 7, 20, false, null, false, true);
+		NumberFormat integerFormat = NumberFormat.getIntegerInstance(Locale.GERMAN);
+		integerFormat.setGroupingUsed(true);
+		config.setIntegerFormat(integerFormat);
+
+		return config;
+	}
+
+	private static Object[][] rows() {
+
+		Random random = new Random(12);
+		Object[][] rows = new Object[ROWS][];
+
+		for (int r = 0; r < ROWS; r++) {
+			rows[r] = new Object[] {
+					random.nextInt(4) == 0 ? null : "value " + random.nextInt(1000),
+					random.nextInt(),
+					random.nextInt(4) == 0 ? null : random.nextLong(),
+					random.nextGaussian() * 1e5,
+					(float) random.nextGaussian(),
+					new Date(random.nextLong() >> 23),
+					new BigDecimal(random.nextGaussian()),
+					random.nextBoolean(),
+					random.nextInt(4) == 0 ? null : Long.valueOf(random.nextInt())};
+		}
+
+		return rows;
+	}
+
+	@Test
+	public void testManyThreads() throws Exception {
+
+		final Object[][] rows = rows();
+		final String[] expected = new String[ROWS];
+		final List<NormalizeObjectConfig> itemConfigs = itemConfigs();
+
+		// single threaded reference with an own config
+		Normalization reference = new Normalization(newConfig());
+
+		for (int r = 0; r < ROWS; r++) {
+
+			reference.reset();
+
+			for (int i = 0; i < TYPES.size(); i++) {
+				reference.add(rows[r][i], itemConfigs.get(i));
+			}
+
+			expected[r] = reference.calculateHash("SHA-256", HASH_OUTPUT_ENCODINGS.BASE64);
+		}
+
+		for (final boolean streaming : new boolean[] {false, true}) {
+
+			final ConcurrentHasher hasher = new ConcurrentHasher(newConfig(), new Hasher("SHA-256", HASH_OUTPUT_ENCODINGS.BASE64), streaming, itemConfigs, TYPES);
+			final CountDownLatch start = new CountDownLatch(1);
+			ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+			try {
+				List<Future<Integer>> results = new ArrayList<Future<Integer>>();
+
+				for (int t = 0; t < THREADS; t++) {
+
+					final int offset = t * 313;
+
+					results.add(executor.submit(new Callable<Integer>() {
+						@Override
+						public Integer call() throws Exception {
+
+							start.await();
+							int mismatches = 0;
+
+							for (int n = 0; n < ROWS; n++) {
+
+								int r = (n + offset) % ROWS;
+
+								if (expected[r].equals(hasher.hash(rows[r])) == false)
+									mismatches++;
+							}
+
+							return mismatches;
+						}
+					}));
+				}
+
+				start.countDown();
+
+				for (Future<Integer> result : results) {
+					assertEquals("mismatches streaming=" + streaming, 0, result.get().intValue());
+				}
+			} finally {
+				executor.shutdown();
+			}
+		}
+	}
+
+	@Test
+	public void testFrozenConfig() {
+
+		NormalizeConfig config = newConfig();
+		new ConcurrentHasher(config, new Hasher("MD5", HASH_OUTPUT_ENCODINGS.HEX), false, itemConfigs(), TYPES);
+
+		assertTrue(config.isFrozen());
+
+		try {
+			config.setDelimter("|");
+			fail("frozen config changed");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+
+		// changes of the returned formats do not affect the config
+		config.getIntegerFormat().setGroupingUsed(false);
+		assertTrue(config.getIntegerFormat().isGroupingUsed());
+	}
+
+	@Test
+	public void testNormalize() {
+
+		List<Class<?>> types = Arrays.<Class<?>>asList(String.class, Integer.class);
+		List<NormalizeObjectConfig> itemConfigs = Arrays.asList(new NormalizeObjectConfig("UPPER_CASE", true), new NormalizeObjectConfig("CASE_SENSITIVE", false));
+		ConcurrentHasher hasher = new ConcurrentHasher(newConfig(), new Hasher("MD5", HASH_OUTPUT_ENCODINGS.HEX), false, itemConfigs, types);
+
+		// the item configs are copied
+		itemConfigs.get(0).setTrimming(false);
+
+		assertEquals("\"ABC\";1.234", hasher.normalize(new Object[] {" abc ", 1234}));
+	}
+
+}
@@ -0,0 +1,148 @@
+package de.cimt.talendcomp.checksum;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class TestDatasetFingerprint {
+
+	private static List<Hash128> rows(int count, long seed) {
+
+		Random random = new Random(seed);
+		List<Hash128> rows = new ArrayList<Hash128>();
+
+		for (int i = 0; i < count; i++) {
+			rows.add(new Hash128(random.nextLong(), random.nextLong()));
+		}
+
+		return rows;
+	}
+
+	private static DatasetFingerprint fingerprint(List<Hash128> rows, int bucketBits) {
+
+		DatasetFingerprint fingerprint = new DatasetFingerprint(bucketBits);
+
+		for (Hash128 row : rows) {
+			fingerprint.add(row);
+		}
+
+		return fingerprint;
+	}
+
+	@Test
+	public void testOrderIndependent() {
+
+		List<Hash128> rows = rows(1000, 23);
+		DatasetFingerprint ordered = fingerprint(rows, 4);
+		Collections.shuffle(rows, new Random(1));
+		DatasetFingerprint shuffled = fingerprint(rows, 4);
+
+		assertEquals(1000, shuffled.getCount());
+		assertEquals(64, shuffled.getFingerprint().length());
+		assertEquals(ordered.getFingerprint(), shuffled.getFingerprint());
+		assertEquals(ordered.getRoot(), shuffled.getRoot());
+		assertTrue(DatasetFingerprint.diff(ordered, shuffled).isEmpty());
+	}
+
+	@Test
+	public void testSumWithCarry() {
+
+		DatasetFingerprint fingerprint = new DatasetFingerprint();
+		fingerprint.add(0, -1);
+		fingerprint.add(0, 1);
+		fingerprint.add(-1, 0);
+
+		// (2^64 - 1) + 1 + (2^128 - 2^64) = 2^128 = 0
+		assertEquals(new Hash128(0, 0), fingerprint.getSum());
+		assertEquals(new Hash128(-1, -2), fingerprint.getXor());
+	}
+
+	@Test
+	public void testDuplicateChangesSum() {
+
+		List<Hash128> rows = rows(10, 5);
+		DatasetFingerprint once = fingerprint(rows, 0);
+		rows.add(rows.get(3));
+		rows.add(rows.get(3));
+		DatasetFingerprint twice = fingerprint(rows, 0);
+
+		// the XOR cancels the pair, the sum does not
+		assertEquals(once.getXor(), twice.getXor());
+		assertNotEquals(once.getSum(), twice.getSum());
+		assertEquals(Arrays.asList(0), DatasetFingerprint.diff(once, twice));
+	}
+
+	@Test
+	public void testDiffFindsBuckets() {
+
+		List<Hash128> source = rows(10000, 42);
+		List<Hash128> target = new ArrayList<Hash128>(source);
+		Hash128 missing = target.remove(500);
+		Hash128 changed = target.set(7000, new Hash128(0x1234L << 48, 99));
+
+		DatasetFingerprint a = fingerprint(source, 8);
+		DatasetFingerprint b = fingerprint(target, 8);
+
+		assertNotEquals(a.getRoot(), b.getRoot());
+
+		List<Integer> expected = new ArrayList<Integer>();
+		expected.add(a.getBucket(missing.getHigh()));
+		expected.add(a.getBucket(changed.getHigh()));
+		expected.add(a.getBucket(0x1234L << 48));
+		Collections.sort(expected);
+
+		assertEquals(expected, DatasetFingerprint.diff(a, b));
+		assertEquals(a.getCount() - 1, b.getCount());
+	}
+
+	@Test
+	public void testMergePartitions() {
+
+		List<Hash128> rows = rows(1000, 7);
+		DatasetFingerprint all = fingerprint(rows, 6);
+		DatasetFingerprint first = fingerprint(rows.subList(0, 400), 6);
+		first.merge(fingerprint(rows.subList(400, 1000), 6));
+
+		assertEquals(all.getCount(), first.getCount());
+		assertEquals(all.getFingerprint(), first.getFingerprint());
+		assertEquals(all.getRoot(), first.getRoot());
+	}
+
+	@Test
+	public void testHashOutputs() throws IOException, ClassNotFoundException {
+
+		DatasetFingerprint fingerprint = new DatasetFingerprint(2);
+		fingerprint.addValue("ffffffffffffffff0000000000000001");
+		fingerprint.addValue(null);
+
+		assertEquals(2, fingerprint.getCount());
+		assertEquals(1, fingerprint.getNullCount());
+		assertEquals(3, fingerprint.getBucketOfValue("ffffffffffffffff0000000000000001"));
+		assertEquals(1, fingerprint.getBucketRowCount(3));
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(bytes);
+		out.writeObject(fingerprint);
+		out.close();
+
+		DatasetFingerprint read = (DatasetFingerprint) new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).readObject();
+		assertEquals(fingerprint.getRoot(), read.getRoot());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testDifferentBuckets() {
+		DatasetFingerprint.diff(new DatasetFingerprint(2), new DatasetFingerprint(3));
+	}
+
+}
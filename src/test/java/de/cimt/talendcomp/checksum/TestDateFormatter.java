@@ -0,0 +1,97 @@
+package de.cimt.talendcomp.checksum;
+
+import static org.junit.Assert.*;
+
+import java.sql.Timestamp;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Random;
+import java.util.TimeZone;
+
+import org.junit.Test;
+
+public class TestDateFormatter {
+
+	/**
+	 * the first patterns are formatted without SimpleDateFormat
+	 */
+	private static final String[] PATTERNS = {"yyyy-MM-dd'T'HH:mm:ss.SSS", "yyyyMMdd", "dd.MM.yy HH:mm", "y-M-d H:m:s.S", "yyyy-MM-dd''HH 'o''clock'",
+			"SSSS ss", "yyyyy", "'date' yyyy", "EEE, d MMM yyyy", "yyyy-MM-dd HH:mm:ss Z", "hh:mm a"};
+	private static final int FAST_PATTERNS = 8;
+
+	private static final String[] TIME_ZONES = {"Europe/Berlin", "UTC", "America/New_York", "Asia/Kolkata", "Australia/Lord_Howe", "Pacific/Apia"};
+
+	@Test
+	public void testSameAsSimpleDateFormat() {
+
+		TimeZone defaultTimeZone = TimeZone.getDefault();
+		Random random = new Random(1582);
+
+		try {
+			for (String timeZone : TIME_ZONES) {
+
+				TimeZone.setDefault(TimeZone.getTimeZone(timeZone));
+
+				for (int p = 0; p < PATTERNS.length; p++) {
+
+					String pattern = PATTERNS[p];
+					DateFormatter formatter = new DateFormatter(pattern);
+					SimpleDateFormat simpleDateFormat = new SimpleDateFormat(pattern);
+
+					assertEquals(pattern, p < FAST_PATTERNS, formatter.isFast());
+
+					for (int i = 0; i < 20000; i++) {
+
+						long millis;
+
+						if (i % 4 == 0) // around 1970 to 2100
+							millis = (long) (random.nextDouble() * 4102444800000L);
+						else if (i % 4 == 1) // full hours, e.g. daylight saving time transitions
+							millis = (random.nextInt(2000000) - 1000000) * 3600000L;
+						else // year 1000 to 12000
+							millis = (long) ((random.nextDouble() * 11000 - 970) * 365.2425 * 86400000);
+
+						Date date = i % 7 == 0 ? new Timestamp(millis) : new Date(millis);
+						String expected = simpleDateFormat.format(date);
+
+						assertEquals(pattern + " " + timeZone + " " + millis, expected, formatter.format(date));
+
+						StringBuilder sb = new StringBuilder("x");
+						formatter.format(date, sb);
+						assertEquals("x" + expected, sb.toString());
+					}
+				}
+			}
+		} finally {
+			TimeZone.setDefault(defaultTimeZone);
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidPattern() {
+		new DateFormatter("yyyy-MM-dd'T");
+	}
+
+	@Test
+	public void testConfigCache() {
+
+		NormalizeConfig config = new NormalizeConfig(";", "", true, "\"", "yyyy-MM-dd", "ENGLISH", 7, 15, false, null, false, false);
+
+		DateFormatter formatter = config.getDateFormatter();
+		assertSame(formatter, config.getDateFormatter());
+
+		config.setDateFormat("yyyyMMdd");
+		assertEquals("yyyyMMdd", config.getDateFormatter().getPattern());
+
+		Normalization normalization = new Normalization(config);
+		Date date = new Date(1234567890123L);
+		normalization.add(date);
+		normalization.add(date, new NormalizeObjectConfig("CASE_SENSITIVE", false));
+		normalization.add((Date) null);
+
+		String expected = new SimpleDateFormat("yyyyMMdd").format(date);
+		assertEquals(expected + ";" + expected + ";", normalization.getNormalizedString());
+		assertEquals(expected, normalization.normalize(date));
+	}
+
+}
@@ -0,0 +1,121 @@
+package de.cimt.talendcomp.checksum;
+
+import static org.junit.Assert.*;
+
+import java.text.NumberFormat;
+import java.util.Locale;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class TestDecimalFormatter {
+
+	private static NumberFormat newFormat(Locale locale, int maxFraction) {
+		NumberFormat format = NumberFormat.getNumberInstance(locale);
+		format.setGroupingUsed(false);
+		format.setMinimumFractionDigits(0);
+		format.setMaximumFractionDigits(maxFraction);
+		return format;
+	}
+
+	private static void assertSameAsNumberFormat(NumberFormat format, DecimalFormatter formatter, double value) {
+
+		String expected = format.format(value);
+
+		assertEquals("value " + value, expected, formatter.format(value));
+
+		StringBuilder sb = new StringBuilder("x");
+		formatter.format(value, sb);
+		assertEquals("value " + value, "x" + expected, sb.toString());
+	}
+
+	@Test
+	public void testSpecialValues() {
+
+		double[] values = {0d, -0d, 1d, -1d, 0.5, 1.5, 2.5, -2.5, 0.125, 0.135, 1.005, 0.1, 0.2, 0.3, 1e-7, 5e-8, -5e-8, 123456789.123456789,
+				4503599627370495.5, 4503599627370496d, 9007199254740993d, 1e20, -1e20, Double.MIN_VALUE, -Double.MIN_VALUE, Double.MIN_NORMAL,
+				Double.MAX_VALUE, Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, 0.1f, 3.4028235e38f, 1.4e-45f};
+
+		for (Locale locale : new Locale[] {Locale.ENGLISH, Locale.GERMAN, Locale.US}) {
+			for (int maxFraction = 0; maxFraction <= 20; maxFraction++) {
+
+				NumberFormat format = newFormat(locale, maxFraction);
+				DecimalFormatter formatter = new DecimalFormatter(format);
+
+				assertEquals(maxFraction <= 18, formatter.isFast());
+
+				for (double value : values) {
+					assertSameAsNumberFormat(format, formatter, value);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Compares a few million values of typical and random magnitudes with the number format
+	 */
+	@Test
+	public void testDifferential() {
+
+		Random random = new Random(20181017);
+		int[] fractionSizes = {0, 1, 2, 3, 7, 15, 18};
+
+		for (int f = 0; f < fractionSizes.length; f++) {
+
+			Locale locale = f % 2 == 0 ? Locale.ENGLISH : Locale.GERMAN;
+			NumberFormat format = newFormat(locale, fractionSizes[f]);
+			DecimalFormatter formatter = new DecimalFormatter(format);
+
+			for (int i = 0; i < 300000; i++) {
+
+				double value;
+
+				switch (i % 5) {
+				case 0:
+					// arbitrary bit pattern
+					value = Double.longBitsToDouble(random.nextLong());
+					break;
+				case 1:
+					// decimal value with a few fraction digits, e.g. amounts and measurements
+					value = Math.round(random.nextGaussian() * 1e9) / Math.pow(10, random.nextInt(10));
+					break;
+				case 2:
+					// midpoint of the rounding position
+					value = (random.nextInt(2000000) - 1000000 + 0.5) / Math.pow(10, fractionSizes[f]);
+					break;
+				case 3:
+					// float widened to double
+					value = (float) (random.nextGaussian() * Math.pow(10, random.nextInt(20) - 10));
+					break;
+				default:
+					value = random.nextDouble() * Math.pow(10, random.nextInt(40) - 20) * (random.nextBoolean() ? 1 : -1);
+				}
+
+				assertSameAsNumberFormat(format, formatter, value);
+			}
+		}
+	}
+
+	@Test
+	public void testNormalizationUsesFormatter() {
+
+		NormalizeConfig config = new NormalizeConfig(";", "", true, "\"", "yyyy-MM-dd'T'HH:mm:ss.SSS", "GERMAN", 2, 3, false, null, false, false);
+		NormalizeObjectConfig itemConfig = new NormalizeObjectConfig("CASE_SENSITIVE", false);
+
+		Normalization normalization = new Normalization(config);
+		normalization.add(1.0005d);
+		normalization.add(Double.valueOf(-0.0004));
+		normalization.add(0.125f);
+		normalization.add(Float.valueOf(2.5f), itemConfig);
+
+		assertEquals("1;-0;0,12;2,5", normalization.getNormalizedString());
+
+		// replaced formats are used as well
+		config.setDoubleFormat(newFormat(Locale.ENGLISH, 1));
+		normalization.reset();
+		normalization.add(1.25d);
+
+		assertEquals("1.2", normalization.getNormalizedString());
+	}
+
+}
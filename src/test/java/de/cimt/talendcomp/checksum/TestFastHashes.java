@@ -0,0 +1,112 @@
+package de.cimt.talendcomp.checksum;
+
+import static org.junit.Assert.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import org.junit.Test;
+
+import de.cimt.talendcomp.checksum.HashCalculation.HASH_OUTPUT_ENCODINGS;
+
+public class TestFastHashes {
+	
+	/**
+	 * length of the input (bytes i % 251), xxHash64, XXH3 128 and MurmurHash3 x64 128. 
+	 * The lengths cover every code path of the algorithms.
+	 */
+	private static final Object[][] VECTORS = {
+			{1, "e934a84adb052768", "a6cd5e9392000f6ac44bdff4074eecdb", "b55cff6ee5ab10468335f878aa2d6251"},
+			{3, "e5c7bb4533bc65dd", "e3b55f57945a17cf5f4299fc161c9cbb", "bee653ef2fa172b8b696b352c25562fb"},
+			{4, "ffced8604453cc1e", "eb70bf5fc779e9e6a6111d53e80a3db5", "10afdf0dae94c5e1e2fdc213bd05d6d3"},
+			{8, "884a173614b81b8d", "e1e4432a62217fe4cfd50c61c8bb98c1", "c82f8ed6bde1a747c7dc31ec02eee660"},
+			{9, "67d85784a7c78c5b", "16c769d83e4aebce907931979dca3746", "322d816e0fcbb4fbb9ff00021d75de78"},
+			{16, "44b6ef2fb84169f7", "72950631827607e2842812cc870dcae2", "303f9091b524494445e82f76566490ab"},
+			{17, "5603e60c527599b6", "685bc458b37d057fc06e233df7729217", "0ec2e79f0ff4765c24a8da9e6b025fc1"},
+			{31, "c346d2b59b4d8ee1", "4ed3946d393b687bb54de3993874ed20", "94d02ca3e1d33d05905400b4ef9ae59e"},
+			{32, "cbf59c5116ff32b4", "25e7c9b3424ceed2457d9566b6fcd697", "0f502fb622906dc65111c3346e0a051c"},
+			{33, "0c535d1acafb8ead", "02175c3aabb00637e08d84951339de86", "1246bafa1b28417d0ba3d6a77380ac55"},
+			{64, "f7c67301db6713f0", "9c6e140a465545e590c1971ddb04ce74", "0123818d2d52d5ffa18e3356eb3822a2"},
+			{65, "c31eb63b2ae4465b", "ebedf05eeadc28f11aee64a1615de88f", "e21e984d019136d08efc5b38b08258bd"},
+			{96, "450baa11f6739216", "c57556e9ccb97efa6e53ab55b4f5558b", "30cd1cdc838f936a9b83244bbf522a10"},
+			{97, "c93ec3db0dd47e34", "9b09227e063da5a25b3284a61f91e97d", "4523549dc435bfc105157dae86069761"},
+			{128, "7a7fe14647b9ab92", "14792fc3af88dc6c05321a0b64d67b41", "537ef1a53b4dd7952e808db6afa7a0ab"},
+			{129, "0ba25dfd6e891fcf", "dd5e74ac6b45f54ebc30b63382b09a3b", "e5af6fdc48d6675388233ca8627cfe63"},
+			{160, "9ba821897a2bb299", "4e95c1cd6dc7bb85c67fcd13c31b09f4", "7d44860216303c4327fd72e7591f3081"},
+			{240, "012947f0da6a27b1", "65b5be86da5540e7c92b68e16f83bbb6", "46f2b0af1279b60c5b2cd7ebb331668a"},
+			{241, "8d643f23bf2808e1", "1da1cb61bcb8a2a102e8cd95421c6d02", "0f6d68a60d5eb3423b69c1b32642a09e"},
+			{1024, "138e26c65048ce29", "d0ac1f7b93bf57b9e5d78bafa45b2aa5", "47db36fd76caf30a593eedf2ed69b8e4"},
+			{1025, "cfd73aedd2d6a39d", "2882ebca04ec915ce95c42288f28186e", "876e9ec63ae6ac83372d834685552068"},
+			{2049, "27858160679416ba", "39a54bc93f74921b6c9600c0e506e2ae", "be22ed7d28f7a7d65b1cf084c02b2ac7"},
+	};
+
+	@Test
+	public void testPublishedVectors() {
+		
+		// xxHash64 and XXH3 128 of the empty input, seed 0 (xxhash reference test suite)
+		assertEquals("ef46db3751d8e999", hash("XXH64", ""));
+		assertEquals("99aa06d3014798d86001c324468d497f", hash("XXH3-128", ""));
+		
+		// MurmurHash3 x64 128 of the empty input and the pangram, seed 0
+		assertEquals("00000000000000000000000000000000", hash("MURMUR3-128", ""));
+		assertEquals("6c1b07bc7bbc4be347939ac4a93c437a", hash("MURMUR3-128", "The quick brown fox jumps over the lazy dog"));
+		
+		assertEquals("44bc2cf5ad770999", hash("XXH64", "abc"));
+		assertEquals("0b242d361fda71bc", hash("XXH64", "The quick brown fox jumps over the lazy dog"));
+	}
+	
+	@Test
+	public void testAllLengths() {
+		
+		for (Object[] vector : VECTORS) {
+			
+			int length = (Integer) vector[0];
+			byte[] input = new byte[length];
+			for (int i = 0; i < length; i++) {
+				input[i] = (byte) (i % 251);
+			}
+			
+			assertEquals("XXH64 length " + length, vector[1], HashCalculation.encode(HashCalculation.getMessageDigest("XXH64").digest(input), HASH_OUTPUT_ENCODINGS.HEX));
+			assertEquals("XXH3-128 length " + length, vector[2], HashCalculation.encode(HashCalculation.getMessageDigest("XXH3-128").digest(input), HASH_OUTPUT_ENCODINGS.HEX));
+			assertEquals("MURMUR3-128 length " + length, vector[3], HashCalculation.encode(HashCalculation.getMessageDigest("MURMUR3-128").digest(input), HASH_OUTPUT_ENCODINGS.HEX));
+		}
+	}
+	
+	@Test
+	public void testNormalization() {
+		
+		NormalizeConfig config = new NormalizeConfig(";", "", true, "\"", "yyyy-MM-dd'T'HH:mm:ss.SSS", "ENGLISH", 7, 15, false, null, false, false);
+		NormalizeObjectConfig itemConfig = new NormalizeObjectConfig("UPPER_CASE", true);
+		Normalization normalization = new Normalization(config);
+		
+		normalization.reset();
+		normalization.add("test", itemConfig);
+		normalization.add(123, itemConfig);
+		
+		assertEquals(hash("XXH64", "\"TEST\";123"), normalization.calculateHash("XXH64", HASH_OUTPUT_ENCODINGS.HEX));
+		assertEquals(hash("XXH3-128", "\"TEST\";123"), normalization.calculateHash("xxh3-128", HASH_OUTPUT_ENCODINGS.HEX));
+		
+		byte[] murmur = HashCalculation.getMessageDigest("MURMUR3-128").digest("\"TEST\";123".getBytes(StandardCharsets.UTF_8));
+		assertEquals(Base64.getEncoder().encodeToString(murmur), normalization.calculateHash("MURMUR3-128", HASH_OUTPUT_ENCODINGS.BASE64));
+		
+		// streaming into the buffered digest gives the same result
+		Normalization streaming = new Normalization(config, "XXH3-128");
+		streaming.add("test", itemConfig);
+		streaming.add(123, itemConfig);
+		assertEquals(hash("XXH3-128", "\"TEST\";123"), streaming.calculateHash("XXH3-128", HASH_OUTPUT_ENCODINGS.HEX));
+	}
+	
+	@Test
+	public void testNewDigestIsReset() {
+		
+		Hasher hasher = new Hasher("XXH3-128", HASH_OUTPUT_ENCODINGS.HEX);
+		
+		hasher.getDigest().update((byte) 1);
+		assertEquals(hash("XXH3-128", "abc"), HashCalculation.encode(hasher.newDigest().digest("abc".getBytes(StandardCharsets.UTF_8)), HASH_OUTPUT_ENCODINGS.HEX));
+	}
+	
+	private static String hash(String algorithm, String content) {
+		return new Hasher(algorithm, HASH_OUTPUT_ENCODINGS.HEX).hash(content);
+	}
+	
+}
@@ -0,0 +1,171 @@
+package de.cimt.talendcomp.checksum;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Properties;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import de.cimt.talendcomp.checksum.HashCalculation.HASH_OUTPUT_ENCODINGS;
+
+public class TestFileHasher {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private File write(String content) throws IOException {
+
+		File file = folder.newFile();
+		OutputStream out = new FileOutputStream(file);
+
+		try {
+			out.write(content.getBytes(StandardCharsets.UTF_8));
+		} finally {
+			out.close();
+		}
+
+		return file;
+	}
+
+	private static Properties properties() {
+
+		Properties properties = new Properties();
+		properties.setProperty("key.columns", "1");
+		properties.setProperty("hash.columns", "2,3,4");
+		properties.setProperty("column.2.case", "UPPER_CASE");
+		properties.setProperty("column.3.trim", "true");
+		properties.setProperty("normalize.nullReplacement", "#NULL#");
+		properties.setProperty("normalize.quoting", "true");
+
+		return properties;
+	}
+
+	private static String hash(Properties properties, File file) throws IOException {
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new FileHasher(properties).hash(file, out);
+
+		return new String(out.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Hash of the line like the component with the same settings
+	 */
+	private static String expected(String key, String... values) {
+
+		NormalizeConfig config = new NormalizeConfig(";", "#NULL#", true, "\"", "yyyy-MM-dd'T'HH:mm:ss.SSS", "ENGLISH", 7, 15, false, null, false, false);
+		Normalization normalization = new Normalization(config);
+		String[] cases = {"UPPER_CASE", "CASE_SENSITIVE", "CASE_SENSITIVE"};
+		boolean[] trims = {false, true, false};
+
+		for (int i = 0; i < values.length; i++) {
+			normalization.add(values[i], new NormalizeObjectConfig(cases[i], trims[i]));
+		}
+
+		return key + ";" + normalization.calculateHash("MD5", HASH_OUTPUT_ENCODINGS.HEX) + "\n";
+	}
+
+	@Test
+	public void testLines() throws IOException {
+
+		File file = write("k1;abc; x ;1\r\nk2;;y\nk3;ü€;z;2;ignored\n\nk4\nk5;a;b;c");
+
+		String expected = expected("k1", "abc", " x ", "1")
+				+ expected("k2", null, "y", null)
+				+ expected("k3", "ü€", "z", "2")
+				// the empty line
+				+ "\n"
+				+ expected("k4", null, null, null)
+				+ expected("k5", "a", "b", "c");
+
+		for (int chunkSize : new int[] {1, 5, 13, 1000}) {
+			Properties properties = properties();
+			properties.setProperty("chunk.size", String.valueOf(chunkSize));
+			properties.setProperty("parallelism", "3");
+			assertEquals("chunk size " + chunkSize, expected, hash(properties, file));
+		}
+	}
+
+	@Test
+	public void testHeaderAndQuotes() throws IOException {
+
+		File file = write("KEY,A,B,C\n\"k;1\",\"a,\"\"b\"\"\",,\"\"\n");
+
+		Properties properties = properties();
+		properties.setProperty("input.header", "true");
+		properties.setProperty("input.delimiter", ",");
+		properties.setProperty("input.quote", "\"");
+
+		assertEquals(expected("k;1", "a,\"b\"", null, ""), hash(properties, file));
+	}
+
+	@Test
+	public void testEmptyFile() throws IOException {
+		assertEquals("", hash(properties(), write("")));
+	}
+
+	@Test
+	public void testManyLines() throws IOException {
+
+		Random random = new Random(14);
+		StringBuilder content = new StringBuilder();
+		StringBuilder expected = new StringBuilder();
+
+		for (int i = 0; i < 20000; i++) {
+			String a = "a" + random.nextInt(1000);
+			String b = random.nextBoolean() ? " b " : "";
+			String c = String.valueOf(random.nextLong());
+			content.append(i).append(';').append(a).append(';').append(b).append(';').append(c).append('\n');
+			expected.append(expected(String.valueOf(i), a, b.isEmpty() ? null : b, c));
+		}
+
+		Properties properties = properties();
+		properties.setProperty("chunk.size", "4096");
+
+		assertEquals(expected.toString(), hash(properties, write(content.toString())));
+	}
+
+	@Test
+	public void testLong64() throws IOException {
+
+		Properties properties = properties();
+		properties.setProperty("key.columns", "");
+		properties.setProperty("hash.encoding", "LONG64");
+		properties.setProperty("hash.type", "XXH64");
+
+		NormalizeConfig config = new NormalizeConfig(";", "#NULL#", true, "\"", "yyyy-MM-dd'T'HH:mm:ss.SSS", "ENGLISH", 7, 15, false, null, false, false);
+		Normalization normalization = new Normalization(config, new Hasher("XXH64", HASH_OUTPUT_ENCODINGS.LONG64), false);
+		normalization.add("A", new NormalizeObjectConfig("UPPER_CASE", false));
+		normalization.add("b", new NormalizeObjectConfig("CASE_SENSITIVE", true));
+		normalization.add("c", new NormalizeObjectConfig("CASE_SENSITIVE", false));
+
+		// hex like the HASH variable of the component
+		String hash = HashCalculation.toHashString(normalization.calculateHashValue());
+		assertEquals(16, hash.length());
+		assertEquals(hash + "\n", hash(properties, write("k;a;b;c\n")));
+
+		properties.setProperty("hash.encoding", "HASH128");
+		properties.setProperty("hash.type", "MD5");
+		Normalization md5 = new Normalization(config, new Hasher("MD5", HASH_OUTPUT_ENCODINGS.HEX), false);
+		md5.add("A", new NormalizeObjectConfig("UPPER_CASE", false));
+		md5.add("b", new NormalizeObjectConfig("CASE_SENSITIVE", true));
+		md5.add("c", new NormalizeObjectConfig("CASE_SENSITIVE", false));
+
+		assertEquals(md5.calculateHash() + "\n", hash(properties, write("k;a;b;c\n")));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testMissingHashColumns() {
+		new FileHasher(new Properties());
+	}
+
+}
@@ -0,0 +1,135 @@
+package de.cimt.talendcomp.checksum;
+
+import static org.junit.Assert.*;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import org.junit.Test;
+
+import de.cimt.talendcomp.checksum.HashCalculation.HASH_OUTPUT_ENCODINGS;
+
+public class TestHashAlgorithm {
+	
+	/**
+	 * length of the input (bytes i % 251), SHA3-256, BLAKE2b-256 and BLAKE2b-512 around the block sizes
+	 */
+	private static final Object[][] VECTORS = {
+			{127, "c66018e60c774d770cc6539d42c023fa974c29e3fe2db5925f226b9cc5cf8b05", "f2fe67ff342e21b8f45e8f2e0bcd1d9243245d50ee6c78042e9c491388791c72", "b6292669ccd38d5f01caae96ba272c76a879a45743afa0725d83b9ebb26665b731f1848c52f11972b6644f554c064fa90780dbbbf3a89d4fc31f67df3e5857ef"},
+			{128, "bec3ebfba06834f224543cca2a427cb9329147be93e19aeb0e33a7119c7f63ef", "c3582f71ebb2be66fa5dd750f80baae97554f3b015663c8be377cfcb2488c1d1", "2319e3789c47e2daa5fe807f61bec2a1a6537fa03f19ff32e87eecbfd64b7e0e8ccff439ac333b040f19b0c4ddd11a61e24ac1fe0f10a039806c5dcc0da3d115"},
+			{129, "0f41a20921bcbc39ee382dfb54daf2db373ce6b178833111e22f45266124f3cc", "f7f3c46ba2564ff4c4c162da1f5b605f9f1c4aa6a20652a9f9a337c1a2f5b9c9", "f59711d44a031d5f97a9413c065d1e614c417ede998590325f49bad2fd444d3e4418be19aec4e11449ac1a57207898bc57d76a1bcf3566292c20c683a5c4648f"},
+			{135, "fded8fd9d6551c601eeb3b7c6bc5e5cfd8aad1d015b7e9aaa9c9b9475231d5e2", "f7c4efacc0a4cb5836f170ea0bf5dc5ce36fe2d88e76a9f259eaab71aef0ff13", "0602185d8c3a78738b99164b8bc6ffb21c7debebbf806372e0da44d121545597b9c662a255dc31542cf995ecbe6a50fb5e6e0ee4ef240fe557eded1188087e86"},
+			{136, "cf3ccff92480a29160c2d38317c430e14749bfee1788106957dfe73f8c4930e5", "6a35d3dadc62dfe7819519f92181b2f8d38f5e0ed3d51a22cf8a133ab628d6f4", "c08afa5b927bf08097afc5fff9ca4e7800125c1f52f2af3553fa2b89e1e3015c4f87d5e0a48956ad31450b083dad147ffb5ec03434a26830cf37d103ab50c5da"},
+			{137, "ce9d7dc90913ee5d92745019479a5352c6d6279bef18ed07dc0a83ee8084daca", "bacecc2948c41beb73c815ca7cee6c7dbf2e4219190936edac5e4680500dd4d2", "36f1e1c11d6ef6bc3b536d505d544a871522c5c2a253067ec9933b6ec25464daf985525f5b9560a16d890259ac1bb5cc67c0c469cde133def000ea1d686f4f5d"},
+			{256, "906814c9c76fa85f0059b8e380b6c31d72d37eaad71cddb2595f61549f5b0622", "582f782226018ec33076bd8d1c42413530ac7e1126260ffc0f306ba3befc3f24", "93463ac058b6163eb43be3f5bb32b28541498f4e3366f1effe253ad44e1e076e41c3616046027c82a7124f8f4746668ad10b12e8e25a95ac8f3151df01cd5a93"},
+			{300, "4be64d77dff18f218eeb40368f86ed78e6d4f2381c71675ab5ada46aa4fee621", "940563f11807c8ba3192299e05cf544b82463742c8a5e80c2a5d81751cd8b0ca", "3a482b7748b0bdc43c3d00c080890c10e57a9aa5618f78b86067eb7eaae4942acd96d827accbc16958364ae5b0df6105bbd3b15445092eba1137b5f69c1070f1"},
+	};
+	
+	@Test
+	public void testRegistry() {
+		
+		assertEquals(HashAlgorithm.MD5, HashAlgorithm.forName("md5"));
+		assertEquals(HashAlgorithm.SHA1, HashAlgorithm.forName("SHA1"));
+		assertEquals(HashAlgorithm.SHA1, HashAlgorithm.forName("SHA-1"));
+		assertEquals(HashAlgorithm.SHA512_256, HashAlgorithm.forName("SHA-512/256"));
+		assertEquals(HashAlgorithm.BLAKE2B_512, HashAlgorithm.forName("blake2b"));
+		assertEquals(HashAlgorithm.XXH3_128, HashAlgorithm.forName("XXH3-128"));
+		
+		for (HashAlgorithm algorithm : HashAlgorithm.values()) {
+			assertEquals(algorithm, HashAlgorithm.forName(algorithm.getName()));
+			assertEquals(algorithm.getName(), algorithm.getLength(), algorithm.newDigest().digest().length);
+		}
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnknownAlgorithm() {
+		HashAlgorithm.forName("CRC32");
+	}
+	
+	@Test
+	public void testVectors() {
+		
+		assertEquals("c672b8d1ef56ed28ab87c3622c5114069bdd3ad7b8f9737498d0c01ecef0967a", HashCalculation.getSHA512_256Hash("", HASH_OUTPUT_ENCODINGS.HEX));
+		assertEquals("53048e2681941ef99b2e29b76b4c7dabe4c2d0c634fc6d46e0e2f13107e7af23", HashCalculation.getSHA512_256Hash("abc", HASH_OUTPUT_ENCODINGS.HEX));
+		
+		assertEquals("a7ffc6f8bf1ed76651c14756a061d662f580ff4de43b49fa82d80a4b80f8434a", HashCalculation.getSHA3_256Hash("", HASH_OUTPUT_ENCODINGS.HEX));
+		assertEquals("3a985da74fe225b2045c172d6bd390bd855f086e3e9d525b46bfe24511431532", HashCalculation.getSHA3_256Hash("abc", HASH_OUTPUT_ENCODINGS.HEX));
+		
+		// RFC 7693 appendix A
+		assertEquals("ba80a53f981c4d0d6a2797b69f12f6e94c212f14685ac4b74b12bb6fdbffa2d17d87c5392aab792dc252d5de4533cc9518d38aa8dbf1925ab92386edd4009923", HashCalculation.getBLAKE2bHash("abc", HASH_OUTPUT_ENCODINGS.HEX));
+		assertEquals("786a02f742015903c6c6fd852552d272912f4740e15847618a86e217f71f5419d25e1031afee585313896444934eb04b903a685b1448b755d56f701afe9be2ce", HashCalculation.getBLAKE2bHash("", HASH_OUTPUT_ENCODINGS.HEX));
+		assertEquals("bddd813c634239723171ef3fee98579b94964e3bb1cb3e427262c8c068d52319", HashCalculation.getHash(HashAlgorithm.BLAKE2B_256, "abc", HASH_OUTPUT_ENCODINGS.HEX));
+	}
+	
+	@Test
+	public void testBlockBoundaries() {
+		
+		for (Object[] vector : VECTORS) {
+			
+			int length = (Integer) vector[0];
+			byte[] input = new byte[length];
+			for (int i = 0; i < length; i++) {
+				input[i] = (byte) (i % 251);
+			}
+			
+			// the pure Java SHA3 is only used by runtimes without SHA3, test it directly
+			assertEquals("SHA3-256 length " + length, vector[1], hex(new Sha3Digest("SHA3-256", 32).digest(input)));
+			assertEquals("BLAKE2B-256 length " + length, vector[2], hex(HashAlgorithm.BLAKE2B_256.newDigest().digest(input)));
+			assertEquals("BLAKE2B-512 length " + length, vector[3], hex(HashAlgorithm.BLAKE2B_512.newDigest().digest(input)));
+		}
+	}
+	
+	@Test
+	public void testSha512_256Fallback() throws NoSuchAlgorithmException {
+		
+		// FIPS 180-4 examples
+		assertEquals("c672b8d1ef56ed28ab87c3622c5114069bdd3ad7b8f9737498d0c01ecef0967a", hex(new Sha512_256Digest("SHA-512/256").digest(new byte[0])));
+		assertEquals("53048e2681941ef99b2e29b76b4c7dabe4c2d0c634fc6d46e0e2f13107e7af23", hex(new Sha512_256Digest("SHA-512/256").digest("abc".getBytes(StandardCharsets.UTF_8))));
+		
+		MessageDigest jdk;
+		
+		try {
+			jdk = MessageDigest.getInstance("SHA-512/256");
+		} catch (NoSuchAlgorithmException e) {
+			// Java 8, the fallback is the only implementation
+			return;
+		}
+		
+		MessageDigest fallback = new Sha512_256Digest("SHA-512/256");
+		
+		// all lengths around the block size of 128 bytes and the 16 bytes of the length
+		for (int length = 0; length <= 300; length++) {
+			
+			byte[] input = new byte[length];
+			for (int i = 0; i < length; i++) {
+				input[i] = (byte) (i % 251);
+			}
+			
+			assertEquals("SHA-512/256 length " + length, hex(jdk.digest(input)), hex(fallback.digest(input)));
+		}
+	}
+	
+	@Test
+	public void testNormalization() {
+		
+		NormalizeConfig config = new NormalizeConfig(";", "", true, "\"", "yyyy-MM-dd'T'HH:mm:ss.SSS", "ENGLISH", 7, 15, false, null, false, false);
+		NormalizeObjectConfig itemConfig = new NormalizeObjectConfig("UPPER_CASE", true);
+		Normalization normalization = new Normalization(config);
+		
+		normalization.reset();
+		normalization.add("test", itemConfig);
+		normalization.add(123, itemConfig);
+		
+		assertEquals("37939079c1a8cbb7c702995c76b6f419bfc5956927aedadbb98a12dda4be113e", normalization.calculateHash("SHA-512/256", HASH_OUTPUT_ENCODINGS.HEX));
+		assertEquals("09cd52c0e529be8f5922a11732c2dddce72b66a296eae2342d49fb6d5724c020", normalization.calculateHash("SHA3-256", HASH_OUTPUT_ENCODINGS.HEX));
+		assertEquals("026bcc898db1d9e38025446c7657981cb94486b910427376f7a0126de9d8659a", normalization.calculateHash("BLAKE2B-256", HASH_OUTPUT_ENCODINGS.HEX));
+		
+		assertEquals(hex(new Sha3Digest("SHA3-256", 32).digest("\"TEST\";123".getBytes(StandardCharsets.UTF_8))), normalization.calculateHash("SHA3-256", HASH_OUTPUT_ENCODINGS.HEX));
+	}
+	
+	private static String hex(byte[] hash) {
+		return HashCalculation.encode(hash, HASH_OUTPUT_ENCODINGS.HEX);
+	}
+	
+}
@@ -0,0 +1,166 @@
+package de.cimt.talendcomp.checksum;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TestHashBloomFilter {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static double falsePositiveRate(HashBloomFilter filter, Random random, boolean longOnly) {
+
+		int falsePositives = 0;
+
+		for (int i = 0; i < 100000; i++) {
+			if (filter.mightContain(random.nextLong(), longOnly ? 0 : random.nextLong()))
+				falsePositives++;
+		}
+
+		return falsePositives / 100000.0;
+	}
+
+	@Test
+	public void testFalsePositiveRate() {
+
+		for (boolean longOnly : new boolean[] {false, true}) {
+
+			HashBloomFilter filter = new HashBloomFilter(100000, 0.01);
+			Random random = new Random(22);
+
+			for (int i = 0; i < 100000; i++) {
+				filter.add(random.nextLong(), longOnly ? 0 : random.nextLong());
+			}
+
+			random = new Random(22);
+
+			for (int i = 0; i < 100000; i++) {
+				assertTrue(filter.mightContain(random.nextLong(), longOnly ? 0 : random.nextLong()));
+			}
+
+			assertEquals(7, filter.getHashFunctions());
+			assertEquals(0.01, filter.getExpectedFpp(), 0.001);
+			assertEquals(0.01, falsePositiveRate(filter, random, longOnly), 0.003);
+		}
+	}
+
+	@Test
+	public void testHashOutputs() {
+
+		HashBloomFilter filter = new HashBloomFilter(10, 0.001);
+
+		assertTrue(filter.addValue("0123456789abcdef0011223344556677"));
+		assertFalse(filter.addValue("0123456789ABCDEF0011223344556677"));
+		assertFalse(filter.addValue(null));
+		assertTrue(filter.mightContainValue(HashCalculation.decodeHex("0123456789abcdef0011223344556677")));
+		assertFalse(filter.mightContainValue(null));
+		assertEquals(1, filter.size());
+	}
+
+	@Test
+	public void testSaveAndLoad() throws IOException {
+
+		File file = new File(folder.getRoot(), "hub.bloom");
+		HashBloomFilter filter = new HashBloomFilter(1000, 0.05);
+		Random random = new Random(7);
+
+		for (int i = 0; i < 1000; i++) {
+			filter.add(random.nextLong(), random.nextLong());
+		}
+
+		filter.save(file);
+
+		assertEquals(32 + filter.getBitCount() / 8, file.length());
+		assertEquals(1, folder.getRoot().list().length);
+
+		HashBloomFilter loaded = HashBloomFilter.load(file, 0.5);
+		assertEquals(filter.getBitCount(), loaded.getBitCount());
+		assertEquals(filter.getHashFunctions(), loaded.getHashFunctions());
+		assertEquals(filter.size(), loaded.size());
+
+		random = new Random(8);
+
+		for (int i = 0; i < 10000; i++) {
+			long high = random.nextLong();
+			long low = random.nextLong();
+			assertEquals(filter.mightContain(high, low), loaded.mightContain(high, low));
+		}
+	}
+
+	@Test
+	public void testSerializable() throws IOException, ClassNotFoundException {
+
+		HashBloomFilter filter = new HashBloomFilter(100, 0.01);
+		filter.add(1, 2);
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(bytes);
+		out.writeObject(filter);
+		out.close();
+
+		HashBloomFilter read = (HashBloomFilter) new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).readObject();
+		assertTrue(read.mightContain(1, 2));
+		assertEquals(1, read.size());
+	}
+
+	@Test
+	public void testFromIndexAndSnapshot() throws IOException {
+
+		File indexFile = new File(folder.getRoot(), "keys.index");
+		File snapshotFile = new File(folder.getRoot(), "keys.snapshot");
+		HashIndex.Builder index = new HashIndex.Builder(indexFile, 100);
+		HashSnapshot.Writer snapshot = new HashSnapshot.Writer(snapshotFile);
+
+		Random random = new Random(1000);
+
+		for (int i = 0; i < 1000; i++) {
+			// the all zero key is included
+			Hash128 key = i == 0 ? new Hash128(0, 0) : new Hash128(random.nextLong(), random.nextLong());
+			index.add(key);
+			snapshot.add(key, new Hash128(0, 1));
+		}
+
+		index.finish();
+		snapshot.finish();
+
+		for (File file : new File[] {indexFile, snapshotFile}) {
+
+			HashBloomFilter filter = HashBloomFilter.load(file, 0.001);
+
+			assertEquals(1000, filter.size());
+
+			random = new Random(1000);
+
+			for (int i = 0; i < 1000; i++) {
+				Hash128 key = i == 0 ? new Hash128(0, 0) : new Hash128(random.nextLong(), random.nextLong());
+				assertTrue(file.getName(), filter.mightContain(key));
+			}
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testUnknownFile() throws IOException {
+
+		File file = folder.newFile("unknown.bin");
+		Files.write(file.toPath(), new byte[100]);
+		HashBloomFilter.load(file, 0.01);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidFpp() {
+		new HashBloomFilter(100, 1);
+	}
+
+}
@@ -0,0 +1,117 @@
+package de.cimt.talendcomp.checksum;
+
+import static org.junit.Assert.*;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import de.cimt.talendcomp.checksum.HashCalculation.HASH_OUTPUT_ENCODINGS;
+
+public class TestHashCache {
+
+	private NormalizeConfig config = new NormalizeConfig(";", "", true, "\"", "yyyy-MM-dd'T'HH:mm:ss.SSS", "ENGLISH", 7, 15, true, "00000000000000000000000000000000", false, false);
+	private NormalizeObjectConfig itemConfig = new NormalizeObjectConfig("CASE_SENSITIVE", false);
+
+	private static byte[] bytes(String value) {
+		return value.getBytes(StandardCharsets.UTF_8);
+	}
+
+	@Test
+	public void testLeastRecentlyUsedIsEvicted() {
+
+		HashCache cache = new HashCache(2);
+		byte[] a = bytes("a");
+		byte[] b = bytes("b");
+		byte[] c = bytes("c");
+
+		cache.put(HashCache.key(a, 1), a, 1, "A");
+		cache.put(HashCache.key(b, 1), b, 1, "B");
+		assertEquals("A", cache.get(HashCache.key(a, 1), a, 1));
+
+		// b is the least recently used
+		cache.put(HashCache.key(c, 1), c, 1, "C");
+
+		assertEquals(2, cache.getSize());
+		assertNull(cache.get(HashCache.key(b, 1), b, 1));
+		assertEquals("A", cache.get(HashCache.key(a, 1), a, 1));
+		assertEquals("C", cache.get(HashCache.key(c, 1), c, 1));
+		assertEquals(3, cache.getHits());
+		assertEquals(1, cache.getMisses());
+	}
+
+	@Test
+	public void testSameKeyOtherBase() {
+
+		HashCache cache = new HashCache(10);
+		byte[] buffer = bytes("abcdef");
+
+		cache.put(42, buffer, 3, "ABC");
+		// the cache retains a copy
+		buffer[0] = 'x';
+
+		assertNull(cache.get(42, buffer, 3));
+		assertEquals("ABC", cache.get(42, bytes("abc"), 3));
+		assertNull(cache.get(42, bytes("abcd"), 4));
+	}
+
+	@Test
+	public void testCachedNormalizationEqualsUncached() {
+
+		for (HASH_OUTPUT_ENCODINGS encoding : HASH_OUTPUT_ENCODINGS.values()) {
+
+			Normalization cached = new Normalization(config, new Hasher("SHA-256", encoding), false);
+			Normalization uncached = new Normalization(config, new Hasher("SHA-256", encoding), false);
+			HashCache cache = new HashCache(100);
+			cached.setCache(cache);
+
+			for (int i = 0; i < 30; i++) {
+
+				String value = i % 4 == 3 ? null : "value " + (i % 5);
+				cached.reset();
+				uncached.reset();
+				cached.add(value, itemConfig);
+				uncached.add(value, itemConfig);
+
+				Object expected = uncached.calculateHashValue();
+				Object actual = cached.calculateHashValue();
+
+				if (expected instanceof byte[])
+					assertArrayEquals((byte[]) expected, (byte[]) actual);
+				else
+					assertEquals(expected, actual);
+			}
+
+			// 5 distinct values, the modified output of the nulls is not cached
+			assertEquals(encoding.name(), 5, cache.getSize());
+			assertEquals(encoding.name(), 5, cache.getMisses());
+			assertEquals(encoding.name(), 30 - 7 - 5, cache.getHits());
+		}
+	}
+
+	@Test
+	public void testRawBytesAreCopied() {
+
+		Normalization normalization = new Normalization(config, new Hasher("MD5", HASH_OUTPUT_ENCODINGS.RAW), false);
+		normalization.setCache(new HashCache(10));
+		normalization.add("a", itemConfig);
+
+		byte[] first = (byte[]) normalization.calculateHashValue();
+		first[0]++;
+		byte[] second = (byte[]) normalization.calculateHashValue();
+
+		assertNotEquals(first[0], second[0]);
+		assertEquals(1, normalization.getCache().getHits());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testNotInStreamingMode() {
+		new Normalization(config, new Hasher("MD5", HASH_OUTPUT_ENCODINGS.HEX), true).setCache(new HashCache(10));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidSize() {
+		new HashCache(0);
+	}
+
+}
@@ -0,0 +1,161 @@
+package de.cimt.talendcomp.checksum;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TestHashIndex {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testSortPairs() {
+
+		Random random = new Random(21);
+		long[] pairs = new long[2 * 5000];
+		TreeSet<Hash128> reference = new TreeSet<Hash128>();
+
+		for (int i = 0; i < pairs.length; i += 2) {
+			// many equal and negative values
+			pairs[i] = random.nextInt(50) - 25;
+			pairs[i + 1] = random.nextBoolean() ? random.nextLong() : 7;
+		}
+
+		HashIndex.Builder.sort(pairs, 0, pairs.length / 2);
+
+		for (int i = 2; i < pairs.length; i += 2) {
+			assertTrue(new Hash128(pairs[i - 2], pairs[i - 1]).compareTo(new Hash128(pairs[i], pairs[i + 1])) <= 0);
+		}
+
+		for (int i = 0; i < pairs.length; i += 2) {
+			reference.add(new Hash128(pairs[i], pairs[i + 1]));
+		}
+
+		assertTrue(reference.size() > 100);
+	}
+
+	@Test
+	public void testInMemory() throws IOException {
+
+		File file = new File(folder.getRoot(), "keys.index");
+		HashIndex.Builder builder = new HashIndex.Builder(file, 100);
+
+		builder.addValue("0123456789abcdef0011223344556677");
+		builder.add(new Hash128(-1, -1));
+		builder.add(new Hash128(0, 0));
+		builder.add(new Hash128(-1, -1));
+		builder.addValue(null);
+
+		assertEquals(3, builder.finish());
+		builder.close();
+
+		// header and 3 records
+		assertEquals(32 + 3 * 16, file.length());
+		assertEquals(1, folder.getRoot().list().length);
+
+		HashIndex index = new HashIndex(file);
+		assertEquals(3, index.size());
+		assertEquals(new Hash128(0, 0), index.get(0));
+		assertEquals(new Hash128(-1, -1), index.get(2));
+		assertTrue(index.containsValue("0123456789ABCDEF0011223344556677"));
+		assertTrue(index.contains(-1, -1));
+		assertFalse(index.contains(-1, -2));
+		assertFalse(index.containsValue(null));
+		index.close();
+	}
+
+	@Test
+	public void testExternalSortAndMerge() throws IOException {
+
+		File file = new File(folder.getRoot(), "hub.index");
+		Random random = new Random(4711);
+		TreeSet<Hash128> reference = new TreeSet<Hash128>();
+
+		// 10 runs of 1000 values
+		HashIndex.Builder builder = new HashIndex.Builder(file, 1000);
+
+		for (int i = 0; i < 10000; i++) {
+			Hash128 hash = i % 10 == 0 ? new Hash128(i % 7, 0) : new Hash128(random.nextLong(), random.nextLong());
+			reference.add(hash);
+			builder.add(hash);
+		}
+
+		assertEquals(reference.size(), builder.finish());
+		builder.close();
+
+		// the next run adds its values to the existing index
+		builder = new HashIndex.Builder(file, 1000);
+		builder.addIndex(file);
+
+		for (int i = 0; i < 500; i++) {
+			Hash128 hash = new Hash128(random.nextLong(), i);
+			reference.add(hash);
+			builder.add(hash);
+			builder.add(reference.first());
+		}
+
+		assertEquals(reference.size(), builder.finish());
+		builder.close();
+		assertEquals(1, folder.getRoot().list().length);
+
+		HashIndex index = new HashIndex(file);
+		assertEquals(reference.size(), index.size());
+
+		long i = 0;
+
+		for (Hash128 hash : reference) {
+			assertEquals(hash, index.get(i));
+			assertEquals(i, index.indexOf(hash.getHigh(), hash.getLow()));
+			assertFalse(index.contains(hash.getHigh(), hash.getLow() + 1));
+			i++;
+		}
+
+		index.close();
+	}
+
+	@Test
+	public void testEmpty() throws IOException {
+
+		File file = new File(folder.getRoot(), "empty.index");
+		HashIndex.Builder builder = new HashIndex.Builder(file, 10);
+		builder.addIndex(new File(folder.getRoot(), "missing.index"));
+		assertEquals(0, builder.finish());
+
+		HashIndex index = new HashIndex(file);
+		assertEquals(0, index.size());
+		assertFalse(index.contains(0, 0));
+		index.close();
+	}
+
+	@Test
+	public void testUnfinishedIndexIsDiscarded() throws IOException {
+
+		HashIndex.Builder builder = new HashIndex.Builder(new File(folder.getRoot(), "failed.index"), 2);
+
+		for (int i = 0; i < 10; i++) {
+			builder.add(i, i);
+		}
+
+		assertEquals(4, folder.getRoot().list().length);
+		builder.close();
+		assertEquals(0, folder.getRoot().list().length);
+	}
+
+	@Test(expected = IOException.class)
+	public void testNoIndex() throws IOException {
+
+		File file = folder.newFile("no.index");
+		Files.write(file.toPath(), new byte[48]);
+		new HashIndex(file);
+	}
+
+}
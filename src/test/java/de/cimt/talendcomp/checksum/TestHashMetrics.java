@@ -0,0 +1,193 @@
+package de.cimt.talendcomp.checksum;
+
+import static org.junit.Assert.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.Test;
+
+import de.cimt.talendcomp.checksum.HashCalculation.HASH_OUTPUT_ENCODINGS;
+
+public class TestHashMetrics {
+
+	private static class RowStruct {
+		String name;
+		Integer id;
+	}
+
+	private NormalizeConfig config = new NormalizeConfig(";", "", true, "\"", "yyyy-MM-dd'T'HH:mm:ss.SSS", "ENGLISH", 7, 15, false, null, false, false);
+
+	private RowHashPlan<RowStruct> plan(Normalization normalization) {
+
+		List<RowHashPlan.Column<RowStruct>> columns = new ArrayList<RowHashPlan.Column<RowStruct>>();
+
+		columns.add(new RowHashPlan.StringColumn<RowStruct>("name", "CASE_SENSITIVE", false) {
+			@Override
+			public String get(RowStruct row) {
+				return row.name;
+			}
+		});
+		columns.add(new RowHashPlan.IntColumn<RowStruct>("id", "CASE_SENSITIVE", false) {
+			@Override
+			public boolean isNull(RowStruct row) {
+				return row.id == null;
+			}
+			@Override
+			public int get(RowStruct row) {
+				return row.id;
+			}
+		});
+
+		return new RowHashPlan<RowStruct>(normalization, columns);
+	}
+
+	private RowStruct row(int i) {
+
+		RowStruct row = new RowStruct();
+		row.name = i % 4 == 1 ? null : "n\u00e4me " + i;
+		row.id = i % 2 == 0 ? null : Integer.valueOf(i);
+
+		return row;
+	}
+
+	@Test
+	public void testCountersWithEverySampledRow() throws Exception {
+
+		Normalization normalization = new Normalization(config, new Hasher("MD5", HASH_OUTPUT_ENCODINGS.HEX), false);
+		RowHashPlan<RowStruct> plan = plan(normalization);
+		RowHashPlan<RowStruct> reference = plan(new Normalization(config, new Hasher("MD5", HASH_OUTPUT_ENCODINGS.HEX), false));
+		HashMetrics metrics = new HashMetrics("tHashRow_1", plan.getColumnNames(), 1);
+
+		long length = 0;
+		long chars = 0;
+		long max = 0;
+
+		for (int i = 0; i < 8; i++) {
+
+			assertEquals(reference.hash(row(i)), plan.hash(row(i), metrics));
+
+			String normalized = normalization.getNormalizedString();
+			length += normalized.getBytes("UTF-8").length;
+			chars += normalized.length();
+			max = Math.max(max, normalized.length());
+		}
+
+		assertEquals(8, metrics.getRows());
+		assertEquals(8, metrics.getSampledRows());
+		// UTF-8 bytes, the umlaut has 2
+		assertEquals(length, metrics.getHashedBytes());
+		assertTrue(metrics.getHashedBytes() > chars);
+		assertEquals(max, metrics.getMaxHashBaseLength());
+		assertArrayEquals(new String[] {"name", "id"}, metrics.getColumnNames());
+		assertArrayEquals(new double[] {0.25, 0.5}, metrics.getColumnNullRates(), 0d);
+		assertTrue(metrics.getNormalizeNanos() > 0);
+		assertTrue(metrics.getDigestNanos() > 0);
+		assertTrue(metrics.getNormalizeNanosP50() <= metrics.getNormalizeNanosP99());
+		assertTrue(metrics.getDigestNanosP50() <= metrics.getDigestNanosP99());
+	}
+
+	@Test
+	public void testSampling() {
+
+		RowHashPlan<RowStruct> plan = plan(new Normalization(config, new Hasher("SHA-256", HASH_OUTPUT_ENCODINGS.BASE64), true));
+		HashMetrics metrics = new HashMetrics("tHashRow_1", plan.getColumnNames(), 4);
+
+		for (int i = 0; i < 10; i++) {
+			plan.hash(row(i), metrics);
+		}
+
+		// the rows after the last sample are published on demand
+		assertEquals(9, metrics.getRows());
+		metrics.publish();
+		assertEquals(10, metrics.getRows());
+		// rows 0, 4 and 8
+		assertEquals(3, metrics.getSampledRows());
+		assertArrayEquals(new double[] {0d, 1d}, metrics.getColumnNullRates(), 0d);
+	}
+
+	@Test
+	public void testStreamingDigestTime() {
+
+		RowHashPlan<RowStruct> buffered = plan(new Normalization(config, new Hasher("SHA-256", HASH_OUTPUT_ENCODINGS.HEX), false));
+		Normalization normalization = new Normalization(config, new Hasher("SHA-256", HASH_OUTPUT_ENCODINGS.HEX), true);
+		RowHashPlan<RowStruct> streaming = plan(normalization);
+		HashMetrics bufferedMetrics = new HashMetrics("tHashRow_1", buffered.getColumnNames(), 1);
+		HashMetrics streamingMetrics = new HashMetrics("tHashRow_2", streaming.getColumnNames(), 1);
+
+		for (int i = 0; i < 8; i++) {
+			assertEquals(buffered.hash(row(i), bufferedMetrics), streaming.hash(row(i), streamingMetrics));
+		}
+
+		assertEquals(bufferedMetrics.getHashedBytes(), streamingMetrics.getHashedBytes());
+		assertTrue(streamingMetrics.getDigestNanos() > 0);
+		assertTrue(streamingMetrics.getNormalizeNanos() >= 0);
+		// the timer is stopped after the sampled rows
+		assertEquals(0, normalization.stopDigestTimer());
+	}
+
+	@Test
+	public void testWithoutMetrics() {
+
+		RowHashPlan<RowStruct> plan = plan(new Normalization(config, new Hasher("MD5", HASH_OUTPUT_ENCODINGS.HEX), false));
+
+		assertEquals(plan.hash(row(3)), plan.hash(row(3), null));
+	}
+
+	@Test
+	public void testBuckets() {
+
+		long previous = -1;
+
+		for (long value = 0; value < 100000; value += value < 100 ? 1 : 37) {
+
+			int bucket = HashMetrics.bucket(value);
+			long limit = HashMetrics.bucketLimit(bucket);
+
+			assertTrue(value <= limit);
+			// resolution of 1/16
+			assertTrue(limit - value <= value / 16);
+			assertTrue(limit >= previous);
+			previous = limit;
+		}
+
+		assertEquals(Long.MAX_VALUE, HashMetrics.bucketLimit(HashMetrics.bucket(Long.MAX_VALUE)));
+	}
+
+	@Test
+	public void testRegister() throws Exception {
+
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		HashMetrics first = new HashMetrics("tHashRow_1", new String[] {"a"}, 1);
+		HashMetrics second = new HashMetrics("tHashRow_1", new String[] {"a"}, 1);
+
+		ObjectName name = first.register("test_job");
+		assertTrue(server.isRegistered(name));
+
+		first.countRow(3, 4);
+		first.recordSample(10, 20);
+		assertEquals(1L, server.getAttribute(name, "Rows"));
+		assertEquals(4L, server.getAttribute(name, "HashedBytes"));
+		assertEquals(3L, server.getAttribute(name, "MaxHashBaseLength"));
+
+		// the next run of the job replaces the registration
+		assertEquals(name, second.register("test_job"));
+		assertEquals(0L, server.getAttribute(name, "Rows"));
+
+		first.close();
+		assertTrue(server.isRegistered(name));
+
+		second.close();
+		assertFalse(server.isRegistered(name));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidSampleRate() {
+		new HashMetrics("tHashRow_1", new String[0], 0);
+	}
+
+}
@@ -0,0 +1,206 @@
+package de.cimt.talendcomp.checksum;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import de.cimt.talendcomp.checksum.HashCalculation.HASH_OUTPUT_ENCODINGS;
+
+public class TestHashOutputEncodings {
+
+	private static final String MD5_HEX = "3bd106921f2a35c66c27e4b342de7b4e";
+
+	@Test
+	public void testHexEncoder() {
+
+		Random random = new Random(4711);
+
+		for (int length = 0; length < 70; length++) {
+
+			byte[] bytes = new byte[length];
+			random.nextBytes(bytes);
+
+			StringBuilder expected = new StringBuilder();
+			for (byte b : bytes) {
+				expected.append(Integer.toString((b & 0xff) + 0x100, 16).substring(1));
+			}
+
+			assertEquals(expected.toString(), HashCalculation.encode(bytes, HASH_OUTPUT_ENCODINGS.HEX));
+
+			StringBuilder sb = new StringBuilder("x");
+			HashCalculation.appendHex(bytes, sb);
+			assertEquals("x" + expected, sb.toString());
+
+			assertArrayEquals(bytes, HashCalculation.decodeHex(expected.toString()));
+			assertArrayEquals(bytes, HashCalculation.decodeHex(expected.toString().toUpperCase()));
+		}
+	}
+
+	@Test
+	public void testRaw() {
+
+		Hasher hasher = new Hasher("MD5", HASH_OUTPUT_ENCODINGS.RAW);
+
+		byte[] raw = (byte[]) hasher.encodeValue(hasher.digest("\"TEST\";123"));
+
+		assertEquals(16, raw.length);
+		assertEquals(MD5_HEX, HashCalculation.encode(raw, HASH_OUTPUT_ENCODINGS.HEX));
+		assertNull(hasher.digest(null));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testRawIsNoString() {
+		new Hasher("MD5", HASH_OUTPUT_ENCODINGS.RAW).hash("\"TEST\";123");
+	}
+
+	@Test
+	public void testLong64() {
+
+		Hasher hasher = new Hasher("MD5", HASH_OUTPUT_ENCODINGS.LONG64);
+
+		assertEquals(Long.valueOf(0x3bd106921f2a35c6L), hasher.encodeValue(hasher.digest("\"TEST\";123")));
+
+		// xxHash64 returns the whole hash
+		Hasher xxh64 = new Hasher("XXH64", HASH_OUTPUT_ENCODINGS.LONG64);
+		assertEquals(Long.valueOf(0xef46db3751d8e999L), xxh64.encodeValue(xxh64.digest("")));
+	}
+
+	@Test
+	public void testHashString() {
+
+		// the HASH variable is a String for every encoding
+		assertNull(HashCalculation.toHashString(null));
+		assertEquals(MD5_HEX, HashCalculation.toHashString(MD5_HEX));
+		assertEquals(MD5_HEX, HashCalculation.toHashString(HashCalculation.decodeHex(MD5_HEX)));
+		assertEquals("3bd106921f2a35c6", HashCalculation.toHashString(Long.valueOf(0x3bd106921f2a35c6L)));
+		assertEquals("000000000000002a", HashCalculation.toHashString(Long.valueOf(42)));
+		assertEquals(MD5_HEX, HashCalculation.toHashString(new Hash128(0x3bd106921f2a35c6L, 0x6c27e4b342de7b4eL)));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testHashStringUnsupportedType() {
+		HashCalculation.toHashString(Integer.valueOf(1));
+	}
+
+	@Test
+	public void testHash128() {
+
+		Hasher hasher = new Hasher("MD5", HASH_OUTPUT_ENCODINGS.HASH128);
+		Hash128 hash = (Hash128) hasher.encodeValue(hasher.digest("\"TEST\";123"));
+
+		assertEquals(0x3bd106921f2a35c6L, hash.getHigh());
+		assertEquals(0x6c27e4b342de7b4eL, hash.getLow());
+		assertEquals(MD5_HEX, hash.toString());
+		assertArrayEquals(HashCalculation.decodeHex(MD5_HEX), hash.toBytes());
+		assertEquals(hash, Hash128.fromBytes(hash.toBytes()));
+		assertEquals(hash.hashCode(), new Hash128(hash.getHigh(), hash.getLow()).hashCode());
+
+		// SHA-256 is cut off after 16 bytes
+		Hasher sha256 = new Hasher("SHA-256", HASH_OUTPUT_ENCODINGS.HASH128);
+		String sha256Hex = HashCalculation.getSHA256Hash("\"TEST\";123", HASH_OUTPUT_ENCODINGS.HEX);
+		assertEquals(sha256Hex.substring(0, 32), sha256.encodeValue(sha256.digest("\"TEST\";123")).toString());
+	}
+
+	@Test
+	public void testHash128Order() {
+
+		Random random = new Random(42);
+
+		for (int i = 0; i < 1000; i++) {
+
+			byte[] a = new byte[16];
+			byte[] b = new byte[16];
+			random.nextBytes(a);
+			random.nextBytes(b);
+
+			if (i % 3 == 0)
+				System.arraycopy(a, 0, b, 0, 8);
+
+			int expected = Integer.signum(HashCalculation.encode(a, HASH_OUTPUT_ENCODINGS.HEX).compareTo(HashCalculation.encode(b, HASH_OUTPUT_ENCODINGS.HEX)));
+
+			assertEquals(expected, Integer.signum(Hash128.fromBytes(a).compareTo(Hash128.fromBytes(b))));
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testHash128NeedsLongHash() {
+		new Hasher("XXH64", HASH_OUTPUT_ENCODINGS.HASH128);
+	}
+
+	@Test
+	public void testNormalization() {
+
+		NormalizeConfig config = new NormalizeConfig(";", "", true, "\"", "yyyy-MM-dd'T'HH:mm:ss.SSS", "ENGLISH", 7, 15, false, null, false, false);
+		NormalizeObjectConfig itemConfig = new NormalizeObjectConfig("UPPER_CASE", true);
+
+		for (boolean streaming : new boolean[] {false, true}) {
+
+			Normalization normalization = new Normalization(config, new Hasher("MD5", HASH_OUTPUT_ENCODINGS.HASH128), streaming);
+
+			normalization.reset();
+			normalization.add("test", itemConfig);
+			normalization.add(123, itemConfig);
+
+			assertEquals(MD5_HEX, HashCalculation.encode(normalization.calculateHashBytes(), HASH_OUTPUT_ENCODINGS.HEX));
+			assertEquals(Long.valueOf(0x3bd106921f2a35c6L), normalization.calculateHashAsLong());
+			assertEquals(MD5_HEX, normalization.calculateHash128().toString());
+			assertEquals(normalization.calculateHash128(), normalization.calculateHashValue());
+
+			// without null replacement there is no hash base
+			normalization = new Normalization(new NormalizeConfig(";", null, true, "\"", "yyyy-MM-dd'T'HH:mm:ss.SSS", "ENGLISH", 7, 15, false, null, false, false), new Hasher("MD5", HASH_OUTPUT_ENCODINGS.RAW), streaming);
+			normalization.reset();
+			normalization.add(null, itemConfig);
+
+			assertNull(normalization.calculateHashBytes());
+			assertNull(normalization.calculateHashAsLong());
+			assertNull(normalization.calculateHash128());
+		}
+	}
+
+	@Test
+	public void testModifiedHashOutput() {
+
+		NormalizeConfig config = new NormalizeConfig(";", "", true, "\"", "yyyy-MM-dd'T'HH:mm:ss.SSS", "ENGLISH", 7, 15, true, "22222222222222222222222222222222", false, false);
+		NormalizeObjectConfig itemConfig = new NormalizeObjectConfig("UPPER_CASE", true);
+
+		Normalization normalization = new Normalization(config, new Hasher("MD5", HASH_OUTPUT_ENCODINGS.RAW), true);
+		normalization.reset();
+		normalization.add(null, itemConfig);
+
+		assertEquals(new Hash128(0x2222222222222222L, 0x2222222222222222L), normalization.calculateHash128());
+		assertEquals(Long.valueOf(0x2222222222222222L), normalization.calculateHashAsLong());
+		assertEquals(16, ((byte[]) normalization.calculateHashValue()).length);
+	}
+
+	private static NormalizeConfig replacing(String replacement) {
+		return new NormalizeConfig(";", "", true, "\"", "yyyy-MM-dd'T'HH:mm:ss.SSS", "ENGLISH", 7, 15, true, replacement, false, false);
+	}
+
+	@Test
+	public void testModifiedHashOutputLength() {
+
+		// 8 bytes are enough for 64 bit
+		Normalization normalization = new Normalization(replacing("2222222222222222"), new Hasher("MD5", HASH_OUTPUT_ENCODINGS.LONG64), false);
+		normalization.reset();
+		normalization.add(null, new NormalizeObjectConfig("CASE_SENSITIVE", false));
+		assertEquals(Long.valueOf(0x2222222222222222L), normalization.calculateHashValue());
+
+		// Strings are not decoded
+		new Normalization(replacing(""), new Hasher("MD5", HASH_OUTPUT_ENCODINGS.HEX), false);
+		new Normalization(replacing(""), new Hasher("MD5", HASH_OUTPUT_ENCODINGS.RAW), false);
+
+		String[][] invalid = {{"", "LONG64"}, {"22222222222222", "LONG64"}, {"2222222222222222", "HASH128"}, {"", "HASH128"}, {"xyz1", "RAW"}};
+
+		for (String[] replacement : invalid) {
+			try {
+				new Normalization(replacing(replacement[0]), new Hasher("MD5", HASH_OUTPUT_ENCODINGS.valueOf(replacement[1])), true);
+				fail(replacement[1] + " accepts " + replacement[0]);
+			} catch (IllegalArgumentException e) {
+				// expected, when the job starts and not with the first empty row
+			}
+		}
+	}
+
+}
@@ -0,0 +1,143 @@
+package de.cimt.talendcomp.checksum;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import de.cimt.talendcomp.checksum.HashCalculation.HASH_OUTPUT_ENCODINGS;
+import de.cimt.talendcomp.checksum.HashPipeline.BackPressure;
+
+public class TestHashPipeline {
+
+	private static final List<Class<?>> TYPES = Arrays.<Class<?>>asList(Integer.class, String.class);
+
+	private static ConcurrentHasher newHasher() {
+		NormalizeConfig config = new NormalizeConfig(";", "", true, "\"", "yyyyMMdd", "ENGLISH", 7, 15, false, null, false, false);
+		List<NormalizeObjectConfig> itemConfigs = Arrays.asList(new NormalizeObjectConfig("CASE_SENSITIVE", false), new NormalizeObjectConfig("UPPER_CASE", true));
+		return new ConcurrentHasher(config, new Hasher("SHA-256", HASH_OUTPUT_ENCODINGS.HEX), true, itemConfigs, TYPES);
+	}
+
+	@Test
+	public void testOrder() throws Exception {
+
+		final ConcurrentHasher hasher = newHasher();
+
+		for (BackPressure backPressure : BackPressure.values()) {
+			for (int workers : new int[] {1, 3, 8}) {
+
+				final List<Object[]> rows = new ArrayList<Object[]>();
+				final List<Object> hashes = new ArrayList<Object>();
+
+				HashPipeline<Object[]> pipeline = new HashPipeline<Object[]>(workers, 16, backPressure,
+						new HashPipeline.RowHasher<Object[]>() {
+							@Override
+							public Object hash(Object[] row) throws Exception {
+								// uneven work, so later rows often complete first
+								int repeat = ((Integer) row[0]) % 7 == 0 ? 50 : 1;
+								Object hash = null;
+								for (int i = 0; i < repeat; i++) {
+									hash = hasher.hash(row);
+								}
+								return hash;
+							}
+						},
+						new HashPipeline.ResultHandler<Object[]>() {
+							@Override
+							public void handle(Object[] row, Object hash) {
+								rows.add(row);
+								hashes.add(hash);
+							}
+						});
+
+				for (int i = 0; i < 20000; i++) {
+					pipeline.submit(new Object[] {i, "value " + i});
+					assertTrue(pipeline.getPendingRows() <= 16);
+				}
+
+				pipeline.close();
+
+				assertEquals(20000, rows.size());
+
+				for (int i = 0; i < rows.size(); i++) {
+					assertEquals(i, rows.get(i)[0]);
+					assertEquals(hasher.hash(new Object[] {i, "value " + i}), hashes.get(i));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testErrorInOrder() throws Exception {
+
+		final AtomicInteger handled = new AtomicInteger();
+
+		HashPipeline<Integer> pipeline = new HashPipeline<Integer>(4, 8, BackPressure.BLOCK,
+				new HashPipeline.RowHasher<Integer>() {
+					@Override
+					public Object hash(Integer row) throws Exception {
+						if (row == 100)
+							throw new IllegalArgumentException("row " + row);
+						return row;
+					}
+				},
+				new HashPipeline.ResultHandler<Integer>() {
+					@Override
+					public void handle(Integer row, Object hash) {
+						assertEquals(handled.getAndIncrement(), row.intValue());
+					}
+				});
+
+		try {
+			for (int i = 0; i < 1000; i++) {
+				pipeline.submit(i);
+			}
+			pipeline.flush();
+			fail("hash error not thrown");
+		} catch (IllegalArgumentException e) {
+			assertEquals("row 100", e.getMessage());
+		}
+
+		// all rows in front of the failed row are handled
+		assertEquals(100, handled.get());
+
+		try {
+			pipeline.submit(1);
+			fail("failed pipeline accepted a row");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+
+		// discards the remaining rows
+		pipeline.close();
+		assertEquals(100, handled.get());
+	}
+
+	@Test(expected = IOException.class)
+	public void testHandlerExceptionOnClose() throws Exception {
+
+		HashPipeline<Integer> pipeline = new HashPipeline<Integer>(2, 4, BackPressure.CALLER_RUNS,
+				new HashPipeline.RowHasher<Integer>() {
+					@Override
+					public Object hash(Integer row) {
+						return row;
+					}
+				},
+				new HashPipeline.ResultHandler<Integer>() {
+					@Override
+					public void handle(Integer row, Object hash) throws Exception {
+						throw new Exception("handler failed");
+					}
+				});
+
+		// not emitted before the next submit or flush
+		pipeline.submit(1);
+		pipeline.close();
+	}
+
+}
@@ -0,0 +1,100 @@
+package de.cimt.talendcomp.checksum;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import de.cimt.talendcomp.checksum.HashCalculation.HASH_OUTPUT_ENCODINGS;
+
+public class TestHasher {
+
+	@Test
+	public void testSameAsHashCalculation() {
+		
+		assertEquals(HashCalculation.getMD5Hash("\"TEST\";123", HASH_OUTPUT_ENCODINGS.HEX), new Hasher("MD5", HASH_OUTPUT_ENCODINGS.HEX).hash("\"TEST\";123"));
+		assertEquals(HashCalculation.getSHA1Hash("\"TEST\";123", HASH_OUTPUT_ENCODINGS.BASE64), new Hasher("sha1", HASH_OUTPUT_ENCODINGS.BASE64).hash("\"TEST\";123"));
+		assertEquals(HashCalculation.getSHA256Hash("\"TEST\";123", HASH_OUTPUT_ENCODINGS.HEX), new Hasher("SHA-256", HASH_OUTPUT_ENCODINGS.HEX).hash("\"TEST\";123"));
+		
+		assertNull(new Hasher("MD5", HASH_OUTPUT_ENCODINGS.HEX).hash(null));
+	}
+	
+	@Test
+	public void testReuse() {
+		
+		Hasher hasher = new Hasher("MD5", HASH_OUTPUT_ENCODINGS.HEX);
+		
+		assertEquals("3bd106921f2a35c66c27e4b342de7b4e", hasher.hash("\"TEST\";123"));
+		assertEquals("3bd106921f2a35c66c27e4b342de7b4e", hasher.hash("\"TEST\";123"));
+		assertEquals("d41d8cd98f00b204e9800998ecf8427e", hasher.hash(""));
+		
+		// digest is reset, even if somebody left content in it
+		hasher.getDigest().update((byte) 1);
+		assertEquals("d41d8cd98f00b204e9800998ecf8427e", hasher.hash(""));
+	}
+	
+	@Test
+	public void testBoundNormalization() {
+		
+		NormalizeConfig config = new NormalizeConfig(";", "", true, "\"", "yyyy-MM-dd'T'HH:mm:ss.SSS", "ENGLISH", 7, 15, false, null, false, false);
+		NormalizeObjectConfig itemConfig = new NormalizeObjectConfig("UPPER_CASE", true);
+		Hasher hasher = new Hasher("SHA1", HASH_OUTPUT_ENCODINGS.BASE64);
+		
+		for (boolean streaming : new boolean[] {false, true}) {
+			
+			Normalization normalization = new Normalization(config, hasher, streaming);
+			
+			normalization.reset();
+			normalization.add("test", itemConfig);
+			normalization.add(123, itemConfig);
+			
+			assertEquals("e9XRSSMBQ/wb6Z2IrA4BTqX5RTY=", normalization.calculateHash());
+		}
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnsupportedAlgorithm() {
+		new Hasher("CRC32", HASH_OUTPUT_ENCODINGS.HEX);
+	}
+	
+	@Test
+	public void testConcurrentUse() throws Exception {
+		
+		final Hasher hasher = new Hasher("SHA-256", HASH_OUTPUT_ENCODINGS.HEX);
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		
+		try {
+			
+			List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+			
+			for (int t = 0; t < 8; t++) {
+				
+				results.add(executor.submit(new Callable<Boolean>() {
+					@Override
+					public Boolean call() throws Exception {
+						for (int i = 0; i < 10000; i++) {
+							String content = "row;" + i;
+							if (!HashCalculation.getSHA256Hash(content, HASH_OUTPUT_ENCODINGS.HEX).equals(hasher.hashConcurrently(content)))
+								return false;
+						}
+						return true;
+					}
+				}));
+			}
+			
+			for (Future<Boolean> result : results) {
+				assertTrue(result.get());
+			}
+			
+		} finally {
+			executor.shutdown();
+		}
+	}
+	
+}
@@ -0,0 +1,101 @@
+package de.cimt.talendcomp.checksum;
+
+import static org.junit.Assert.*;
+
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class TestMultiBufferDigest {
+
+	private static byte[][] messages(int count, int maxLength, long seed) {
+
+		Random random = new Random(seed);
+		byte[][] messages = new byte[count][];
+
+		for (int i = 0; i < count; i++) {
+			messages[i] = new byte[random.nextInt(maxLength + 1)];
+			random.nextBytes(messages[i]);
+		}
+
+		return messages;
+	}
+
+	private static void assertDigests(HashAlgorithm algorithm, int lanes, byte[][] messages) {
+
+		MultiBufferDigest digest = new MultiBufferDigest(algorithm, lanes);
+		MessageDigest expected = algorithm.newDigest();
+		byte[] hashes = digest.digest(messages);
+		int length = digest.getDigestLength();
+
+		assertEquals(messages.length * length, hashes.length);
+
+		for (int i = 0; i < messages.length; i++) {
+			assertArrayEquals(algorithm.getName() + " message " + i + " of length " + messages[i].length,
+					expected.digest(messages[i]), Arrays.copyOfRange(hashes, i * length, i * length + length));
+		}
+	}
+
+	@Test
+	public void testPaddingBoundaries() {
+
+		// every length around the block boundaries where the padding needs an additional block
+		byte[][] messages = new byte[200][];
+
+		for (int i = 0; i < messages.length; i++) {
+			messages[i] = new byte[i];
+			Arrays.fill(messages[i], (byte) (i * 31));
+		}
+
+		for (HashAlgorithm algorithm : new HashAlgorithm[] {HashAlgorithm.MD5, HashAlgorithm.SHA256}) {
+			for (int lanes : new int[] {4, 8, 16}) {
+				assertDigests(algorithm, lanes, messages);
+			}
+		}
+	}
+
+	@Test
+	public void testMixedLengths() {
+
+		// short and multi block messages share the lanes
+		byte[][] messages = messages(1001, 700, 25);
+		messages[10] = new byte[0];
+		messages[11] = new byte[10000];
+
+		assertDigests(HashAlgorithm.MD5, 4, messages);
+		assertDigests(HashAlgorithm.SHA256, 8, messages);
+	}
+
+	@Test
+	public void testFewerMessagesThanLanes() {
+
+		byte[][] messages = {"4711".getBytes(), new byte[0]};
+
+		assertDigests(HashAlgorithm.MD5, 8, messages);
+		assertDigests(HashAlgorithm.SHA256, 8, messages);
+		assertEquals(0, new MultiBufferDigest(HashAlgorithm.MD5).digest(new byte[0][]).length);
+	}
+
+	@Test
+	public void testOffsetsAndLengths() {
+
+		MultiBufferDigest digest = new MultiBufferDigest(HashAlgorithm.MD5, 4);
+		byte[][] messages = {"abcdef".getBytes(), "xyz".getBytes(), "unused".getBytes()};
+		byte[] out = new byte[2 + 32];
+
+		digest.digest(messages, new int[] {3, 3, 6}, 2, out, 2);
+
+		assertEquals(HashCalculation.getMD5Hash("abc", HashCalculation.HASH_OUTPUT_ENCODINGS.HEX),
+				HashCalculation.encode(Arrays.copyOfRange(out, 2, 18), HashCalculation.HASH_OUTPUT_ENCODINGS.HEX));
+		assertEquals(HashCalculation.getMD5Hash("xyz", HashCalculation.HASH_OUTPUT_ENCODINGS.HEX),
+				HashCalculation.encode(Arrays.copyOfRange(out, 18, 34), HashCalculation.HASH_OUTPUT_ENCODINGS.HEX));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnsupportedAlgorithm() {
+		new MultiBufferDigest(HashAlgorithm.SHA1);
+	}
+
+}
@@ -0,0 +1,86 @@
+package de.cimt.talendcomp.checksum;
+
+import static org.junit.Assert.*;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+import org.junit.Test;
+
+import de.cimt.talendcomp.checksum.HashCalculation.HASH_OUTPUT_ENCODINGS;
+
+public class TestMultiNormalization {
+
+	private NormalizeConfig config = new NormalizeConfig(";", "", true, "\"", "yyyy-MM-dd'T'HH:mm:ss.SSS", "ENGLISH", 7, 15, false, null, false, true);
+	private NormalizeObjectConfig upperCase = new NormalizeObjectConfig("UPPER_CASE", true);
+	private NormalizeObjectConfig caseSensitive = new NormalizeObjectConfig("CASE_SENSITIVE", false);
+
+	@Test
+	public void testSameAsSeparateNormalizations() {
+
+		MultiNormalization multi = new MultiNormalization(config);
+		int hashKey = multi.addGroup("hub", new Hasher("MD5", HASH_OUTPUT_ENCODINGS.HEX), true);
+		int hashDiff = multi.addGroup("sat", new Hasher("SHA-256", HASH_OUTPUT_ENCODINGS.BASE64), false);
+
+		Normalization hub = new Normalization(config);
+		Normalization sat = new Normalization(config);
+
+		Object[][] rows = {
+				{"k1", 1, "Name", new BigDecimal("12.50"), new Date(0)},
+				{" k2 ", 2, null, null, null},
+				{null, null, "x\"y", 1.5d, null},
+				{"k4", 4, "", null, null}
+		};
+
+		for (Object[] row : rows) {
+
+			multi.reset();
+			hub.reset();
+			sat.reset();
+
+			// business key columns belong to both groups
+			multi.add(row[0], upperCase, hashKey, hashDiff);
+			multi.add(row[1], upperCase, hashKey, hashDiff);
+			hub.add(row[0], upperCase);
+			hub.add(row[1], upperCase);
+			sat.add(row[0], upperCase);
+			sat.add(row[1], upperCase);
+
+			for (int i = 2; i < row.length; i++) {
+				String normalized = multi.normalize(row[i], caseSensitive);
+				multi.addNormalized(normalized, hashDiff);
+				sat.add(row[i], caseSensitive);
+			}
+
+			assertEquals(hub.calculateHash("MD5", HASH_OUTPUT_ENCODINGS.HEX), multi.getGroup("hub").calculateHash());
+			assertEquals(sat.calculateHash("SHA-256", HASH_OUTPUT_ENCODINGS.BASE64), multi.getGroup(hashDiff).calculateHash());
+			assertEquals(sat.getNormalizedString(), multi.getGroup("sat").getNormalizedString());
+		}
+	}
+
+	@Test
+	public void testGroups() {
+
+		MultiNormalization multi = new MultiNormalization(config);
+
+		assertEquals(0, multi.addGroup("", new Hasher("MD5", HASH_OUTPUT_ENCODINGS.HEX), true));
+		assertEquals(1, multi.addGroup("diff", new Hasher("MD5", HASH_OUTPUT_ENCODINGS.HEX), true));
+		assertEquals(2, multi.getGroupCount());
+		assertEquals(1, multi.getGroupIndex("diff"));
+
+		try {
+			multi.addGroup("diff", new Hasher("MD5", HASH_OUTPUT_ENCODINGS.HEX), true);
+			fail("duplicate group name");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+
+		try {
+			multi.getGroupIndex("hub");
+			fail("unknown group name");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+}
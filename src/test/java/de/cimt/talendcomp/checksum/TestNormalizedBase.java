@@ -0,0 +1,172 @@
+package de.cimt.talendcomp.checksum;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.junit.Test;
+
+import de.cimt.talendcomp.checksum.HashCalculation.HASH_OUTPUT_ENCODINGS;
+
+public class TestNormalizedBase {
+
+	private static final String[] VALUES = {null, "", "a", "|", "||", ";", "\"\"", "x|", "|x", "\"", "ä€", "😀", "\ud83d"};
+
+	private NormalizeObjectConfig itemConfig = new NormalizeObjectConfig("CASE_SENSITIVE", false);
+
+	private NormalizeConfig config(String delimiter, boolean quoting) {
+		return new NormalizeConfig(delimiter, "", quoting, "\"", "yyyy-MM-dd'T'HH:mm:ss.SSS", "ENGLISH", 7, 15, false, null, false, true);
+	}
+
+	/**
+	 * the cut off as it was done on the whole string before the cut length was tracked
+	 */
+	private static String cutOff(String normalizedString, String delimiter, String emptyQuotation) {
+
+		boolean endsWithDelimter = normalizedString.endsWith(delimiter);
+		boolean endsWithEmptyQuotation = emptyQuotation != null && normalizedString.endsWith(emptyQuotation);
+
+		while (endsWithDelimter || endsWithEmptyQuotation) {
+
+			if (endsWithDelimter)
+				normalizedString = normalizedString.substring(0, normalizedString.length() - delimiter.length());
+
+			if (endsWithEmptyQuotation)
+				normalizedString = normalizedString.substring(0, normalizedString.length() - emptyQuotation.length());
+
+			endsWithDelimter = normalizedString.endsWith(delimiter);
+			endsWithEmptyQuotation = emptyQuotation != null && normalizedString.endsWith(emptyQuotation);
+		}
+
+		return normalizedString;
+	}
+
+	@Test
+	public void testTrackedCutOffEqualsCutOffOfWholeString() {
+
+		Random random = new Random(17);
+
+		for (String delimiter : new String[] {";", "|", "||", "|;|"}) {
+			for (boolean quoting : new boolean[] {false, true}) {
+
+				NormalizeConfig config = config(delimiter, quoting);
+				Normalization normalization = new Normalization(config);
+				NormalizeConfig uncut = config(delimiter, quoting);
+				uncut.setCutOffEmptyTrailingObjects(false);
+				Normalization reference = new Normalization(uncut);
+
+				for (int row = 0; row < 2000; row++) {
+
+					normalization.reset();
+					reference.reset();
+					int count = 1 + random.nextInt(8);
+
+					for (int i = 0; i < count; i++) {
+
+						String value = VALUES[random.nextInt(VALUES.length)];
+
+						if (random.nextBoolean()) {
+							normalization.addNormalized(value);
+							reference.addNormalized(value);
+						} else {
+							normalization.add(value, itemConfig);
+							reference.add(value, itemConfig);
+						}
+					}
+
+					String whole = reference.getNormalizedString();
+					String expected = whole == null ? null : cutOff(whole, delimiter, quoting ? "\"\"" : null);
+
+					assertEquals(delimiter + " " + quoting + " " + whole, expected, normalization.getNormalizedString());
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testTokensOverlappingThePreviousValue() {
+
+		Normalization normalization = new Normalization(config("||", false));
+
+		normalization.addNormalized("a|");
+		normalization.addNormalized("");
+		normalization.addNormalized("|");
+
+		// a| + || + || + | -> a + ||||||
+		assertEquals("a", normalization.getNormalizedString());
+	}
+
+	@Test
+	public void testStringIsCreatedOnce() {
+
+		Normalization normalization = new Normalization(config(";", true), new Hasher("MD5", HASH_OUTPUT_ENCODINGS.HEX), false);
+
+		normalization.add("a", itemConfig);
+		normalization.add("", itemConfig);
+
+		String hash = normalization.calculateHash();
+		String normalized = normalization.getNormalizedString();
+
+		assertEquals("\"a\"", normalized);
+		assertSame(normalized, normalization.getNormalizedString());
+		assertEquals(HashCalculation.getMD5Hash(normalized, HASH_OUTPUT_ENCODINGS.HEX), hash);
+
+		normalization.add("b", itemConfig);
+		assertEquals("\"a\";\"\";\"b\"", normalization.getNormalizedString());
+	}
+
+	@Test
+	public void testViews() {
+
+		Normalization normalization = new Normalization(config(";", false));
+
+		assertNull(normalization.getNormalizedChars());
+		assertNull(normalization.getNormalizedBytes());
+
+		normalization.addNormalized("ä€😀");
+		normalization.addNormalized("\ud83d");
+		normalization.addNormalized("");
+
+		String normalized = normalization.getNormalizedString();
+		CharSequence chars = normalization.getNormalizedChars();
+
+		assertEquals(normalized.length(), chars.length());
+		assertEquals(normalized, chars.toString());
+		assertEquals(normalized.substring(1, 3), chars.subSequence(1, 3).toString());
+
+		ByteBuffer bytes = normalization.getNormalizedBytes();
+		byte[] actual = new byte[bytes.remaining()];
+		bytes.get(actual);
+
+		assertArrayEquals(normalized.getBytes(StandardCharsets.UTF_8), actual);
+
+		// the view follows the added objects
+		normalization.addNormalized("x");
+		assertEquals(normalized + ";;x", chars.toString());
+	}
+
+	@Test
+	public void testConfigChangedAfterAdd() {
+
+		NormalizeConfig config = config(";", false);
+		Normalization normalization = new Normalization(config);
+
+		normalization.addNormalized("a|");
+		normalization.addNormalized("");
+		config.setDelimter("|");
+
+		// the length tracked for the delimiter ; does not apply anymore
+		assertEquals("a|;", normalization.getNormalizedString());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testNoViewWhileStreaming() {
+
+		Normalization normalization = new Normalization(config(";", false), "MD5");
+		normalization.addNormalized("a");
+		normalization.getNormalizedChars();
+	}
+
+}
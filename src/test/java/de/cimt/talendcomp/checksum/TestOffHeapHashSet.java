@@ -0,0 +1,126 @@
+package de.cimt.talendcomp.checksum;
+
+import static org.junit.Assert.*;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import de.cimt.talendcomp.checksum.HashCalculation.HASH_OUTPUT_ENCODINGS;
+
+public class TestOffHeapHashSet {
+
+	@Test
+	public void testAddAndGrowAcrossSegments() {
+
+		// 8 slots per buffer, so the table is spread over many buffers after growing
+		OffHeapHashSet set = new OffHeapHashSet(0, 3);
+		Set<Hash128> reference = new HashSet<Hash128>();
+		Random random = new Random(19);
+
+		for (int i = 0; i < 50000; i++) {
+
+			// a small range of values to get duplicates
+			Hash128 hash = new Hash128(random.nextInt(20000), random.nextLong() & 7);
+
+			assertEquals(reference.add(hash), set.add(hash));
+		}
+
+		assertEquals(reference.size(), set.size());
+		assertEquals(50000 - reference.size(), set.getDuplicates());
+		assertTrue(set.getCapacity() * 0.75 >= set.size());
+		assertEquals(set.getCapacity() * 16, set.getMemorySize());
+
+		for (Hash128 hash : reference) {
+			assertTrue(set.contains(hash.getHigh(), hash.getLow()));
+		}
+
+		assertFalse(set.contains(20001, 0));
+	}
+
+	@Test
+	public void testGrowWithRandomHashes() {
+
+		// the values spread over all buffers, including the probes which wrap around to the first buffer
+		OffHeapHashSet set = new OffHeapHashSet(0, 4);
+		Random random = new Random(4711);
+		Hash128[] hashes = new Hash128[20000];
+
+		for (int i = 0; i < hashes.length; i++) {
+			hashes[i] = new Hash128(random.nextLong(), random.nextLong());
+			assertTrue(set.add(hashes[i]));
+		}
+
+		assertEquals(hashes.length, set.size());
+
+		for (Hash128 hash : hashes) {
+			assertTrue(set.contains(hash.getHigh(), hash.getLow()));
+			assertFalse(set.add(hash));
+		}
+
+		set.close();
+		assertEquals(0, set.getMemorySize());
+		set.close();
+	}
+
+	@Test
+	public void testZeroAndNull() {
+
+		OffHeapHashSet set = new OffHeapHashSet(10);
+
+		assertFalse(set.contains(0, 0));
+		assertTrue(set.add(0, 0));
+		assertFalse(set.add(new Hash128(0, 0)));
+		assertTrue(set.contains(0, 0));
+
+		assertTrue(set.addValue(null));
+		assertFalse(set.addValue(null));
+		assertEquals(2, set.size());
+	}
+
+	@Test
+	public void testHashOutputsOfAllEncodings() {
+
+		NormalizeConfig config = new NormalizeConfig(";", "", true, "\"", "yyyy-MM-dd'T'HH:mm:ss.SSS", "ENGLISH", 7, 15, false, null, false, false);
+		NormalizeObjectConfig itemConfig = new NormalizeObjectConfig("CASE_SENSITIVE", false);
+
+		for (HASH_OUTPUT_ENCODINGS encoding : HASH_OUTPUT_ENCODINGS.values()) {
+
+			Normalization normalization = new Normalization(config, new Hasher("MD5", encoding), false);
+			OffHeapHashSet set = new OffHeapHashSet(100);
+
+			for (int i = 0; i < 100; i++) {
+				normalization.reset();
+				normalization.add("value " + (i % 30), itemConfig);
+				assertEquals(encoding.name(), i < 30, set.addValue(normalization.calculateHashValue()));
+			}
+
+			assertEquals(30, set.size());
+		}
+	}
+
+	@Test
+	public void testHexIsParsed() {
+
+		OffHeapHashSet set = new OffHeapHashSet(10);
+
+		set.addValue("0123456789abcdef0011223344556677");
+
+		assertTrue(set.contains(0x0123456789abcdefL, 0x0011223344556677L));
+		assertFalse(set.add(Hash128.fromBytes(HashCalculation.decodeHex("0123456789abcdef0011223344556677"))));
+		// BASE64 and other strings
+		assertTrue(set.addValue("ASNFZ4mrze8AESIzRFVmdw=="));
+		assertFalse(set.addValue("ASNFZ4mrze8AESIzRFVmdw=="));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testClosed() {
+
+		OffHeapHashSet set = new OffHeapHashSet(10);
+		set.close();
+		set.add(1, 2);
+	}
+
+}
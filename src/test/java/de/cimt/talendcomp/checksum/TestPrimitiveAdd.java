@@ -0,0 +1,118 @@
+package de.cimt.talendcomp.checksum;
+
+import static org.junit.Assert.*;
+
+import java.text.NumberFormat;
+import java.util.Locale;
+import java.util.Random;
+
+import org.junit.Test;
+
+import de.cimt.talendcomp.checksum.HashCalculation.HASH_OUTPUT_ENCODINGS;
+
+public class TestPrimitiveAdd {
+
+	private NormalizeObjectConfig itemConfig = new NormalizeObjectConfig("CASE_SENSITIVE", false);
+
+	private NormalizeConfig newConfig(String numberFormat) {
+		return new NormalizeConfig(";", "", true, "\"", "yyyy-MM-dd'T'HH:mm:ss.SSS", numberFormat, 7, 15, false, null, false, false);
+	}
+
+	@Test
+	public void testIntegersLikeNumberFormat() {
+
+		Random random = new Random(7);
+
+		for (String numberFormat : new String[] {"ENGLISH", "GERMAN", "US"}) {
+
+			NormalizeConfig config = newConfig(numberFormat);
+			Normalization normalization = new Normalization(config);
+
+			long[] values = new long[10000];
+			values[0] = Long.MIN_VALUE;
+			values[1] = Long.MAX_VALUE;
+			values[2] = Integer.MIN_VALUE;
+			values[3] = Integer.MAX_VALUE;
+			values[4] = 0;
+			values[5] = -1;
+			for (int i = 6; i < values.length; i++) {
+				values[i] = random.nextLong() >> random.nextInt(64);
+			}
+
+			for (long value : values) {
+
+				normalization.reset();
+				normalization.add(value);
+				assertEquals(config.getIntegerFormat().format(value), normalization.getNormalizedString());
+
+				normalization.reset();
+				normalization.add((int) value);
+				assertEquals(config.getIntegerFormat().format((int) value), normalization.getNormalizedString());
+
+				normalization.reset();
+				normalization.add((short) value);
+				assertEquals(config.getIntegerFormat().format((short) value), normalization.getNormalizedString());
+			}
+		}
+	}
+
+	@Test
+	public void testSameAsBoxed() {
+
+		Random random = new Random(11);
+		NormalizeConfig config = newConfig("GERMAN");
+
+		for (boolean streaming : new boolean[] {false, true}) {
+
+			Normalization primitive = new Normalization(config, new Hasher("MD5", HASH_OUTPUT_ENCODINGS.HEX), streaming);
+			Normalization boxed = new Normalization(config, new Hasher("MD5", HASH_OUTPUT_ENCODINGS.HEX), false);
+
+			for (int i = 0; i < 1000; i++) {
+
+				int intValue = random.nextInt();
+				long longValue = random.nextLong();
+				short shortValue = (short) random.nextInt();
+				double doubleValue = random.nextGaussian() * Math.pow(10, random.nextInt(20) - 10);
+				float floatValue = (float) (random.nextGaussian() * Math.pow(10, random.nextInt(10) - 5));
+				boolean booleanValue = random.nextBoolean();
+
+				primitive.reset();
+				primitive.add(null, itemConfig);
+				primitive.add(intValue);
+				primitive.add(longValue);
+				primitive.add(shortValue);
+				primitive.add(doubleValue);
+				primitive.add(floatValue);
+				primitive.add(booleanValue);
+
+				boxed.reset();
+				boxed.add(null, itemConfig);
+				boxed.add(Integer.valueOf(intValue), itemConfig);
+				boxed.add(Long.valueOf(longValue), itemConfig);
+				boxed.add(Short.valueOf(shortValue), itemConfig);
+				boxed.add(Double.valueOf(doubleValue), itemConfig);
+				boxed.add(Float.valueOf(floatValue), itemConfig);
+				boxed.add(Boolean.valueOf(booleanValue), itemConfig);
+
+				if (!streaming)
+					assertEquals(boxed.getNormalizedString(), primitive.getNormalizedString());
+
+				assertEquals(boxed.calculateHash(), primitive.calculateHash());
+			}
+		}
+	}
+
+	@Test
+	public void testReplacedIntegerFormat() {
+
+		NormalizeConfig config = newConfig("ENGLISH");
+		config.setIntegerFormat(NumberFormat.getIntegerInstance(Locale.GERMAN));
+
+		Normalization normalization = new Normalization(config);
+		normalization.add(1234567);
+		normalization.add(Long.valueOf(1234567));
+
+		assertEquals("1.234.567;1.234.567", normalization.getNormalizedString());
+	}
+
+}
@@ -0,0 +1,216 @@
+package de.cimt.talendcomp.checksum;
+
+import static org.junit.Assert.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Test;
+
+import de.cimt.talendcomp.checksum.HashCalculation.HASH_OUTPUT_ENCODINGS;
+
+public class TestRowHashPlan {
+
+	/**
+	 * like the row structs generated by Talend
+	 */
+	private static class RowStruct {
+		String name;
+		int id;
+		Long amount;
+		Double price;
+		float rate;
+		Boolean active;
+		Character flag;
+		Date created;
+		BigDecimal total;
+		Object other;
+	}
+
+	private NormalizeConfig config = new NormalizeConfig(";", "#NULL#", true, "\"", "yyyy-MM-dd'T'HH:mm:ss.SSS", "ENGLISH", 7, 15, false, null, false, false);
+
+	private List<RowHashPlan.Column<RowStruct>> columns(int[] groups) {
+
+		List<RowHashPlan.Column<RowStruct>> columns = new ArrayList<RowHashPlan.Column<RowStruct>>();
+
+		columns.add(new RowHashPlan.StringColumn<RowStruct>("name", "UPPER_CASE", true, groups) {
+			@Override
+			public String get(RowStruct row) {
+				return row.name;
+			}
+		});
+		columns.add(new RowHashPlan.IntColumn<RowStruct>("id", "CASE_SENSITIVE", false, groups) {
+			@Override
+			public int get(RowStruct row) {
+				return row.id;
+			}
+		});
+		columns.add(new RowHashPlan.LongColumn<RowStruct>("amount", "CASE_SENSITIVE", false, groups) {
+			@Override
+			public boolean isNull(RowStruct row) {
+				return row.amount == null;
+			}
+			@Override
+			public long get(RowStruct row) {
+				return row.amount;
+			}
+		});
+		columns.add(new RowHashPlan.DoubleColumn<RowStruct>("price", "CASE_SENSITIVE", false, groups) {
+			@Override
+			public boolean isNull(RowStruct row) {
+				return row.price == null;
+			}
+			@Override
+			public double get(RowStruct row) {
+				return row.price;
+			}
+		});
+		columns.add(new RowHashPlan.FloatColumn<RowStruct>("rate", "CASE_SENSITIVE", false, groups) {
+			@Override
+			public float get(RowStruct row) {
+				return row.rate;
+			}
+		});
+		columns.add(new RowHashPlan.BooleanColumn<RowStruct>("active", "CASE_SENSITIVE", false, groups) {
+			@Override
+			public boolean isNull(RowStruct row) {
+				return row.active == null;
+			}
+			@Override
+			public boolean get(RowStruct row) {
+				return row.active;
+			}
+		});
+		columns.add(new RowHashPlan.CharacterColumn<RowStruct>("flag", "LOWER_CASE", false, groups) {
+			@Override
+			public boolean isNull(RowStruct row) {
+				return row.flag == null;
+			}
+			@Override
+			public char get(RowStruct row) {
+				return row.flag;
+			}
+		});
+		columns.add(new RowHashPlan.DateColumn<RowStruct>("created", "CASE_SENSITIVE", false, groups) {
+			@Override
+			public Date get(RowStruct row) {
+				return row.created;
+			}
+		});
+		columns.add(new RowHashPlan.BigDecimalColumn<RowStruct>("total", "CASE_SENSITIVE", false, groups) {
+			@Override
+			public BigDecimal get(RowStruct row) {
+				return row.total;
+			}
+		});
+		columns.add(new RowHashPlan.ObjectColumn<RowStruct>("other", "UPPER_CASE", false, groups) {
+			@Override
+			public Object get(RowStruct row) {
+				return row.other;
+			}
+		});
+
+		return columns;
+	}
+
+	private List<RowStruct> rows() {
+
+		List<RowStruct> rows = new ArrayList<RowStruct>();
+
+		RowStruct row = new RowStruct();
+		row.name = " Test \"1\" ";
+		row.id = 42;
+		row.amount = 1234567890123L;
+		row.price = 12.5;
+		row.rate = 0.1f;
+		row.active = true;
+		row.flag = 'X';
+		row.created = new Date(1234567890123L);
+		row.total = new BigDecimal("100.00");
+		row.other = "other";
+		rows.add(row);
+
+		// all nullable values are null
+		row = new RowStruct();
+		row.id = -1;
+		rows.add(row);
+
+		row = new RowStruct();
+		row.name = "";
+		row.other = Integer.valueOf(7);
+		rows.add(row);
+
+		return rows;
+	}
+
+	private String expectedHash(RowStruct row) {
+
+		Normalization normalization = new Normalization(config);
+		normalization.add(row.name, new NormalizeObjectConfig("UPPER_CASE", true));
+		normalization.add(row.id, new NormalizeObjectConfig("CASE_SENSITIVE", false));
+		normalization.add(row.amount, new NormalizeObjectConfig("CASE_SENSITIVE", false));
+		normalization.add(row.price, new NormalizeObjectConfig("CASE_SENSITIVE", false));
+		normalization.add(row.rate, new NormalizeObjectConfig("CASE_SENSITIVE", false));
+		normalization.add(row.active, new NormalizeObjectConfig("CASE_SENSITIVE", false));
+		normalization.add(row.flag, new NormalizeObjectConfig("LOWER_CASE", false));
+		normalization.add(row.created, new NormalizeObjectConfig("CASE_SENSITIVE", false));
+		normalization.add(row.total, new NormalizeObjectConfig("CASE_SENSITIVE", false));
+		normalization.add(row.other, new NormalizeObjectConfig("UPPER_CASE", false));
+
+		return normalization.calculateHash("MD5", HASH_OUTPUT_ENCODINGS.HEX);
+	}
+
+	@Test
+	public void testSameAsAddingObjects() {
+
+		for (boolean streaming : new boolean[] {false, true}) {
+
+			Normalization normalization = new Normalization(config, new Hasher("MD5", HASH_OUTPUT_ENCODINGS.HEX), streaming);
+			RowHashPlan<RowStruct> plan = new RowHashPlan<RowStruct>(normalization, columns(new int[] {0}));
+
+			assertEquals(10, plan.getColumnCount());
+
+			for (RowStruct row : rows()) {
+				assertEquals(expectedHash(row), plan.hash(row));
+			}
+		}
+	}
+
+	@Test
+	public void testGroups() {
+
+		MultiNormalization multi = new MultiNormalization(config);
+		multi.addGroup("", new Hasher("MD5", HASH_OUTPUT_ENCODINGS.HEX), false);
+		multi.addGroup("diff", new Hasher("MD5", HASH_OUTPUT_ENCODINGS.HEX), true);
+
+		RowHashPlan<RowStruct> plan = new RowHashPlan<RowStruct>(multi, columns(new int[] {0, multi.getGroupIndex("diff")}));
+
+		for (RowStruct row : rows()) {
+			assertEquals(expectedHash(row), plan.hash(row));
+			assertEquals(expectedHash(row), plan.getNormalization(1).calculateHash());
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUndefinedGroup() {
+		new RowHashPlan<RowStruct>(new Normalization(config, new Hasher("MD5", HASH_OUTPUT_ENCODINGS.HEX), false), columns(new int[] {1}));
+	}
+
+	@Test
+	public void testColumnNameInError() {
+
+		RowHashPlan<RowStruct> plan = new RowHashPlan<RowStruct>(new Normalization(config, new Hasher("MD5", HASH_OUTPUT_ENCODINGS.HEX), false), columns(new int[] {0}));
+		RowStruct row = rows().get(0);
+		row.other = new Object();
+
+		try {
+			plan.hash(row);
+			fail("unsupported type");
+		} catch (IllegalArgumentException e) {
+			assertTrue(e.getMessage(), e.getMessage().contains("column other"));
+		}
+	}
+
+}
@@ -0,0 +1,166 @@
+package de.cimt.talendcomp.checksum;
+
+import static org.junit.Assert.*;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Timestamp;
+import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import org.junit.Test;
+
+import de.cimt.talendcomp.checksum.HashCalculation.HASH_OUTPUT_ENCODINGS;
+
+public class TestSpecializedHasher {
+
+	private static final Class<?>[] TYPES = {String.class, Character.class, Integer.class, int.class, Long.class, long.class, Short.class,
+			Float.class, float.class, Double.class, double.class, Boolean.class, BigDecimal.class, BigInteger.class, Date.class, Object.class, Byte.class};
+
+	private static final String[] CASES = {"CASE_SENSITIVE", "UPPER_CASE", "LOWER_CASE", "NOT_IN_USE"};
+
+	private static Object randomValue(Class<?> type, Random random) {
+
+		if (random.nextInt(5) == 0 && type.isPrimitive() == false)
+			return null;
+
+		if (type == String.class)
+			return random.nextBoolean() ? " Ab\"c " + random.nextInt(100) : "";
+		if (type == Character.class)
+			return (char) ('A' + random.nextInt(40));
+		if (type == Integer.class || type == int.class)
+			return random.nextInt();
+		if (type == Long.class || type == long.class)
+			return random.nextLong() >> random.nextInt(64);
+		if (type == Short.class)
+			return (short) random.nextInt();
+		if (type == Float.class || type == float.class)
+			return (float) random.nextGaussian() * 1000;
+		if (type == Double.class || type == double.class)
+			return random.nextGaussian() * 1e6;
+		if (type == Boolean.class)
+			return random.nextBoolean();
+		if (type == BigDecimal.class)
+			return new BigDecimal(random.nextGaussian() * 1e6);
+		if (type == BigInteger.class)
+			return new BigInteger(80, random);
+		if (type == Date.class)
+			return random.nextBoolean() ? new Date(random.nextLong() >> 21) : new Timestamp(random.nextLong() >> 22);
+
+		// Object and types without a special add method
+		return randomValue(TYPES[random.nextInt(15)], random);
+	}
+
+	private static void assertSameAsNormalization(NormalizeConfig config, List<Class<?>> types, Random random, int rows) {
+
+		List<NormalizeObjectConfig> itemConfigs = new ArrayList<NormalizeObjectConfig>();
+
+		for (int i = 0; i < types.size(); i++) {
+			itemConfigs.add(new NormalizeObjectConfig(CASES[random.nextInt(CASES.length)], random.nextBoolean()));
+		}
+
+		SpecializedHasher generated = SpecializedHasher.create(new Normalization(config, new Hasher("MD5", HASH_OUTPUT_ENCODINGS.HEX), false), itemConfigs, types);
+		SpecializedHasher interpreted = SpecializedHasher.createInterpreted(new Normalization(config, new Hasher("MD5", HASH_OUTPUT_ENCODINGS.HEX), true), itemConfigs, types);
+
+		assertTrue(generated.isGenerated());
+		assertFalse(interpreted.isGenerated());
+
+		Normalization expected = new Normalization(config);
+
+		for (int r = 0; r < rows; r++) {
+
+			Object[] values = new Object[types.size()];
+			expected.reset();
+
+			for (int i = 0; i < values.length; i++) {
+				values[i] = randomValue(types.get(i), random);
+				expected.add(values[i], itemConfigs.get(i));
+			}
+
+			String hash = expected.calculateHash("MD5", HASH_OUTPUT_ENCODINGS.HEX);
+
+			assertEquals(hash, generated.hash(values));
+			assertEquals(expected.getNormalizedString(), generated.getNormalization().getNormalizedString());
+			assertEquals(hash, interpreted.hash(values));
+		}
+	}
+
+	@Test
+	public void testAllTypes() {
+
+		Random random = new Random(11);
+
+		for (String numberFormat : new String[] {"ENGLISH", "GERMAN"}) {
+			for (boolean plainIntegers : new boolean[] {false, true}) {
+
+				NormalizeConfig config = new NormalizeConfig(";", random.nextBoolean() ? "" : null, true, "\"", "yyyy-MM-dd'T'HH:mm:ss.SSS", numberFormat, 3, 7, false, null, false, false);
+
+				if (plainIntegers == false)
+					config.setIntegerFormat(NumberFormat.getIntegerInstance(Locale.GERMAN));
+
+				assertSameAsNormalization(config, Arrays.<Class<?>>asList(TYPES), random, 2000);
+			}
+		}
+	}
+
+	@Test
+	public void testRandomSchemas() {
+
+		Random random = new Random(12);
+		NormalizeConfig config = new NormalizeConfig("|", "#NULL#", false, "\"", "yyyyMMdd", "ENGLISH", 7, 15, true, null, false, false);
+
+		for (int s = 0; s < 50; s++) {
+
+			List<Class<?>> types = new ArrayList<Class<?>>();
+			int columns = s == 0 ? 1000 : random.nextInt(30) + 1;
+
+			for (int i = 0; i < columns; i++) {
+				types.add(TYPES[random.nextInt(TYPES.length)]);
+			}
+
+			assertSameAsNormalization(config, types, random, s == 0 ? 20 : 100);
+		}
+	}
+
+	@Test
+	public void testEmptySchema() {
+
+		NormalizeConfig config = new NormalizeConfig(";", "", true, "\"", "yyyyMMdd", "ENGLISH", 7, 15, false, null, false, false);
+		List<Class<?>> types = new ArrayList<Class<?>>();
+		SpecializedHasher hasher = SpecializedHasher.create(new Normalization(config, new Hasher("MD5", HASH_OUTPUT_ENCODINGS.HEX), false), new ArrayList<NormalizeObjectConfig>(), types);
+
+		assertTrue(hasher.isGenerated());
+		hasher.add(new Object[0]);
+		assertNull(hasher.getNormalization().getNormalizedString());
+	}
+
+	@Test
+	public void testWrongType() {
+
+		NormalizeConfig config = new NormalizeConfig(";", "", true, "\"", "yyyyMMdd", "ENGLISH", 7, 15, false, null, false, false);
+		List<Class<?>> types = new ArrayList<Class<?>>();
+		types.add(Integer.class);
+		SpecializedHasher hasher = SpecializedHasher.create(new Normalization(config, new Hasher("MD5", HASH_OUTPUT_ENCODINGS.HEX), false),
+				Arrays.asList(new NormalizeObjectConfig("CASE_SENSITIVE", false)), types);
+
+		try {
+			hasher.hash(new Object[] {"1"});
+			fail("String is not an Integer");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+
+		try {
+			hasher.hash(new Object[] {1, 2});
+			fail("too many values");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+}
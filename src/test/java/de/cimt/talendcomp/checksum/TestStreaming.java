@@ -0,0 +1,173 @@
+package de.cimt.talendcomp.checksum;
+
+import static org.junit.Assert.*;
+
+import java.math.BigDecimal;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import de.cimt.talendcomp.checksum.HashCalculation.HASH_OUTPUT_ENCODINGS;
+
+public class TestStreaming {
+
+	private NormalizeObjectConfig itemConfig;
+	
+	@Before
+	public void setup() {
+		itemConfig = new NormalizeObjectConfig("UPPER_CASE", true);
+	}
+	
+	@Test
+	public void testSameHashAsBuffered() {
+		
+		NormalizeConfig config = new NormalizeConfig(";", "", true, "\"", "yyyy-MM-dd'T'HH:mm:ss.SSS", "ENGLISH", 7, 15, false, null, false, false);
+		
+		Calendar calendar = GregorianCalendar.getInstance();
+		calendar.clear();
+		calendar.set(2017, 00, 01, 12, 5, 30);
+		
+		assertSameHash(config, "MD5", "test", 123);
+		assertSameHash(config, "SHA1", "test", 123L, 1.5d, new BigDecimal("15.15"), true, 'c');
+		assertSameHash(config, "SHA-256", "Straße", calendar.getTime(), "Müßigkeit");
+		assertSameHash(config, "MD5", "😀 emoji", "column\"two");
+		assertSameHash(config, "MD5", null, null);
+		assertSameHash(config, "MD5", "", "");
+	}
+	
+	@Test
+	public void testResult() {
+		
+		NormalizeConfig config = new NormalizeConfig(";", "", true, "\"", "yyyy-MM-dd'T'HH:mm:ss.SSS", "ENGLISH", 7, 1, false, null, false, false);
+		Normalization normalization = new Normalization(config, "MD5");
+		
+		normalization.reset();
+		normalization.add("test", itemConfig);
+		normalization.add(123, itemConfig);
+		
+		assertEquals("3bd106921f2a35c66c27e4b342de7b4e", normalization.calculateHash("MD5", HASH_OUTPUT_ENCODINGS.HEX));
+		// calculating twice returns the same result
+		assertEquals("3bd106921f2a35c66c27e4b342de7b4e", normalization.calculateHash("MD5", HASH_OUTPUT_ENCODINGS.HEX));
+		
+		normalization.reset();
+		normalization.add(null, itemConfig);
+		normalization.add(null, itemConfig);
+		
+		assertEquals("9eecb7db59d16c80417c72d1e1f4fbf1", normalization.calculateHash("MD5", HASH_OUTPUT_ENCODINGS.HEX));
+	}
+	
+	@Test
+	public void testCutOffEmptyTrailing() {
+		
+		NormalizeConfig config = new NormalizeConfig(";", "", true, "\"", "yyyy-MM-dd'T'HH:mm:ss.SSS", "ENGLISH", 7, 15, false, null, false, true);
+		
+		assertSameHash(config, "MD5", "Test", "");
+		assertSameHash(config, "MD5", "Test", "", "");
+		assertSameHash(config, "MD5", "Test", null, "");
+		assertSameHash(config, "MD5", "Test", "", null);
+		assertSameHash(config, "MD5", "Test", "", null, "Value", null);
+		assertSameHash(config, "MD5", "", "", "Test");
+		assertSameHash(config, "MD5", "a\"", "", "");
+		assertSameHash(config, "MD5", 1, 2, null, null);
+		
+		config.setQuotingEnabled(false);
+		assertSameHash(config, "MD5", "Test", "", null);
+		assertSameHash(config, "MD5", "Test;", ";", "");
+		assertSameHash(config, "MD5", null, null, null);
+		
+		// multi character delimiter
+		config.setDelimter("#;#");
+		assertSameHash(config, "MD5", "Test#", ";#", "", "#;", null);
+		assertSameHash(config, "MD5", "#", ";", "#", "");
+		
+		// delimiter and empty quotation overlap
+		config.setQuotingEnabled(true);
+		config.setQuotationCharacter("#");
+		assertSameHash(config, "MD5", "Test", "", null);
+	}
+	
+	@Test
+	public void testRandomCutOff() {
+		
+		NormalizeConfig config = new NormalizeConfig(";", "", true, "\"", "yyyy-MM-dd'T'HH:mm:ss.SSS", "ENGLISH", 7, 15, false, null, false, true);
+		
+		String[] delimiters = {";", ";;", "ab", "aba", "\""};
+		String[] quotes = {"\"", "a", ";", "ba"};
+		String[] values = {null, "", "a", "b", ";", "\"", "ab", "ba", ";;", "x"};
+		
+		Random random = new Random(4711);
+		
+		for (int run = 0; run < 5000; run++) {
+			
+			config.setDelimter(delimiters[random.nextInt(delimiters.length)]);
+			config.setQuotationCharacter(quotes[random.nextInt(quotes.length)]);
+			config.setQuotingEnabled(random.nextBoolean());
+			config.setNullReplacement(random.nextBoolean() ? "" : null);
+			
+			itemConfig.setCaseSensitive(NormalizeObjectConfig.CaseSensitive.CASE_SENSITIVE);
+			itemConfig.setTrimming(false);
+			
+			Object[] objects = new Object[1 + random.nextInt(8)];
+			for (int i = 0; i < objects.length; i++) {
+				objects[i] = values[random.nextInt(values.length)];
+			}
+			
+			assertSameHash(config, "MD5", objects);
+		}
+	}
+	
+	@Test(expected = IllegalStateException.class)
+	public void testNormalizedStringNotRetained() {
+		
+		NormalizeConfig config = new NormalizeConfig(";", "", true, "\"", "yyyy-MM-dd'T'HH:mm:ss.SSS", "ENGLISH", 7, 15, false, null, false, false);
+		Normalization normalization = new Normalization(config, "MD5");
+		
+		normalization.add("test", itemConfig);
+		normalization.getNormalizedString();
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testAlgorithmMismatch() {
+		
+		NormalizeConfig config = new NormalizeConfig(";", "", true, "\"", "yyyy-MM-dd'T'HH:mm:ss.SSS", "ENGLISH", 7, 15, false, null, false, false);
+		Normalization normalization = new Normalization(config, "MD5");
+		
+		normalization.add("test", itemConfig);
+		normalization.calculateHash("SHA1", HASH_OUTPUT_ENCODINGS.HEX);
+	}
+	
+	private void assertSameHash(NormalizeConfig config, String algorithm, Object... objects) {
+		
+		Normalization buffered = new Normalization(config);
+		Normalization streaming = new Normalization(config, algorithm);
+		
+		// run twice to check reset
+		for (int i = 0; i < 2; i++) {
+			
+			buffered.reset();
+			streaming.reset();
+			
+			for (Object object : objects) {
+				buffered.add(object, itemConfig);
+				streaming.add(object, itemConfig);
+			}
+			
+			assertEquals(calculateHash(buffered, algorithm), calculateHash(streaming, algorithm));
+		}
+	}
+	
+	/**
+	 * Returns the hash or the class of the exception, some overlapping delimiter / quotation configurations can not be cut off
+	 */
+	private static String calculateHash(Normalization normalization, String algorithm) {
+		try {
+			return normalization.calculateHash(algorithm, HASH_OUTPUT_ENCODINGS.HEX);
+		} catch (RuntimeException e) {
+			return e.getClass().getName();
+		}
+	}
+	
+}